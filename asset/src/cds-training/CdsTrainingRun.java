@@ -0,0 +1,37 @@
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Launcher for the fast-startup build's AppCDS training run (see the fast-startup profile in pom.xml),
+ * run as a source file so it never joins the application classpath.
+ *
+ * The archive only matches the classpath it was recorded with, and the shipped jar carries no H2, so the
+ * training database cannot go on -cp. Instead H2 comes from its own class loader, set as the context class
+ * loader, which is where Spring Boot and Hikari look up the driver class; the application classpath stays
+ * exactly what production runs with.
+ *
+ * Usage: java -cp app.jar CdsTrainingRun.java path/to/h2.jar main.Class [args...]
+ */
+public class CdsTrainingRun {
+    public static void main(String[] args) throws Throwable {
+        ClassLoader application = ClassLoader.getSystemClassLoader();
+        try {
+            Class.forName("org.h2.Driver", false, application);
+            throw new IllegalStateException("H2 is on the application classpath; build fast-startup without -Pembedded-db");
+        } catch (ClassNotFoundException expected) {
+            // The shipped classpath is H2-free
+        }
+
+        URLClassLoader training = new URLClassLoader(new URL[] { Path.of(args[0]).toUri().toURL() }, application);
+        Thread.currentThread().setContextClassLoader(training);
+        try {
+            Class.forName(args[1], true, application).getMethod("main", String[].class)
+                .invoke(null, (Object) Arrays.copyOfRange(args, 2, args.length));
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.military.asset.config;
+
+import com.military.asset.security.BaseScope;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Applies the caller's base scope (see BaseScope) to each entity manager and transaction, and carries it
+ * to the task executor's threads.
+ */
+@Configuration
+public class BaseScopeConfig {
+
+    // Entity managers opened outside a transaction start scoped to the thread's base, and every transaction
+    // re-applies it on begin. The dialect is set after initialization, since the transaction manager takes
+    // the factory's in afterPropertiesSet.
+    @Bean
+    public static BeanPostProcessor baseScopeDialect() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean factory) {
+                    factory.setEntityManagerInitializer(entityManager -> BaseScope.applyTo(entityManager.unwrap(Session.class)));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JpaTransactionManager transactionManager) {
+                    transactionManager.setJpaDialect(new HibernateJpaDialect() {
+                        @Override
+                        public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+                                throws PersistenceException, SQLException {
+                            BaseScope.applyTo(entityManager.unwrap(Session.class));
+                            return super.beginTransaction(entityManager, definition);
+                        }
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Picked up by the auto-configured applicationTaskExecutor
+    @Bean
+    public TaskDecorator baseScopeTaskDecorator() {
+        return task -> {
+            Long baseId = BaseScope.current();
+            return () -> BaseScope.with(baseId, task);
+        };
+    }
+}
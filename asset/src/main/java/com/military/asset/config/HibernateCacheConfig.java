@@ -0,0 +1,70 @@
+package com.military.asset.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Second-level and query cache for the reference entities (Base, AssetType, User), backed by
+ * Caffeine through JCache. Set up in code rather than in application.properties so the test
+ * context, which replaces that file, runs with the same cache.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hibernate.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class HibernateCacheConfig {
+    public static final String BASE_REGION = "base";
+    public static final String ASSET_TYPE_REGION = "assetType";
+    public static final String USER_REGION = "user";
+    public static final String QUERY_REGION = "default-query-results-region";
+    public static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    // One manager per context; the provider hands out the same manager for the same URI
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${hibernate.cache.reference-max-entries:10000}") long referenceMaxEntries,
+                                              @Value("${hibernate.cache.query-max-entries:10000}") long queryMaxEntries) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : new String[] {BASE_REGION, ASSET_TYPE_REGION, USER_REGION}) {
+            cacheManager.createCache(region, configuration(OptionalLong.of(referenceMaxEntries)));
+        }
+        cacheManager.createCache(QUERY_REGION, configuration(OptionalLong.of(queryMaxEntries)));
+        // Evicting a timestamp could let the query cache serve results older than a table update
+        cacheManager.createCache(TIMESTAMPS_REGION, configuration(OptionalLong.empty()));
+        System.out.println(">>> Hibernate second-level cache enabled for regions " + BASE_REGION + ", " + ASSET_TYPE_REGION
+            + ", " + USER_REGION + " (max " + referenceMaxEntries + " entries each)");
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                  @Value("${hibernate.cache.statistics-enabled:true}") boolean statistics) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", "true");
+            properties.put("hibernate.cache.use_query_cache", "true");
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+            properties.put("hibernate.generate_statistics", String.valueOf(statistics));
+            // Statistics on, per-session metric logging off
+            properties.put("hibernate.session.events.log", "false");
+        };
+    }
+
+    // Entries are held by reference: Hibernate already stores disassembled state, not entity instances
+    private static CaffeineConfiguration<Object, Object> configuration(OptionalLong maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(maximumSize);
+        return configuration;
+    }
+}
@@ -0,0 +1,32 @@
+package com.military.asset.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "jdbc.concurrency-limit.enabled", havingValue = "true")
+public class JdbcConcurrencyLimitConfig {
+
+    // Sized to the Hikari pool so the semaphore, not the pool, is where callers queue
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource hikari ? limit(hikari) : bean;
+            }
+        };
+    }
+
+    // Also applied by ShardingConfig to each shard's pool, which is not a bean of its own
+    static DataSource limit(HikariDataSource hikari) {
+        System.out.println(">>> Limiting JDBC concurrency to " + hikari.getMaximumPoolSize() + " connections"
+            + (hikari.getPoolName() == null ? "" : " on " + hikari.getPoolName()));
+        return new ConcurrencyLimitedDataSource(hikari, hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+    }
+}
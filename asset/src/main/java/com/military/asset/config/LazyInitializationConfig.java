@@ -0,0 +1,21 @@
+package com.military.asset.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    // Only consulted when spring.main.lazy-initialization=true (fast-startup profile). The connection pool,
+    // Flyway + Hibernate validation (pulled in by the EntityManagerFactory) and the security chain stay eager;
+    // @Scheduled beans are already kept eager by Boot.
+    @Bean
+    public static LazyInitializationExcludeFilter eagerInfrastructure() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class, SecurityFilterChain.class);
+    }
+}
@@ -1,7 +1,10 @@
 package com.military.asset.config;
 
+import com.military.asset.filter.EndpointClass;
 import com.military.asset.security.CustomUserDetailsService;
 import com.military.asset.security.JwtAuthenticationFilter;
+import com.military.asset.service.RateLimitService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -37,16 +40,21 @@ public class SecurityConfig {
             .csrf().disable()
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers("/api/bases/nearby").hasAnyRole("ADMIN", "BASE_COMMANDER", "LOGISTICS_OFFICER")
                 .requestMatchers("/api/bases/**").permitAll()
                 .requestMatchers("/api/users/me").authenticated()
                 .requestMatchers("/api/users/**").permitAll()
                 .requestMatchers("/api/dashboard/**").authenticated()
+                .requestMatchers("/api/sync/**").authenticated()
                 .requestMatchers("/api/audit-logs/**").hasRole("ADMIN")
+                .requestMatchers("/api/cache/**").hasRole("ADMIN")
+                .requestMatchers("/api/rate-limits/**").hasRole("ADMIN")
                 .requestMatchers("/api/asset-types/**").hasAnyRole("ADMIN", "LOGISTICS_OFFICER")
                 .requestMatchers("/api/assets/**").hasAnyRole("ADMIN", "BASE_COMMANDER", "LOGISTICS_OFFICER")
                 .requestMatchers("/api/purchases/**").hasAnyRole("ADMIN", "LOGISTICS_OFFICER")
                 .requestMatchers("/api/transfers/**").hasAnyRole("ADMIN", "LOGISTICS_OFFICER")
                 .requestMatchers("/api/assignments/**").hasAnyRole("ADMIN", "BASE_COMMANDER")
+                .requestMatchers("/api/expenditures/rates").hasAnyRole("ADMIN", "BASE_COMMANDER", "LOGISTICS_OFFICER")
                 .requestMatchers("/api/expenditures/**").hasAnyRole("ADMIN", "BASE_COMMANDER")
                 .anyRequest().authenticated()
             )
@@ -58,6 +66,30 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Per user and endpoint class: a burst of capacity requests, then perMinute. Anonymous callers
+    // (login, refresh and the public base and user endpoints) are limited per client address.
+    @Bean
+    public RateLimitService rateLimitService(@Value("${rate-limit.enabled:true}") boolean enabled) {
+        return withLimits(new RateLimitService(enabled));
+    }
+
+    public static RateLimitService withLimits(RateLimitService limits) {
+        limits.limit(RateLimitService.ANONYMOUS, EndpointClass.AUTH, 10, 30)
+            .limit(RateLimitService.ANONYMOUS, EndpointClass.READ, 60, 300)
+            .limit(RateLimitService.ANONYMOUS, EndpointClass.WRITE, 20, 60)
+            .limit("ADMIN", EndpointClass.AUTH, 20, 60)
+            .limit("ADMIN", EndpointClass.READ, 300, 3000)
+            .limit("ADMIN", EndpointClass.WRITE, 200, 1200)
+            .limit("ADMIN", EndpointClass.HEAVY_READ, 30, 120);
+        for (String role : new String[] {"BASE_COMMANDER", "LOGISTICS_OFFICER"}) {
+            limits.limit(role, EndpointClass.AUTH, 20, 60)
+                .limit(role, EndpointClass.READ, 200, 1200)
+                .limit(role, EndpointClass.WRITE, 100, 600)
+                .limit(role, EndpointClass.HEAVY_READ, 20, 60);
+        }
+        return limits;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,76 @@
+package com.military.asset.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One DataSource per shard, chosen per connection by the shard bound to the current thread (shard 0,
+ * the home shard, when none is). Bases are placed by the configured map, or by id modulo the shard
+ * count; generated ids carry their shard in the bits above {@link #ID_BITS}, so a row can be found
+ * from its id alone.
+ *
+ * Sits behind a LazyConnectionDataSourceProxy: a transaction only fetches its connection at the first
+ * statement, so the shard can be chosen after the transaction has begun.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    public static final int ID_BITS = 40;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+    private final Map<Long, Integer> baseShards;
+
+    public ShardRoutingDataSource(List<DataSource> shards, Map<Long, Integer> baseShards) {
+        this.shards = List.copyOf(shards);
+        this.baseShards = Map.copyOf(baseShards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        afterPropertiesSet();
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    // Binds the shard to this thread; returns the previous binding for restore()
+    public static Integer bind(Integer shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    public static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int shardOfBase(long baseId) {
+        Integer mapped = baseShards.get(baseId);
+        return mapped != null ? mapped : (int) Math.floorMod(baseId, (long) shards.size());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.military.asset.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-base sharding: {@code sharding.urls[n]} gives one database per shard (the first is the home shard,
+ * which also holds the users, audit log and idempotency records), and {@code sharding.bases=1:0,2:1}
+ * pins bases to shards; other bases go by id modulo the shard count. Every shard gets the full schema
+ * and a copy of the reference tables, and its per-base tables number their rows from shard << 40.
+ * With jdbc.concurrency-limit.enabled each shard's pool gets its own semaphore, as a single pool would.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+    // Tables whose rows belong to a base and get their ids generated on the shard holding it
+    static final List<String> SHARDED_TABLES = List.of("asset", "purchase", "transfer", "assignment", "expenditure",
+        "inventory_movement");
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 @Value("${sharding.bases:}") List<String> bases,
+                                 @Value("${jdbc.concurrency-limit.enabled:false}") boolean limitConcurrency) throws SQLException {
+        // Indexed (sharding.urls[0]=...) since JDBC URLs may contain commas themselves
+        List<String> urls = Binder.get(environment).bind("sharding.urls", Bindable.listOf(String.class)).get();
+        List<DataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .url(urls.get(shard).trim()).build();
+            dataSource.setPoolName("shard-" + shard);
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration")
+                .baselineOnMigrate(true).baselineVersion("1").load().migrate();
+            if (shard > 0) {
+                numberFrom(dataSource, (long) shard << ShardRoutingDataSource.ID_BITS);
+            }
+            shards.add(limitConcurrency ? JdbcConcurrencyLimitConfig.limit(dataSource) : dataSource);
+        }
+
+        Map<Long, Integer> baseShards = new HashMap<>();
+        for (String entry : bases) {
+            if (!entry.isBlank()) {
+                String[] parts = entry.split(":");
+                int shard = Integer.parseInt(parts[1].trim());
+                if (shard < 0 || shard >= shards.size()) {
+                    throw new IllegalArgumentException("Base " + parts[0].trim() + " is mapped to unknown shard " + shard);
+                }
+                baseShards.put(Long.parseLong(parts[0].trim()), shard);
+            }
+        }
+        System.out.println(">>> Sharding across " + shards.size() + " databases, " + baseShards.size() + " bases pinned");
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards, baseShards));
+    }
+
+    // Restarts id generation at first unless the table is already past it
+    private void numberFrom(DataSource dataSource, long first) throws SQLException {
+        boolean mysql;
+        try (Connection connection = dataSource.getConnection()) {
+            mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String table : SHARDED_TABLES) {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (max == null || max < first) {
+                jdbcTemplate.execute(mysql ? "ALTER TABLE " + table + " AUTO_INCREMENT = " + first
+                    : "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + first);
+            }
+        }
+    }
+}
@@ -1,28 +1,73 @@
 package com.military.asset.controller;
 
 import com.military.asset.model.Asset;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.AssetFacetService;
 import com.military.asset.service.AssetService;
+import com.military.asset.service.SparseFieldService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/assets")
 public class AssetController {
     private final AssetService assetService;
-    public AssetController(AssetService assetService) { this.assetService = assetService; }
+    private final AssetFacetService assetFacetService;
+
+    public AssetController(AssetService assetService, AssetFacetService assetFacetService) {
+        this.assetService = assetService;
+        this.assetFacetService = assetFacetService;
+    }
 
     @GetMapping
-    public ResponseEntity<List<Asset>> getAllAssets(
+    public ResponseEntity<?> getAllAssets(
             @RequestParam(required = false) Long baseId,
             @RequestParam(required = false) Long assetTypeId,
             @RequestParam(required = false) String dateFrom,
-            @RequestParam(required = false) String dateTo) {
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(required = false) String fields) {
+        // fields=a,b.c: only those columns are queried and returned
+        if (SparseFieldService.requested(fields)) {
+            try {
+                return ResponseEntity.ok(assetService.findFieldsByFilters(fields, baseId, assetTypeId));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return ResponseEntity.ok(assetService.findByFilters(baseId, assetTypeId, dateFrom, dateTo));
     }
 
+    // Counts per base, asset type, category and status for the assets matching every given filter;
+    // several values for one filter (e.g. status=ACTIVE,MAINTENANCE) match any of them
+    @GetMapping("/facets")
+    public ResponseEntity<AssetFacetService.FacetCounts> getFacets(
+            @RequestParam(required = false) List<String> baseId,
+            @RequestParam(required = false) List<String> assetTypeId,
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> status) {
+        Map<AssetFacetService.Facet, List<String>> filters = new EnumMap<>(AssetFacetService.Facet.class);
+        // The index is not base-scoped, so confine a scoped caller here
+        filters.put(AssetFacetService.Facet.BASE, BaseScope.restrict(baseId));
+        filters.put(AssetFacetService.Facet.ASSET_TYPE, assetTypeId);
+        filters.put(AssetFacetService.Facet.CATEGORY, category);
+        filters.put(AssetFacetService.Facet.STATUS, status);
+        return ResponseEntity.ok(assetFacetService.count(filters));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Asset> getAssetById(@PathVariable Long id) {
+    public ResponseEntity<?> getAssetById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (SparseFieldService.requested(fields)) {
+            try {
+                Optional<Map<String, Object>> row = assetService.findFieldsById(id, fields);
+                return row.isPresent() ? ResponseEntity.ok(row.get()) : ResponseEntity.notFound().build();
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return assetService.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
@@ -6,11 +6,13 @@ import com.military.asset.model.User;
 import com.military.asset.service.AssignmentService;
 import com.military.asset.service.AssetService;
 import com.military.asset.service.UserService;
+import com.military.asset.service.SparseFieldService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -28,16 +30,33 @@ public class AssignmentController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Assignment>> getAllAssignments(
+    public ResponseEntity<?> getAllAssignments(
             @RequestParam(required = false) Long baseId,
             @RequestParam(required = false) Long assetTypeId,
             @RequestParam(required = false) String dateFrom,
-            @RequestParam(required = false) String dateTo) {
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(required = false) String fields) {
+        // fields=a,b.c: only those columns are queried and returned
+        if (SparseFieldService.requested(fields)) {
+            try {
+                return ResponseEntity.ok(assignmentService.findFieldsByFilters(fields, baseId, assetTypeId, dateFrom, dateTo));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return ResponseEntity.ok(assignmentService.findByFilters(baseId, assetTypeId, dateFrom, dateTo));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Assignment> getAssignmentById(@PathVariable Long id) {
+    public ResponseEntity<?> getAssignmentById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (SparseFieldService.requested(fields)) {
+            try {
+                Optional<Map<String, Object>> row = assignmentService.findFieldsById(id, fields);
+                return row.isPresent() ? ResponseEntity.ok(row.get()) : ResponseEntity.notFound().build();
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return assignmentService.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
@@ -48,6 +67,8 @@ public class AssignmentController {
             assignment.setAsset(assetService.findById(request.getAssetId()).orElseThrow());
             assignment.setAssignedTo(userService.findById(request.getAssignedToId()).orElseThrow());
             assignment.setAssignedDate(LocalDate.parse(request.getAssignmentDate()));
+            assignment.setReturnDate(request.getReturnDate() != null && !request.getReturnDate().isBlank()
+                ? LocalDate.parse(request.getReturnDate()) : null);
             assignment.setNotes(request.getNotes());
             
             // Set the current user as assignedBy
@@ -73,6 +94,9 @@ public class AssignmentController {
             existing.setAsset(assetService.findById(request.getAssetId()).orElseThrow());
             existing.setAssignedTo(userService.findById(request.getAssignedToId()).orElseThrow());
             existing.setAssignedDate(LocalDate.parse(request.getAssignmentDate()));
+            // Like the other fields, replaced outright: null or blank clears it
+            existing.setReturnDate(request.getReturnDate() != null && !request.getReturnDate().isBlank()
+                ? LocalDate.parse(request.getReturnDate()) : null);
             existing.setNotes(request.getNotes());
             
             String username = authentication.getName();
@@ -116,6 +140,8 @@ public class AssignmentController {
         private Long assetId;
         private Long assignedToId;
         private String assignmentDate;
+        // Expected return date; ACTIVE assignments past it are expired by AssignmentExpiryService
+        private String returnDate;
         private String notes;
 
         // Getters and setters
@@ -128,6 +154,9 @@ public class AssignmentController {
         public String getAssignmentDate() { return assignmentDate; }
         public void setAssignmentDate(String assignmentDate) { this.assignmentDate = assignmentDate; }
         
+        public String getReturnDate() { return returnDate; }
+        public void setReturnDate(String returnDate) { this.returnDate = returnDate; }
+        
         public String getNotes() { return notes; }
         public void setNotes(String notes) { this.notes = notes; }
     }
@@ -1,6 +1,7 @@
 package com.military.asset.controller;
 
 import com.military.asset.model.Base;
+import com.military.asset.service.BaseLocationService;
 import com.military.asset.service.BaseService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,9 +12,11 @@ import java.util.List;
 @RequestMapping("/api/bases")
 public class BaseController {
     private final BaseService baseService;
+    private final BaseLocationService baseLocationService;
 
-    public BaseController(BaseService baseService) {
+    public BaseController(BaseService baseService, BaseLocationService baseLocationService) {
         this.baseService = baseService;
+        this.baseLocationService = baseLocationService;
     }
 
     @GetMapping
@@ -21,6 +24,37 @@ public class BaseController {
         return ResponseEntity.ok(baseService.findAll());
     }
 
+    // GET /api/bases/nearby?baseId=4&radiusKm=300&assetTypeId=7&status=ACTIVE - bases nearest to a point
+    // (latitude/longitude) or to another base, closest first; with an asset type or status, only bases
+    // holding at least minCount such assets, with their counts
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getNearbyBases(
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Long baseId,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Long assetTypeId,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "1") long minCount) {
+        try {
+            if (baseId != null) {
+                double[] origin = baseLocationService.coordinatesOf(baseId);
+                if (origin == null) {
+                    return ResponseEntity.badRequest().body("Error finding nearby bases: base " + baseId + " has no coordinates");
+                }
+                latitude = origin[0];
+                longitude = origin[1];
+            } else if (latitude == null || longitude == null) {
+                return ResponseEntity.badRequest().body("Error finding nearby bases: give latitude and longitude, or baseId");
+            }
+            return ResponseEntity.ok(baseLocationService.findNearby(latitude, longitude, limit, radiusKm, baseId,
+                assetTypeId, status, minCount));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error finding nearby bases: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Base> getBaseById(@PathVariable Long id) {
         return baseService.findById(id)
@@ -29,18 +63,25 @@ public class BaseController {
     }
 
     @PostMapping
-    public ResponseEntity<Base> createBase(@RequestBody Base base) {
-        return ResponseEntity.ok(baseService.save(base));
+    public ResponseEntity<?> createBase(@RequestBody Base base) {
+        try {
+            return ResponseEntity.ok(baseService.save(base));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error creating base: " + e.getMessage());
+        }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Base> updateBase(@PathVariable Long id, @RequestBody Base base) {
-        return baseService.findById(id)
-                .map(existing -> {
-                    base.setId(id);
-                    return ResponseEntity.ok(baseService.save(base));
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> updateBase(@PathVariable Long id, @RequestBody Base base) {
+        if (baseService.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            base.setId(id);
+            return ResponseEntity.ok(baseService.save(base));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error updating base: " + e.getMessage());
+        }
     }
 
     @DeleteMapping("/{id}")
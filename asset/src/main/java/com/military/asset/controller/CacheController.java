@@ -0,0 +1,34 @@
+package com.military.asset.controller;
+
+import com.military.asset.service.CacheStatisticsService;
+import com.military.asset.service.RequestCoalescer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+    private final CacheStatisticsService cacheStatisticsService;
+    private final RequestCoalescer requestCoalescer;
+
+    public CacheController(CacheStatisticsService cacheStatisticsService, RequestCoalescer requestCoalescer) {
+        this.cacheStatisticsService = cacheStatisticsService;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    // GET /api/cache/statistics
+    @GetMapping("/statistics")
+    public ResponseEntity<?> statistics() {
+        try {
+            return ResponseEntity.ok(cacheStatisticsService.regions());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error reading cache statistics: " + e.getMessage());
+        }
+    }
+
+    // GET /api/cache/coalescing - calls absorbed by in-flight identical reads, per coalesced read
+    @GetMapping("/coalescing")
+    public ResponseEntity<?> coalescing() {
+        return ResponseEntity.ok(requestCoalescer.statistics());
+    }
+}
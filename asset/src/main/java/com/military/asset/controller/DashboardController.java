@@ -1,62 +1,79 @@
 package com.military.asset.controller;
 
-import com.military.asset.service.AssetService;
-import com.military.asset.service.PurchaseService;
-import com.military.asset.service.TransferService;
+import com.military.asset.model.InventoryMovement.MovementType;
+import com.military.asset.security.BaseScope;
 import com.military.asset.service.AssignmentService;
-import com.military.asset.service.ExpenditureService;
+import com.military.asset.service.InventoryLedgerService;
+import com.military.asset.service.RequestCoalescer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardController {
-    private final AssetService assetService;
-    private final PurchaseService purchaseService;
-    private final TransferService transferService;
     private final AssignmentService assignmentService;
-    private final ExpenditureService expenditureService;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final RequestCoalescer requestCoalescer;
 
-    public DashboardController(AssetService assetService, PurchaseService purchaseService, 
-                             TransferService transferService, AssignmentService assignmentService,
-                             ExpenditureService expenditureService) {
-        this.assetService = assetService;
-        this.purchaseService = purchaseService;
-        this.transferService = transferService;
+    public DashboardController(AssignmentService assignmentService, InventoryLedgerService inventoryLedgerService,
+                             @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                             RequestCoalescer requestCoalescer) {
         this.assignmentService = assignmentService;
-        this.expenditureService = expenditureService;
+        this.inventoryLedgerService = inventoryLedgerService;
+        this.taskExecutor = taskExecutor;
+        this.requestCoalescer = requestCoalescer;
     }
 
     @GetMapping("/metrics")
     public ResponseEntity<Map<String, Object>> getDashboardMetrics(
-            @RequestParam(required = false) Long baseId,
+            @RequestParam(name = "baseId", required = false) Long requestedBaseId,
             @RequestParam(required = false) Long assetTypeId,
             @RequestParam(required = false) String dateFrom,
             @RequestParam(required = false) String dateTo) {
-        
-        // Calculate metrics based on filtered data
-        long totalAssets = assetService.countByFilters(baseId, assetTypeId);
-        long totalPurchases = purchaseService.countByFilters(baseId, assetTypeId, dateFrom, dateTo);
-        long totalTransfers = transferService.countByFilters(baseId, assetTypeId, dateFrom, dateTo);
-        long totalAssignments = assignmentService.countByFilters(baseId, assetTypeId, dateFrom, dateTo);
-        long totalExpenditures = expenditureService.countByFilters(baseId, assetTypeId, dateFrom, dateTo);
+        // The ledger is not base-scoped, so a scoped caller only sees their own base
+        Long baseId = BaseScope.restrict(requestedBaseId);
+
+        // Balances are unit quantities from the inventory ledger: opening is the end of the day before
+        // dateFrom (nothing before the ledger starts), closing is the end of dateTo (today if open-ended)
+        LocalDate fromDate = dateFrom != null && !dateFrom.trim().isEmpty() ? LocalDate.parse(dateFrom) : null;
+        LocalDate toDate = dateTo != null && !dateTo.trim().isEmpty() ? LocalDate.parse(dateTo) : LocalDate.now();
+
+        // Identical dashboards opened at the same moment (e.g. shift start) share one run of the queries
+        return ResponseEntity.ok(requestCoalescer.coalesce("dashboard.metrics",
+            () -> metrics(baseId, assetTypeId, fromDate, toDate), baseId, assetTypeId, fromDate, toDate));
+    }
+
+    private Map<String, Object> metrics(Long baseId, Long assetTypeId, LocalDate fromDate, LocalDate toDate) {
+        // The queries are independent, so run them concurrently
+        // (on virtual threads when spring.threads.virtual.enabled=true)
+        CompletableFuture<Long> opening = fromDate == null ? CompletableFuture.completedFuture(0L)
+            : count(() -> inventoryLedgerService.balanceAt(baseId, assetTypeId, fromDate.minusDays(1)));
+        CompletableFuture<Long> closing = count(() -> inventoryLedgerService.balanceAt(baseId, assetTypeId, toDate));
+        CompletableFuture<Map<MovementType, Long>> movementTotals = CompletableFuture.supplyAsync(
+            () -> inventoryLedgerService.movementsBetween(baseId, assetTypeId, fromDate, toDate), taskExecutor);
         
         // Count only active assignments (not returned ones)
-        long activeAssignments = assignmentService.countActiveAssignments(baseId, assetTypeId);
+        CompletableFuture<Long> activeAssignmentCount = count(() -> assignmentService.countActiveAssignments(baseId, assetTypeId));
 
-        // Calculate financial metrics (using counts as placeholders for now)
-        double openingBalance = totalAssets * 1000.0; // Placeholder calculation
-        double purchases = totalPurchases * 5000.0; // Placeholder calculation
-        double transfersIn = totalTransfers * 2000.0; // Placeholder calculation
-        double transfersOut = totalTransfers * 1500.0; // Placeholder calculation
-        double assigned = activeAssignments; // Use actual count of active assignments
-        double expended = totalExpenditures * 1200.0; // Placeholder calculation
-        double closingBalance = openingBalance + purchases + transfersIn - transfersOut - assigned - expended;
-        double netMovement = purchases + transfersIn - transfersOut;
+        Map<MovementType, Long> movements = movementTotals.join();
+        long openingBalance = opening.join();
+        long closingBalance = closing.join();
+        long purchases = movements.get(MovementType.PURCHASE);
+        long transfersIn = movements.get(MovementType.TRANSFER_IN);
+        long transfersOut = -movements.get(MovementType.TRANSFER_OUT);
+        long expended = -movements.get(MovementType.EXPENDED);
+        long assigned = activeAssignmentCount.join();
+        long netMovement = purchases + transfersIn - transfersOut;
 
-        Map<String, Object> metrics = Map.of(
+        return Map.of(
             "openingBalance", openingBalance,
             "closingBalance", closingBalance,
             "netMovement", netMovement,
@@ -66,7 +83,9 @@ public class DashboardController {
             "assigned", assigned,
             "expended", expended
         );
+    }
 
-        return ResponseEntity.ok(metrics);
+    private CompletableFuture<Long> count(Supplier<Long> query) {
+        return CompletableFuture.supplyAsync(query, taskExecutor);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
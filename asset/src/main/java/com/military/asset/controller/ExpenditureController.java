@@ -1,12 +1,18 @@
 package com.military.asset.controller;
 
 import com.military.asset.model.Expenditure;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.ConsumptionRateService;
 import com.military.asset.service.ExpenditureService;
 import com.military.asset.service.AssetService;
 import com.military.asset.service.BaseService;
+import com.military.asset.service.SparseFieldService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/expenditures")
@@ -14,23 +20,51 @@ public class ExpenditureController {
     private final ExpenditureService expenditureService;
     private final AssetService assetService;
     private final BaseService baseService;
-    public ExpenditureController(ExpenditureService expenditureService, AssetService assetService, BaseService baseService) {
+    private final ConsumptionRateService consumptionRateService;
+    public ExpenditureController(ExpenditureService expenditureService, AssetService assetService, BaseService baseService,
+                                 ConsumptionRateService consumptionRateService) {
         this.expenditureService = expenditureService;
         this.assetService = assetService;
         this.baseService = baseService;
+        this.consumptionRateService = consumptionRateService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Expenditure>> getAllExpenditures(
+    public ResponseEntity<?> getAllExpenditures(
             @RequestParam(required = false) Long baseId,
             @RequestParam(required = false) Long assetTypeId,
             @RequestParam(required = false) String dateFrom,
-            @RequestParam(required = false) String dateTo) {
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(required = false) String fields) {
+        // fields=a,b.c: only those columns are queried and returned
+        if (SparseFieldService.requested(fields)) {
+            try {
+                return ResponseEntity.ok(expenditureService.findFieldsByFilters(fields, baseId, assetTypeId, dateFrom, dateTo));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return ResponseEntity.ok(expenditureService.findByFilters(baseId, assetTypeId, dateFrom, dateTo));
     }
 
+    // 7/30/90-day totals and per-day rates for each base/asset type pair
+    @GetMapping("/rates")
+    public ResponseEntity<List<ConsumptionRateService.ConsumptionRate>> getConsumptionRates(
+            @RequestParam(required = false) Long baseId,
+            @RequestParam(required = false) Long assetTypeId) {
+        return ResponseEntity.ok(consumptionRateService.rates(BaseScope.restrict(baseId), assetTypeId, LocalDate.now()));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Expenditure> getExpenditureById(@PathVariable Long id) {
+    public ResponseEntity<?> getExpenditureById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (SparseFieldService.requested(fields)) {
+            try {
+                Optional<Map<String, Object>> row = expenditureService.findFieldsById(id, fields);
+                return row.isPresent() ? ResponseEntity.ok(row.get()) : ResponseEntity.notFound().build();
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return expenditureService.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
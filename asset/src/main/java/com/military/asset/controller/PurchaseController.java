@@ -4,16 +4,24 @@ import com.military.asset.model.Purchase;
 import com.military.asset.model.AssetType;
 import com.military.asset.model.Base;
 import com.military.asset.model.User;
+import com.military.asset.security.BaseScope;
 import com.military.asset.service.PurchaseService;
 import com.military.asset.service.AssetTypeService;
 import com.military.asset.service.BaseService;
+import com.military.asset.service.SpendCubeService;
 import com.military.asset.service.UserService;
+import com.military.asset.service.SparseFieldService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
 
 @RestController
@@ -23,26 +31,102 @@ public class PurchaseController {
     private final AssetTypeService assetTypeService;
     private final BaseService baseService;
     private final UserService userService;
+    private final SpendCubeService spendCubeService;
 
     public PurchaseController(PurchaseService purchaseService, AssetTypeService assetTypeService, 
-                            BaseService baseService, UserService userService) {
+                            BaseService baseService, UserService userService, SpendCubeService spendCubeService) {
         this.purchaseService = purchaseService;
         this.assetTypeService = assetTypeService;
         this.baseService = baseService;
         this.userService = userService;
+        this.spendCubeService = spendCubeService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Purchase>> getAllPurchases(
+    public ResponseEntity<?> getAllPurchases(
             @RequestParam(required = false) Long baseId,
             @RequestParam(required = false) Long assetTypeId,
             @RequestParam(required = false) String dateFrom,
-            @RequestParam(required = false) String dateTo) {
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        // fields=a,b.c: only those columns are queried and returned
+        if (SparseFieldService.requested(fields)) {
+            try {
+                return ResponseEntity.ok(purchaseService.findFieldsByFilters(fields, baseId, assetTypeId, dateFrom, dateTo));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
+        // limit=n[&after=id]: one page in id order; the next page starts after the last id returned
+        if (limit != null) {
+            if (limit < 1 || limit > 1000) {
+                return ResponseEntity.badRequest().body("Error listing purchases: limit must be between 1 and 1000");
+            }
+            return ResponseEntity.ok(purchaseService.findPage(after, limit, baseId, assetTypeId, dateFrom, dateTo));
+        }
         return ResponseEntity.ok(purchaseService.findByFilters(baseId, assetTypeId, dateFrom, dateTo));
     }
 
+    // Spend totals grouped by any of supplier, assetType, base and month, e.g.
+    // /spend?groupBy=base,month&supplier=Acme&from=2024-01&to=2024-06
+    @GetMapping("/spend")
+    public ResponseEntity<?> getSpend(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) String supplier,
+            @RequestParam(required = false) Long assetTypeId,
+            @RequestParam(required = false) Long baseId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        // The cube is not base-scoped, so confine a scoped caller here
+        Long scopedBaseId = BaseScope.restrict(baseId);
+        try {
+            Set<SpendCubeService.Dimension> dimensions = EnumSet.noneOf(SpendCubeService.Dimension.class);
+            if (groupBy != null) {
+                for (String dimension : groupBy) {
+                    String name = dimension.trim().toUpperCase(Locale.ROOT);
+                    dimensions.add(SpendCubeService.Dimension.valueOf(name.equals("ASSETTYPE") ? "ASSET_TYPE" : name));
+                }
+            }
+            return ResponseEntity.ok(spendCubeService.aggregate(dimensions, spendFilter(supplier, assetTypeId, scopedBaseId, from, to), limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error reading spend: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/spend/top-suppliers")
+    public ResponseEntity<?> getTopSuppliers(
+            @RequestParam(required = false) Long assetTypeId,
+            @RequestParam(required = false) Long baseId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "10") int limit) {
+        Long scopedBaseId = BaseScope.restrict(baseId);
+        try {
+            return ResponseEntity.ok(spendCubeService.topSuppliers(spendFilter(null, assetTypeId, scopedBaseId, from, to), limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error reading spend: " + e.getMessage());
+        }
+    }
+
+    private static SpendCubeService.SpendFilter spendFilter(String supplier, Long assetTypeId, Long baseId, String from, String to) {
+        return new SpendCubeService.SpendFilter(supplier, assetTypeId, baseId,
+            from == null || from.isBlank() ? null : YearMonth.parse(from),
+            to == null || to.isBlank() ? null : YearMonth.parse(to));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Purchase> getPurchaseById(@PathVariable Long id) {
+    public ResponseEntity<?> getPurchaseById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (SparseFieldService.requested(fields)) {
+            try {
+                Optional<Map<String, Object>> row = purchaseService.findFieldsById(id, fields);
+                return row.isPresent() ? ResponseEntity.ok(row.get()) : ResponseEntity.notFound().build();
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return purchaseService.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
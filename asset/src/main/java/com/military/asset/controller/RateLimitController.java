@@ -0,0 +1,40 @@
+package com.military.asset.controller;
+
+import com.military.asset.service.ConcurrencyLimitService;
+import com.military.asset.service.RateLimitService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rate-limits")
+public class RateLimitController {
+    private final RateLimitService rateLimitService;
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    public RateLimitController(RateLimitService rateLimitService, ConcurrencyLimitService concurrencyLimitService) {
+        this.rateLimitService = rateLimitService;
+        this.concurrencyLimitService = concurrencyLimitService;
+    }
+
+    // GET /api/rate-limits/statistics - allowed and throttled requests per role and endpoint class
+    @GetMapping("/statistics")
+    public ResponseEntity<?> statistics() {
+        return ResponseEntity.ok(Map.of(
+            "buckets", rateLimitService.bucketCount(),
+            "limits", rateLimitService.statistics()
+        ));
+    }
+
+    // GET /api/rate-limits/concurrency - current adaptive limit, latency and shed requests per endpoint class
+    @GetMapping("/concurrency")
+    public ResponseEntity<?> concurrency() {
+        return ResponseEntity.ok(Map.of(
+            "inFlight", concurrencyLimitService.getTotalInFlight(),
+            "maxInFlight", concurrencyLimitService.getMaxInFlight(),
+            "reservedForWritesAndAuth", concurrencyLimitService.getReserved(),
+            "lanes", concurrencyLimitService.statistics()
+        ));
+    }
+}
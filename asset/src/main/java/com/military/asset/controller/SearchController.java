@@ -0,0 +1,47 @@
+package com.military.asset.controller;
+
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.SearchService;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    private static final int MAX_LIMIT = 50;
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // GET /api/search?q=alp&limit=10&types=ASSET,BASE
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(defaultValue = "10") int limit,
+                                    @RequestParam(required = false) List<String> types,
+                                    @RequestParam(required = false) Long baseId) {
+        try {
+            Set<SearchService.Kind> kinds = null;
+            if (types != null && !types.isEmpty()) {
+                kinds = EnumSet.noneOf(SearchService.Kind.class);
+                for (String type : types) {
+                    kinds.add(SearchService.Kind.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                }
+            }
+            // The index is not base-scoped, so confine a scoped caller here
+            return ResponseEntity.ok(searchService.search(q, kinds, BaseScope.restrict(baseId), Math.min(limit, MAX_LIMIT)));
+        } catch (AccessDeniedException e) {
+            throw e;
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error searching: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.military.asset.controller;
+
+import com.military.asset.service.SyncService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+    private final SyncService syncService;
+    public SyncController(SyncService syncService) { this.syncService = syncService; }
+
+    // since: the watermark from the previous page, omitted for a full sync; types=Asset,Transfer narrows it
+    @GetMapping
+    public ResponseEntity<?> getChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(required = false) List<String> types,
+            Authentication authentication) {
+        List<String> roles = authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .map(authority -> authority.startsWith("ROLE_") ? authority.substring(5) : authority)
+            .toList();
+        try {
+            return ResponseEntity.ok(syncService.page(since, limit, types, roles));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error syncing: " + e.getMessage());
+        }
+    }
+}
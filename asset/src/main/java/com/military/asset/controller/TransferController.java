@@ -4,68 +4,162 @@ import com.military.asset.model.Transfer;
 import com.military.asset.model.Asset;
 import com.military.asset.model.Base;
 import com.military.asset.model.User;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.RebalancingService;
+import com.military.asset.service.TransferFlowService;
 import com.military.asset.service.TransferService;
 import com.military.asset.service.AssetService;
 import com.military.asset.service.BaseService;
 import com.military.asset.service.UserService;
+import com.military.asset.service.SparseFieldService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/transfers")
 public class TransferController {
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final TransferService transferService;
     private final AssetService assetService;
     private final BaseService baseService;
     private final UserService userService;
+    private final TransferFlowService transferFlowService;
+    private final RebalancingService rebalancingService;
 
     public TransferController(TransferService transferService, AssetService assetService, 
-                            BaseService baseService, UserService userService) {
+                            BaseService baseService, UserService userService, TransferFlowService transferFlowService,
+                            RebalancingService rebalancingService) {
         this.transferService = transferService;
         this.assetService = assetService;
         this.baseService = baseService;
         this.userService = userService;
+        this.transferFlowService = transferFlowService;
+        this.rebalancingService = rebalancingService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Transfer>> getAllTransfers(
+    public ResponseEntity<?> getAllTransfers(
             @RequestParam(required = false) Long baseId,
             @RequestParam(required = false) Long assetTypeId,
             @RequestParam(required = false) String dateFrom,
-            @RequestParam(required = false) String dateTo) {
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(required = false) String fields) {
+        // fields=a,b.c: only those columns are queried and returned
+        if (SparseFieldService.requested(fields)) {
+            try {
+                return ResponseEntity.ok(transferService.findFieldsByFilters(fields, baseId, assetTypeId, dateFrom, dateTo));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return ResponseEntity.ok(transferService.findByFilters(baseId, assetTypeId, dateFrom, dateTo));
     }
 
+    // Origin x destination transfer counts for a heatmap; rejected transfers are left out unless asked for
+    @GetMapping("/flows")
+    public ResponseEntity<?> getTransferFlows(
+            @RequestParam(required = false) String dateFrom,
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(required = false) Long baseId,
+            @RequestParam(required = false) Long assetTypeId,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(defaultValue = "true") boolean activeOnly) {
+        // The matrix is not base-scoped, so a scoped caller only sees flows to or from their own base
+        Long scopedBaseId = BaseScope.restrict(baseId);
+        try {
+            Set<Transfer.TransferStatus> statuses = TransferFlowService.DEFAULT_STATUSES;
+            if (status != null && !status.isEmpty()) {
+                statuses = EnumSet.noneOf(Transfer.TransferStatus.class);
+                for (String value : status) {
+                    statuses.add(Transfer.TransferStatus.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+                }
+            }
+            LocalDate from = dateFrom == null || dateFrom.isBlank() ? null : LocalDate.parse(dateFrom);
+            LocalDate to = dateTo == null || dateTo.isBlank() ? null : LocalDate.parse(dateTo);
+            return ResponseEntity.ok(transferFlowService.flows(from, to, scopedBaseId, assetTypeId, statuses, activeOnly));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error reading transfer flows: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Transfer> getTransferById(@PathVariable Long id) {
+    public ResponseEntity<?> getTransferById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (SparseFieldService.requested(fields)) {
+            try {
+                Optional<Map<String, Object>> row = transferService.findFieldsById(id, fields);
+                return row.isPresent() ? ResponseEntity.ok(row.get()) : ResponseEntity.notFound().build();
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("Error selecting fields: " + e.getMessage());
+            }
+        }
         return transferService.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    // Checked like a batch of one: the asset must be at the base it leaves and have no open transfer
     @PostMapping
-    public ResponseEntity<Transfer> createTransfer(@RequestBody TransferRequest request, Authentication authentication) {
+    public ResponseEntity<?> createTransfer(@RequestBody TransferRequest request, Authentication authentication) {
         try {
-            Transfer transfer = new Transfer();
-            transfer.setAsset(assetService.findById(request.getAssetId()).orElseThrow());
-            transfer.setFromBase(baseService.findById(request.getFromBaseId()).orElseThrow());
-            transfer.setToBase(baseService.findById(request.getToBaseId()).orElseThrow());
-            transfer.setDate(LocalDate.parse(request.getTransferDate()));
-            transfer.setReason(request.getReason());
-            
             // Set the current user as createdBy
             String username = authentication.getName();
             User currentUser = userService.findByUsername(username).orElseThrow();
-            transfer.setCreatedBy(currentUser);
             
-            return ResponseEntity.ok(transferService.save(transfer));
+            return ResponseEntity.ok(transferService.create(toTransfer(request, currentUser)));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            return ResponseEntity.badRequest().body("Error creating transfer: " + e.getMessage());
+        }
+    }
+
+    // Suggested transfers that bring stock to the target levels; the "transfers" of the result can be
+    // posted to /batch as they are
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance(@RequestBody RebalanceRequest request) {
+        try {
+            if (request.getTargets() == null || request.getTargets().isEmpty()) {
+                return ResponseEntity.badRequest().body("Error planning rebalancing: no targets given");
+            }
+            String status = request.getStatus() == null || request.getStatus().isBlank() ? "ACTIVE" : request.getStatus();
+            return ResponseEntity.ok(rebalancingService.plan(request.getTargets(), status, request.getBudgetMs(), LocalDate.now()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error planning rebalancing: " + e.getMessage());
+        }
+    }
+
+    // Creates several transfers in one call, all or none; every request is checked before any transfer is created
+    @PostMapping("/batch")
+    public ResponseEntity<?> createTransfers(@RequestBody List<TransferRequest> requests, Authentication authentication) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("Error creating transfers: give 1-" + MAX_BATCH_SIZE + " transfers");
+        }
+        List<Transfer> transfers = new ArrayList<>();
+        Set<Long> assetIds = new HashSet<>();
+        try {
+            User currentUser = userService.findByUsername(authentication.getName()).orElseThrow();
+            for (TransferRequest request : requests) {
+                if (!assetIds.add(request.getAssetId())) {
+                    return ResponseEntity.badRequest().body("Error creating transfers: asset " + request.getAssetId() + " appears twice");
+                }
+                transfers.add(toTransfer(request, currentUser));
+            }
+            return ResponseEntity.ok(transferService.saveAll(transfers));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error creating transfers: " + e.getMessage());
         }
     }
 
+    // Only a PENDING transfer can be edited; once approved, rejected or completed it is 409 like the transitions
     @PutMapping("/{id}")
     public ResponseEntity<Transfer> updateTransfer(@PathVariable Long id, @RequestBody TransferRequest request) {
         Optional<Transfer> existingOpt = transferService.findById(id);
@@ -74,15 +168,20 @@ public class TransferController {
         }
         
         try {
-            Transfer existing = existingOpt.get();
-            existing.setAsset(assetService.findById(request.getAssetId()).orElseThrow());
-            existing.setFromBase(baseService.findById(request.getFromBaseId()).orElseThrow());
-            existing.setToBase(baseService.findById(request.getToBaseId()).orElseThrow());
-            existing.setDate(LocalDate.parse(request.getTransferDate()));
-            existing.setReason(request.getReason());
+            Transfer edit = new Transfer();
+            edit.setAsset(assetService.findById(request.getAssetId()).orElseThrow());
+            edit.setFromBase(baseService.findById(request.getFromBaseId()).orElseThrow());
+            edit.setToBase(baseService.findById(request.getToBaseId()).orElseThrow());
+            edit.setDate(LocalDate.parse(request.getTransferDate()));
+            edit.setReason(request.getReason());
             
-            Transfer saved = transferService.save(existing);
+            Transfer saved = transferService.updatePending(id, edit);
+            if (saved == null) {
+                return ResponseEntity.notFound().build();
+            }
             return ResponseEntity.ok(saved);
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -114,6 +213,8 @@ public class TransferController {
             } else {
                 return ResponseEntity.badRequest().build();
             }
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -139,11 +240,51 @@ public class TransferController {
             } else {
                 return ResponseEntity.badRequest().build();
             }
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Transfer> completeTransfer(@PathVariable Long id, Authentication authentication) {
+        Optional<Transfer> existingOpt = transferService.findById(id);
+        if (existingOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        try {
+            String username = authentication.getName();
+            Optional<User> userOpt = userService.findByUsername(username);
+            if (userOpt.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            
+            Transfer completedTransfer = transferService.completeTransfer(id, userOpt.get());
+            if (completedTransfer != null) {
+                return ResponseEntity.ok(completedTransfer);
+            } else {
+                return ResponseEntity.badRequest().build();
+            }
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private Transfer toTransfer(TransferRequest request, User createdBy) {
+        Transfer transfer = new Transfer();
+        transfer.setAsset(assetService.findById(request.getAssetId()).orElseThrow());
+        transfer.setFromBase(baseService.findById(request.getFromBaseId()).orElseThrow());
+        transfer.setToBase(baseService.findById(request.getToBaseId()).orElseThrow());
+        transfer.setDate(LocalDate.parse(request.getTransferDate()));
+        transfer.setReason(request.getReason());
+        transfer.setCreatedBy(createdBy);
+        return transfer;
+    }
+
     // DTO for request/response
     public static class TransferRequest {
         private Long assetId;
@@ -169,6 +310,22 @@ public class TransferController {
         public void setReason(String reason) { this.reason = reason; }
     }
 
+    public static class RebalanceRequest {
+        private List<RebalancingService.Target> targets;
+        private String status;
+        private Long budgetMs;
+
+        // Getters and setters
+        public List<RebalancingService.Target> getTargets() { return targets; }
+        public void setTargets(List<RebalancingService.Target> targets) { this.targets = targets; }
+
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        public Long getBudgetMs() { return budgetMs; }
+        public void setBudgetMs(Long budgetMs) { this.budgetMs = budgetMs; }
+    }
+
     public static class RejectRequest {
         private String reason;
 
@@ -0,0 +1,49 @@
+package com.military.asset.filter;
+
+import com.military.asset.service.ConcurrencyLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sheds API calls beyond their endpoint class's concurrency limit (ConcurrencyLimitService) with 503.
+ * After RateLimitFilter, so throttled callers never hold a slot.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 90)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitService concurrencyLimitService) {
+        this.concurrencyLimitService = concurrencyLimitService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConcurrencyLimitService.Permit permit = concurrencyLimitService.tryAcquire(EndpointClass.of(request));
+        if (permit == null) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server busy, retry shortly");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.release();
+        }
+    }
+}
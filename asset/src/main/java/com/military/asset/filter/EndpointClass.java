@@ -0,0 +1,30 @@
+package com.military.asset.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Coarse cost classes of API calls, for the per-class request and concurrency limits. HEAVY_READ are the
+ * reads that aggregate or scan across bases: the audit log search, the dashboard, the sync feed and
+ * rebalancing plans.
+ */
+public enum EndpointClass {
+    AUTH, WRITE, READ, HEAVY_READ;
+
+    public static EndpointClass of(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/auth/")) {
+            return AUTH;
+        }
+        // Computes a plan and writes nothing, but is as costly as the heaviest reads
+        if (path.equals("/api/transfers/rebalance")) {
+            return HEAVY_READ;
+        }
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return WRITE;
+        }
+        if (path.equals("/api/audit-logs") || path.startsWith("/api/dashboard") || path.startsWith("/api/sync")) {
+            return HEAVY_READ;
+        }
+        return READ;
+    }
+}
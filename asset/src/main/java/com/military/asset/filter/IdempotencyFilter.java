@@ -0,0 +1,319 @@
+package com.military.asset.filter;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.military.asset.config.JacksonConfig;
+import com.military.asset.model.IdempotencyRecord;
+import com.military.asset.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes mutating API calls that carry an Idempotency-Key header safe to retry.
+ *
+ * Runs after the security filter chain so keys are scoped to the authenticated user. The first
+ * request for a key executes normally and its response is stored if it is final (see {@link #isFinal});
+ * retries replay it with an Idempotent-Replayed header, and retries that arrive while the first is still
+ * running wait for its result. A key reused with a different request body is refused with 422. A retry that negotiates another format (JSON, Smile or CBOR, from Accept)
+ * than the stored body's gets the same body re-encoded, rather than running the write again.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final int MAX_KEY_LENGTH = 128;
+    // Client errors a retry would only get again. 400 is left out: controllers answer any exception with
+    // it, including ones a retry can get past (lock timeouts, a row not yet visible)
+    private static final Set<Integer> FINAL_CLIENT_ERRORS = Set.of(404, 409, 422);
+
+    private final IdempotencyService idempotencyService;
+    private final long maxWaitMs;
+    private final ObjectMapper json;
+    private final ObjectMapper smile;
+    private final ObjectMapper cbor;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService, ObjectMapper objectMapper,
+                             @Value("${idempotency.in-flight-wait-ms:30000}") long maxWaitMs) {
+        this.idempotencyService = idempotencyService;
+        this.maxWaitMs = maxWaitMs;
+        this.json = objectMapper;
+        this.smile = objectMapper.copyWith(new SmileFactory());
+        this.cbor = objectMapper.copyWith(new CBORFactory());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return request.getHeader(HEADER) == null
+            || !MUTATING_METHODS.contains(request.getMethod())
+            || !path.startsWith("/api/")
+            || path.startsWith("/api/auth/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientKey = request.getHeader(HEADER).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String key = currentUser() + ":" + clientKey;
+        // Read once for the hash; the chain reads the copy
+        CachedBodyRequest cached = new CachedBodyRequest(request, StreamUtils.copyToByteArray(request.getInputStream()));
+        request = cached;
+
+        while (true) {
+            Optional<IdempotencyRecord> completed = idempotencyService.findCompleted(key);
+            if (completed.isPresent()) {
+                replay(cached, response, completed.get());
+                return;
+            }
+
+            CompletableFuture<IdempotencyRecord> owner = idempotencyService.claim(key);
+            if (owner == null) {
+                // The previous owner may have finished between the lookup and the claim
+                completed = idempotencyService.findCompleted(key);
+                if (completed.isPresent()) {
+                    idempotencyService.release(key);
+                    replay(cached, response, completed.get());
+                } else {
+                    execute(cached, response, filterChain, key);
+                }
+                return;
+            }
+
+            IdempotencyRecord result;
+            try {
+                result = owner.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                response.sendError(HttpStatus.CONFLICT.value(), "A request with this " + HEADER + " is still in progress");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            } catch (ExecutionException e) {
+                result = null;
+            }
+            if (result != null) {
+                replay(cached, response, result);
+                return;
+            }
+            // The owner failed without a stored response, so try to become the owner
+        }
+    }
+
+    private void execute(CachedBodyRequest request, HttpServletResponse response, FilterChain filterChain, String key)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (isFinal(wrapper.getStatus())) {
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setKey(key);
+                record.setMethod(request.getMethod());
+                record.setPath(request.getRequestURI());
+                record.setRequestHash(request.hash());
+                record.setStatus(wrapper.getStatus());
+                record.setContentType(wrapper.getContentType());
+                record.setBody(encodeBody(wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                record.setCreatedAt(LocalDateTime.now());
+                idempotencyService.complete(record);
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.release(key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    // Successes, and client errors that deliberately refuse the request as sent
+    private static boolean isFinal(int status) {
+        return status >= 200 && status < 300 || FINAL_CLIENT_ERRORS.contains(status);
+    }
+
+    private void replay(CachedBodyRequest request, HttpServletResponse response, IdempotencyRecord record) throws IOException {
+        // Records stored before bodies were hashed have no hash and are matched on method and path alone
+        if (!record.getMethod().equals(request.getMethod()) || !record.getPath().equals(request.getRequestURI())
+                || record.getRequestHash() != null && !record.getRequestHash().equals(request.hash())) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), HEADER + " was already used for a different request");
+            return;
+        }
+        String contentType = record.getContentType();
+        byte[] body = record.getBody() == null ? null : decodeBody(contentType, record.getBody());
+        ObjectMapper stored = mapperFor(contentType);
+        MediaType wanted = format(request);
+        if (body != null && body.length > 0 && stored != null && stored != mapperFor(wanted.toString())) {
+            // Same tree in the format this retry negotiated; big decimals keep amounts exact
+            body = mapperFor(wanted.toString()).writeValueAsBytes(
+                stored.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS).readTree(body));
+            contentType = wanted.toString();
+        }
+        response.setStatus(record.getStatus());
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        if (body != null) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // The mapper for a JSON, Smile or CBOR body; null for anything else, which is replayed as stored
+    private ObjectMapper mapperFor(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        if (JacksonConfig.SMILE.includes(type)) {
+            return smile;
+        }
+        if (JacksonConfig.CBOR.includes(type)) {
+            return cbor;
+        }
+        return MediaType.APPLICATION_JSON.includes(type) ? json : null;
+    }
+
+    // The body column is text; Smile/CBOR responses are stored base64-encoded
+    private String encodeBody(String contentType, byte[] body) {
+        return JacksonConfig.isBinary(contentType) ? Base64.getEncoder().encodeToString(body) : new String(body, StandardCharsets.UTF_8);
+    }
+
+    private byte[] decodeBody(String contentType, String body) {
+        return JacksonConfig.isBinary(contentType) ? Base64.getDecoder().decode(body) : body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // The format content negotiation will pick: the first of the binary types or JSON, by quality, that Accept allows
+    private static MediaType format(HttpServletRequest request) {
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT)));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.isWildcardType() || type.isWildcardSubtype()) {
+                break;
+            }
+            if (type.isCompatibleWith(JacksonConfig.SMILE)) {
+                return JacksonConfig.SMILE;
+            }
+            if (type.isCompatibleWith(JacksonConfig.CBOR)) {
+                return JacksonConfig.CBOR;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                break;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // The request with its body read up front, so the body can be hashed before the chain reads it
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        String hash() {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+        }
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+}
@@ -0,0 +1,65 @@
+package com.military.asset.filter;
+
+import com.military.asset.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Per-user request limits (RateLimitService). Runs after the security filter chain, so callers are
+ * known by their token's subject and role; unauthenticated calls (login, refresh) are limited per client
+ * address, which behind the proxy Tomcat takes from X-Forwarded-For (server.forward-headers-strategy).
+ * Ahead of IdempotencyFilter, so a throttled retry never claims its key.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+public class RateLimitFilter extends OncePerRequestFilter {
+    static final int TOO_MANY_REQUESTS = 429;
+
+    private final RateLimitService rateLimitService;
+
+    public RateLimitFilter(RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String caller;
+        String role;
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            caller = "address:" + request.getRemoteAddr();
+            role = RateLimitService.ANONYMOUS;
+        } else {
+            caller = "user:" + authentication.getName();
+            role = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith("ROLE_")).map(authority -> authority.substring(5))
+                .findFirst().orElse(RateLimitService.ANONYMOUS);
+        }
+
+        long waitMs = rateLimitService.acquire(caller, role, EndpointClass.of(request));
+        if (waitMs > 0) {
+            response.setHeader("Retry-After", String.valueOf((waitMs + 999) / 1000));
+            response.sendError(TOO_MANY_REQUESTS, "Too many requests, retry after " + (waitMs + 999) / 1000 + "s");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
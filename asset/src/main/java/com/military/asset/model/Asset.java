@@ -1,10 +1,18 @@
 package com.military.asset.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.ChangeSequenceListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
 
 @Entity
-public class Asset {
+@FilterDef(name = BaseScope.FILTER, parameters = @ParamDef(name = BaseScope.PARAMETER, type = Long.class))
+@Filter(name = BaseScope.FILTER, condition = "base_id = :baseId")
+@EntityListeners(ChangeSequenceListener.class)
+public class Asset implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,6 +33,10 @@ public class Asset {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Base base;
 
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     public Asset() {}
 
     public Long getId() {
@@ -35,6 +47,14 @@ public class Asset {
         this.id = id;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public AssetType getAssetType() {
         return assetType;
     }
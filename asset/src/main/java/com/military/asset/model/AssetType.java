@@ -1,9 +1,15 @@
 package com.military.asset.model;
 
+import com.military.asset.service.ChangeSequenceListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-public class AssetType {
+@EntityListeners(ChangeSequenceListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "assetType")
+public class AssetType implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -14,6 +20,10 @@ public class AssetType {
     @Column(nullable = false)
     private String category;
 
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     public AssetType() {}
 
     public Long getId() {
@@ -24,6 +34,14 @@ public class AssetType {
         this.id = id;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,11 +1,17 @@
 package com.military.asset.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.ChangeSequenceListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
 import java.time.LocalDate;
 
 @Entity
-public class Assignment {
+// Assignments have no base of their own: the asset's
+@Filter(name = BaseScope.FILTER, condition = "asset_id IN (SELECT scoped.id FROM asset scoped WHERE scoped.base_id = :baseId)")
+@EntityListeners(ChangeSequenceListener.class)
+public class Assignment implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -37,6 +43,10 @@ public class Assignment {
     @Column(columnDefinition = "TEXT")
     private String notes;
 
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     public enum AssignmentStatus {
         ACTIVE, RETURNED, EXPIRED
     }
@@ -51,6 +61,14 @@ public class Assignment {
         this.id = id;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public Asset getAsset() {
         return asset;
     }
@@ -0,0 +1,82 @@
+package com.military.asset.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.military.asset.service.ChangeSequenceListener;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Closed assignments moved out of the assignment table; same columns and ids, plus when the row was moved
+@Entity
+@EntityListeners(ChangeSequenceListener.class)
+@Table(indexes = @Index(name = "idx_assignment_history_assigned_date", columnList = "assigned_date"))
+public class AssignmentHistory implements ChangeTracked {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "asset_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private Asset asset;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assigned_to", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private User assignedTo;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assigned_by", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private User assignedBy;
+
+    @Column(nullable = false)
+    private LocalDate assignedDate;
+
+    private LocalDate returnDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Assignment.AssignmentStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String notes;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
+    public AssignmentHistory() {}
+
+    public Long getId() { return id; }
+    public Asset getAsset() { return asset; }
+    public User getAssignedTo() { return assignedTo; }
+    public User getAssignedBy() { return assignedBy; }
+    public LocalDate getAssignedDate() { return assignedDate; }
+    public LocalDate getReturnDate() { return returnDate; }
+    public Assignment.AssignmentStatus getStatus() { return status; }
+    public String getNotes() { return notes; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public Long getChangeSeq() { return changeSeq; }
+
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+
+    public String syncEntity() { return "Assignment"; }
+
+    // Detached copy in the shape the API returns for live assignments
+    public Assignment toAssignment() {
+        Assignment assignment = new Assignment();
+        assignment.setId(id);
+        assignment.setAsset(asset);
+        assignment.setAssignedTo(assignedTo);
+        assignment.setAssignedBy(assignedBy);
+        assignment.setAssignedDate(assignedDate);
+        assignment.setReturnDate(returnDate);
+        assignment.setStatus(status);
+        assignment.setNotes(notes);
+        assignment.setChangeSeq(changeSeq);
+        return assignment;
+    }
+}
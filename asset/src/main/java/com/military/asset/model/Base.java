@@ -1,9 +1,15 @@
 package com.military.asset.model;
 
+import com.military.asset.service.ChangeSequenceListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-public class Base {
+@EntityListeners(ChangeSequenceListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "base")
+public class Base implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -14,6 +20,15 @@ public class Base {
     @Column(nullable = false)
     private String location;
 
+    // Decimal degrees, both set or both null
+    private Double latitude;
+
+    private Double longitude;
+
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     public Base() {}
 
     public Long getId() {
@@ -24,6 +39,14 @@ public class Base {
         this.id = id;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public String getName() {
         return name;
     }
@@ -39,4 +62,20 @@ public class Base {
     public void setLocation(String location) {
         this.location = location;
     }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
 }
\ No newline at end of file
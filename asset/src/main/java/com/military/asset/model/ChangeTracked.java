@@ -0,0 +1,15 @@
+package com.military.asset.model;
+
+// Entities served by /api/sync; the sequence is stamped by ChangeSequenceListener on every insert and update
+public interface ChangeTracked {
+    Long getId();
+
+    Long getChangeSeq();
+
+    void setChangeSeq(Long changeSeq);
+
+    // Name clients see; history rows report the live entity they were archived from
+    default String syncEntity() {
+        return getClass().getSimpleName();
+    }
+}
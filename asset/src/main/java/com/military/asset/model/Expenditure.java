@@ -1,11 +1,16 @@
 package com.military.asset.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.ChangeSequenceListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
 import java.time.LocalDate;
 
 @Entity
-public class Expenditure {
+@Filter(name = BaseScope.FILTER, condition = "base_id = :baseId")
+@EntityListeners(ChangeSequenceListener.class)
+public class Expenditure implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -34,6 +39,10 @@ public class Expenditure {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private User approvedBy;
 
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     public Expenditure() {}
 
     public Long getId() {
@@ -44,6 +53,14 @@ public class Expenditure {
         this.id = id;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public Asset getAsset() {
         return asset;
     }
@@ -0,0 +1,130 @@
+package com.military.asset.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One signed change to what a base holds of an asset type. Rows are only ever appended;
+// corrections to the source record are written as offsetting movements.
+@Entity
+@Table(indexes = {
+    @Index(name = "idx_inventory_movement_base_date", columnList = "base_id, movement_date"),
+    @Index(name = "idx_inventory_movement_type_date", columnList = "asset_type_id, movement_date"),
+    @Index(name = "idx_inventory_movement_source", columnList = "source_type, source_id")
+})
+public class InventoryMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "base_id", nullable = false)
+    private Long baseId;
+
+    @Column(name = "asset_type_id", nullable = false)
+    private Long assetTypeId;
+
+    @Column(name = "movement_date", nullable = false)
+    private LocalDate movementDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MovementType movementType;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "source_type", nullable = false, length = 20)
+    private String sourceType;
+
+    @Column(name = "source_id", nullable = false)
+    private Long sourceId;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+
+    public enum MovementType {
+        PURCHASE, TRANSFER_IN, TRANSFER_OUT, ASSIGNED, RETURNED, EXPENDED
+    }
+
+    public InventoryMovement() {}
+
+    public InventoryMovement(Long baseId, Long assetTypeId, LocalDate movementDate, MovementType movementType, Integer quantity) {
+        this.baseId = baseId;
+        this.assetTypeId = assetTypeId;
+        this.movementDate = movementDate;
+        this.movementType = movementType;
+        this.quantity = quantity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBaseId() {
+        return baseId;
+    }
+
+    public void setBaseId(Long baseId) {
+        this.baseId = baseId;
+    }
+
+    public Long getAssetTypeId() {
+        return assetTypeId;
+    }
+
+    public void setAssetTypeId(Long assetTypeId) {
+        this.assetTypeId = assetTypeId;
+    }
+
+    public LocalDate getMovementDate() {
+        return movementDate;
+    }
+
+    public void setMovementDate(LocalDate movementDate) {
+        this.movementDate = movementDate;
+    }
+
+    public MovementType getMovementType() {
+        return movementType;
+    }
+
+    public void setMovementType(MovementType movementType) {
+        this.movementType = movementType;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getSourceType() {
+        return sourceType;
+    }
+
+    public void setSourceType(String sourceType) {
+        this.sourceType = sourceType;
+    }
+
+    public Long getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(Long sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+}
@@ -0,0 +1,100 @@
+package com.military.asset.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Checkpointed balance of one base and asset type at the end of snapshotDate, covering every
+// ledger movement up to lastMovementId.
+@Entity
+@IdClass(InventorySnapshot.Key.class)
+@Table(indexes = @Index(name = "idx_inventory_snapshot_date", columnList = "snapshot_date"))
+public class InventorySnapshot {
+    @Id
+    @Column(name = "base_id")
+    private Long baseId;
+
+    @Id
+    @Column(name = "asset_type_id")
+    private Long assetTypeId;
+
+    @Id
+    @Column(name = "snapshot_date")
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    public InventorySnapshot() {}
+
+    public Long getBaseId() {
+        return baseId;
+    }
+
+    public void setBaseId(Long baseId) {
+        this.baseId = baseId;
+    }
+
+    public Long getAssetTypeId() {
+        return assetTypeId;
+    }
+
+    public void setAssetTypeId(Long assetTypeId) {
+        this.assetTypeId = assetTypeId;
+    }
+
+    public LocalDate getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public void setSnapshotDate(LocalDate snapshotDate) {
+        this.snapshotDate = snapshotDate;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    public Long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    public void setLastMovementId(Long lastMovementId) {
+        this.lastMovementId = lastMovementId;
+    }
+
+    public static class Key implements Serializable {
+        private Long baseId;
+        private Long assetTypeId;
+        private LocalDate snapshotDate;
+
+        public Key() {}
+
+        public Key(Long baseId, Long assetTypeId, LocalDate snapshotDate) {
+            this.baseId = baseId;
+            this.assetTypeId = assetTypeId;
+            this.snapshotDate = snapshotDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(baseId, key.baseId) && Objects.equals(assetTypeId, key.assetTypeId)
+                && Objects.equals(snapshotDate, key.snapshotDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseId, assetTypeId, snapshotDate);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.military.asset.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.ChangeSequenceListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
 import java.time.LocalDate;
 import java.math.BigDecimal;
 
 @Entity
-public class Purchase {
+@Filter(name = BaseScope.FILTER, condition = "base_id = :baseId")
+@EntityListeners(ChangeSequenceListener.class)
+public class Purchase implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -44,6 +49,10 @@ public class Purchase {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private User createdBy;
 
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     public Purchase() {}
 
     public Long getId() {
@@ -54,6 +63,14 @@ public class Purchase {
         this.id = id;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public AssetType getAssetType() {
         return assetType;
     }
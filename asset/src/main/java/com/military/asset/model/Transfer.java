@@ -1,11 +1,17 @@
 package com.military.asset.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.military.asset.security.BaseScope;
+import com.military.asset.service.ChangeSequenceListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
 import java.time.LocalDate;
 
 @Entity
-public class Transfer {
+// Both ends of a transfer see it
+@Filter(name = BaseScope.FILTER, condition = "(from_base_id = :baseId OR to_base_id = :baseId)")
+@EntityListeners(ChangeSequenceListener.class)
+public class Transfer implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -45,8 +51,25 @@ public class Transfer {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private User createdBy;
 
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
+    // PENDING -> APPROVED -> COMPLETED, or PENDING -> REJECTED
     public enum TransferStatus {
-        PENDING, APPROVED, COMPLETED, REJECTED
+        PENDING, APPROVED, COMPLETED, REJECTED;
+
+        public boolean canTransitionTo(TransferStatus next) {
+            switch (this) {
+                case PENDING: return next == APPROVED || next == REJECTED;
+                case APPROVED: return next == COMPLETED;
+                default: return false;
+            }
+        }
     }
 
     public Transfer() {}
@@ -54,6 +77,9 @@ public class Transfer {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+
     public Asset getAsset() { return asset; }
     public void setAsset(Asset asset) { this.asset = asset; }
 
@@ -78,6 +104,9 @@ public class Transfer {
     public User getCreatedBy() { return createdBy; }
     public void setCreatedBy(User createdBy) { this.createdBy = createdBy; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     // For JSON serialization compatibility with frontend
     public String getTransferDate() {
         return date != null ? date.toString() : null;
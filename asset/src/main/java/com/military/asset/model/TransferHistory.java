@@ -0,0 +1,97 @@
+package com.military.asset.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.military.asset.service.ChangeSequenceListener;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Completed and rejected transfers moved out of the transfer table; same columns and ids, plus when the row was moved
+@Entity
+@EntityListeners(ChangeSequenceListener.class)
+@Table(indexes = @Index(name = "idx_transfer_history_date", columnList = "date"))
+public class TransferHistory implements ChangeTracked {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "asset_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private Asset asset;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "from_base_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private Base fromBase;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "to_base_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private Base toBase;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Transfer.TransferStatus status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "approved_by")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private User approvedBy;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private User createdBy;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Sequence of the last insert or update, for /api/sync
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
+    public TransferHistory() {}
+
+    public Long getId() { return id; }
+    public Asset getAsset() { return asset; }
+    public Base getFromBase() { return fromBase; }
+    public Base getToBase() { return toBase; }
+    public LocalDate getDate() { return date; }
+    public String getReason() { return reason; }
+    public Transfer.TransferStatus getStatus() { return status; }
+    public User getApprovedBy() { return approvedBy; }
+    public User getCreatedBy() { return createdBy; }
+    public Long getVersion() { return version; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public Long getChangeSeq() { return changeSeq; }
+
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+
+    public String syncEntity() { return "Transfer"; }
+
+    // Detached copy in the shape the API returns for live transfers
+    public Transfer toTransfer() {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setAsset(asset);
+        transfer.setFromBase(fromBase);
+        transfer.setToBase(toBase);
+        transfer.setDate(date);
+        transfer.setReason(reason);
+        transfer.setStatus(status);
+        transfer.setApprovedBy(approvedBy);
+        transfer.setCreatedBy(createdBy);
+        transfer.setVersion(version);
+        transfer.setChangeSeq(changeSeq);
+        return transfer;
+    }
+}
@@ -0,0 +1,290 @@
+package com.military.asset.perf;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Seeds the perf profile database with a large synthetic dataset.
+ *
+ * Every column value is a pure function of (seed, table, row id, column), so rows can be
+ * generated by any thread in any order and two runs with the same settings produce the
+ * same database. Each table is split into chunks of {@code perf.dataset.batch-size} rows
+ * that are written as one JDBC batch.
+ */
+@Component
+@Profile("perf")
+public class PerfDataGenerator implements ApplicationRunner {
+    // admin123, same hash as data.sql
+    static final String PASSWORD_HASH = "$2a$10$AKlJXMZ6goBvPa7bd/DaK.p.l0QaDjCu5HzsI8hSu50bKyWYfvHI.";
+    static final LocalDate EPOCH = LocalDate.of(2022, 1, 1);
+    static final int DAYS = 3 * 365;
+
+    private static final String[] CATEGORIES = {"VEHICLE", "WEAPON", "ELECTRONICS", "MEDICAL", "EQUIPMENT"};
+    private static final String[] ROLES = {"BASE_COMMANDER", "LOGISTICS_OFFICER"};
+    private static final String[] ASSET_STATUSES = {"ACTIVE", "ACTIVE", "ACTIVE", "ACTIVE", "MAINTENANCE", "RETIRED"};
+    private static final String[] TRANSFER_STATUSES = {"PENDING", "APPROVED", "COMPLETED", "COMPLETED", "REJECTED"};
+    private static final String[] ASSIGNMENT_STATUSES = {"ACTIVE", "RETURNED", "RETURNED", "EXPIRED"};
+    private static final String[] AUDIT_ENTITIES = {"Purchase", "Transfer", "Assignment", "ASSET"};
+    private static final String[] AUDIT_ACTIONS = {"CREATE_PURCHASE", "CREATE_TRANSFER", "ASSIGN_ASSET", "UPDATE"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${perf.dataset.seed:20240101}") private long seed;
+    @Value("${perf.dataset.threads:4}") private int threads;
+    @Value("${perf.dataset.batch-size:1000}") private int batchSize;
+    @Value("${perf.dataset.bases:500}") private int bases;
+    @Value("${perf.dataset.asset-types:40}") private int assetTypes;
+    @Value("${perf.dataset.users:2000}") private int users;
+    @Value("${perf.dataset.suppliers:60}") private int suppliers;
+    @Value("${perf.dataset.assets:200000}") private int assets;
+    @Value("${perf.dataset.purchases:100000}") private int purchases;
+    @Value("${perf.dataset.transfers:100000}") private int transfers;
+    @Value("${perf.dataset.assignments:150000}") private int assignments;
+    @Value("${perf.dataset.expenditures:100000}") private int expenditures;
+    @Value("${perf.dataset.audit-logs:1000000}") private int auditLogs;
+
+    public PerfDataGenerator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM base", Integer.class);
+        if (existing != null && existing > 0) {
+            System.out.println(">>> Perf dataset already present, skipping generation");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            // Reference tables first; the rest only depend on them
+            insert(pool, "base", bases,
+                "INSERT INTO base (id, name, location) VALUES (?, ?, ?)", this::baseRow);
+            insert(pool, "asset_type", assetTypes,
+                "INSERT INTO asset_type (id, name, category) VALUES (?, ?, ?)", this::assetTypeRow);
+            insert(pool, "user", users,
+                "INSERT INTO user (id, username, password, role, base_id) VALUES (?, ?, ?, ?, ?)", this::userRow);
+            insert(pool, "asset", assets,
+                "INSERT INTO asset (id, serial_number, status, asset_type_id, base_id) VALUES (?, ?, ?, ?, ?)", this::assetRow);
+            insert(pool, "purchase", purchases,
+                "INSERT INTO purchase (id, date, quantity, unit_price, total_amount, supplier, description, asset_type_id, base_id, created_by) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", this::purchaseRow);
+            insert(pool, "transfer", transfers,
+                "INSERT INTO transfer (id, date, reason, status, asset_id, from_base_id, to_base_id, approved_by, created_by, version) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", this::transferRow);
+            insert(pool, "assignment", assignments,
+                "INSERT INTO assignment (id, assigned_date, return_date, status, notes, asset_id, assigned_to, assigned_by) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", this::assignmentRow);
+            insert(pool, "expenditure", expenditures,
+                "INSERT INTO expenditure (id, expenditure_date, quantity, reason, asset_id, base_id, approved_by) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", this::expenditureRow);
+            insert(pool, "audit_log", auditLogs,
+                "INSERT INTO audit_log (id, timestamp, action, entity, entity_id, details, user_id) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                this::auditLogRow);
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println(">>> Perf dataset generated in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void insert(ExecutorService pool, String table, int rows, String sql, RowWriter writer) throws Exception {
+        long start = System.currentTimeMillis();
+        List<Future<?>> chunks = new ArrayList<>();
+        for (long first = 1; first <= rows; first += batchSize) {
+            final long from = first;
+            final long to = Math.min(rows, first + batchSize - 1);
+            chunks.add(pool.submit(() -> jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    writer.write(ps, from + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return (int) (to - from + 1);
+                }
+            })));
+        }
+        for (Future<?> chunk : chunks) {
+            chunk.get();
+        }
+        restartIdentity(table, rows + 1L);
+        System.out.println(">>> Generated " + rows + " rows in " + table + " (" + (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    // Explicit ids leave the identity generator behind, so move it past the generated rows
+    private void restartIdentity(String table, long next) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if ("H2".equalsIgnoreCase(product)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + next);
+        }
+    }
+
+    private void baseRow(PreparedStatement ps, long id) throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, String.format("Base-%04d", id));
+        ps.setString(3, "Sector " + pick(1, id, 1, 90) + ", Region " + pick(1, id, 2, 12));
+    }
+
+    private void assetTypeRow(PreparedStatement ps, long id) throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, String.format("Type-%03d", id));
+        ps.setString(3, CATEGORIES[(int) (id % CATEGORIES.length)]);
+    }
+
+    private void userRow(PreparedStatement ps, long id) throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, id == 1 ? "admin" : String.format("user%05d", id));
+        ps.setString(3, PASSWORD_HASH);
+        ps.setString(4, id == 1 ? "ADMIN" : ROLES[pick(3, id, 1, ROLES.length)]);
+        ps.setLong(5, skewed(3, id, 2, bases));
+    }
+
+    private void assetRow(PreparedStatement ps, long id) throws SQLException {
+        long type = assetTypeOf(id);
+        ps.setLong(1, id);
+        ps.setString(2, String.format("T%03d-%08d", type, id));
+        ps.setString(3, ASSET_STATUSES[pick(4, id, 1, ASSET_STATUSES.length)]);
+        ps.setLong(4, type);
+        ps.setLong(5, baseOf(id));
+    }
+
+    private void purchaseRow(PreparedStatement ps, long id) throws SQLException {
+        int quantity = 1 + pick(5, id, 1, 50);
+        BigDecimal unitPrice = BigDecimal.valueOf(100 + pick(5, id, 2, 500_000), 2);
+        ps.setLong(1, id);
+        ps.setDate(2, date(5, id, 3));
+        ps.setInt(3, quantity);
+        ps.setBigDecimal(4, unitPrice);
+        ps.setBigDecimal(5, unitPrice.multiply(BigDecimal.valueOf(quantity)));
+        ps.setString(6, String.format("Supplier %02d", skewed(5, id, 4, suppliers)));
+        ps.setString(7, "Synthetic purchase " + id);
+        ps.setLong(8, 1 + pick(5, id, 5, assetTypes));
+        ps.setLong(9, skewed(5, id, 6, bases));
+        ps.setLong(10, user(5, id, 7));
+    }
+
+    private void transferRow(PreparedStatement ps, long id) throws SQLException {
+        long asset = 1 + pick(6, id, 1, assets);
+        long from = baseOf(asset);
+        long to = 1 + pick(6, id, 2, bases);
+        if (to == from) {
+            to = to % bases + 1;
+        }
+        String status = TRANSFER_STATUSES[pick(6, id, 3, TRANSFER_STATUSES.length)];
+        ps.setLong(1, id);
+        ps.setDate(2, date(6, id, 4));
+        ps.setString(3, "Synthetic transfer " + id);
+        ps.setString(4, status);
+        ps.setLong(5, asset);
+        ps.setLong(6, from);
+        ps.setLong(7, to);
+        if ("PENDING".equals(status)) {
+            ps.setNull(8, Types.BIGINT);
+        } else {
+            ps.setLong(8, user(6, id, 5));
+        }
+        ps.setLong(9, user(6, id, 6));
+    }
+
+    private void assignmentRow(PreparedStatement ps, long id) throws SQLException {
+        String status = ASSIGNMENT_STATUSES[pick(7, id, 1, ASSIGNMENT_STATUSES.length)];
+        LocalDate assigned = EPOCH.plusDays(pick(7, id, 2, DAYS));
+        ps.setLong(1, id);
+        ps.setDate(2, Date.valueOf(assigned));
+        if ("ACTIVE".equals(status) && pick(7, id, 3, 2) == 0) {
+            ps.setNull(3, Types.DATE);
+        } else {
+            ps.setDate(3, Date.valueOf(assigned.plusDays(1 + pick(7, id, 4, 120))));
+        }
+        ps.setString(4, status);
+        ps.setString(5, "Synthetic assignment " + id);
+        ps.setLong(6, 1 + pick(7, id, 5, assets));
+        ps.setLong(7, user(7, id, 6));
+        ps.setLong(8, user(7, id, 7));
+    }
+
+    private void expenditureRow(PreparedStatement ps, long id) throws SQLException {
+        long asset = 1 + pick(8, id, 1, assets);
+        ps.setLong(1, id);
+        ps.setDate(2, date(8, id, 2));
+        ps.setInt(3, 1 + pick(8, id, 3, 20));
+        ps.setString(4, "Synthetic expenditure " + id);
+        ps.setLong(5, asset);
+        ps.setLong(6, baseOf(asset));
+        ps.setLong(7, user(8, id, 4));
+    }
+
+    private void auditLogRow(PreparedStatement ps, long id) throws SQLException {
+        int kind = pick(9, id, 1, AUDIT_ENTITIES.length);
+        LocalDateTime timestamp = EPOCH.atStartOfDay().plusMinutes(pick(9, id, 2, DAYS * 24 * 60));
+        ps.setLong(1, id);
+        ps.setTimestamp(2, Timestamp.valueOf(timestamp));
+        ps.setString(3, AUDIT_ACTIONS[kind]);
+        ps.setString(4, AUDIT_ENTITIES[kind]);
+        ps.setLong(5, 1 + pick(9, id, 3, kind == 3 ? assets : purchases));
+        ps.setString(6, "Synthetic audit entry " + id);
+        ps.setLong(7, user(9, id, 4));
+    }
+
+    // Larger installations hold most of the inventory: low base ids are picked far more often
+    long baseOf(long assetId) {
+        return skewed(4, assetId, 2, bases);
+    }
+
+    long assetTypeOf(long assetId) {
+        return 1 + pick(4, assetId, 3, assetTypes);
+    }
+
+    private long user(int table, long id, int column) {
+        return 1 + pick(table, id, column, users);
+    }
+
+    private Date date(int table, long id, int column) {
+        return Date.valueOf(EPOCH.plusDays(pick(table, id, column, DAYS)));
+    }
+
+    private long skewed(int table, long id, int column, int bound) {
+        double u = (mix(seed, table, id, column) >>> 11) * 0x1.0p-53;
+        return 1 + Math.min(bound - 1, (long) (u * u * bound));
+    }
+
+    private int pick(int table, long id, int column, int bound) {
+        return (int) Long.remainderUnsigned(mix(seed, table, id, column), bound);
+    }
+
+    // SplitMix64 finalizer over the cell coordinates
+    static long mix(long seed, int table, long id, int column) {
+        long z = seed + 0x9E3779B97F4A7C15L * (id * 31 + table * 1_000_003L + column * 7919L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, long id) throws SQLException;
+    }
+}
@@ -1,10 +1,23 @@
 package com.military.asset.repository;
 
 import com.military.asset.model.Asset;
+import com.military.asset.model.Base;
+import com.military.asset.model.Transfer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AssetRepository extends JpaRepository<Asset, Long> {
+    // A query rather than a load by key, so the base scope filter applies
+    @Query("SELECT a FROM Asset a WHERE a.id = :id")
+    Optional<Asset> findById(Long id);
+
     long countByBaseId(Long baseId);
     long countByAssetTypeId(Long assetTypeId);
     long countByBaseIdAndAssetTypeId(Long baseId, Long assetTypeId);
@@ -12,4 +25,34 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
     List<Asset> findByBaseId(Long baseId);
     List<Asset> findByAssetTypeId(Long assetTypeId);
     List<Asset> findByBaseIdAndAssetTypeId(Long baseId, Long assetTypeId);
-} 
\ No newline at end of file
+    
+    // Only moves the asset if it is still where the transfer expects it to be
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Asset a SET a.base = :toBase, a.changeSeq = :changeSeq WHERE a.id = :assetId AND a.base = :fromBase")
+    int moveToBase(Long assetId, Base fromBase, Base toBase, Long changeSeq);
+
+    // (baseId, assetTypeId) of one asset without loading it
+    @Query("SELECT a.base.id, a.assetType.id FROM Asset a WHERE a.id = :assetId")
+    List<Object[]> findBaseAndAssetTypeIds(Long assetId);
+
+    @Query("SELECT a.id, a.serialNumber, a.base.id FROM Asset a")
+    List<Object[]> findAllSerialNumbers();
+
+    // Facet index loading: (id, baseId, assetTypeId, status) in id order
+    @Query("SELECT a.id, a.base.id, a.assetType.id, a.status FROM Asset a WHERE a.id > :afterId ORDER BY a.id")
+    List<Object[]> findFacetKeysAfter(Long afterId, Pageable pageable);
+
+    @Query("SELECT a.id, a.base.id, a.assetType.id, a.status FROM Asset a WHERE a.id = :assetId")
+    List<Object[]> findFacetKeys(Long assetId);
+
+    // Assets a new transfer could move: on the base, of the type and status, and in no open transfer
+    @Query("SELECT a.id FROM Asset a WHERE a.base.id = :baseId AND a.assetType.id = :assetTypeId AND a.status = :status "
+        + "AND NOT EXISTS (SELECT t.id FROM Transfer t WHERE t.asset = a AND t.status IN :openStatuses) ORDER BY a.id")
+    List<Long> findMovableIds(Long baseId, Long assetTypeId, String status,
+                              Collection<Transfer.TransferStatus> openStatuses, Pageable pageable);
+
+    // Holds transfer creation for these assets until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Asset a WHERE a.id IN :ids")
+    List<Asset> findAllForUpdate(Collection<Long> ids);
+}
@@ -0,0 +1,42 @@
+package com.military.asset.repository;
+
+import com.military.asset.model.AssignmentHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AssignmentHistoryRepository extends JpaRepository<AssignmentHistory, Long> {
+    // Null filters are unrestricted; same shape as the AssignmentRepository filter queries
+    @Query("SELECT h FROM AssignmentHistory h JOIN FETCH h.asset ast JOIN FETCH ast.assetType JOIN FETCH h.assignedTo JOIN FETCH h.assignedBy " +
+           "WHERE (:baseId IS NULL OR ast.base.id = :baseId) AND (:assetId IS NULL OR ast.id = :assetId) " +
+           "AND (:dateFrom IS NULL OR h.assignedDate >= :dateFrom) AND (:dateTo IS NULL OR h.assignedDate <= :dateTo)")
+    List<AssignmentHistory> findByFilters(@Param("baseId") Long baseId, @Param("assetId") Long assetId,
+                                          @Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
+
+    @Query("SELECT COUNT(h) FROM AssignmentHistory h JOIN h.asset ast " +
+           "WHERE (:baseId IS NULL OR ast.base.id = :baseId) AND (:assetId IS NULL OR ast.id = :assetId) " +
+           "AND (:dateFrom IS NULL OR h.assignedDate >= :dateFrom) AND (:dateTo IS NULL OR h.assignedDate <= :dateTo)")
+    long countByFilters(@Param("baseId") Long baseId, @Param("assetId") Long assetId,
+                        @Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
+
+    @Query("SELECT MAX(h.assignedDate) FROM AssignmentHistory h")
+    LocalDate findLatestAssignedDate();
+
+    // Archiving: copies the given assignment rows as they are, ids and change sequences included
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO AssignmentHistory (id, asset, assignedTo, assignedBy, assignedDate, returnDate, status, notes, changeSeq, archivedAt) " +
+           "SELECT a.id, a.asset, a.assignedTo, a.assignedBy, a.assignedDate, a.returnDate, a.status, a.notes, a.changeSeq, LOCAL_DATETIME " +
+           "FROM Assignment a WHERE a.id IN :ids")
+    int copyFromAssignments(@Param("ids") List<Long> ids);
+
+    // History is not base-scope filtered, so deletes name the caller's base (null: any)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AssignmentHistory h WHERE h.id = :id " +
+           "AND (:baseId IS NULL OR h.asset.id IN (SELECT ast.id FROM Asset ast WHERE ast.base.id = :baseId))")
+    int deleteByIdWithin(@Param("id") Long id, @Param("baseId") Long baseId);
+}
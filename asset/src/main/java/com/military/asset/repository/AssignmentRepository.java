@@ -1,13 +1,23 @@
 package com.military.asset.repository;
 
 import com.military.asset.model.Assignment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
+    // A query rather than a load by key, so the base scope filter applies
+    @Query("SELECT a FROM Assignment a WHERE a.id = :id")
+    Optional<Assignment> findById(Long id);
+
     long countByAssetBaseId(Long baseId);
     long countByAssetAssetTypeId(Long assetTypeId);
     long countByAssetBaseIdAndAssetAssetTypeId(Long baseId, Long assetTypeId);
@@ -43,4 +53,26 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
     @Query("SELECT a FROM Assignment a JOIN FETCH a.asset ast JOIN FETCH ast.assetType JOIN FETCH a.assignedTo JOIN FETCH a.assignedBy WHERE ast.base.id = :baseId AND ast.id = :assetId AND a.assignedDate BETWEEN :dateFrom AND :dateTo")
     List<Assignment> findByAssetBaseIdAndAssetIdAndAssignedDateBetween(@Param("baseId") Long baseId, @Param("assetId") Long assetId, @Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
-} 
\ No newline at end of file
+
+    // Expiry index loading: (id, returnDate) pairs in id order, without touching the joined tables
+    @Query("SELECT a.id, a.returnDate FROM Assignment a WHERE a.id > :afterId AND a.status = :status AND a.returnDate IS NOT NULL ORDER BY a.id")
+    List<Object[]> findReturnDatesAfter(@Param("afterId") Long afterId, @Param("status") Assignment.AssignmentStatus status, Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Assignment a WHERE a.id IN :ids AND a.status = :status AND a.returnDate < :today")
+    List<Assignment> findDueForUpdate(@Param("ids") List<Long> ids, @Param("status") Assignment.AssignmentStatus status, @Param("today") LocalDate today);
+    
+    // History archiving: closed assignments assigned before the cutoff, in id order
+    @Query("SELECT a.id FROM Assignment a WHERE a.id > :afterId AND a.status IN :statuses AND a.assignedDate < :cutoff ORDER BY a.id")
+    List<Long> findClosedIdsAfter(@Param("afterId") Long afterId, @Param("statuses") Collection<Assignment.AssignmentStatus> statuses,
+                                  @Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Assignment a WHERE a.id IN :ids AND a.status IN :statuses AND a.assignedDate < :cutoff")
+    List<Assignment> findClosedForUpdate(@Param("ids") List<Long> ids, @Param("statuses") Collection<Assignment.AssignmentStatus> statuses,
+                                         @Param("cutoff") LocalDate cutoff);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Assignment a WHERE a.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+}
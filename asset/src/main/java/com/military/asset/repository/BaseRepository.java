@@ -2,5 +2,10 @@ package com.military.asset.repository;
 
 import com.military.asset.model.Base;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
 
-public interface BaseRepository extends JpaRepository<Base, Long> {} 
\ No newline at end of file
+public interface BaseRepository extends JpaRepository<Base, Long> {
+    @Query("SELECT b.id, b.name, b.location FROM Base b")
+    List<Object[]> findAllNamesAndLocations();
+} 
\ No newline at end of file
@@ -6,41 +6,60 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface ExpenditureRepository extends JpaRepository<Expenditure, Long> {
-    long countByBaseId(Long baseId);
-    long countByAssetAssetTypeId(Long assetTypeId);
-    long countByBaseIdAndAssetAssetTypeId(Long baseId, Long assetTypeId);
+    // A query rather than a load by key, so the base scope filter applies
+    @Query("SELECT e FROM Expenditure e WHERE e.id = :id")
+    Optional<Expenditure> findById(Long id);
+
+    // Filters compare the foreign key columns directly. The fetch queries below that filter by base join
+    // it first: with the outer join on approvedBy the planner keeps the written join order, and starting
+    // from base lets the (base_id, expenditure_date) index drive the expenditure lookup
+    @Query("SELECT COUNT(e) FROM Expenditure e WHERE e.base.id = :baseId")
+    long countByBaseId(@Param("baseId") Long baseId);
+    @Query("SELECT COUNT(e) FROM Expenditure e JOIN e.asset a WHERE a.assetType.id = :assetTypeId")
+    long countByAssetAssetTypeId(@Param("assetTypeId") Long assetTypeId);
+    @Query("SELECT COUNT(e) FROM Expenditure e JOIN e.asset a WHERE e.base.id = :baseId AND a.assetType.id = :assetTypeId")
+    long countByBaseIdAndAssetAssetTypeId(@Param("baseId") Long baseId, @Param("assetTypeId") Long assetTypeId);
     
     @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy")
     List<Expenditure> findAllWithDetails();
     
-    @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId")
+    @Query("SELECT e FROM Expenditure e JOIN FETCH e.base JOIN FETCH e.asset a JOIN FETCH a.assetType LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId")
     List<Expenditure> findByBaseId(@Param("baseId") Long baseId);
     
     @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE a.assetType.id = :assetTypeId")
     List<Expenditure> findByAssetAssetTypeId(@Param("assetTypeId") Long assetTypeId);
     
-    @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND a.assetType.id = :assetTypeId")
+    @Query("SELECT e FROM Expenditure e JOIN FETCH e.base JOIN FETCH e.asset a JOIN FETCH a.assetType LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND a.assetType.id = :assetTypeId")
     List<Expenditure> findByBaseIdAndAssetAssetTypeId(@Param("baseId") Long baseId, @Param("assetTypeId") Long assetTypeId);
     
     // Additional methods for service compatibility
     @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE a.id = :assetId")
     List<Expenditure> findByAssetId(@Param("assetId") Long assetId);
     
-    @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND a.id = :assetId")
+    @Query("SELECT e FROM Expenditure e JOIN FETCH e.base JOIN FETCH e.asset a JOIN FETCH a.assetType LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND a.id = :assetId")
     List<Expenditure> findByBaseIdAndAssetId(@Param("baseId") Long baseId, @Param("assetId") Long assetId);
     
     // Date filtering methods with JOIN FETCH
     @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE e.expenditureDate BETWEEN :dateFrom AND :dateTo")
     List<Expenditure> findByExpenditureDateBetween(@Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
     
-    @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND e.expenditureDate BETWEEN :dateFrom AND :dateTo")
+    @Query("SELECT e FROM Expenditure e JOIN FETCH e.base JOIN FETCH e.asset a JOIN FETCH a.assetType LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND e.expenditureDate BETWEEN :dateFrom AND :dateTo")
     List<Expenditure> findByBaseIdAndExpenditureDateBetween(@Param("baseId") Long baseId, @Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
     
     @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE a.id = :assetId AND e.expenditureDate BETWEEN :dateFrom AND :dateTo")
     List<Expenditure> findByAssetIdAndExpenditureDateBetween(@Param("assetId") Long assetId, @Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
     
-    @Query("SELECT e FROM Expenditure e JOIN FETCH e.asset a JOIN FETCH a.assetType JOIN FETCH e.base LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND a.id = :assetId AND e.expenditureDate BETWEEN :dateFrom AND :dateTo")
+    @Query("SELECT e FROM Expenditure e JOIN FETCH e.base JOIN FETCH e.asset a JOIN FETCH a.assetType LEFT JOIN FETCH e.approvedBy WHERE e.base.id = :baseId AND a.id = :assetId AND e.expenditureDate BETWEEN :dateFrom AND :dateTo")
     List<Expenditure> findByBaseIdAndAssetIdAndExpenditureDateBetween(@Param("baseId") Long baseId, @Param("assetId") Long assetId, @Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
+
+    // Consumption rates: (id, baseId, assetTypeId, expenditureDate, quantity) without loading the entities
+    @Query("SELECT e.id, e.base.id, a.assetType.id, e.expenditureDate, e.quantity FROM Expenditure e JOIN e.asset a WHERE e.id = :id")
+    List<Object[]> findConsumptionRow(@Param("id") Long id);
+
+    @Query("SELECT e.id, e.base.id, a.assetType.id, e.expenditureDate, e.quantity FROM Expenditure e JOIN e.asset a " +
+           "WHERE e.base.id IN :baseIds AND e.expenditureDate > :after AND e.expenditureDate <= :upTo")
+    List<Object[]> findConsumptionRows(@Param("baseIds") List<Long> baseIds, @Param("after") LocalDate after, @Param("upTo") LocalDate upTo);
 } 
\ No newline at end of file
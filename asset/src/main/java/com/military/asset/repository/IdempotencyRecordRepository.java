@@ -0,0 +1,32 @@
+package com.military.asset.repository;
+
+import com.military.asset.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // A plain insert rather than save(), which merges: a key that is already stored fails with a duplicate key
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_record (idempotency_key, method, path, request_hash, status, content_type, body, created_at) "
+        + "VALUES (:#{#record.key}, :#{#record.method}, :#{#record.path}, :#{#record.requestHash}, :#{#record.status}, :#{#record.contentType}, "
+        + ":#{#record.body}, :#{#record.createdAt})", nativeQuery = true)
+    void insert(@Param("record") IdempotencyRecord record);
+
+    // Takes over a key whose stored response has outlived the TTL but not yet been purged
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.method = :#{#record.method}, r.path = :#{#record.path}, "
+        + "r.requestHash = :#{#record.requestHash}, r.status = :#{#record.status}, r.contentType = :#{#record.contentType}, "
+        + "r.body = :#{#record.body}, r.createdAt = :#{#record.createdAt} WHERE r.key = :#{#record.key} AND r.createdAt < :cutoff")
+    int replaceExpired(@Param("record") IdempotencyRecord record, @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,46 @@
+package com.military.asset.repository;
+
+import com.military.asset.model.InventoryMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.util.List;
+
+// baseId / assetTypeId filters are optional: null means all bases / all asset types
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+    List<InventoryMovement> findBySourceTypeAndSourceId(String sourceType, Long sourceId);
+
+    @Query("SELECT MAX(m.id) FROM InventoryMovement m")
+    Long findMaxId();
+
+    @Query("SELECT MIN(m.movementDate) FROM InventoryMovement m")
+    LocalDate findEarliestMovementDate();
+
+    // Movements dated after a checkpoint, up to and including the requested date
+    @Query("SELECT COALESCE(SUM(m.quantity), 0) FROM InventoryMovement m " +
+           "WHERE (:baseId IS NULL OR m.baseId = :baseId) AND (:assetTypeId IS NULL OR m.assetTypeId = :assetTypeId) " +
+           "AND m.movementDate > :after AND m.movementDate <= :upTo")
+    long sumDatedBetween(@Param("baseId") Long baseId, @Param("assetTypeId") Long assetTypeId,
+                         @Param("after") LocalDate after, @Param("upTo") LocalDate upTo);
+
+    // Back-dated movements recorded after a checkpoint was taken but dated on or before it
+    @Query("SELECT COALESCE(SUM(m.quantity), 0) FROM InventoryMovement m " +
+           "WHERE (:baseId IS NULL OR m.baseId = :baseId) AND (:assetTypeId IS NULL OR m.assetTypeId = :assetTypeId) " +
+           "AND m.id > :afterId AND m.movementDate <= :upTo")
+    long sumRecordedAfter(@Param("baseId") Long baseId, @Param("assetTypeId") Long assetTypeId,
+                          @Param("afterId") Long afterId, @Param("upTo") LocalDate upTo);
+
+    @Query("SELECT m.movementType, COALESCE(SUM(m.quantity), 0) FROM InventoryMovement m " +
+           "WHERE (:baseId IS NULL OR m.baseId = :baseId) AND (:assetTypeId IS NULL OR m.assetTypeId = :assetTypeId) " +
+           "AND m.movementDate BETWEEN :dateFrom AND :dateTo GROUP BY m.movementType")
+    List<Object[]> sumByMovementType(@Param("baseId") Long baseId, @Param("assetTypeId") Long assetTypeId,
+                                     @Param("dateFrom") LocalDate dateFrom, @Param("dateTo") LocalDate dateTo);
+
+    // Everything a checkpoint at :upTo adds on top of the previous one (taken at :after, covering ids up to :afterId)
+    @Query("SELECT m.baseId, m.assetTypeId, SUM(m.quantity) FROM InventoryMovement m " +
+           "WHERE m.id <= :maxId AND ((m.movementDate > :after AND m.movementDate <= :upTo) " +
+           "OR (m.movementDate <= :after AND m.id > :afterId)) GROUP BY m.baseId, m.assetTypeId")
+    List<Object[]> sumForCheckpoint(@Param("after") LocalDate after, @Param("afterId") Long afterId,
+                                    @Param("upTo") LocalDate upTo, @Param("maxId") Long maxId);
+}
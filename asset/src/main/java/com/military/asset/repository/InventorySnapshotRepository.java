@@ -0,0 +1,23 @@
+package com.military.asset.repository;
+
+import com.military.asset.model.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, InventorySnapshot.Key> {
+    List<InventorySnapshot> findBySnapshotDate(LocalDate snapshotDate);
+
+    @Query("SELECT MAX(s.snapshotDate) FROM InventorySnapshot s WHERE s.snapshotDate <= :date")
+    LocalDate findLatestSnapshotDateOnOrBefore(@Param("date") LocalDate date);
+
+    @Query("SELECT MAX(s.lastMovementId) FROM InventorySnapshot s WHERE s.snapshotDate = :snapshotDate")
+    Long findLastMovementId(@Param("snapshotDate") LocalDate snapshotDate);
+
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM InventorySnapshot s WHERE s.snapshotDate = :snapshotDate " +
+           "AND (:baseId IS NULL OR s.baseId = :baseId) AND (:assetTypeId IS NULL OR s.assetTypeId = :assetTypeId)")
+    long sumQuantity(@Param("snapshotDate") LocalDate snapshotDate, @Param("baseId") Long baseId,
+                     @Param("assetTypeId") Long assetTypeId);
+}
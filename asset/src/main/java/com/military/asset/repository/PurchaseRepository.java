@@ -1,29 +1,49 @@
 package com.military.asset.repository;
 
 import com.military.asset.model.Purchase;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
+    // A query rather than a load by key, so the base scope filter applies
+    @Query("SELECT p FROM Purchase p WHERE p.id = :id")
+    Optional<Purchase> findById(Long id);
+
+    // Filters compare the foreign key columns directly rather than joining base or asset_type, so the
+    // (base_id, date) and (asset_type_id, date) indexes can drive them
+    @Query("SELECT COUNT(p) FROM Purchase p WHERE p.base.id = :baseId")
     long countByBaseId(Long baseId);
+    @Query("SELECT COUNT(p) FROM Purchase p WHERE p.assetType.id = :assetTypeId")
     long countByAssetTypeId(Long assetTypeId);
+    @Query("SELECT COUNT(p) FROM Purchase p WHERE p.base.id = :baseId AND p.assetType.id = :assetTypeId")
     long countByBaseIdAndAssetTypeId(Long baseId, Long assetTypeId);
     
+    @Query("SELECT p FROM Purchase p WHERE p.base.id = :baseId")
     List<Purchase> findByBaseId(Long baseId);
+    @Query("SELECT p FROM Purchase p WHERE p.assetType.id = :assetTypeId")
     List<Purchase> findByAssetTypeId(Long assetTypeId);
+    @Query("SELECT p FROM Purchase p WHERE p.base.id = :baseId AND p.assetType.id = :assetTypeId")
     List<Purchase> findByBaseIdAndAssetTypeId(Long baseId, Long assetTypeId);
     
     // Date filtering methods
     long countByDateBetween(LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT COUNT(p) FROM Purchase p WHERE p.base.id = :baseId AND p.date BETWEEN :dateFrom AND :dateTo")
     long countByBaseIdAndDateBetween(Long baseId, LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT COUNT(p) FROM Purchase p WHERE p.assetType.id = :assetTypeId AND p.date BETWEEN :dateFrom AND :dateTo")
     long countByAssetTypeIdAndDateBetween(Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT COUNT(p) FROM Purchase p WHERE p.base.id = :baseId AND p.assetType.id = :assetTypeId AND p.date BETWEEN :dateFrom AND :dateTo")
     long countByBaseIdAndAssetTypeIdAndDateBetween(Long baseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
     
     List<Purchase> findByDateBetween(LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT p FROM Purchase p WHERE p.base.id = :baseId AND p.date BETWEEN :dateFrom AND :dateTo")
     List<Purchase> findByBaseIdAndDateBetween(Long baseId, LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT p FROM Purchase p WHERE p.assetType.id = :assetTypeId AND p.date BETWEEN :dateFrom AND :dateTo")
     List<Purchase> findByAssetTypeIdAndDateBetween(Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT p FROM Purchase p WHERE p.base.id = :baseId AND p.assetType.id = :assetTypeId AND p.date BETWEEN :dateFrom AND :dateTo")
     List<Purchase> findByBaseIdAndAssetTypeIdAndDateBetween(Long baseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
     
     // Methods with JOIN FETCH to load related entities
@@ -47,7 +67,20 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     
     @Query("SELECT p FROM Purchase p JOIN FETCH p.assetType JOIN FETCH p.base JOIN FETCH p.createdBy WHERE p.assetType.id = :assetTypeId AND p.date BETWEEN :dateFrom AND :dateTo")
     List<Purchase> findByAssetTypeIdAndDateBetweenWithRelatedEntities(Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
+
+    // Keyset page: the first rows after afterId in id order (shards are merged on id)
+    @Query("SELECT p FROM Purchase p JOIN FETCH p.assetType JOIN FETCH p.base JOIN FETCH p.createdBy " +
+           "WHERE p.id > :afterId AND (:baseId IS NULL OR p.base.id = :baseId) AND (:assetTypeId IS NULL OR p.assetType.id = :assetTypeId) " +
+           "AND (:dateFrom IS NULL OR p.date >= :dateFrom) AND (:dateTo IS NULL OR p.date <= :dateTo) ORDER BY p.id")
+    List<Purchase> findPage(Long afterId, Long baseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo, Pageable pageable);
     
     @Query("SELECT p FROM Purchase p JOIN FETCH p.assetType JOIN FETCH p.base JOIN FETCH p.createdBy WHERE p.base.id = :baseId AND p.assetType.id = :assetTypeId AND p.date BETWEEN :dateFrom AND :dateTo")
     List<Purchase> findByBaseIdAndAssetTypeIdAndDateBetweenWithRelatedEntities(Long baseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
-} 
\ No newline at end of file
+
+    @Query("SELECT DISTINCT p.supplier FROM Purchase p")
+    List<String> findDistinctSuppliers();
+
+    // Spend cube loading: (id, supplier, assetTypeId, baseId, date, totalAmount) in id order
+    @Query("SELECT p.id, p.supplier, p.assetType.id, p.base.id, p.date, p.totalAmount FROM Purchase p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSpendRowsAfter(Long afterId, Pageable pageable);
+}
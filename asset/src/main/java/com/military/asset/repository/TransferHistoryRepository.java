@@ -0,0 +1,45 @@
+package com.military.asset.repository;
+
+import com.military.asset.model.TransferHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TransferHistoryRepository extends JpaRepository<TransferHistory, Long> {
+    // Null filters are unrestricted; same shape as the TransferRepository filter queries
+    @Query("SELECT t FROM TransferHistory t JOIN FETCH t.asset a JOIN FETCH a.assetType JOIN FETCH t.fromBase JOIN FETCH t.toBase JOIN FETCH t.createdBy LEFT JOIN FETCH t.approvedBy " +
+           "WHERE (:fromBaseId IS NULL OR t.fromBase.id = :fromBaseId) AND (:assetTypeId IS NULL OR a.assetType.id = :assetTypeId) " +
+           "AND (:dateFrom IS NULL OR t.date >= :dateFrom) AND (:dateTo IS NULL OR t.date <= :dateTo)")
+    List<TransferHistory> findByFilters(Long fromBaseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
+
+    @Query("SELECT COUNT(t) FROM TransferHistory t JOIN t.asset a " +
+           "WHERE (:fromBaseId IS NULL OR t.fromBase.id = :fromBaseId) AND (:assetTypeId IS NULL OR a.assetType.id = :assetTypeId) " +
+           "AND (:dateFrom IS NULL OR t.date >= :dateFrom) AND (:dateTo IS NULL OR t.date <= :dateTo)")
+    long countByFilters(Long fromBaseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
+
+    @Query("SELECT MAX(t.date) FROM TransferHistory t")
+    LocalDate findLatestDate();
+
+    // Archiving: copies the given transfer rows as they are, ids, versions and change sequences included
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO TransferHistory (id, asset, fromBase, toBase, date, reason, status, approvedBy, createdBy, version, changeSeq, archivedAt) " +
+           "SELECT t.id, t.asset, t.fromBase, t.toBase, t.date, t.reason, t.status, t.approvedBy, t.createdBy, t.version, t.changeSeq, LOCAL_DATETIME " +
+           "FROM Transfer t WHERE t.id IN :ids")
+    int copyFromTransfers(List<Long> ids);
+
+    // Flow matrix rebuild, same row shape as TransferRepository.findFlowRowsAfter
+    @Query("SELECT t.id, t.fromBase.id, t.toBase.id, a.assetType.id, t.date, t.status FROM TransferHistory t JOIN t.asset a " +
+           "WHERE t.id > :afterId ORDER BY t.id")
+    List<Object[]> findFlowRowsAfter(Long afterId, Pageable pageable);
+
+    // History is not base-scope filtered, so deletes name the caller's base (null: any)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TransferHistory t WHERE t.id = :id " +
+           "AND (:baseId IS NULL OR t.fromBase.id = :baseId OR t.toBase.id = :baseId)")
+    int deleteByIdWithin(Long id, Long baseId);
+}
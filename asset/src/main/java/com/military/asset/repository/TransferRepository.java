@@ -1,26 +1,61 @@
 package com.military.asset.repository;
 
+import com.military.asset.model.Asset;
+import com.military.asset.model.Base;
 import com.military.asset.model.Transfer;
+import com.military.asset.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
+    // A query rather than a load by key, so the base scope filter applies
+    @Query("SELECT t FROM Transfer t WHERE t.id = :id")
+    Optional<Transfer> findById(Long id);
+
+    // Filters compare the foreign key columns directly (asset type through an inner join on asset)
+    // rather than outer joining, so the (from_base_id, date) and (asset_id, date) indexes can drive them
+    @Query("SELECT COUNT(t) FROM Transfer t WHERE t.fromBase.id = :fromBaseId")
     long countByFromBaseId(Long fromBaseId);
+    @Query("SELECT COUNT(t) FROM Transfer t JOIN t.asset a WHERE a.assetType.id = :assetTypeId")
     long countByAssetAssetTypeId(Long assetTypeId);
+    @Query("SELECT COUNT(t) FROM Transfer t JOIN t.asset a WHERE t.fromBase.id = :fromBaseId AND a.assetType.id = :assetTypeId")
     long countByFromBaseIdAndAssetAssetTypeId(Long fromBaseId, Long assetTypeId);
     
+    @Query("SELECT t FROM Transfer t WHERE t.fromBase.id = :fromBaseId")
     List<Transfer> findByFromBaseId(Long fromBaseId);
+
+    // Rebalancing: (fromBaseId, toBaseId, assets) of open transfers of assets of the type and status still at their sending base
+    @Query("SELECT t.fromBase.id, t.toBase.id, COUNT(DISTINCT a.id) FROM Transfer t JOIN t.asset a "
+        + "WHERE a.assetType.id = :assetTypeId AND a.status = :status AND a.base = t.fromBase AND t.status IN :openStatuses "
+        + "GROUP BY t.fromBase.id, t.toBase.id")
+    List<Object[]> countOpenByRoute(Long assetTypeId, String status, Collection<Transfer.TransferStatus> openStatuses);
+
+    @Query("SELECT DISTINCT t.asset.id FROM Transfer t WHERE t.asset.id IN :assetIds AND t.status IN :openStatuses")
+    List<Long> findAssetIdsInOpenTransfers(Collection<Long> assetIds, Collection<Transfer.TransferStatus> openStatuses);
+    @Query("SELECT t FROM Transfer t JOIN t.asset a WHERE a.assetType.id = :assetTypeId")
     List<Transfer> findByAssetAssetTypeId(Long assetTypeId);
+    @Query("SELECT t FROM Transfer t JOIN t.asset a WHERE t.fromBase.id = :fromBaseId AND a.assetType.id = :assetTypeId")
     List<Transfer> findByFromBaseIdAndAssetAssetTypeId(Long fromBaseId, Long assetTypeId);
 
     // Additional methods for service compatibility
+    @Query("SELECT t FROM Transfer t WHERE t.asset.id = :assetId")
     List<Transfer> findByAssetId(Long assetId);
+    @Query("SELECT t FROM Transfer t WHERE t.fromBase.id = :fromBaseId AND t.date BETWEEN :dateFrom AND :dateTo")
     List<Transfer> findByFromBaseIdAndDateBetween(Long fromBaseId, LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT t FROM Transfer t WHERE t.asset.id = :assetId AND t.date BETWEEN :dateFrom AND :dateTo")
     List<Transfer> findByAssetIdAndDateBetween(Long assetId, LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT t FROM Transfer t WHERE t.fromBase.id = :fromBaseId AND t.asset.id = :assetId AND t.date BETWEEN :dateFrom AND :dateTo")
     List<Transfer> findByFromBaseIdAndAssetIdAndDateBetween(Long fromBaseId, Long assetId, LocalDate dateFrom, LocalDate dateTo);
     List<Transfer> findByDateBetween(LocalDate dateFrom, LocalDate dateTo);
+    @Query("SELECT t FROM Transfer t WHERE t.fromBase.id = :fromBaseId AND t.asset.id = :assetId")
     List<Transfer> findByFromBaseIdAndAssetId(Long fromBaseId, Long assetId);
     
     // Methods with JOIN FETCH to load related entities
@@ -47,4 +82,40 @@ public interface TransferRepository extends JpaRepository<Transfer, Long> {
     
     @Query("SELECT t FROM Transfer t JOIN FETCH t.asset a JOIN FETCH a.assetType JOIN FETCH t.fromBase JOIN FETCH t.toBase JOIN FETCH t.createdBy LEFT JOIN FETCH t.approvedBy WHERE t.fromBase.id = :fromBaseId AND a.assetType.id = :assetTypeId AND t.date BETWEEN :dateFrom AND :dateTo")
     List<Transfer> findByFromBaseIdAndAssetAssetTypeIdAndDateBetweenWithRelatedEntities(Long fromBaseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo);
-} 
\ No newline at end of file
+    
+    @Query("SELECT t FROM Transfer t JOIN FETCH t.asset a JOIN FETCH a.assetType JOIN FETCH t.fromBase JOIN FETCH t.toBase JOIN FETCH t.createdBy LEFT JOIN FETCH t.approvedBy WHERE t.id = :id")
+    Optional<Transfer> findByIdWithRelatedEntities(Long id);
+    
+    // Compare-and-set on status and version: returns 0 when a concurrent approver changed the row first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Transfer t SET t.status = :next, t.approvedBy = :actor, t.version = t.version + 1, t.changeSeq = :changeSeq " +
+           "WHERE t.id = :id AND t.status = :current AND t.version = :version")
+    int updateStatus(Long id, Transfer.TransferStatus current, Transfer.TransferStatus next, User actor, Long version, Long changeSeq);
+
+    // Edits, with the same compare-and-set: returns 0 when the transfer changed or left PENDING first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Transfer t SET t.asset = :asset, t.fromBase = :fromBase, t.toBase = :toBase, t.date = :date, t.reason = :reason, " +
+           "t.version = t.version + 1, t.changeSeq = :changeSeq WHERE t.id = :id AND t.status = :pending AND t.version = :version")
+    int updatePending(Long id, Asset asset, Base fromBase, Base toBase, LocalDate date, String reason,
+                      Transfer.TransferStatus pending, Long version, Long changeSeq);
+
+    // Flow matrix: (id, fromBaseId, toBaseId, assetTypeId, date, status) without loading the entities
+    @Query("SELECT t.id, t.fromBase.id, t.toBase.id, a.assetType.id, t.date, t.status FROM Transfer t JOIN t.asset a WHERE t.id = :id")
+    List<Object[]> findFlowRow(Long id);
+
+    @Query("SELECT t.id, t.fromBase.id, t.toBase.id, a.assetType.id, t.date, t.status FROM Transfer t JOIN t.asset a " +
+           "WHERE t.id > :afterId ORDER BY t.id")
+    List<Object[]> findFlowRowsAfter(Long afterId, Pageable pageable);
+
+    // History archiving: completed/rejected transfers dated before the cutoff, in id order
+    @Query("SELECT t.id FROM Transfer t WHERE t.id > :afterId AND t.status IN :statuses AND t.date < :cutoff ORDER BY t.id")
+    List<Long> findClosedIdsAfter(Long afterId, Collection<Transfer.TransferStatus> statuses, LocalDate cutoff, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transfer t WHERE t.id IN :ids AND t.status IN :statuses AND t.date < :cutoff")
+    List<Transfer> findClosedForUpdate(List<Long> ids, Collection<Transfer.TransferStatus> statuses, LocalDate cutoff);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Transfer t WHERE t.id IN :ids")
+    int deleteAllByIdIn(List<Long> ids);
+}
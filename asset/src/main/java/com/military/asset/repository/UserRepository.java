@@ -1,9 +1,18 @@
 package com.military.asset.repository;
 
 import com.military.asset.model.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Looked up on every authenticated write; cached until the user table changes
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u.id, u.username, b.id FROM User u LEFT JOIN u.base b")
+    List<Object[]> findAllUsernames();
 } 
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.military.asset.security;
+
+import org.hibernate.Session;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The base a request is confined to: the baseId claim of a non-admin caller, bound to the request thread
+ * by JwtAuthenticationFilter. While bound, every transaction on the thread enables the {@link #FILTER}
+ * Hibernate filter, so queries on base-scoped entities (assets, assignments, expenditures, purchases,
+ * transfers) only see that base's rows, with the base_id predicate in the SQL itself. Their repositories
+ * declare findById as a query for the same reason. Associations are not filtered: a transfer still shows
+ * its asset after the asset has moved to the other base.
+ *
+ * Threads that run work for a request (the task executor, shard scatter) carry the scope over with
+ * {@link #with}; maintenance of the global in-memory indexes runs {@link #unscoped}. The in-memory indexes
+ * are not filtered, so endpoints reading them pass the requested base through {@link #restrict}.
+ */
+public final class BaseScope {
+    public static final String FILTER = "baseScope";
+    public static final String PARAMETER = "baseId";
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private BaseScope() {}
+
+    public static Long current() {
+        return CURRENT.get();
+    }
+
+    // Binds the base to this thread; returns the previous binding for restore()
+    public static Long bind(Long baseId) {
+        Long previous = CURRENT.get();
+        if (baseId == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(baseId);
+        }
+        return previous;
+    }
+
+    public static void restore(Long previous) {
+        bind(previous);
+    }
+
+    public static <T> T with(Long baseId, Supplier<T> work) {
+        Long previous = bind(baseId);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void with(Long baseId, Runnable work) {
+        with(baseId, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // The base a read may cover: the requested one, or for a scoped caller their own base, which they
+    // may request but not go beyond
+    public static Long restrict(Long requested) {
+        Long baseId = CURRENT.get();
+        if (baseId == null) {
+            return requested;
+        }
+        if (requested != null && !requested.equals(baseId)) {
+            throw new AccessDeniedException("Access is limited to base " + baseId);
+        }
+        return baseId;
+    }
+
+    // As restrict, for a list of base ids as string values
+    public static List<String> restrict(List<String> requested) {
+        Long baseId = CURRENT.get();
+        if (baseId == null) {
+            return requested;
+        }
+        if (requested != null && requested.stream().anyMatch(value -> !value.trim().equals(baseId.toString()))) {
+            throw new AccessDeniedException("Access is limited to base " + baseId);
+        }
+        return List.of(baseId.toString());
+    }
+
+    // Sees every base's rows, whoever the caller is; the transaction must begin inside
+    public static <T> T unscoped(Supplier<T> work) {
+        return with(null, work);
+    }
+
+    // Called as a transaction begins: a session kept open across transactions (open-in-view) follows the thread
+    public static void applyTo(Session session) {
+        Long baseId = CURRENT.get();
+        if (baseId == null) {
+            session.disableFilter(FILTER);
+        } else {
+            session.enableFilter(FILTER).setParameter(PARAMETER, baseId);
+        }
+    }
+}
@@ -39,15 +39,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        Long baseId = null;
+        if (username != null) {
+            // Refresh tokens only buy a new access token at /api/auth/refresh; they carry no base to scope by
+            if (jwtUtil.isRefreshToken(jwt)) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Refresh tokens cannot authenticate requests");
+                return;
+            }
             UserDetails userDetails = userDetailsService.loadUserByUsername(username);
             if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                // Everyone but admins only sees the base in their token, so without one they see nothing
+                boolean admin = userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+                baseId = admin ? null : jwtUtil.extractBaseId(jwt);
+                if (!admin && baseId == null) {
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN, "The token is not scoped to a base");
+                    return;
+                }
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
             }
         }
-        filterChain.doFilter(request, response);
+        Long previous = BaseScope.bind(baseId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            BaseScope.restore(previous);
+        }
     }
 } 
\ No newline at end of file
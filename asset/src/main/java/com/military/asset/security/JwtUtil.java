@@ -113,6 +113,10 @@ public class JwtUtil {
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token) && "refresh".equals(type));
     }
 
+    public boolean isRefreshToken(String token) {
+        return "refresh".equals(extractClaim(token, claims -> (String) claims.get("type")));
+    }
+
     public String extractUsernameFromRefreshToken(String token) {
         return extractUsername(token);
     }
@@ -0,0 +1,328 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.AssetTypeRepository;
+import com.military.asset.security.BaseScope;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Compressed bitmaps over the asset catalog: one bitmap of asset ids per base, asset type, category
+ * and status value. A facet query ANDs the filtered dimensions together (values within a dimension
+ * are ORed) and then reads every breakdown off the result with intersection cardinalities, without
+ * touching the database. The bitmaps are 64-bit since sharded ids carry their shard above bit 40.
+ *
+ * Asset saves, deletes and completed transfers update the live index. A rebuild loads a fresh
+ * index in id-ordered pages while writes keep going to both copies; rows written during the load
+ * are skipped by the loader so the newer in-memory state wins.
+ */
+@Service
+public class AssetFacetService {
+    public enum Facet {
+        BASE("base"), ASSET_TYPE("assetType"), CATEGORY("category"), STATUS("status");
+
+        private final String key;
+
+        Facet(String key) { this.key = key; }
+
+        public String getKey() { return key; }
+    }
+
+    public record FacetCounts(long total, Map<String, Map<String, Long>> facets) {}
+
+    private final AssetRepository assetRepository;
+    private final AssetTypeRepository assetTypeRepository;
+    private final AsyncTaskExecutor taskExecutor;
+    private final int pageSize;
+    private final ShardRouter shardRouter;
+
+    private final Rebuildable<Index> index = new Rebuildable<>(new Index());
+
+    public AssetFacetService(AssetRepository assetRepository, AssetTypeRepository assetTypeRepository,
+                             @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                             @Value("${asset.facets.load-page-size:10000}") int pageSize, ShardRouter shardRouter) {
+        this.assetRepository = assetRepository;
+        this.shardRouter = shardRouter;
+        this.assetTypeRepository = assetTypeRepository;
+        this.taskExecutor = taskExecutor;
+        this.pageSize = pageSize;
+    }
+
+    // Empty or missing filter values leave that dimension unrestricted
+    public FacetCounts count(Map<Facet, ? extends Collection<String>> filters) {
+        return index.read(live -> {
+            Roaring64Bitmap matching = null;
+            for (Map.Entry<Facet, ? extends Collection<String>> filter : filters.entrySet()) {
+                if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                    continue;
+                }
+                Map<String, Roaring64Bitmap> values = live.bitmaps.get(filter.getKey());
+                List<Roaring64Bitmap> selected = new ArrayList<>();
+                for (String value : filter.getValue()) {
+                    Roaring64Bitmap bitmap = values.get(value);
+                    if (bitmap != null) {
+                        selected.add(bitmap);
+                    }
+                }
+                Roaring64Bitmap union = new Roaring64Bitmap();
+                selected.forEach(union::or);
+                matching = matching == null ? union : Roaring64Bitmap.and(matching, union);
+            }
+
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            for (Facet facet : Facet.values()) {
+                List<Map.Entry<String, Long>> counts = new ArrayList<>();
+                for (Map.Entry<String, Roaring64Bitmap> value : live.bitmaps.get(facet).entrySet()) {
+                    long count = matching == null ? value.getValue().getLongCardinality()
+                        : Roaring64Bitmap.andCardinality(matching, value.getValue());
+                    if (count > 0) {
+                        counts.add(Map.entry(value.getKey(), count));
+                    }
+                }
+                counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+                Map<String, Long> ordered = new LinkedHashMap<>();
+                counts.forEach(e -> ordered.put(e.getKey(), e.getValue()));
+                facets.put(facet.getKey(), ordered);
+            }
+            long total = matching == null ? live.all.getLongCardinality() : matching.getLongCardinality();
+            return new FacetCounts(total, facets);
+        });
+    }
+
+    /**
+     * Runs the query with a function from base id to the number of indexed assets on that base of the
+     * asset type and status (null for any). The index stays read-locked for the duration, so the query
+     * should be short: the nearby-base search calls it only for the bases it visits.
+     */
+    public <T> T withBaseCounts(Long assetTypeId, String status, Function<LongUnaryOperator, T> query) {
+        return index.read(live -> {
+            Roaring64Bitmap matching = null;
+            if (assetTypeId != null) {
+                matching = live.bitmaps.get(Facet.ASSET_TYPE).getOrDefault(String.valueOf(assetTypeId), new Roaring64Bitmap());
+            }
+            if (status != null) {
+                Roaring64Bitmap withStatus = live.bitmaps.get(Facet.STATUS).getOrDefault(status, new Roaring64Bitmap());
+                matching = matching == null ? withStatus : Roaring64Bitmap.and(matching, withStatus);
+            }
+            Map<String, Roaring64Bitmap> bases = live.bitmaps.get(Facet.BASE);
+            Roaring64Bitmap filter = matching;
+            return query.apply(baseId -> {
+                Roaring64Bitmap onBase = bases.get(String.valueOf(baseId));
+                if (onBase == null) {
+                    return 0;
+                }
+                return filter == null ? onBase.getLongCardinality() : Roaring64Bitmap.andCardinality(filter, onBase);
+            });
+        });
+    }
+
+    public void indexAsset(Asset asset) {
+        if (asset.getId() == null || asset.getBase() == null || asset.getAssetType() == null) {
+            return;
+        }
+        put(asset.getId(), asset.getBase().getId(), asset.getAssetType().getId(), asset.getStatus());
+    }
+
+    // For writes that bypass AssetService, e.g. a completed transfer moving the asset
+    public void refreshAsset(Long assetId) {
+        // The index covers every base, even when a scoped caller's transfer has just moved the asset out of theirs
+        List<Object[]> rows = BaseScope.unscoped(() -> assetRepository.findFacetKeys(assetId));
+        if (rows.isEmpty()) {
+            removeAsset(assetId);
+        } else {
+            Object[] row = rows.get(0);
+            put((Long) row[0], (Long) row[1], (Long) row[2], (String) row[3]);
+        }
+    }
+
+    public void removeAsset(Long assetId) {
+        long id = assetId;
+        index.write(i -> i.remove(id), id);
+    }
+
+    public void assetTypeChanged(AssetType assetType) {
+        String type = String.valueOf(assetType.getId());
+        String category = assetType.getCategory();
+        index.write(i -> i.setCategory(type, category), 0);
+    }
+
+    public void assetTypeRemoved(Long assetTypeId) {
+        String type = String.valueOf(assetTypeId);
+        index.write(i -> i.setCategory(type, null), 0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            Long rows = index.rebuild(new Index(), () -> {
+                List<AssetType> assetTypes = assetTypeRepository.findAll();
+                index.fill((building, written) -> {
+                    for (AssetType assetType : assetTypes) {
+                        building.setCategory(String.valueOf(assetType.getId()), assetType.getCategory());
+                    }
+                });
+
+                // Each shard in parallel; a shard's stale copies of assets moved to another are skipped
+                long total = shardRouter.scatter(shard -> {
+                    long loaded = 0;
+                    long afterId = 0;
+                    while (true) {
+                        List<Object[]> page = assetRepository.findFacetKeysAfter(afterId, PageRequest.of(0, pageSize));
+                        if (page.isEmpty()) {
+                            return loaded;
+                        }
+                        index.fill((building, written) -> {
+                            for (Object[] row : page) {
+                                long id = (Long) row[0];
+                                if (!written.test(id) && shardRouter.owns(shard, (Long) row[1])) {
+                                    building.put(id, String.valueOf(row[1]), String.valueOf(row[2]), (String) row[3]);
+                                }
+                            }
+                        });
+                        loaded += page.size();
+                        afterId = (Long) page.get(page.size() - 1)[0];
+                    }
+                }).stream().mapToLong(Long::longValue).sum();
+                index.fill((building, written) -> building.optimize());
+                return total;
+            });
+            if (rows != null) {
+                System.out.println(">>> Asset facet index rebuilt with " + index.read(live -> live.all.getLongCardinality())
+                    + " assets (" + index.read(Index::sizeInBytes) / 1024 + " KB of bitmaps) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (Exception e) {
+            System.err.println("Asset facet index rebuild failed: " + e.getMessage());
+        }
+    }
+
+    private void put(Long assetId, Long baseId, Long assetTypeId, String status) {
+        long id = assetId;
+        String base = String.valueOf(baseId);
+        String type = String.valueOf(assetTypeId);
+        index.write(i -> i.put(id, base, type, status), id);
+    }
+
+    private record Entry(String base, String assetType, String status) {}
+
+    // Not thread-safe; always accessed under the Rebuildable lock
+    private static final class Index {
+        final Roaring64Bitmap all = new Roaring64Bitmap();
+        final Map<Facet, Map<String, Roaring64Bitmap>> bitmaps = new EnumMap<>(Facet.class);
+        final Map<Long, Entry> assets = new HashMap<>();
+        final Map<String, String> typeCategories = new HashMap<>();
+
+        Index() {
+            for (Facet facet : Facet.values()) {
+                bitmaps.put(facet, new HashMap<>());
+            }
+        }
+
+        void put(long id, String base, String assetType, String status) {
+            Entry previous = assets.get(id);
+            if (previous != null) {
+                if (previous.equals(new Entry(base, assetType, status))) {
+                    return;
+                }
+                remove(id);
+            }
+            assets.put(id, new Entry(base, assetType, status));
+            all.addLong(id);
+            add(Facet.BASE, base, id);
+            add(Facet.ASSET_TYPE, assetType, id);
+            add(Facet.CATEGORY, typeCategories.get(assetType), id);
+            add(Facet.STATUS, status, id);
+        }
+
+        void remove(long id) {
+            Entry previous = assets.remove(id);
+            if (previous == null) {
+                return;
+            }
+            all.removeLong(id);
+            clear(Facet.BASE, previous.base(), id);
+            clear(Facet.ASSET_TYPE, previous.assetType(), id);
+            clear(Facet.CATEGORY, typeCategories.get(previous.assetType()), id);
+            clear(Facet.STATUS, previous.status(), id);
+        }
+
+        // Moves every asset of the type from its old category bitmap to the new one
+        void setCategory(String assetType, String category) {
+            String previous = category == null ? typeCategories.remove(assetType) : typeCategories.put(assetType, category);
+            if (category != null && category.equals(previous)) {
+                return;
+            }
+            Roaring64Bitmap ofType = bitmaps.get(Facet.ASSET_TYPE).get(assetType);
+            if (ofType == null) {
+                return;
+            }
+            Map<String, Roaring64Bitmap> categories = bitmaps.get(Facet.CATEGORY);
+            if (previous != null && categories.containsKey(previous)) {
+                categories.get(previous).andNot(ofType);
+                if (categories.get(previous).isEmpty()) {
+                    categories.remove(previous);
+                }
+            }
+            if (category != null) {
+                categories.computeIfAbsent(category, c -> new Roaring64Bitmap()).or(ofType);
+            }
+        }
+
+        void optimize() {
+            all.runOptimize();
+            bitmaps.values().forEach(values -> values.values().forEach(Roaring64Bitmap::runOptimize));
+        }
+
+        long sizeInBytes() {
+            long bytes = all.getLongSizeInBytes();
+            for (Map<String, Roaring64Bitmap> values : bitmaps.values()) {
+                for (Roaring64Bitmap bitmap : values.values()) {
+                    bytes += bitmap.getLongSizeInBytes();
+                }
+            }
+            return bytes;
+        }
+
+        private void add(Facet facet, String value, long id) {
+            if (value != null) {
+                bitmaps.get(facet).computeIfAbsent(value, v -> new Roaring64Bitmap()).addLong(id);
+            }
+        }
+
+        private void clear(Facet facet, String value, long id) {
+            if (value == null) {
+                return;
+            }
+            Roaring64Bitmap bitmap = bitmaps.get(facet).get(value);
+            if (bitmap != null) {
+                bitmap.removeLong(id);
+                if (bitmap.isEmpty()) {
+                    bitmaps.get(facet).remove(value);
+                }
+            }
+        }
+    }
+}
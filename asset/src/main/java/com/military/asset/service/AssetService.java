@@ -3,20 +3,66 @@ package com.military.asset.service;
 import com.military.asset.model.Asset;
 import com.military.asset.repository.AssetRepository;
 import org.springframework.stereotype.Service;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class AssetService {
+    private static final Comparator<Asset> BY_ID = Comparator.comparing(Asset::getId);
+
     private final AssetRepository assetRepository;
-    public AssetService(AssetRepository assetRepository) { this.assetRepository = assetRepository; }
+    private final SearchService searchService;
+    private final AssetFacetService assetFacetService;
+    private final SparseFieldService sparseFieldService;
+    private final ShardRouter shardRouter;
+
+    public AssetService(AssetRepository assetRepository, SearchService searchService, AssetFacetService assetFacetService,
+                        SparseFieldService sparseFieldService, ShardRouter shardRouter) {
+        this.assetRepository = assetRepository;
+        this.searchService = searchService;
+        this.assetFacetService = assetFacetService;
+        this.sparseFieldService = sparseFieldService;
+        this.shardRouter = shardRouter;
+    }
 
-    public List<Asset> findAll() { return assetRepository.findAll(); }
-    public Optional<Asset> findById(Long id) { return assetRepository.findById(id); }
-    public Asset save(Asset asset) { return assetRepository.save(asset); }
-    public void deleteById(Long id) { assetRepository.deleteById(id); }
+    // Assets that moved to another shard leave a stale row behind, so shard-wide reads keep only the
+    // assets whose base the shard holds
+    public List<Asset> findAll() {
+        return shardRouter.gatherOwned(null, assetRepository::findAll, BY_ID, asset -> asset.getBase().getId());
+    }
+    public Optional<Asset> findById(Long id) {
+        return shardRouter.on(shardRouter.shardOfAsset(id), () -> assetRepository.findById(id));
+    }
+    public Asset save(Asset asset) {
+        Asset saved = shardRouter.onBase(asset.getBase().getId(), () -> assetRepository.save(asset));
+        searchService.indexAsset(saved);
+        assetFacetService.indexAsset(saved);
+        return saved;
+    }
+    // Through the scoped lookup: JpaRepository.deleteById loads by key, which the base scope filter skips
+    public void deleteById(Long id) {
+        boolean deleted = shardRouter.on(shardRouter.shardOfAsset(id), () -> assetRepository.findById(id).map(asset -> {
+            assetRepository.delete(asset);
+            return true;
+        }).orElse(false));
+        if (deleted) {
+            searchService.remove(SearchService.Kind.ASSET, id);
+            assetFacetService.removeAsset(id);
+        }
+    }
     
     public long countByFilters(Long baseId, Long assetTypeId) {
+        if (shardRouter.getShardCount() > 1 && baseId == null) {
+            // Stale copies of moved assets can only be told apart row by row
+            return findByFilters(null, assetTypeId, null, null).size();
+        }
+        return shardRouter.onBase(baseId, () -> countOnShard(baseId, assetTypeId));
+    }
+
+    private long countOnShard(Long baseId, Long assetTypeId) {
         if (baseId != null && assetTypeId != null) {
             return assetRepository.countByBaseIdAndAssetTypeId(baseId, assetTypeId);
         } else if (baseId != null) {
@@ -29,6 +75,10 @@ public class AssetService {
     }
     
     public List<Asset> findByFilters(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        return shardRouter.gatherOwned(baseId, () -> findOnShard(baseId, assetTypeId), BY_ID, asset -> asset.getBase().getId());
+    }
+
+    private List<Asset> findOnShard(Long baseId, Long assetTypeId) {
         if (baseId != null && assetTypeId != null) {
             return assetRepository.findByBaseIdAndAssetTypeId(baseId, assetTypeId);
         } else if (baseId != null) {
@@ -39,4 +89,27 @@ public class AssetService {
             return assetRepository.findAll();
         }
     }
-} 
\ No newline at end of file
+
+    // Same filters as findByFilters, selecting only the requested fields
+    public List<Map<String, Object>> findFieldsByFilters(String fields, Long baseId, Long assetTypeId) {
+        Map<String, Object> equal = new HashMap<>();
+        equal.put("base.id", baseId);
+        equal.put("assetType.id", assetTypeId);
+        if (shardRouter.getShardCount() == 1 || baseId != null) {
+            return shardRouter.onBase(baseId, () -> sparseFieldService.find(Asset.class, fields, equal, null, null, null));
+        }
+        // The base decides which shard's copy counts; it is dropped again unless it was asked for
+        boolean baseRequested = List.of(fields.split(",")).stream().anyMatch(field -> field.trim().split("\\.")[0].equals("base"));
+        List<Map<String, Object>> rows = shardRouter.gatherOwned(null,
+            () -> sparseFieldService.find(Asset.class, fields + ",base.id", equal, null, null, null),
+            Comparator.comparing(row -> (Long) row.get("id")), row -> (Long) ((Map<?, ?>) row.get("base")).get("id"));
+        if (!baseRequested) {
+            rows.forEach(row -> row.remove("base"));
+        }
+        return rows;
+    }
+
+    public Optional<Map<String, Object>> findFieldsById(Long id, String fields) {
+        return shardRouter.on(shardRouter.shardOfAsset(id), () -> sparseFieldService.findById(Asset.class, fields, id));
+    }
+}
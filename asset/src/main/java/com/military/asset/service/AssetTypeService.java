@@ -9,10 +9,28 @@ import java.util.Optional;
 @Service
 public class AssetTypeService {
     private final AssetTypeRepository assetTypeRepository;
-    public AssetTypeService(AssetTypeRepository assetTypeRepository) { this.assetTypeRepository = assetTypeRepository; }
+    private final AssetFacetService assetFacetService;
+    private final ShardRouter shardRouter;
+
+    public AssetTypeService(AssetTypeRepository assetTypeRepository, AssetFacetService assetFacetService,
+                            ShardRouter shardRouter) {
+        this.assetTypeRepository = assetTypeRepository;
+        this.assetFacetService = assetFacetService;
+        this.shardRouter = shardRouter;
+    }
 
     public List<AssetType> findAll() { return assetTypeRepository.findAll(); }
     public Optional<AssetType> findById(Long id) { return assetTypeRepository.findById(id); }
-    public AssetType save(AssetType assetType) { return assetTypeRepository.save(assetType); }
-    public void deleteById(Long id) { assetTypeRepository.deleteById(id); }
+    // Written on the home shard and copied to the others
+    public AssetType save(AssetType assetType) {
+        AssetType saved = shardRouter.onHome(() -> assetTypeRepository.save(assetType));
+        shardRouter.replicate("asset_type", saved.getId());
+        assetFacetService.assetTypeChanged(saved);
+        return saved;
+    }
+    public void deleteById(Long id) {
+        shardRouter.removeReplicas("asset_type", id);
+        shardRouter.run(ShardRouter.HOME, () -> assetTypeRepository.deleteById(id));
+        assetFacetService.assetTypeRemoved(id);
+    }
 } 
\ No newline at end of file
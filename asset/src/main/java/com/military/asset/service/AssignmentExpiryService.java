@@ -0,0 +1,263 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Assignment;
+import com.military.asset.model.AuditLog;
+import com.military.asset.repository.AssignmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Moves ACTIVE assignments past their return date to EXPIRED.
+ *
+ * ACTIVE assignments with a return date are kept in memory, bucketed by day, so a sweep only
+ * looks at the buckets before today instead of scanning the assignment table. The index is fed
+ * by AssignmentService on every save and topped up each sweep with rows above the highest id
+ * already loaded (inserts from other instances or bulk loads); a periodic full reload picks up
+ * anything edited elsewhere. The database stays authoritative: due rows are re-checked under a
+ * row lock before they are updated.
+ */
+@Service
+public class AssignmentExpiryService {
+    private static final String AUDIT_ACTION = "EXPIRE_ASSIGNMENT";
+
+    private final AssignmentRepository assignmentRepository;
+    private final AuditLogService auditLogService;
+    private final ChangeSequenceService changeSequenceService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final long fullReloadIntervalMs;
+
+    // Guarded by index; written from request threads and the sweeper
+    private final Object index = new Object();
+    private final TreeMap<LocalDate, Set<Long>> dueByDate = new TreeMap<>();
+    private final Map<Long, LocalDate> returnDates = new HashMap<>();
+
+    // Only touched by the sweeper; ids are ranged per shard, so each shard has its own high-water mark
+    private final long[] loadedUpToIds;
+    private long lastFullReload;
+
+    public AssignmentExpiryService(AssignmentRepository assignmentRepository, AuditLogService auditLogService,
+                                   ChangeSequenceService changeSequenceService, JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager, ShardRouter shardRouter,
+                                   @Value("${assignment.expiry.batch-size:500}") int batchSize,
+                                   @Value("${assignment.expiry.full-reload-interval-ms:21600000}") long fullReloadIntervalMs) {
+        this.assignmentRepository = assignmentRepository;
+        this.auditLogService = auditLogService;
+        this.changeSequenceService = changeSequenceService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.loadedUpToIds = new long[shardRouter.getShardCount()];
+        this.batchSize = batchSize;
+        this.fullReloadIntervalMs = fullReloadIntervalMs;
+    }
+
+    // Called after an assignment is saved; re-indexes it or drops it once it is no longer ACTIVE
+    public void track(Assignment assignment) {
+        if (assignment.getId() == null) {
+            return;
+        }
+        if (Assignment.AssignmentStatus.ACTIVE.equals(assignment.getStatus()) && assignment.getReturnDate() != null) {
+            index(assignment.getId(), assignment.getReturnDate());
+        } else {
+            untrack(assignment.getId());
+        }
+    }
+
+    public void untrack(Long id) {
+        synchronized (index) {
+            LocalDate previous = returnDates.remove(id);
+            if (previous != null) {
+                removeFromBucket(previous, id);
+            }
+        }
+    }
+
+    public int getTrackedCount() {
+        synchronized (index) {
+            return returnDates.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${assignment.expiry.sweep-interval-ms:60000}",
+               initialDelayString = "${assignment.expiry.initial-delay-ms:30000}")
+    public void scheduledSweep() {
+        try {
+            int expired = sweep(LocalDate.now());
+            if (expired > 0) {
+                System.out.println(">>> Expired " + expired + " overdue assignments");
+            }
+        } catch (Exception e) {
+            System.err.println("Assignment expiry sweep failed: " + e.getMessage());
+        }
+    }
+
+    // Returns the number of assignments moved to EXPIRED; anything with a return date before today is due
+    public synchronized int sweep(LocalDate today) {
+        reload();
+
+        List<Long> due = new ArrayList<>();
+        synchronized (index) {
+            for (Set<Long> ids : dueByDate.headMap(today).values()) {
+                due.addAll(ids);
+            }
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        // One transaction per shard holding due rows; the audit trail is written on the home shard after each commits
+        Map<Integer, List<Long>> dueByShard = new TreeMap<>();
+        for (Long id : due) {
+            dueByShard.computeIfAbsent(shardRouter.shardOfId(id), shard -> new ArrayList<>()).add(id);
+        }
+        int expired = 0;
+        for (Map.Entry<Integer, List<Long>> shard : dueByShard.entrySet()) {
+            List<AuditLog> auditLogs = new ArrayList<>();
+            Integer count = shardRouter.on(shard.getKey(),
+                () -> transactionTemplate.execute(status -> expire(shard.getValue(), today, auditLogs)));
+            expired += count != null ? count : 0;
+            if (!auditLogs.isEmpty()) {
+                auditLogService.logBatch(auditLogs);
+            }
+        }
+
+        // Rows that were no longer ACTIVE were stale entries; either way they are done
+        synchronized (index) {
+            for (Long id : due) {
+                LocalDate returnDate = returnDates.get(id);
+                if (returnDate != null && returnDate.isBefore(today)) {
+                    returnDates.remove(id);
+                    removeFromBucket(returnDate, id);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private int expire(List<Long> due, LocalDate today, List<AuditLog> auditLogs) {
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> chunk = due.subList(from, Math.min(due.size(), from + batchSize));
+            List<Assignment> locked = assignmentRepository.findDueForUpdate(chunk, Assignment.AssignmentStatus.ACTIVE, today);
+            if (locked.isEmpty()) {
+                continue;
+            }
+            List<Long> ids = new ArrayList<>(locked.size());
+            for (Assignment assignment : locked) {
+                ids.add(assignment.getId());
+                auditLogs.add(auditEntry(assignment));
+            }
+            // One sequence per locked row, handed out by rank in id order; a single batched statement
+            Collections.sort(ids);
+            long firstSeq = changeSequenceService.reserve(ids.size());
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE assignment SET status = ?, change_seq = ? WHERE id = ? AND status = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int rank) throws SQLException {
+                        statement.setString(1, Assignment.AssignmentStatus.EXPIRED.name());
+                        statement.setLong(2, firstSeq + rank);
+                        statement.setLong(3, ids.get(rank));
+                        statement.setString(4, Assignment.AssignmentStatus.ACTIVE.name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return ids.size();
+                    }
+                });
+            for (int count : updated) {
+                // SUCCESS_NO_INFO: the driver ran it but did not count; the row was locked as ACTIVE
+                expired += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return expired;
+    }
+
+    // Attributed to whoever made the assignment; asset and user stay lazy, only their ids are read
+    private AuditLog auditEntry(Assignment assignment) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setAction(AUDIT_ACTION);
+        auditLog.setEntity("Assignment");
+        auditLog.setEntityId(assignment.getId());
+        auditLog.setUser(assignment.getAssignedBy());
+        auditLog.setDetails("Assignment of asset with ID " + assignment.getAsset().getId()
+            + " expired, return was due " + assignment.getReturnDate());
+        return auditLog;
+    }
+
+    private void reload() {
+        long now = System.currentTimeMillis();
+        if (lastFullReload == 0 || now - lastFullReload >= fullReloadIntervalMs) {
+            synchronized (index) {
+                dueByDate.clear();
+                returnDates.clear();
+            }
+            Arrays.fill(loadedUpToIds, 0);
+            lastFullReload = now;
+        }
+        int loaded = 0;
+        for (int shard = 0; shard < loadedUpToIds.length; shard++) {
+            int current = shard;
+            loaded += shardRouter.on(shard, () -> load(current));
+        }
+        if (loaded > 0) {
+            System.out.println(">>> Assignment expiry index loaded " + loaded + " active assignments");
+        }
+    }
+
+    private int load(int shard) {
+        int loaded = 0;
+        List<Object[]> page;
+        do {
+            page = assignmentRepository.findReturnDatesAfter(loadedUpToIds[shard], Assignment.AssignmentStatus.ACTIVE,
+                PageRequest.of(0, batchSize));
+            for (Object[] row : page) {
+                Long id = (Long) row[0];
+                index(id, (LocalDate) row[1]);
+                loadedUpToIds[shard] = Math.max(loadedUpToIds[shard], id);
+            }
+            loaded += page.size();
+        } while (page.size() == batchSize);
+        return loaded;
+    }
+
+    private void index(Long id, LocalDate returnDate) {
+        synchronized (index) {
+            LocalDate previous = returnDates.put(id, returnDate);
+            if (previous != null && !previous.equals(returnDate)) {
+                removeFromBucket(previous, id);
+            }
+            dueByDate.computeIfAbsent(returnDate, d -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removeFromBucket(LocalDate returnDate, Long id) {
+        Set<Long> bucket = dueByDate.get(returnDate);
+        if (bucket != null && bucket.remove(id) && bucket.isEmpty()) {
+            dueByDate.remove(returnDate);
+        }
+    }
+}
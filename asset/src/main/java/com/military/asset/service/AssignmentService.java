@@ -1,28 +1,56 @@
 package com.military.asset.service;
 
 import com.military.asset.model.Assignment;
+import com.military.asset.model.AssignmentHistory;
 import com.military.asset.model.User;
+import com.military.asset.repository.AssignmentHistoryRepository;
 import com.military.asset.repository.AssignmentRepository;
+import com.military.asset.security.BaseScope;
 import com.military.asset.service.AuditLogService;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class AssignmentService {
+    private static final Comparator<Assignment> BY_ID = Comparator.comparing(Assignment::getId);
+
     private final AssignmentRepository assignmentRepository;
     private final AuditLogService auditLogService;
+    private final AssignmentExpiryService assignmentExpiryService;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final AssignmentHistoryRepository assignmentHistoryRepository;
+    private final HistoryArchiveService historyArchiveService;
+    private final SparseFieldService sparseFieldService;
+    private final ShardRouter shardRouter;
 
-    public AssignmentService(AssignmentRepository assignmentRepository, AuditLogService auditLogService) {
+    public AssignmentService(AssignmentRepository assignmentRepository, AuditLogService auditLogService,
+                             AssignmentExpiryService assignmentExpiryService, InventoryLedgerService inventoryLedgerService,
+                             AssignmentHistoryRepository assignmentHistoryRepository, HistoryArchiveService historyArchiveService,
+                             SparseFieldService sparseFieldService, ShardRouter shardRouter) {
         this.assignmentRepository = assignmentRepository;
         this.auditLogService = auditLogService;
+        this.assignmentExpiryService = assignmentExpiryService;
+        this.inventoryLedgerService = inventoryLedgerService;
+        this.assignmentHistoryRepository = assignmentHistoryRepository;
+        this.historyArchiveService = historyArchiveService;
+        this.sparseFieldService = sparseFieldService;
+        this.shardRouter = shardRouter;
     }
 
-    public List<Assignment> findAll() { return assignmentRepository.findAllWithDetails(); }
-    public Optional<Assignment> findById(Long id) { return assignmentRepository.findById(id); }
+    // An assignment stays on the shard the asset was on when it was made, and asset.base is where the asset
+    // is now, so reads go to every shard even with a base filter
+    public List<Assignment> findAll() { return shardRouter.gather(null, assignmentRepository::findAllWithDetails, BY_ID); }
+    public Optional<Assignment> findById(Long id) { return shardRouter.onId(id, () -> assignmentRepository.findById(id)); }
     public Assignment save(Assignment assignment, User currentUser) {
-        Assignment saved = assignmentRepository.save(assignment);
+        Assignment saved = saveOnAssetShard(assignment);
         auditLogService.logTransaction(
             "ASSIGN_ASSET",
             "Assignment",
@@ -32,9 +60,28 @@ public class AssignmentService {
         );
         return saved;
     }
-    public void deleteById(Long id) { assignmentRepository.deleteById(id); }
+    // Through the scoped lookup: JpaRepository.deleteById loads by key, which the base scope filter skips
+    public void deleteById(Long id) {
+        boolean deleted = shardRouter.on(shardRouter.shardOfId(id), () -> {
+            Optional<Assignment> hot = assignmentRepository.findById(id);
+            hot.ifPresent(assignmentRepository::delete);
+            int archived = assignmentHistoryRepository.deleteByIdWithin(id, BaseScope.current());
+            if (hot.isEmpty() && archived == 0) {
+                return false;
+            }
+            inventoryLedgerService.recordRemoval("Assignment", id);
+            return true;
+        });
+        if (deleted) {
+            assignmentExpiryService.untrack(id);
+        }
+    }
     
     public long countByFilters(Long baseId, Long assetId, String dateFrom, String dateTo) {
+        return shardRouter.sum(null, () -> countOnShard(baseId, assetId, dateFrom, dateTo));
+    }
+
+    private long countOnShard(Long baseId, Long assetId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         if (dateFrom != null && !dateFrom.trim().isEmpty()) {
@@ -43,6 +90,10 @@ public class AssignmentService {
         if (dateTo != null && !dateTo.trim().isEmpty()) {
             toDate = LocalDate.parse(dateTo);
         }
+        return countHot(baseId, assetId, fromDate, toDate) + countHistory(baseId, assetId, fromDate, toDate);
+    }
+
+    private long countHot(Long baseId, Long assetId, LocalDate fromDate, LocalDate toDate) {
         if (baseId != null && assetId != null && fromDate != null && toDate != null) {
             return assignmentRepository.findByAssetBaseIdAndAssetIdAndAssignedDateBetween(baseId, assetId, fromDate, toDate).size();
         } else if (baseId != null && fromDate != null && toDate != null) {
@@ -63,6 +114,10 @@ public class AssignmentService {
     }
     
     public List<Assignment> findByFilters(Long baseId, Long assetId, String dateFrom, String dateTo) {
+        return shardRouter.gather(null, () -> findOnShard(baseId, assetId, dateFrom, dateTo), BY_ID);
+    }
+
+    private List<Assignment> findOnShard(Long baseId, Long assetId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         if (dateFrom != null && !dateFrom.trim().isEmpty()) {
@@ -71,6 +126,43 @@ public class AssignmentService {
         if (dateTo != null && !dateTo.trim().isEmpty()) {
             toDate = LocalDate.parse(dateTo);
         }
+        return withHistory(findHot(baseId, assetId, fromDate, toDate), baseId, assetId, fromDate, toDate);
+    }
+
+    // Same filters and history rule as findByFilters, selecting only the requested fields
+    public List<Map<String, Object>> findFieldsByFilters(String fields, Long baseId, Long assetId, String dateFrom, String dateTo) {
+        return shardRouter.gather(null, () -> findFieldsOnShard(fields, baseId, assetId, dateFrom, dateTo),
+            Comparator.comparing(row -> (Long) row.get("id")));
+    }
+
+    private List<Map<String, Object>> findFieldsOnShard(String fields, Long baseId, Long assetId, String dateFrom, String dateTo) {
+        LocalDate fromDate = dateFrom != null && !dateFrom.trim().isEmpty() ? LocalDate.parse(dateFrom) : null;
+        LocalDate toDate = dateTo != null && !dateTo.trim().isEmpty() ? LocalDate.parse(dateTo) : null;
+        Map<String, Object> equal = new HashMap<>();
+        equal.put("asset.base.id", baseId);
+        equal.put("asset.id", assetId);
+        List<Map<String, Object>> hot = sparseFieldService.find(Assignment.class, fields, equal, "assignedDate", fromDate, toDate);
+        boolean ranged = fromDate != null && toDate != null;
+        if (!historyArchiveService.assignmentHistoryReaches(ranged ? fromDate : null)) {
+            return hot;
+        }
+        List<Map<String, Object>> all = new ArrayList<>(hot);
+        Set<Object> ids = new HashSet<>();
+        hot.forEach(row -> ids.add(row.get("id")));
+        for (Map<String, Object> archived : sparseFieldService.find(AssignmentHistory.class, fields, equal, "assignedDate", fromDate, toDate)) {
+            if (ids.add(archived.get("id"))) {
+                all.add(archived);
+            }
+        }
+        return all;
+    }
+
+    public Optional<Map<String, Object>> findFieldsById(Long id, String fields) {
+        return shardRouter.onId(id, () -> sparseFieldService.findById(Assignment.class, fields, id));
+    }
+
+    // Operational reads: the assignment table only
+    private List<Assignment> findHot(Long baseId, Long assetId, LocalDate fromDate, LocalDate toDate) {
         if (baseId != null && assetId != null && fromDate != null && toDate != null) {
             return assignmentRepository.findByAssetBaseIdAndAssetIdAndAssignedDateBetween(baseId, assetId, fromDate, toDate);
         } else if (baseId != null && fromDate != null && toDate != null) {
@@ -90,7 +182,43 @@ public class AssignmentService {
         }
     }
     
+    // Closed assignments moved to assignment_history, when the range reaches back that far. Date bounds
+    // only apply as a pair, as in the hot queries. A row moved between the two reads shows up in both,
+    // so the hot copy wins; counts may include it twice for the length of one move.
+    private List<Assignment> withHistory(List<Assignment> hot, Long baseId, Long assetId, LocalDate fromDate, LocalDate toDate) {
+        boolean ranged = fromDate != null && toDate != null;
+        if (!historyArchiveService.assignmentHistoryReaches(ranged ? fromDate : null)) {
+            return hot;
+        }
+        List<AssignmentHistory> history = assignmentHistoryRepository.findByFilters(baseId, assetId,
+            ranged ? fromDate : null, ranged ? toDate : null);
+        if (history.isEmpty()) {
+            return hot;
+        }
+        List<Assignment> all = new ArrayList<>(hot);
+        Set<Long> ids = new HashSet<>();
+        hot.forEach(a -> ids.add(a.getId()));
+        for (AssignmentHistory archived : history) {
+            if (ids.add(archived.getId())) {
+                all.add(archived.toAssignment());
+            }
+        }
+        return all;
+    }
+
+    private long countHistory(Long baseId, Long assetId, LocalDate fromDate, LocalDate toDate) {
+        boolean ranged = fromDate != null && toDate != null;
+        if (!historyArchiveService.assignmentHistoryReaches(ranged ? fromDate : null)) {
+            return 0;
+        }
+        return assignmentHistoryRepository.countByFilters(baseId, assetId, ranged ? fromDate : null, ranged ? toDate : null);
+    }
+
     public long countActiveAssignments(Long baseId, Long assetTypeId) {
+        return shardRouter.sum(null, () -> countActiveOnShard(baseId, assetTypeId));
+    }
+
+    private long countActiveOnShard(Long baseId, Long assetTypeId) {
         List<Assignment> allAssignments = assignmentRepository.findAllWithDetails();
         return allAssignments.stream()
             .filter(assignment -> Assignment.AssignmentStatus.ACTIVE.equals(assignment.getStatus()))
@@ -101,6 +229,16 @@ public class AssignmentService {
 
     // For backward compatibility
     public Assignment save(Assignment assignment) {
-        return assignmentRepository.save(assignment);
+        return saveOnAssetShard(assignment);
+    }
+
+    // Next to the asset's current copy, so the foreign key and the ledger's lookup of its holding both hold
+    private Assignment saveOnAssetShard(Assignment assignment) {
+        return shardRouter.on(shardRouter.shardOfAsset(assignment.getAsset().getId()), () -> {
+            Assignment saved = assignmentRepository.save(assignment);
+            assignmentExpiryService.track(saved);
+            inventoryLedgerService.recordAssignment(saved);
+            return saved;
+        });
     }
 } 
\ No newline at end of file
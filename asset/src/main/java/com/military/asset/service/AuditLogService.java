@@ -13,7 +13,13 @@ import java.util.Optional;
 @Service
 public class AuditLogService {
     private final AuditLogRepository auditLogRepository;
-    public AuditLogService(AuditLogRepository auditLogRepository) { this.auditLogRepository = auditLogRepository; }
+    private final RequestCoalescer requestCoalescer;
+    private final ShardRouter shardRouter;
+    public AuditLogService(AuditLogRepository auditLogRepository, RequestCoalescer requestCoalescer, ShardRouter shardRouter) {
+        this.auditLogRepository = auditLogRepository;
+        this.requestCoalescer = requestCoalescer;
+        this.shardRouter = shardRouter;
+    }
 
     public List<AuditLog> findAll() { return auditLogRepository.findAllWithDetails(); }
     public Optional<AuditLog> findById(Long id) { return auditLogRepository.findById(id); }
@@ -33,7 +39,15 @@ public class AuditLogService {
             LocalDate toDate = LocalDate.parse(dateTo);
             toDateTime = toDate.atTime(LocalTime.MAX); // End of day
         }
-        
+
+        // Concurrent identical queries share one result; keyed on the parsed bounds
+        LocalDateTime from = fromDateTime;
+        LocalDateTime to = toDateTime;
+        return requestCoalescer.coalesce("audit-logs.filter",
+            () -> findByFilters(baseId, assetTypeId, userId, from, to), baseId, assetTypeId, userId, from, to);
+    }
+
+    private List<AuditLog> findByFilters(Long baseId, Long assetTypeId, Long userId, LocalDateTime fromDateTime, LocalDateTime toDateTime) {
         // For now, we'll implement basic filtering without complex combinations
         // since the repository methods are limited. In a production system,
         // you'd want to use a more flexible query approach.
@@ -85,10 +99,22 @@ public class AuditLogService {
             auditLog.setUser(user);
             auditLog.setTimestamp(LocalDateTime.now());
             auditLog.setEntityId(entityId);
-            auditLogRepository.save(auditLog);
+            // The audit trail stays on the home shard whichever base the change was for
+            shardRouter.onHome(() -> auditLogRepository.save(auditLog));
             System.out.println(">>> Audit log saved!");
         } catch (Exception e) {
             System.err.println("Failed to create audit log: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    // Writes a batch of entries in one saveAll, e.g. everything a scheduled job touched in one run
+    public void logBatch(List<AuditLog> auditLogs) {
+        LocalDateTime now = LocalDateTime.now();
+        for (AuditLog auditLog : auditLogs) {
+            if (auditLog.getTimestamp() == null) {
+                auditLog.setTimestamp(now);
+            }
+        }
+        shardRouter.onHome(() -> auditLogRepository.saveAll(auditLogs));
+    }
+}
@@ -0,0 +1,268 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Base;
+import com.military.asset.repository.BaseRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Nearest-base and radius queries over the bases' coordinates, from an in-memory k-d tree.
+ *
+ * Bases are stored as points on the unit sphere, so straight-line (chord) distance orders them exactly
+ * as great-circle distance does, with no special cases at the poles or the date line. The tree is
+ * immutable and rebuilt on every base change (a few thousand bases take well under a millisecond);
+ * queries read whichever tree is current without locking.
+ *
+ * Queries can require a number of assets of a type and status on each base (from AssetFacetService);
+ * the count is only taken for bases the search actually visits.
+ */
+@Service
+public class BaseLocationService {
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    public record NearbyBase(Long baseId, String name, double distanceKm, Long assetCount) {}
+
+    private final BaseRepository baseRepository;
+    private final AssetFacetService assetFacetService;
+
+    // Guarded by this; the tree is rebuilt from it
+    private final Map<Long, Point> points = new HashMap<>();
+    private volatile Tree tree = Tree.build(List.of());
+
+    public BaseLocationService(BaseRepository baseRepository, AssetFacetService assetFacetService) {
+        this.baseRepository = baseRepository;
+        this.assetFacetService = assetFacetService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        points.clear();
+        for (Base base : baseRepository.findAll()) {
+            Point point = Point.of(base);
+            if (point != null) {
+                points.put(point.id(), point);
+            }
+        }
+        tree = Tree.build(points.values());
+        System.out.println(">>> Base location index built with " + points.size() + " bases");
+    }
+
+    public synchronized void indexBase(Base base) {
+        Point point = Point.of(base);
+        if (point == null) {
+            points.remove(base.getId());
+        } else {
+            points.put(point.id(), point);
+        }
+        tree = Tree.build(points.values());
+    }
+
+    public synchronized void remove(Long baseId) {
+        if (points.remove(baseId) != null) {
+            tree = Tree.build(points.values());
+        }
+    }
+
+    /**
+     * Up to limit bases nearest to the point, closest first, optionally only within radiusKm. With an asset
+     * type or status, only bases holding at least minCount such assets qualify, and each result carries
+     * its count. excludeBaseId (e.g. the base a transfer would come from) is never returned.
+     */
+    public List<NearbyBase> findNearby(double latitude, double longitude, int limit, Double radiusKm, Long excludeBaseId,
+                                       Long assetTypeId, String status, long minCount) {
+        checkCoordinates(latitude, longitude);
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (radiusKm != null && radiusKm < 0) {
+            throw new IllegalArgumentException("radiusKm must not be negative");
+        }
+        double[] origin = unitVector(latitude, longitude);
+        double maxChord2 = radiusKm == null ? Double.POSITIVE_INFINITY : chord2(radiusKm);
+        Tree current = tree;
+        long exclude = excludeBaseId == null ? Long.MIN_VALUE : excludeBaseId;
+
+        if (assetTypeId == null && status == null) {
+            return current.nearest(origin, limit, maxChord2, id -> id != exclude).stream()
+                .map(hit -> current.result(hit, null)).toList();
+        }
+        return assetFacetService.withBaseCounts(assetTypeId, status, counts -> {
+            List<Hit> hits = current.nearest(origin, limit, maxChord2, id -> id != exclude && counts.applyAsLong(id) >= minCount);
+            return hits.stream().map(hit -> current.result(hit, counts)).toList();
+        });
+    }
+
+    // Coordinates of a base that has them, for queries around it
+    public double[] coordinatesOf(Long baseId) {
+        Point point = tree.byId.get(baseId);
+        return point == null ? null : new double[] {point.latitude(), point.longitude()};
+    }
+
+    // Great-circle distance between two bases, or null if either has no coordinates
+    public Double distanceKm(Long fromBaseId, Long toBaseId) {
+        Tree current = tree;
+        Point from = current.byId.get(fromBaseId);
+        Point to = current.byId.get(toBaseId);
+        if (from == null || to == null) {
+            return null;
+        }
+        return kilometres(unitVector(from.latitude(), from.longitude()), unitVector(to.latitude(), to.longitude()));
+    }
+
+    // A base's point on the unit sphere, or null without coordinates; for callers measuring many routes
+    public double[] unitVectorOf(Long baseId) {
+        Point point = tree.byId.get(baseId);
+        return point == null ? null : unitVector(point.latitude(), point.longitude());
+    }
+
+    public int size() {
+        return tree.ids.length;
+    }
+
+    static void checkCoordinates(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("latitude and longitude must be given together");
+        }
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("latitude must be within -90..90 and longitude within -180..180");
+        }
+    }
+
+    static double[] unitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[] {Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    // Squared chord of a great-circle distance; anything past the antipode is the whole sphere
+    static double chord2(double km) {
+        double chord = 2 * Math.sin(Math.min(km / EARTH_RADIUS_KM, Math.PI) / 2);
+        return chord * chord;
+    }
+
+    static double kilometres(double[] a, double[] b) {
+        double dx = a[0] - b[0], dy = a[1] - b[1], dz = a[2] - b[2];
+        return kilometres(dx * dx + dy * dy + dz * dz);
+    }
+
+    static double kilometres(double chord2) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(chord2) / 2));
+    }
+
+    record Point(long id, String name, double latitude, double longitude) {
+        static Point of(Base base) {
+            if (base.getId() == null || base.getLatitude() == null || base.getLongitude() == null) {
+                return null;
+            }
+            return new Point(base.getId(), base.getName(), base.getLatitude(), base.getLongitude());
+        }
+    }
+
+    record Hit(int node, double chord2) {}
+
+    /**
+     * Balanced k-d tree laid out implicitly in arrays: the node of a range is its middle element, the elements
+     * before it are at or below it on the split axis and those after at or above. Axes cycle x, y, z by depth.
+     */
+    static final class Tree {
+        final long[] ids;
+        final double[][] coordinates;
+        final Point[] nodes;
+        final Map<Long, Point> byId = new HashMap<>();
+
+        private record Entry(Point point, double[] vector) {}
+
+        private Tree(Entry[] entries) {
+            int n = entries.length;
+            ids = new long[n];
+            nodes = new Point[n];
+            coordinates = new double[3][n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = entries[i].point();
+                ids[i] = nodes[i].id();
+                for (int axis = 0; axis < 3; axis++) {
+                    coordinates[axis][i] = entries[i].vector()[axis];
+                }
+                byId.put(ids[i], nodes[i]);
+            }
+        }
+
+        static Tree build(Collection<Point> points) {
+            Entry[] entries = points.stream()
+                .map(point -> new Entry(point, unitVector(point.latitude(), point.longitude())))
+                .toArray(Entry[]::new);
+            arrange(entries, 0, entries.length, 0);
+            return new Tree(entries);
+        }
+
+        private static void arrange(Entry[] entries, int from, int to, int depth) {
+            if (to - from < 2) {
+                return;
+            }
+            int axis = depth % 3;
+            Arrays.sort(entries, from, to, Comparator.comparingDouble(entry -> entry.vector()[axis]));
+            int mid = (from + to) >>> 1;
+            arrange(entries, from, mid, depth + 1);
+            arrange(entries, mid + 1, to, depth + 1);
+        }
+
+        // The limit nearest accepted nodes within maxChord2, closest first
+        List<Hit> nearest(double[] origin, int limit, double maxChord2, LongPredicate accept) {
+            // Farthest of the best so far on top
+            PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::chord2).reversed());
+            search(0, ids.length, 0, origin, limit, maxChord2, accept, best);
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(Comparator.comparingDouble(Hit::chord2));
+            return hits;
+        }
+
+        private void search(int from, int to, int depth, double[] origin, int limit, double maxChord2,
+                            LongPredicate accept, PriorityQueue<Hit> best) {
+            if (from >= to) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            int axis = depth % 3;
+            double d2 = 0;
+            for (int a = 0; a < 3; a++) {
+                double d = coordinates[a][mid] - origin[a];
+                d2 += d * d;
+            }
+            // Cheap distance check first; the predicate may count assets
+            if (d2 <= bound(best, limit, maxChord2) && accept.test(ids[mid])) {
+                best.add(new Hit(mid, d2));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            double offset = origin[axis] - coordinates[axis][mid];
+            boolean nearIsLower = offset < 0;
+            search(nearIsLower ? from : mid + 1, nearIsLower ? mid : to, depth + 1, origin, limit, maxChord2, accept, best);
+            if (offset * offset <= bound(best, limit, maxChord2)) {
+                search(nearIsLower ? mid + 1 : from, nearIsLower ? to : mid, depth + 1, origin, limit, maxChord2, accept, best);
+            }
+        }
+
+        private static double bound(PriorityQueue<Hit> best, int limit, double maxChord2) {
+            return best.size() < limit ? maxChord2 : Math.min(maxChord2, best.peek().chord2());
+        }
+
+        NearbyBase result(Hit hit, LongUnaryOperator counts) {
+            Point point = nodes[hit.node()];
+            return new NearbyBase(point.id(), point.name(), kilometres(hit.chord2()),
+                counts == null ? null : counts.applyAsLong(point.id()));
+        }
+    }
+}
@@ -9,10 +9,35 @@ import java.util.Optional;
 @Service
 public class BaseService {
     private final BaseRepository baseRepository;
-    public BaseService(BaseRepository baseRepository) { this.baseRepository = baseRepository; }
+    private final SearchService searchService;
+    private final ShardRouter shardRouter;
+    private final BaseLocationService baseLocationService;
+
+    public BaseService(BaseRepository baseRepository, SearchService searchService, ShardRouter shardRouter,
+                       BaseLocationService baseLocationService) {
+        this.baseRepository = baseRepository;
+        this.searchService = searchService;
+        this.shardRouter = shardRouter;
+        this.baseLocationService = baseLocationService;
+    }
 
     public List<Base> findAll() { return baseRepository.findAll(); }
     public Optional<Base> findById(Long id) { return baseRepository.findById(id); }
-    public Base save(Base base) { return baseRepository.save(base); }
-    public void deleteById(Long id) { baseRepository.deleteById(id); }
+    // Written on the home shard and copied to the others
+    public Base save(Base base) {
+        if (base.getLatitude() != null || base.getLongitude() != null) {
+            BaseLocationService.checkCoordinates(base.getLatitude(), base.getLongitude());
+        }
+        Base saved = shardRouter.onHome(() -> baseRepository.save(base));
+        shardRouter.replicate("base", saved.getId());
+        searchService.indexBase(saved);
+        baseLocationService.indexBase(saved);
+        return saved;
+    }
+    public void deleteById(Long id) {
+        shardRouter.removeReplicas("base", id);
+        shardRouter.run(ShardRouter.HOME, () -> baseRepository.deleteById(id));
+        searchService.remove(SearchService.Kind.BASE, id);
+        baseLocationService.remove(id);
+    }
 } 
\ No newline at end of file
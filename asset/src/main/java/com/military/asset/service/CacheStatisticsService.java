@@ -0,0 +1,62 @@
+package com.military.asset.service;
+
+import com.military.asset.config.HibernateCacheConfig;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-region size and hit counts for the Hibernate second-level and query caches. Hit and miss
+ * counts come from Hibernate's statistics (zero when hibernate.cache.statistics-enabled is off);
+ * sizes are the Caffeine estimates for the backing caches.
+ */
+@Service
+public class CacheStatisticsService {
+    private static final List<String> REGIONS = List.of(HibernateCacheConfig.BASE_REGION, HibernateCacheConfig.ASSET_TYPE_REGION,
+        HibernateCacheConfig.USER_REGION, HibernateCacheConfig.QUERY_REGION);
+
+    public record RegionStatistics(String region, long size, long hits, long misses, long puts, double hitRatio) {}
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    public CacheStatisticsService(EntityManagerFactory entityManagerFactory, ObjectProvider<CacheManager> cacheManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+    }
+
+    // Empty when the second-level cache is disabled
+    public List<RegionStatistics> regions() {
+        CacheManager manager = cacheManager.getIfAvailable();
+        if (manager == null) {
+            return List.of();
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<RegionStatistics> regions = new ArrayList<>();
+        for (String region : REGIONS) {
+            CacheRegionStatistics stats = statistics.isStatisticsEnabled() ? statistics.getCacheRegionStatistics(region) : null;
+            long hits = stats == null ? 0 : stats.getHitCount();
+            long misses = stats == null ? 0 : stats.getMissCount();
+            long puts = stats == null ? 0 : stats.getPutCount();
+            regions.add(new RegionStatistics(region, size(manager.getCache(region)), hits, misses, puts,
+                hits + misses == 0 ? 0 : (double) hits / (hits + misses)));
+        }
+        return regions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long size(Cache<?, ?> cache) {
+        if (cache == null) {
+            return 0;
+        }
+        return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+    }
+}
@@ -0,0 +1,29 @@
+package com.military.asset.service;
+
+import com.military.asset.model.ChangeTracked;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+import org.springframework.stereotype.Component;
+
+// JPA listener on the synced entities (created by Spring through Hibernate's bean container). Bulk JPQL
+// updates bypass it and stamp the sequence themselves; archiving copies rows without a new sequence.
+@Component
+public class ChangeSequenceListener {
+    private final ChangeSequenceService changeSequenceService;
+
+    public ChangeSequenceListener(ChangeSequenceService changeSequenceService) {
+        this.changeSequenceService = changeSequenceService;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void stamp(ChangeTracked entity) {
+        entity.setChangeSeq(changeSequenceService.next());
+    }
+
+    @PreRemove
+    public void tombstone(ChangeTracked entity) {
+        changeSequenceService.tombstone(entity.syncEntity(), entity.getId());
+    }
+}
@@ -0,0 +1,160 @@
+package com.military.asset.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The change sequence behind /api/sync: one counter shared by every synced table and the tombstones,
+ * so a single watermark orders all changes.
+ *
+ * Numbers come from the counter row in change_sequence (on the home shard), taken in a transaction of
+ * their own on a separate connection, so the row lock is held only for the increment and never joins the
+ * caller's transaction. The same transaction leases the first number in change_sequence_lease until the
+ * caller's transaction commits or rolls back. Transactions can commit out of order, so readers only trust
+ * sequences below the oldest lease any instance holds; otherwise a client could move its watermark past a
+ * row that becomes visible later. A lease left by an instance that died is ignored once it is older than
+ * the lease timeout, which must outlast the longest writing transaction.
+ */
+@Service
+public class ChangeSequenceService {
+    static final List<String> TABLES = List.of("base", "asset_type", "asset", "purchase", "transfer", "transfer_history",
+        "assignment", "assignment_history", "expenditure", "sync_tombstone");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final Duration leaseTimeout;
+    // Provided lazily: the JPA transaction manager needs this service to start
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    public ChangeSequenceService(JdbcTemplate jdbcTemplate, ShardRouter shardRouter,
+                                 @Value("${change-sequence.lease-timeout-ms:600000}") long leaseTimeoutMs,
+                                 ObjectProvider<PlatformTransactionManager> transactionManager) {
+        if (leaseTimeoutMs < 1) {
+            throw new IllegalArgumentException("change-sequence.lease-timeout-ms must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.leaseTimeout = Duration.ofMillis(leaseTimeoutMs);
+        this.transactionManager = transactionManager;
+    }
+
+    public long next() {
+        return reserve(1);
+    }
+
+    // A block of size consecutive sequences, for bulk updates that stamp one per row; returns the first.
+    // Leased until the caller's transaction finishes; outside a transaction the write must already be done.
+    public long reserve(long size) {
+        long first = allocate(size);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(first);
+                }
+            });
+        } else {
+            release(first);
+        }
+        return first;
+    }
+
+    // Highest sequence with no transaction on any instance still open below it: everything at or below it
+    // is committed or gone
+    public long safeWatermark() {
+        return shardRouter.onHome(() -> jdbcTemplate.queryForObject(
+            "SELECT COALESCE((SELECT MIN(first_value) FROM change_sequence_lease WHERE taken_at > ?), next_value) - 1 "
+                + "FROM change_sequence WHERE id = 1", Long.class, Timestamp.valueOf(LocalDateTime.now().minus(leaseTimeout))));
+    }
+
+    // Rows written outside the application (seed data, rows from before the sequence existed) have 0;
+    // give each its own number so that a full sync can page through them like any other change. Each
+    // table is numbered in one transaction, which holds the lease until the numbers are visible.
+    @EventListener(ApplicationReadyEvent.class)
+    public void numberUnsequencedRows() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager.getObject());
+        for (String table : TABLES.subList(0, TABLES.size() - 1)) {
+            transaction.executeWithoutResult(status -> {
+                Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table + " WHERE change_seq = 0", Long.class);
+                if (maxId != null) {
+                    long first = reserve(maxId);
+                    jdbcTemplate.update("UPDATE " + table + " SET change_seq = ? + id WHERE change_seq = 0", first - 1);
+                }
+            });
+        }
+    }
+
+    public void tombstone(String entity, Long id) {
+        jdbcTemplate.update("INSERT INTO sync_tombstone (change_seq, entity, entity_id, deleted_at) VALUES (?, ?, ?, ?)",
+            next(), entity, id, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Leases left behind by instances that stopped mid-transaction
+    @Scheduled(fixedDelayString = "${change-sequence.lease-cleanup-interval-ms:600000}")
+    public void purgeExpiredLeases() {
+        shardRouter.onHome(() -> jdbcTemplate.update("DELETE FROM change_sequence_lease WHERE taken_at <= ?",
+            Timestamp.valueOf(LocalDateTime.now().minus(leaseTimeout))));
+    }
+
+    // Takes count numbers off the shared counter and leases the first; returns it. Plain JDBC rather than
+    // a transaction manager, on a connection of its own, so neither joins the caller's transaction.
+    private long allocate(long count) {
+        try (Connection connection = shardRouter.dataSource(ShardRouter.HOME).getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement increment = connection.prepareStatement(
+                     "UPDATE change_sequence SET next_value = next_value + ? WHERE id = 1");
+                 PreparedStatement read = connection.prepareStatement("SELECT next_value FROM change_sequence WHERE id = 1");
+                 PreparedStatement lease = connection.prepareStatement(
+                     "INSERT INTO change_sequence_lease (first_value, taken_at) VALUES (?, ?)")) {
+                increment.setLong(1, count);
+                increment.executeUpdate();
+                long first;
+                try (ResultSet result = read.executeQuery()) {
+                    result.next();
+                    first = result.getLong(1) - count;
+                }
+                lease.setLong(1, first);
+                lease.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                lease.executeUpdate();
+                connection.commit();
+                return first;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not allocate change sequences: " + e.getMessage(), e);
+        }
+    }
+
+    // On a connection of its own: this runs after the caller's transaction, whose resources may still be bound
+    private void release(long first) {
+        try (Connection connection = shardRouter.dataSource(ShardRouter.HOME).getConnection();
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM change_sequence_lease WHERE first_value = ?")) {
+            connection.setAutoCommit(true);
+            delete.setLong(1, first);
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            // The lease holds the watermark back until it expires, which is safe
+            System.err.println("Failed to release change sequence lease " + first + ": " + e.getMessage());
+        }
+    }
+}
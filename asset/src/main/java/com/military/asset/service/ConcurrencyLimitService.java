@@ -0,0 +1,176 @@
+package com.military.asset.service;
+
+import com.military.asset.filter.EndpointClass;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limits on requests in flight, one per endpoint class, so that under peak load the excess of a
+ * class is shed with 503 at once instead of queueing until everything times out.
+ *
+ * Each limit follows the class's own latency, gradient style: a fast moving average of recent response
+ * times is compared with a slow one that stands for the latency without load. While the two agree the
+ * limit grows by about its square root, as requests queue the gradient falls below one and the limit
+ * shrinks with it. Writes and auth are priority lanes: reads and heavy reads together may only fill the
+ * server-wide maximum up to its reserve, so those always have room.
+ */
+@Service
+public class ConcurrencyLimitService {
+    static final Set<EndpointClass> PRIORITY = EnumSet.of(EndpointClass.AUTH, EndpointClass.WRITE);
+    static final int INITIAL_LIMIT = 20;
+    static final int MIN_LIMIT = 2;
+
+    // Short window about 10 requests, long window about 500
+    private static final double SHORT_ALPHA = 2.0 / 11;
+    private static final double LONG_ALPHA = 2.0 / 501;
+    // Latency may grow by half before the limit backs off
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    public record LaneStatistics(EndpointClass endpointClass, int limit, int inFlight, long admitted, long shed,
+                                 double recentLatencyMs, double baselineLatencyMs) {}
+
+    /** Held by an admitted request; release it when the response is complete. */
+    public interface Permit {
+        void release();
+    }
+
+    private static final Permit UNLIMITED = () -> {};
+
+    private final class Lane {
+        final EndpointClass endpointClass;
+        final int maxLimit;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LongAdder admitted = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        volatile int limit;
+        // Guarded by this
+        double estimatedLimit;
+        double shortRtt;
+        double longRtt;
+
+        Lane(EndpointClass endpointClass, int maxLimit) {
+            this.endpointClass = endpointClass;
+            this.maxLimit = maxLimit;
+            this.estimatedLimit = Math.min(INITIAL_LIMIT, maxLimit);
+            this.limit = (int) estimatedLimit;
+        }
+
+        synchronized void sample(long rttNanos, int inFlightAtStart) {
+            if (longRtt == 0) {
+                shortRtt = longRtt = rttNanos;
+                return;
+            }
+            shortRtt += SHORT_ALPHA * (rttNanos - shortRtt);
+            longRtt += LONG_ALPHA * (rttNanos - longRtt);
+            // After a slow spell the baseline would keep the limit high for long; let it catch up
+            if (longRtt > 2 * shortRtt) {
+                longRtt *= 0.95;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            // Grow only when the limit is actually in use, or an idle class would drift up to the maximum
+            if (gradient >= 1.0 && inFlightAtStart * 2 < estimatedLimit) {
+                return;
+            }
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = Math.max(MIN_LIMIT, Math.min(maxLimit, estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING));
+            limit = (int) estimatedLimit;
+        }
+
+        synchronized LaneStatistics statistics() {
+            return new LaneStatistics(endpointClass, limit, inFlight.get(), admitted.sum(), shed.sum(),
+                shortRtt / 1_000_000, longRtt / 1_000_000);
+        }
+    }
+
+    private final Map<EndpointClass, Lane> lanes = new EnumMap<>(EndpointClass.class);
+    private final AtomicInteger totalInFlight = new AtomicInteger();
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final int reserved;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ConcurrencyLimitService(@Value("${concurrency-limit.enabled:true}") boolean enabled,
+                                   @Value("${concurrency-limit.max-in-flight:200}") int maxInFlight,
+                                   @Value("${concurrency-limit.reserved:40}") int reserved) {
+        this(enabled, maxInFlight, reserved, System::nanoTime);
+    }
+
+    ConcurrencyLimitService(boolean enabled, int maxInFlight, int reserved, LongSupplier clockNanos) {
+        if (reserved < 0 || maxInFlight - reserved < MIN_LIMIT) {
+            throw new IllegalArgumentException("concurrency-limit.max-in-flight must exceed the reserve by at least " + MIN_LIMIT);
+        }
+        this.enabled = enabled;
+        this.maxInFlight = maxInFlight;
+        this.reserved = reserved;
+        this.clock = clockNanos;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            lanes.put(endpointClass, new Lane(endpointClass, ceiling(endpointClass)));
+        }
+    }
+
+    /** Admits a request of the class, or returns null if it should be shed. */
+    public Permit tryAcquire(EndpointClass endpointClass) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        Lane lane = lanes.get(endpointClass);
+        if (!increment(totalInFlight, ceiling(endpointClass))) {
+            lane.shed.increment();
+            return null;
+        }
+        if (!increment(lane.inFlight, lane.limit)) {
+            totalInFlight.decrementAndGet();
+            lane.shed.increment();
+            return null;
+        }
+        lane.admitted.increment();
+        int inFlightAtStart = lane.inFlight.get();
+        long start = clock.getAsLong();
+        return () -> {
+            lane.inFlight.decrementAndGet();
+            totalInFlight.decrementAndGet();
+            lane.sample(clock.getAsLong() - start, inFlightAtStart);
+        };
+    }
+
+    public List<LaneStatistics> statistics() {
+        List<LaneStatistics> statistics = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            statistics.add(lane.statistics());
+        }
+        return statistics;
+    }
+
+    public int getTotalInFlight() { return totalInFlight.get(); }
+    public int getMaxInFlight() { return maxInFlight; }
+    public int getReserved() { return reserved; }
+
+    private int ceiling(EndpointClass endpointClass) {
+        return PRIORITY.contains(endpointClass) ? maxInFlight : maxInFlight - reserved;
+    }
+
+    private static boolean increment(AtomicInteger counter, int bound) {
+        while (true) {
+            int current = counter.get();
+            if (current >= bound) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.military.asset.service;
+
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.ExpenditureRepository;
+import com.military.asset.security.BaseScope;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * 7/30/90-day expenditure totals and daily consumption rates per base and asset type.
+ *
+ * Each base/type pair keeps a ring of 90 daily buckets indexed by epoch day; moving to a newer day
+ * clears the slots that fall out of the window, so a rate is a sum over at most 90 longs. Saves and
+ * deletes adjust the ring through a per-expenditure record of what was last added for it.
+ *
+ * Rings are rebuilt from the last 90 days of history at startup and every night, with the bases
+ * split across parallel loaders. Future-dated expenditures are left out until their day comes
+ * round and the nightly rebuild picks them up.
+ */
+@Service
+public class ConsumptionRateService {
+    static final int[] WINDOWS = {7, 30, 90};
+    private static final int CAPACITY = 90;
+
+    public record ConsumptionRate(Long baseId, Long assetTypeId, Map<String, Long> totals, Map<String, Double> dailyRates) {}
+
+    private record Key(Long baseId, Long assetTypeId) {}
+
+    private record Contribution(Key key, long day, long quantity) {}
+
+    private final ExpenditureRepository expenditureRepository;
+    private final BaseRepository baseRepository;
+    private final AsyncTaskExecutor taskExecutor;
+    private final int parallelism;
+    private final ShardRouter shardRouter;
+
+    private final Rebuildable<State> state = new Rebuildable<>(new State());
+
+    public ConsumptionRateService(ExpenditureRepository expenditureRepository, BaseRepository baseRepository,
+                                  @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                                  @Value("${consumption.rebuild-parallelism:4}") int parallelism, ShardRouter shardRouter) {
+        this.expenditureRepository = expenditureRepository;
+        this.shardRouter = shardRouter;
+        this.baseRepository = baseRepository;
+        this.taskExecutor = taskExecutor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    // Null filters mean all bases / all asset types; pairs with nothing in the last 90 days are omitted
+    public List<ConsumptionRate> rates(Long baseId, Long assetTypeId, LocalDate today) {
+        long day = today.toEpochDay();
+        List<ConsumptionRate> rates = new ArrayList<>();
+        Map<Key, Ring> rings = state.read(live -> live.rings);
+        for (Map.Entry<Key, Ring> entry : rings.entrySet()) {
+            Key key = entry.getKey();
+            if ((baseId != null && !baseId.equals(key.baseId())) || (assetTypeId != null && !assetTypeId.equals(key.assetTypeId()))) {
+                continue;
+            }
+            long[] sums = entry.getValue().sums(day);
+            if (sums[sums.length - 1] == 0) {
+                continue;
+            }
+            Map<String, Long> totals = new LinkedHashMap<>();
+            Map<String, Double> dailyRates = new LinkedHashMap<>();
+            for (int i = 0; i < WINDOWS.length; i++) {
+                totals.put(WINDOWS[i] + "d", sums[i]);
+                dailyRates.put(WINDOWS[i] + "d", (double) sums[i] / WINDOWS[i]);
+            }
+            rates.add(new ConsumptionRate(key.baseId(), key.assetTypeId(), totals, dailyRates));
+        }
+        rates.sort(Comparator.comparing(ConsumptionRate::baseId).thenComparing(ConsumptionRate::assetTypeId));
+        return rates;
+    }
+
+    // Re-reads the saved row so the asset type comes from the database rather than a lazy proxy
+    public void recordExpenditure(Long expenditureId) {
+        try {
+            // The rates cover every base, not just a scoped caller's
+            List<Object[]> rows = BaseScope.unscoped(() -> expenditureRepository.findConsumptionRow(expenditureId));
+            long today = LocalDate.now().toEpochDay();
+            Contribution contribution = rows.isEmpty() ? null : contribution(rows.get(0));
+            state.write(s -> s.apply(expenditureId, contribution, today), expenditureId);
+        } catch (Exception e) {
+            System.err.println("Failed to update consumption rates for expenditure " + expenditureId + ": " + e.getMessage());
+        }
+    }
+
+    public void removeExpenditure(Long expenditureId) {
+        long today = LocalDate.now().toEpochDay();
+        state.write(s -> s.apply(expenditureId, null, today), expenditureId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    @Scheduled(cron = "${consumption.rebuild-cron:0 5 0 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate after = today.minusDays(CAPACITY);
+        try {
+            Long rows = state.rebuild(new State(), () -> {
+                // Each shard's bases are dealt round-robin so each of its loaders gets a similar share of the big ones
+                Map<Integer, List<Long>> baseIds = new TreeMap<>();
+                for (Object[] row : baseRepository.findAllNamesAndLocations()) {
+                    baseIds.computeIfAbsent(shardRouter.shardOfBase((Long) row[0]), shard -> new ArrayList<>()).add((Long) row[0]);
+                }
+                List<Future<List<Object[]>>> loads = new ArrayList<>();
+                for (Map.Entry<Integer, List<Long>> shard : baseIds.entrySet()) {
+                    List<Long> onShard = shard.getValue();
+                    List<List<Long>> partitions = new ArrayList<>();
+                    for (int i = 0; i < Math.min(parallelism, onShard.size()); i++) {
+                        partitions.add(new ArrayList<>());
+                    }
+                    for (int i = 0; i < onShard.size(); i++) {
+                        partitions.get(i % partitions.size()).add(onShard.get(i));
+                    }
+                    for (List<Long> partition : partitions) {
+                        loads.add(taskExecutor.submit(() -> shardRouter.on(shard.getKey(),
+                            () -> expenditureRepository.findConsumptionRows(partition, after, today))));
+                    }
+                }
+
+                long loaded = 0;
+                long day = today.toEpochDay();
+                for (Future<List<Object[]>> load : loads) {
+                    List<Object[]> page = load.get();
+                    state.fill((building, written) -> {
+                        for (Object[] row : page) {
+                            Long id = (Long) row[0];
+                            if (!written.test(id)) {
+                                building.apply(id, contribution(row), day);
+                            }
+                        }
+                    });
+                    loaded += page.size();
+                }
+                return loaded;
+            });
+            if (rows != null) {
+                System.out.println(">>> Consumption rates rebuilt from " + rows + " expenditures across "
+                    + state.read(live -> live.rings.size()) + " base/type pairs in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (Exception e) {
+            System.err.println("Consumption rate rebuild failed: " + e.getMessage());
+        }
+    }
+
+    // Row shape: (id, baseId, assetTypeId, expenditureDate, quantity)
+    private static Contribution contribution(Object[] row) {
+        Number quantity = (Number) row[4];
+        return new Contribution(new Key((Long) row[1], (Long) row[2]), ((LocalDate) row[3]).toEpochDay(),
+            quantity == null ? 0 : quantity.longValue());
+    }
+
+    private static final class State {
+        // Rings are created under the Rebuildable lock but read without it; each ring guards itself
+        final Map<Key, Ring> rings = new ConcurrentHashMap<>();
+        final Map<Long, Contribution> contributions = new HashMap<>();
+
+        void apply(Long expenditureId, Contribution next, long today) {
+            Contribution previous = next == null ? contributions.remove(expenditureId) : contributions.put(expenditureId, next);
+            if (previous != null) {
+                Ring ring = rings.get(previous.key());
+                if (ring != null) {
+                    ring.add(previous.day(), -previous.quantity());
+                }
+            }
+            // Nothing to window yet; the nightly rebuild picks future-dated rows up once they are due
+            if (next == null || next.day() > today || next.day() <= today - CAPACITY) {
+                if (next != null) {
+                    contributions.remove(expenditureId);
+                }
+                return;
+            }
+            rings.computeIfAbsent(next.key(), k -> new Ring()).add(next.day(), next.quantity());
+        }
+    }
+
+    private static final class Ring {
+        private final long[] buckets = new long[CAPACITY];
+        private long newestDay = Long.MIN_VALUE;
+
+        synchronized void add(long day, long quantity) {
+            if (newestDay == Long.MIN_VALUE) {
+                newestDay = day;
+            } else if (day > newestDay) {
+                for (long d = newestDay + 1; d <= Math.min(day, newestDay + CAPACITY); d++) {
+                    buckets[slot(d)] = 0;
+                }
+                newestDay = day;
+            }
+            if (day > newestDay - CAPACITY) {
+                buckets[slot(day)] += quantity;
+            }
+        }
+
+        // One total per entry of WINDOWS, each covering the days up to and including today
+        synchronized long[] sums(long today) {
+            long[] sums = new long[WINDOWS.length];
+            long total = 0;
+            int window = 0;
+            for (int back = 0; back < CAPACITY && window < WINDOWS.length; back++) {
+                long day = today - back;
+                if (day <= newestDay && day > newestDay - CAPACITY) {
+                    total += buckets[slot(day)];
+                }
+                if (back + 1 == WINDOWS[window]) {
+                    sums[window++] = total;
+                }
+            }
+            return sums;
+        }
+
+        private static int slot(long day) {
+            return (int) Math.floorMod(day, (long) CAPACITY);
+        }
+    }
+}
@@ -4,20 +4,59 @@ import com.military.asset.model.Expenditure;
 import com.military.asset.repository.ExpenditureRepository;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ExpenditureService {
+    private static final Comparator<Expenditure> BY_ID = Comparator.comparing(Expenditure::getId);
+
     private final ExpenditureRepository expenditureRepository;
-    public ExpenditureService(ExpenditureRepository expenditureRepository) { this.expenditureRepository = expenditureRepository; }
+    private final InventoryLedgerService inventoryLedgerService;
+    private final ConsumptionRateService consumptionRateService;
+    private final SparseFieldService sparseFieldService;
+    private final ShardRouter shardRouter;
+
+    public ExpenditureService(ExpenditureRepository expenditureRepository, InventoryLedgerService inventoryLedgerService,
+                              ConsumptionRateService consumptionRateService, SparseFieldService sparseFieldService,
+                              ShardRouter shardRouter) {
+        this.expenditureRepository = expenditureRepository;
+        this.inventoryLedgerService = inventoryLedgerService;
+        this.consumptionRateService = consumptionRateService;
+        this.sparseFieldService = sparseFieldService;
+        this.shardRouter = shardRouter;
+    }
 
-    public List<Expenditure> findAll() { return expenditureRepository.findAllWithDetails(); }
-    public Optional<Expenditure> findById(Long id) { return expenditureRepository.findById(id); }
-    public Expenditure save(Expenditure expenditure) { return expenditureRepository.save(expenditure); }
-    public void deleteById(Long id) { expenditureRepository.deleteById(id); }
+    public List<Expenditure> findAll() { return shardRouter.gather(null, expenditureRepository::findAllWithDetails, BY_ID); }
+    public Optional<Expenditure> findById(Long id) { return shardRouter.onId(id, () -> expenditureRepository.findById(id)); }
+    public Expenditure save(Expenditure expenditure) {
+        return shardRouter.onBase(expenditure.getBase().getId(), () -> {
+            Expenditure saved = expenditureRepository.save(expenditure);
+            inventoryLedgerService.recordExpenditure(saved);
+            consumptionRateService.recordExpenditure(saved.getId());
+            return saved;
+        });
+    }
+    // Through the scoped lookup: JpaRepository.deleteById loads by key, which the base scope filter skips
+    public void deleteById(Long id) {
+        boolean deleted = shardRouter.on(shardRouter.shardOfId(id), () -> expenditureRepository.findById(id).map(expenditure -> {
+            expenditureRepository.delete(expenditure);
+            inventoryLedgerService.recordRemoval("Expenditure", id);
+            return true;
+        }).orElse(false));
+        if (deleted) {
+            consumptionRateService.removeExpenditure(id);
+        }
+    }
     
     public long countByFilters(Long baseId, Long assetId, String dateFrom, String dateTo) {
+        return shardRouter.sum(baseId, () -> countOnShard(baseId, assetId, dateFrom, dateTo));
+    }
+
+    private long countOnShard(Long baseId, Long assetId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         if (dateFrom != null && !dateFrom.trim().isEmpty()) {
@@ -46,6 +85,10 @@ public class ExpenditureService {
     }
     
     public List<Expenditure> findByFilters(Long baseId, Long assetId, String dateFrom, String dateTo) {
+        return shardRouter.gather(baseId, () -> findOnShard(baseId, assetId, dateFrom, dateTo), BY_ID);
+    }
+
+    private List<Expenditure> findOnShard(Long baseId, Long assetId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         if (dateFrom != null && !dateFrom.trim().isEmpty()) {
@@ -72,4 +115,20 @@ public class ExpenditureService {
             return expenditureRepository.findAllWithDetails();
         }
     }
-} 
\ No newline at end of file
+
+    // Same filters as findByFilters, selecting only the requested fields
+    public List<Map<String, Object>> findFieldsByFilters(String fields, Long baseId, Long assetId, String dateFrom, String dateTo) {
+        LocalDate fromDate = dateFrom != null && !dateFrom.trim().isEmpty() ? LocalDate.parse(dateFrom) : null;
+        LocalDate toDate = dateTo != null && !dateTo.trim().isEmpty() ? LocalDate.parse(dateTo) : null;
+        Map<String, Object> equal = new HashMap<>();
+        equal.put("base.id", baseId);
+        equal.put("asset.id", assetId);
+        return shardRouter.gather(baseId,
+            () -> sparseFieldService.find(Expenditure.class, fields, equal, "expenditureDate", fromDate, toDate),
+            Comparator.comparing(row -> (Long) row.get("id")));
+    }
+
+    public Optional<Map<String, Object>> findFieldsById(Long id, String fields) {
+        return shardRouter.onId(id, () -> sparseFieldService.findById(Expenditure.class, fields, id));
+    }
+}
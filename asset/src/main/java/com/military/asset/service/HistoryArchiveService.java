@@ -0,0 +1,234 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Assignment;
+import com.military.asset.model.Transfer;
+import com.military.asset.repository.AssignmentHistoryRepository;
+import com.military.asset.repository.AssignmentRepository;
+import com.military.asset.repository.TransferHistoryRepository;
+import com.military.asset.repository.TransferRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Moves closed assignments (RETURNED, EXPIRED) and transfers (COMPLETED, REJECTED) dated more than
+ * history.retention-days ago into assignment_history and transfer_history, so the operational
+ * queries only scan open and recent rows.
+ *
+ * Rows are moved in id-ordered chunks, each in its own transaction that locks the chunk, copies it
+ * and deletes it from the hot table. Each table keeps a watermark in history_watermark (home shard),
+ * the latest date that may be in its history table; list queries only read the history table when
+ * their date range reaches back to it. Instances cache the watermarks for history.watermark-cache-ms,
+ * so the archiver raises a watermark and then waits that long before moving rows: every instance's
+ * copy covers the rows by the time they move, and a reader never skips rows that are moving.
+ */
+@Service
+public class HistoryArchiveService {
+    static final Set<Assignment.AssignmentStatus> CLOSED_ASSIGNMENTS =
+        EnumSet.of(Assignment.AssignmentStatus.RETURNED, Assignment.AssignmentStatus.EXPIRED);
+    static final Set<Transfer.TransferStatus> CLOSED_TRANSFERS =
+        EnumSet.of(Transfer.TransferStatus.COMPLETED, Transfer.TransferStatus.REJECTED);
+    private static final String ASSIGNMENT_HISTORY = "assignment_history";
+    private static final String TRANSFER_HISTORY = "transfer_history";
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentHistoryRepository assignmentHistoryRepository;
+    private final TransferRepository transferRepository;
+    private final TransferHistoryRepository transferHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long watermarkCacheMs;
+
+    private final AtomicBoolean archiving = new AtomicBoolean();
+    private final Watermark assignmentsArchivedThrough = new Watermark(ASSIGNMENT_HISTORY);
+    private final Watermark transfersArchivedThrough = new Watermark(TRANSFER_HISTORY);
+
+    public HistoryArchiveService(AssignmentRepository assignmentRepository, AssignmentHistoryRepository assignmentHistoryRepository,
+                                 TransferRepository transferRepository, TransferHistoryRepository transferHistoryRepository,
+                                 PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate, ShardRouter shardRouter,
+                                 @Value("${history.retention-days:180}") int retentionDays,
+                                 @Value("${history.chunk-size:1000}") int chunkSize,
+                                 @Value("${history.watermark-cache-ms:5000}") long watermarkCacheMs) {
+        this.assignmentRepository = assignmentRepository;
+        this.assignmentHistoryRepository = assignmentHistoryRepository;
+        this.transferRepository = transferRepository;
+        this.transferHistoryRepository = transferHistoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.watermarkCacheMs = watermarkCacheMs;
+    }
+
+    // True if assignments dated from `from` onwards (null: any date) may be in assignment_history
+    public boolean assignmentHistoryReaches(LocalDate from) {
+        return reaches(assignmentsArchivedThrough, from);
+    }
+
+    public boolean transferHistoryReaches(LocalDate from) {
+        return reaches(transfersArchivedThrough, from);
+    }
+
+    // History rows from before the watermark table, or left on other shards, still count
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWatermarks() {
+        LocalDate assignments = latest(shardRouter.scatter(shard -> assignmentHistoryRepository.findLatestAssignedDate()));
+        if (assignments != null) {
+            raise(assignmentsArchivedThrough, assignments);
+        }
+        LocalDate transfers = latest(shardRouter.scatter(shard -> transferHistoryRepository.findLatestDate()));
+        if (transfers != null) {
+            raise(transfersArchivedThrough, transfers);
+        }
+    }
+
+    @Scheduled(cron = "${history.archive-cron:0 30 1 * * *}")
+    public void archive() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        archiveAssignments(cutoff);
+        archiveTransfers(cutoff);
+    }
+
+    // Moves closed assignments assigned before the cutoff; returns how many were moved
+    public int archiveAssignments(LocalDate cutoff) {
+        return move("assignments", cutoff,
+            afterId -> assignmentRepository.findClosedIdsAfter(afterId, CLOSED_ASSIGNMENTS, cutoff, PageRequest.of(0, chunkSize)),
+            () -> raise(assignmentsArchivedThrough, cutoff.minusDays(1)),
+            ids -> {
+                List<Long> locked = assignmentRepository.findClosedForUpdate(ids, CLOSED_ASSIGNMENTS, cutoff).stream()
+                    .map(Assignment::getId).toList();
+                if (locked.isEmpty()) {
+                    return 0;
+                }
+                assignmentHistoryRepository.copyFromAssignments(locked);
+                return assignmentRepository.deleteAllByIdIn(locked);
+            });
+    }
+
+    // Moves completed and rejected transfers dated before the cutoff; returns how many were moved
+    public int archiveTransfers(LocalDate cutoff) {
+        return move("transfers", cutoff,
+            afterId -> transferRepository.findClosedIdsAfter(afterId, CLOSED_TRANSFERS, cutoff, PageRequest.of(0, chunkSize)),
+            () -> raise(transfersArchivedThrough, cutoff.minusDays(1)),
+            ids -> {
+                List<Long> locked = transferRepository.findClosedForUpdate(ids, CLOSED_TRANSFERS, cutoff).stream()
+                    .map(Transfer::getId).toList();
+                if (locked.isEmpty()) {
+                    return 0;
+                }
+                transferHistoryRepository.copyFromTransfers(locked);
+                return transferRepository.deleteAllByIdIn(locked);
+            });
+    }
+
+    private int move(String label, LocalDate cutoff, Function<Long, List<Long>> nextChunk, BooleanSupplier raiseWatermark,
+                     Function<List<Long>, Integer> moveChunk) {
+        if (!archiving.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        int moved = 0;
+        try {
+            // Each shard moves its own rows into its own history table, one shard after another
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                List<Long> ids = shardRouter.on(shard, () -> nextChunk.apply(0L));
+                if (!ids.isEmpty() && raiseWatermark.getAsBoolean() && watermarkCacheMs > 0) {
+                    // Until every instance's cached watermark covers the rows about to move
+                    Thread.sleep(watermarkCacheMs);
+                }
+                while (!ids.isEmpty()) {
+                    List<Long> chunk = ids;
+                    Integer count = shardRouter.on(shard, () -> transactionTemplate.execute(status -> moveChunk.apply(chunk)));
+                    moved += count == null ? 0 : count;
+                    ids = shardRouter.on(shard, () -> nextChunk.apply(chunk.get(chunk.size() - 1)));
+                }
+            }
+            if (moved == 0) {
+                return 0;
+            }
+            System.out.println(">>> Archived " + moved + " " + label + " dated before " + cutoff + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Archiving " + label + " interrupted after " + moved + " rows");
+        } catch (Exception e) {
+            System.err.println("Archiving " + label + " failed after " + moved + " rows: " + e.getMessage());
+        } finally {
+            archiving.set(false);
+        }
+        return moved;
+    }
+
+    private boolean reaches(Watermark watermark, LocalDate from) {
+        LocalDate archivedThrough = read(watermark);
+        return archivedThrough != null && (from == null || !from.isAfter(archivedThrough));
+    }
+
+    // The stored watermark, re-read once the cached copy is older than history.watermark-cache-ms
+    private LocalDate read(Watermark watermark) {
+        long now = System.currentTimeMillis();
+        if (now - watermark.readAt >= watermarkCacheMs) {
+            List<LocalDate> stored = shardRouter.onHome(() -> jdbcTemplate.queryForList(
+                "SELECT archived_through FROM history_watermark WHERE table_name = ?", LocalDate.class, watermark.table));
+            watermark.value = stored.isEmpty() ? null : stored.get(0);
+            watermark.readAt = now;
+        }
+        return watermark.value;
+    }
+
+    // Returns true if the stored watermark was below date and now is date
+    private boolean raise(Watermark watermark, LocalDate date) {
+        Supplier<Integer> update = () -> shardRouter.onHome(() -> jdbcTemplate.update(
+            "UPDATE history_watermark SET archived_through = ? WHERE table_name = ? AND archived_through < ?",
+            date, watermark.table, date));
+        int raised = update.get();
+        if (raised == 0) {
+            try {
+                raised = shardRouter.onHome(() -> jdbcTemplate.update(
+                    "INSERT INTO history_watermark (table_name, archived_through) VALUES (?, ?)", watermark.table, date));
+            } catch (DuplicateKeyException e) {
+                // Already there, or another instance inserted it first
+                raised = update.get();
+            }
+        }
+        // Readers on this instance see it at once
+        watermark.readAt = 0;
+        return raised > 0;
+    }
+
+    private static LocalDate latest(List<LocalDate> dates) {
+        return dates.stream().filter(Objects::nonNull).max(LocalDate::compareTo).orElse(null);
+    }
+
+    // One history table's watermark as last read; readAt 0 forces a read
+    private static final class Watermark {
+        final String table;
+        volatile LocalDate value;
+        volatile long readAt;
+
+        Watermark(String table) {
+            this.table = table;
+        }
+    }
+}
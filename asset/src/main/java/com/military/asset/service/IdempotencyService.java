@@ -0,0 +1,117 @@
+package com.military.asset.service;
+
+import com.military.asset.model.IdempotencyRecord;
+import com.military.asset.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the first response for each Idempotency-Key so retried writes are replayed instead of re-executed.
+ *
+ * Lookups go to a bounded in-memory LRU first and fall back to the idempotency_record table, which
+ * survives restarts and is shared between instances. Concurrent requests with the same key on one
+ * instance wait on the first one's in-flight future rather than running the write again. Across
+ * instances the record is inserted, never merged, so when two finish the same key the first stored
+ * response is the one every retry sees.
+ */
+@Service
+public class IdempotencyService {
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, IdempotencyRecord> recent;
+    private final Duration ttl;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              @Value("${idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public Optional<IdempotencyRecord> findCompleted(String key) {
+        IdempotencyRecord record;
+        synchronized (recent) {
+            record = recent.get(key);
+        }
+        if (record == null) {
+            record = idempotencyRecordRepository.findById(key).orElse(null);
+            if (record != null) {
+                remember(record);
+            }
+        }
+        if (record != null && isExpired(record)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(record);
+    }
+
+    // Returns null if the caller now owns the key, otherwise the owner's future to wait on
+    public CompletableFuture<IdempotencyRecord> claim(String key) {
+        return inFlight.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    public void complete(IdempotencyRecord record) {
+        try {
+            idempotencyRecordRepository.insert(record);
+        } catch (DataIntegrityViolationException e) {
+            // Either an expired record not yet purged, which this one replaces, or another instance
+            // stored the same key first and its response wins
+            if (idempotencyRecordRepository.replaceExpired(record, LocalDateTime.now().minus(ttl)) == 0) {
+                record = idempotencyRecordRepository.findById(record.getKey()).orElse(record);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to persist idempotency record: " + e.getMessage());
+        }
+        remember(record);
+        CompletableFuture<IdempotencyRecord> future = inFlight.remove(record.getKey());
+        if (future != null) {
+            future.complete(record);
+        }
+    }
+
+    // The owner failed without a storable response: waiters get null and run the request themselves
+    public void release(String key) {
+        CompletableFuture<IdempotencyRecord> future = inFlight.remove(key);
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        int removed = idempotencyRecordRepository.deleteByCreatedAtBefore(cutoff);
+        synchronized (recent) {
+            recent.values().removeIf(this::isExpired);
+        }
+        if (removed > 0) {
+            System.out.println(">>> Purged " + removed + " expired idempotency records");
+        }
+    }
+
+    private void remember(IdempotencyRecord record) {
+        synchronized (recent) {
+            recent.put(record.getKey(), record);
+        }
+    }
+
+    private boolean isExpired(IdempotencyRecord record) {
+        return record.getCreatedAt().isBefore(LocalDateTime.now().minus(ttl));
+    }
+}
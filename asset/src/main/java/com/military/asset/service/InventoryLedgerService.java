@@ -0,0 +1,342 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Assignment;
+import com.military.asset.model.Expenditure;
+import com.military.asset.model.InventoryMovement;
+import com.military.asset.model.InventoryMovement.MovementType;
+import com.military.asset.model.InventorySnapshot;
+import com.military.asset.model.Purchase;
+import com.military.asset.model.Transfer;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.InventoryMovementRepository;
+import com.military.asset.repository.InventorySnapshotRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Point-in-time inventory: what a base held of an asset type at the end of a given day.
+ *
+ * Purchases, completed transfers, assignments and expenditures append signed movements to the
+ * inventory_movement ledger. At each month end a checkpoint stores every base/type balance in
+ * inventory_snapshot together with the highest movement id it covers. A balance for date D is the
+ * latest checkpoint on or before D, plus movements dated after it, plus the few back-dated
+ * movements recorded since it was taken (id above the checkpoint's), so checkpoints never need
+ * to be rewritten when history is corrected.
+ */
+@Service
+public class InventoryLedgerService {
+    private static final LocalDate LEDGER_START = LocalDate.of(1900, 1, 1);
+    // Where assignment s's asset was on its assigned date: the destination of its last completed transfer by
+    // then, else the origin of its first one after, else where it is now
+    private static final String BASE_AT_ASSIGNMENT = "COALESCE(" +
+        "(SELECT t.to_base_id FROM transfer t WHERE t.asset_id = s.asset_id AND t.status = 'COMPLETED' " +
+        "AND t.date <= s.assigned_date ORDER BY t.date DESC, t.id DESC LIMIT 1), " +
+        "(SELECT t.from_base_id FROM transfer t WHERE t.asset_id = s.asset_id AND t.status = 'COMPLETED' " +
+        "AND t.date > s.assigned_date ORDER BY t.date, t.id LIMIT 1), a.base_id)";
+
+    private final InventoryMovementRepository movementRepository;
+    private final AssetRepository assetRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    // Checkpoints read "every movement up to id N"; holding the write side while N is chosen keeps
+    // a movement with a lower id from committing after the checkpoint has been taken
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    public InventoryLedgerService(InventoryMovementRepository movementRepository, AssetRepository assetRepository,
+                                  InventorySnapshotRepository snapshotRepository,
+                                  JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  ShardRouter shardRouter) {
+        this.movementRepository = movementRepository;
+        this.assetRepository = assetRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shardRouter = shardRouter;
+    }
+
+    public void recordPurchase(Purchase purchase) {
+        record("Purchase", purchase.getId(), existing -> List.of(
+            new InventoryMovement(purchase.getBase().getId(), purchase.getAssetType().getId(), purchase.getDate(),
+                MovementType.PURCHASE, purchase.getQuantity())));
+    }
+
+    // Only completed transfers move stock
+    public void recordTransfer(Transfer transfer) {
+        if (transfer.getStatus() != Transfer.TransferStatus.COMPLETED) {
+            return;
+        }
+        record("Transfer", transfer.getId(), existing -> {
+            Long assetTypeId = assetTypeOf(transfer.getAsset().getId());
+            return List.of(
+                new InventoryMovement(transfer.getFromBase().getId(), assetTypeId, transfer.getDate(), MovementType.TRANSFER_OUT, -1),
+                new InventoryMovement(transfer.getToBase().getId(), assetTypeId, transfer.getDate(), MovementType.TRANSFER_IN, 1));
+        });
+    }
+
+    // Booked at the base holding the asset when the assignment was first recorded, wherever it has gone since
+    public void recordAssignment(Assignment assignment) {
+        record("Assignment", assignment.getId(), existing -> {
+            Long baseId;
+            Long assetTypeId;
+            Optional<InventoryMovement> assigned = existing.stream()
+                .filter(movement -> movement.getMovementType() == MovementType.ASSIGNED).findFirst();
+            if (assigned.isPresent()) {
+                baseId = assigned.get().getBaseId();
+                assetTypeId = assigned.get().getAssetTypeId();
+            } else {
+                Object[] holding = holdingOf(assignment.getAsset().getId());
+                baseId = (Long) holding[0];
+                assetTypeId = (Long) holding[1];
+            }
+            List<InventoryMovement> movements = new ArrayList<>();
+            movements.add(new InventoryMovement(baseId, assetTypeId, assignment.getAssignedDate(), MovementType.ASSIGNED, -1));
+            if (assignment.getStatus() == Assignment.AssignmentStatus.RETURNED && assignment.getReturnDate() != null) {
+                movements.add(new InventoryMovement(baseId, assetTypeId, assignment.getReturnDate(), MovementType.RETURNED, 1));
+            }
+            return movements;
+        });
+    }
+
+    public void recordExpenditure(Expenditure expenditure) {
+        record("Expenditure", expenditure.getId(), existing -> List.of(
+            new InventoryMovement(expenditure.getBase().getId(), assetTypeOf(expenditure.getAsset().getId()),
+                expenditure.getExpenditureDate(), MovementType.EXPENDED, -expenditure.getQuantity())));
+    }
+
+    // The source record is gone: offset everything it contributed
+    public void recordRemoval(String sourceType, Long sourceId) {
+        record(sourceType, sourceId, existing -> List.of());
+    }
+
+    // Movements are recorded on the shard of the record that caused them (both legs of a transfer on the
+    // sending base's), so a base's balance is summed over every shard
+    public long balanceAt(Long baseId, Long assetTypeId, LocalDate date) {
+        return shardRouter.sum(null, () -> balanceOnShard(baseId, assetTypeId, date));
+    }
+
+    private long balanceOnShard(Long baseId, Long assetTypeId, LocalDate date) {
+        LocalDate checkpoint = snapshotRepository.findLatestSnapshotDateOnOrBefore(date);
+        if (checkpoint == null) {
+            return movementRepository.sumDatedBetween(baseId, assetTypeId, LEDGER_START, date);
+        }
+        Long coveredUpTo = snapshotRepository.findLastMovementId(checkpoint);
+        return snapshotRepository.sumQuantity(checkpoint, baseId, assetTypeId)
+            + movementRepository.sumDatedBetween(baseId, assetTypeId, checkpoint, date)
+            + movementRepository.sumRecordedAfter(baseId, assetTypeId, coveredUpTo, checkpoint);
+    }
+
+    // Net quantity per movement type dated within [dateFrom, dateTo]; types without movements are 0
+    public Map<MovementType, Long> movementsBetween(Long baseId, Long assetTypeId, LocalDate dateFrom, LocalDate dateTo) {
+        Map<MovementType, Long> totals = new EnumMap<>(MovementType.class);
+        for (MovementType type : MovementType.values()) {
+            totals.put(type, 0L);
+        }
+        List<List<Object[]>> shards = shardRouter.scatter(shard -> movementRepository.sumByMovementType(baseId, assetTypeId,
+            dateFrom != null ? dateFrom : LEDGER_START, dateTo));
+        for (List<Object[]> rows : shards) {
+            for (Object[] row : rows) {
+                totals.merge((MovementType) row[0], ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+        return totals;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (movementRepository.count() == 0) {
+                backfill();
+            }
+            checkpoint(LocalDate.now());
+        } catch (Exception e) {
+            System.err.println("Failed to initialize inventory ledger: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${inventory.snapshot.cron:0 15 2 * * *}")
+    public void scheduledCheckpoint() {
+        try {
+            checkpoint(LocalDate.now());
+        } catch (Exception e) {
+            System.err.println("Inventory checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    // Takes every missing month-end checkpoint before the month containing upTo; returns how many were written
+    public synchronized int checkpoint(LocalDate upTo) {
+        LocalDate target = upTo.withDayOfMonth(1).minusDays(1);
+        LocalDate previous = snapshotRepository.findLatestSnapshotDateOnOrBefore(target);
+        if (target.equals(previous)) {
+            return 0;
+        }
+        LocalDate next;
+        long previousMovementId;
+        Map<Holding, Long> balances = new HashMap<>();
+        if (previous == null) {
+            LocalDate earliest = movementRepository.findEarliestMovementDate();
+            if (earliest == null) {
+                return 0;
+            }
+            previous = LEDGER_START;
+            previousMovementId = 0;
+            next = monthEnd(earliest);
+        } else {
+            previousMovementId = snapshotRepository.findLastMovementId(previous);
+            for (InventorySnapshot snapshot : snapshotRepository.findBySnapshotDate(previous)) {
+                balances.put(new Holding(snapshot.getBaseId(), snapshot.getAssetTypeId()), snapshot.getQuantity());
+            }
+            next = monthEnd(previous.plusDays(1));
+        }
+
+        int written = 0;
+        while (!next.isAfter(target)) {
+            long maxId = writeCheckpoint(previous, previousMovementId, next, balances);
+            previous = next;
+            previousMovementId = maxId;
+            next = monthEnd(next.plusDays(1));
+            written++;
+        }
+        System.out.println(">>> Wrote " + written + " inventory checkpoints up to " + target);
+        return written;
+    }
+
+    private long writeCheckpoint(LocalDate previous, long previousMovementId, LocalDate date,
+                                 Map<Holding, Long> balances) {
+        checkpointLock.writeLock().lock();
+        try {
+            Long maxId = movementRepository.findMaxId();
+            long coveredUpTo = maxId != null ? maxId : 0;
+            for (Object[] row : movementRepository.sumForCheckpoint(previous, previousMovementId, date, coveredUpTo)) {
+                balances.merge(new Holding((Long) row[0], (Long) row[1]),
+                    ((Number) row[2]).longValue(), Long::sum);
+            }
+            List<Object[]> rows = new ArrayList<>(balances.size());
+            for (Map.Entry<Holding, Long> entry : balances.entrySet()) {
+                Holding holding = entry.getKey();
+                rows.add(new Object[] {holding.baseId(), holding.assetTypeId(), Date.valueOf(date), entry.getValue(), coveredUpTo});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "INSERT INTO inventory_snapshot (base_id, asset_type_id, snapshot_date, quantity, last_movement_id) " +
+                "VALUES (?, ?, ?, ?, ?)", rows));
+            return coveredUpTo;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    // Appends the difference between what the source record should contribute now and what the
+    // ledger already holds for it (passed to desired), so re-saving an unchanged record writes nothing
+    private void record(String sourceType, Long sourceId, Function<List<InventoryMovement>, List<InventoryMovement>> desired) {
+        if (sourceId == null) {
+            return;
+        }
+        checkpointLock.readLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Held until commit: a concurrent record of the same source reads what this one appends
+                jdbcTemplate.update("INSERT INTO inventory_source (source_type, source_id, recorded_count) VALUES (?, ?, 1) " +
+                    "ON DUPLICATE KEY UPDATE recorded_count = recorded_count + 1", sourceType, sourceId);
+                List<InventoryMovement> existing = movementRepository.findBySourceTypeAndSourceId(sourceType, sourceId);
+                Map<Slot, Integer> delta = new HashMap<>();
+                for (InventoryMovement movement : desired.apply(existing)) {
+                    delta.merge(Slot.of(movement), movement.getQuantity(), Integer::sum);
+                }
+                for (InventoryMovement movement : existing) {
+                    delta.merge(Slot.of(movement), -movement.getQuantity(), Integer::sum);
+                }
+                LocalDateTime now = LocalDateTime.now();
+                List<InventoryMovement> appended = new ArrayList<>();
+                for (Map.Entry<Slot, Integer> entry : delta.entrySet()) {
+                    if (entry.getValue() != 0) {
+                        Slot slot = entry.getKey();
+                        InventoryMovement movement = new InventoryMovement(slot.baseId(), slot.assetTypeId(), slot.date(),
+                            slot.type(), entry.getValue());
+                        movement.setSourceType(sourceType);
+                        movement.setSourceId(sourceId);
+                        movement.setRecordedAt(now);
+                        appended.add(movement);
+                    }
+                }
+                movementRepository.saveAll(appended);
+            });
+        } catch (Exception e) {
+            // The source record is already committed; the ledger can be rebuilt from it
+            System.err.println("Failed to record inventory movement for " + sourceType + " " + sourceId + ": " + e.getMessage());
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // Seeds an empty ledger from the existing records with set-based inserts
+    private void backfill() {
+        String insert = "INSERT INTO inventory_movement (base_id, asset_type_id, movement_date, movement_type, quantity, " +
+            "source_type, source_id, recorded_at) ";
+        transactionTemplate.executeWithoutResult(status -> {
+            int rows = jdbcTemplate.update(insert +
+                "SELECT p.base_id, p.asset_type_id, p.date, 'PURCHASE', p.quantity, 'Purchase', p.id, CURRENT_TIMESTAMP FROM purchase p");
+            rows += jdbcTemplate.update(insert +
+                "SELECT t.from_base_id, a.asset_type_id, t.date, 'TRANSFER_OUT', -1, 'Transfer', t.id, CURRENT_TIMESTAMP " +
+                "FROM transfer t JOIN asset a ON a.id = t.asset_id WHERE t.status = 'COMPLETED'");
+            rows += jdbcTemplate.update(insert +
+                "SELECT t.to_base_id, a.asset_type_id, t.date, 'TRANSFER_IN', 1, 'Transfer', t.id, CURRENT_TIMESTAMP " +
+                "FROM transfer t JOIN asset a ON a.id = t.asset_id WHERE t.status = 'COMPLETED'");
+            rows += jdbcTemplate.update(insert +
+                "SELECT " + BASE_AT_ASSIGNMENT + ", a.asset_type_id, s.assigned_date, 'ASSIGNED', -1, 'Assignment', s.id, CURRENT_TIMESTAMP " +
+                "FROM assignment s JOIN asset a ON a.id = s.asset_id");
+            rows += jdbcTemplate.update(insert +
+                "SELECT " + BASE_AT_ASSIGNMENT + ", a.asset_type_id, s.return_date, 'RETURNED', 1, 'Assignment', s.id, CURRENT_TIMESTAMP " +
+                "FROM assignment s JOIN asset a ON a.id = s.asset_id WHERE s.status = 'RETURNED' AND s.return_date IS NOT NULL");
+            rows += jdbcTemplate.update(insert +
+                "SELECT e.base_id, a.asset_type_id, e.expenditure_date, 'EXPENDED', -e.quantity, 'Expenditure', e.id, CURRENT_TIMESTAMP " +
+                "FROM expenditure e JOIN asset a ON a.id = e.asset_id");
+            System.out.println(">>> Backfilled inventory ledger with " + rows + " movements");
+        });
+    }
+
+    // Looked up by id: callers often hold detached entities whose lazy associations can't be loaded
+    private Object[] holdingOf(Long assetId) {
+        List<Object[]> rows = assetRepository.findBaseAndAssetTypeIds(assetId);
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Asset " + assetId + " not found");
+        }
+        return rows.get(0);
+    }
+
+    private Long assetTypeOf(Long assetId) {
+        return (Long) holdingOf(assetId)[1];
+    }
+
+    private static LocalDate monthEnd(LocalDate date) {
+        return date.withDayOfMonth(date.lengthOfMonth());
+    }
+
+    private record Holding(Long baseId, Long assetTypeId) {}
+
+    private record Slot(Long baseId, Long assetTypeId, LocalDate date, MovementType type) {
+        static Slot of(InventoryMovement movement) {
+            return new Slot(movement.getBaseId(), movement.getAssetTypeId(), movement.getMovementDate(), movement.getMovementType());
+        }
+    }
+}
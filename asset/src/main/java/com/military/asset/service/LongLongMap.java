@@ -0,0 +1,106 @@
+package com.military.asset.service;
+
+/**
+ * Primitive long -> long hash map for the in-memory aggregates. Open addressing with linear probing;
+ * key 0 marks an empty slot, so callers must never use 0 as a key, and get() of a missing key is 0.
+ * Not thread-safe.
+ */
+final class LongLongMap {
+    long[] keys;
+    long[] values;
+    private int size;
+    private int mask;
+
+    LongLongMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() { return size; }
+
+    long get(long key) {
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    // insert() may grow the arrays, so it has to run before values is read
+    void put(long key, long value) {
+        int slot = insert(key);
+        values[slot] = value;
+    }
+
+    void addTo(long key, long delta) {
+        int slot = insert(key);
+        values[slot] += delta;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    long remove(long key) {
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return 0;
+            }
+            slot = (slot + 1) & mask;
+        }
+        long removed = values[slot];
+        size--;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+        return removed;
+    }
+
+    private int insert(long key) {
+        if ((size + 1) * 4L > keys.length * 3L) {
+            grow();
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
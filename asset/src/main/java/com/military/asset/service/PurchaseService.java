@@ -4,13 +4,20 @@ import com.military.asset.model.Purchase;
 import com.military.asset.model.User;
 import com.military.asset.repository.PurchaseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class PurchaseService {
+    private static final Comparator<Purchase> BY_ID = Comparator.comparing(Purchase::getId);
+    private static final Comparator<Map<String, Object>> ROW_BY_ID = Comparator.comparing(row -> (Long) row.get("id"));
+
     private final PurchaseRepository purchaseRepository;
     
     @Autowired
@@ -18,13 +25,35 @@ public class PurchaseService {
     
     @Autowired
     private UserService userService;
+    
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+    
+    @Autowired
+    private SearchService searchService;
+    
+    @Autowired
+    private SpendCubeService spendCubeService;
+    
+    @Autowired
+    private SparseFieldService sparseFieldService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
 
     public PurchaseService(PurchaseRepository purchaseRepository) { this.purchaseRepository = purchaseRepository; }
 
-    public List<Purchase> findAll() { return purchaseRepository.findAll(); }
-    public Optional<Purchase> findById(Long id) { return purchaseRepository.findById(id); }
+    public List<Purchase> findAll() { return shardRouter.gather(null, purchaseRepository::findAll, BY_ID); }
+    public Optional<Purchase> findById(Long id) { return shardRouter.onId(id, () -> purchaseRepository.findById(id)); }
     public Purchase save(Purchase purchase) {
+        return shardRouter.onBase(purchase.getBase().getId(), () -> saveOnShard(purchase));
+    }
+
+    private Purchase saveOnShard(Purchase purchase) {
         Purchase savedPurchase = purchaseRepository.save(purchase);
+        inventoryLedgerService.recordPurchase(savedPurchase);
+        searchService.indexSupplier(savedPurchase.getSupplier());
+        spendCubeService.recordPurchase(savedPurchase);
         
         // Log the transaction
         try {
@@ -46,9 +75,23 @@ public class PurchaseService {
         
         return savedPurchase;
     }
-    public void deleteById(Long id) { purchaseRepository.deleteById(id); }
+    // Through the scoped lookup: JpaRepository.deleteById loads by key, which the base scope filter skips
+    public void deleteById(Long id) {
+        boolean deleted = shardRouter.on(shardRouter.shardOfId(id), () -> purchaseRepository.findById(id).map(purchase -> {
+            purchaseRepository.delete(purchase);
+            inventoryLedgerService.recordRemoval("Purchase", id);
+            return true;
+        }).orElse(false));
+        if (deleted) {
+            spendCubeService.removePurchase(id);
+        }
+    }
     
     public long countByFilters(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        return shardRouter.sum(baseId, () -> countOnShard(baseId, assetTypeId, dateFrom, dateTo));
+    }
+
+    private long countOnShard(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         
@@ -81,6 +124,24 @@ public class PurchaseService {
     }
     
     public List<Purchase> findByFilters(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        return shardRouter.gather(baseId, () -> findOnShard(baseId, assetTypeId, dateFrom, dateTo), BY_ID);
+    }
+
+    // Keyset pagination in id order: the first limit purchases after afterId; pass the last id back for the next page
+    public List<Purchase> findPage(Long afterId, int limit, Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        LocalDate fromDate = dateFrom != null && !dateFrom.trim().isEmpty() ? LocalDate.parse(dateFrom) : null;
+        LocalDate toDate = dateTo != null && !dateTo.trim().isEmpty() ? LocalDate.parse(dateTo) : null;
+        long after = afterId != null ? afterId : 0;
+        if (baseId != null) {
+            return shardRouter.onBase(baseId, () -> purchaseRepository.findPage(after, baseId, assetTypeId, fromDate, toDate,
+                PageRequest.of(0, limit)));
+        }
+        // Each shard's first page is enough: no row past a shard's limit-th can be in the merged first limit
+        return ShardRouter.merge(shardRouter.scatter(shard -> purchaseRepository.findPage(after, null, assetTypeId,
+            fromDate, toDate, PageRequest.of(0, limit))), BY_ID, limit);
+    }
+
+    private List<Purchase> findOnShard(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         
@@ -111,4 +172,19 @@ public class PurchaseService {
             return purchaseRepository.findAllWithRelatedEntities();
         }
     }
-} 
\ No newline at end of file
+
+    // Same filters as findByFilters, selecting only the requested fields
+    public List<Map<String, Object>> findFieldsByFilters(String fields, Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        LocalDate fromDate = dateFrom != null && !dateFrom.trim().isEmpty() ? LocalDate.parse(dateFrom) : null;
+        LocalDate toDate = dateTo != null && !dateTo.trim().isEmpty() ? LocalDate.parse(dateTo) : null;
+        Map<String, Object> equal = new HashMap<>();
+        equal.put("base.id", baseId);
+        equal.put("assetType.id", assetTypeId);
+        return shardRouter.gather(baseId, () -> sparseFieldService.find(Purchase.class, fields, equal, "date", fromDate, toDate),
+            ROW_BY_ID);
+    }
+
+    public Optional<Map<String, Object>> findFieldsById(Long id, String fields) {
+        return shardRouter.onId(id, () -> sparseFieldService.findById(Purchase.class, fields, id));
+    }
+}
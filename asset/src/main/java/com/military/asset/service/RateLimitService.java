@@ -0,0 +1,159 @@
+package com.military.asset.service;
+
+import com.military.asset.filter.EndpointClass;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per caller and endpoint class, sized by the caller's role (configured in SecurityConfig).
+ *
+ * Each bucket is one AtomicLong holding the time of its last refill in the high 40 bits and its tokens,
+ * in thousandths, in the low 24; a request refills and takes a token in a single compare-and-set, so
+ * the request path takes no locks. Refill is lazy, on the next request, and a bucket that has been idle
+ * long enough to be full again is dropped by the sweeper since a new one would be the same.
+ */
+public class RateLimitService {
+    public static final String ANONYMOUS = "ANONYMOUS";
+
+    public record Limit(int capacity, int perMinute) {}
+
+    public record ThrottleStatistics(String role, EndpointClass endpointClass, long allowed, long throttled) {}
+
+    private record BucketKey(String caller, String role, EndpointClass endpointClass) {}
+
+    private static final class Counters {
+        final LongAdder allowed = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+    }
+
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000;
+    static final int MAX_CAPACITY = (int) (TOKEN_MASK / MILLI);
+
+    // Written while the bean is configured, read-only afterwards
+    private final Map<String, Map<EndpointClass, Limit>> limits = new HashMap<>();
+    private final ConcurrentHashMap<BucketKey, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final LongSupplier clock;
+    private final long epoch;
+
+    public RateLimitService(boolean enabled) {
+        this(enabled, () -> System.nanoTime() / 1_000_000);
+    }
+
+    // Clock in milliseconds, only compared with itself
+    public RateLimitService(boolean enabled, LongSupplier clock) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.epoch = clock.getAsLong();
+    }
+
+    // Burst of capacity requests, refilled at perMinute; classes without a limit are not limited
+    public RateLimitService limit(String role, EndpointClass endpointClass, int capacity, int perMinute) {
+        if (capacity < 1 || capacity > MAX_CAPACITY || perMinute < 1) {
+            throw new IllegalArgumentException("Rate limit for " + role + " " + endpointClass
+                + " needs a capacity of 1-" + MAX_CAPACITY + " and a positive rate");
+        }
+        limits.computeIfAbsent(role, r -> new EnumMap<>(EndpointClass.class)).put(endpointClass, new Limit(capacity, perMinute));
+        return this;
+    }
+
+    /**
+     * Takes a token from the caller's bucket for the class. Returns 0 if the request may proceed,
+     * otherwise the milliseconds until a token will be available.
+     */
+    public long acquire(String caller, String role, EndpointClass endpointClass) {
+        Limit limit = limitFor(role, endpointClass);
+        if (!enabled || limit == null) {
+            return 0;
+        }
+        long now = clock.getAsLong() - epoch;
+        long capacity = limit.capacity() * MILLI;
+        BucketKey key = new BucketKey(caller, role, endpointClass);
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(pack(now, capacity)));
+        }
+        Counters stats = counters.computeIfAbsent(role + ":" + endpointClass, k -> new Counters());
+
+        while (true) {
+            long state = bucket.get();
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            if (now > last) {
+                // perMinute tokens a minute is perMinute / 60 thousandths a millisecond; only the time that
+                // turned into whole thousandths is used up, so frequent requests still refill
+                long elapsed = Math.min(now - last, fullAfter(limit, 0));
+                long gained = elapsed * limit.perMinute() / 60;
+                if (tokens + gained >= capacity) {
+                    tokens = capacity;
+                    last = now;
+                } else {
+                    tokens += gained;
+                    last += (gained * 60 + limit.perMinute() - 1) / limit.perMinute();
+                }
+            }
+            if (tokens < MILLI) {
+                stats.throttled.increment();
+                long waitMs = ((MILLI - tokens) * 60 + limit.perMinute() - 1) / limit.perMinute() - Math.max(0, now - last);
+                return Math.max(1, waitMs);
+            }
+            if (bucket.compareAndSet(state, pack(last, tokens - MILLI))) {
+                stats.allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public List<ThrottleStatistics> statistics() {
+        List<ThrottleStatistics> statistics = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            String[] key = entry.getKey().split(":");
+            statistics.add(new ThrottleStatistics(key[0], EndpointClass.valueOf(key[1]),
+                entry.getValue().allowed.sum(), entry.getValue().throttled.sum()));
+        }
+        statistics.sort((a, b) -> a.role().equals(b.role()) ? a.endpointClass().compareTo(b.endpointClass())
+            : a.role().compareTo(b.role()));
+        return statistics;
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    // A request racing the removal may take its token from the dropped bucket: at most one extra request
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:300000}")
+    public void removeIdleBuckets() {
+        long now = clock.getAsLong() - epoch;
+        buckets.entrySet().removeIf(entry -> {
+            Limit limit = limitFor(entry.getKey().role(), entry.getKey().endpointClass());
+            long state = entry.getValue().get();
+            return limit == null || now - (state >>> TOKEN_BITS) >= fullAfter(limit, state & TOKEN_MASK);
+        });
+    }
+
+    private Limit limitFor(String role, EndpointClass endpointClass) {
+        Map<EndpointClass, Limit> byClass = limits.get(role);
+        return byClass == null ? null : byClass.get(endpointClass);
+    }
+
+    // Milliseconds for a bucket holding tokens (in thousandths) to fill up
+    private static long fullAfter(Limit limit, long tokens) {
+        return ((limit.capacity() * MILLI - tokens) * 60 + limit.perMinute() - 1) / limit.perMinute();
+    }
+
+    private static long pack(long time, long tokens) {
+        return time << TOKEN_BITS | tokens;
+    }
+}
@@ -0,0 +1,374 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Transfer;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.TransferRepository;
+import com.military.asset.security.BaseScope;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Suggests transfers that bring each base's stock of an asset type to a target level, moving as many
+ * assets as the surpluses and shortages allow over the shortest total distance.
+ *
+ * Per asset type this is a transportation problem, solved as a min-cost flow: a source feeds each base
+ * with a surplus, every surplus base connects to every short base at the great-circle distance between
+ * them, and each short base drains into a sink. Successive shortest paths (Dijkstra with potentials)
+ * augment along the cheapest remaining route, so the flow after any augmentation is the cheapest for
+ * its size; when the time budget runs out the plan found so far is returned, marked incomplete. The
+ * budget covers building the network too. For very many bases each surplus base only connects to its
+ * nearest short bases, keeping the routes within rebalancing.max-routes.
+ *
+ * Asset types are solved in parallel on a dedicated fork-join pool. Stock is read from the facet index and
+ * corrected for open transfers: assets on their way out count for the base they go to and cannot be
+ * moved again, so a base only offers what it can actually send. The suggested transfers name concrete
+ * assets not already in an open transfer, in the shape POST /api/transfers/batch accepts.
+ */
+@Service
+public class RebalancingService {
+    static final Set<Transfer.TransferStatus> OPEN_STATUSES = EnumSet.of(Transfer.TransferStatus.PENDING, Transfer.TransferStatus.APPROVED);
+    // Bases without coordinates rank behind any known route (half the equator is the farthest apart two places are)
+    static final double UNKNOWN_DISTANCE_KM = 20040;
+
+    public record Target(Long baseId, Long assetTypeId, long level) {}
+
+    public record Move(Long fromBaseId, Long toBaseId, long quantity, Double distanceKm) {}
+
+    public record TypePlan(Long assetTypeId, long surplus, long shortage, long moved, double totalDistanceKm,
+                           boolean complete, List<Move> moves) {}
+
+    // Field names match TransferController.TransferRequest
+    public record SuggestedTransfer(Long assetId, Long fromBaseId, Long toBaseId, String transferDate, String reason) {}
+
+    public record Plan(List<TypePlan> assetTypes, List<SuggestedTransfer> transfers, long elapsedMs) {}
+
+    private final AssetFacetService assetFacetService;
+    private final BaseLocationService baseLocationService;
+    private final AssetRepository assetRepository;
+    private final TransferRepository transferRepository;
+    private final ShardRouter shardRouter;
+    private final long maxBudgetMs;
+    private final int maxRoutes;
+    private final ForkJoinPool pool;
+
+    public RebalancingService(AssetFacetService assetFacetService, BaseLocationService baseLocationService,
+                              AssetRepository assetRepository, TransferRepository transferRepository, ShardRouter shardRouter,
+                              @Value("${rebalancing.time-budget-ms:2000}") long maxBudgetMs,
+                              @Value("${rebalancing.max-routes:100000}") int maxRoutes,
+                              @Value("${rebalancing.parallelism:4}") int parallelism) {
+        if (maxRoutes < 1) {
+            throw new IllegalArgumentException("rebalancing.max-routes must be positive");
+        }
+        this.assetFacetService = assetFacetService;
+        this.baseLocationService = baseLocationService;
+        this.assetRepository = assetRepository;
+        this.transferRepository = transferRepository;
+        this.shardRouter = shardRouter;
+        this.maxBudgetMs = maxBudgetMs;
+        this.maxRoutes = maxRoutes;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Plans transfers towards the target levels. Only bases with a target for an asset type take part for
+     * that type; stock counts assets in the given status. budgetMs (capped at rebalancing.time-budget-ms)
+     * bounds the solving of all types together.
+     */
+    public Plan plan(List<Target> targets, String status, Long budgetMs, LocalDate transferDate) {
+        long start = System.nanoTime();
+        long budget = budgetMs == null ? maxBudgetMs : Math.min(Math.max(1, budgetMs), maxBudgetMs);
+        long deadline = start + budget * 1_000_000;
+
+        // Per asset type, base -> target level, in request order
+        Map<Long, Map<Long, Long>> levels = new LinkedHashMap<>();
+        for (Target target : targets) {
+            if (target.baseId() == null || target.assetTypeId() == null || target.level() < 0) {
+                throw new IllegalArgumentException("Each target needs a baseId, an assetTypeId and a level of 0 or more");
+            }
+            if (levels.computeIfAbsent(target.assetTypeId(), t -> new LinkedHashMap<>()).put(target.baseId(), target.level()) != null) {
+                throw new IllegalArgumentException("Duplicate target for base " + target.baseId() + " and asset type " + target.assetTypeId());
+            }
+        }
+
+        List<ForkJoinTask<TypePlan>> tasks = new ArrayList<>();
+        for (Map.Entry<Long, Map<Long, Long>> type : levels.entrySet()) {
+            Long assetTypeId = type.getKey();
+            Map<Long, long[]> open = openTransfers(assetTypeId, status);
+            Map<Long, Long> stock = new HashMap<>();
+            Map<Long, Long> movable = new HashMap<>();
+            assetFacetService.withBaseCounts(assetTypeId, status, counts -> {
+                for (Long baseId : type.getValue().keySet()) {
+                    long[] inTransit = open.getOrDefault(baseId, new long[2]);
+                    long here = Math.max(0, counts.applyAsLong(baseId) - inTransit[0]);
+                    movable.put(baseId, here);
+                    stock.put(baseId, here + inTransit[1]);
+                }
+                return null;
+            });
+            tasks.add(pool.submit(() -> solve(assetTypeId, type.getValue(), stock, movable, deadline)));
+        }
+        List<TypePlan> plans = tasks.stream().map(ForkJoinTask::join).toList();
+
+        List<SuggestedTransfer> transfers = new ArrayList<>();
+        for (TypePlan plan : plans) {
+            transfers.addAll(assign(plan, status, transferDate));
+        }
+        return new Plan(plans, transfers, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Per base, {assets leaving, assets arriving} in open transfers. Transfers live on the sending base's
+    // shard; the facet index covers every base, so these counts must too.
+    private Map<Long, long[]> openTransfers(Long assetTypeId, String status) {
+        Map<Long, long[]> open = new HashMap<>();
+        List<List<Object[]>> shards = BaseScope.unscoped(() -> shardRouter.scatter(
+            shard -> transferRepository.countOpenByRoute(assetTypeId, status, OPEN_STATUSES)));
+        for (List<Object[]> rows : shards) {
+            for (Object[] row : rows) {
+                long assets = (Long) row[2];
+                open.computeIfAbsent((Long) row[0], base -> new long[2])[0] += assets;
+                open.computeIfAbsent((Long) row[1], base -> new long[2])[1] += assets;
+            }
+        }
+        return open;
+    }
+
+    // stock counts what a base will hold once open transfers complete; movable what it can still send
+    TypePlan solve(Long assetTypeId, Map<Long, Long> levels, Map<Long, Long> stock, Map<Long, Long> movable, long deadline) {
+        List<Long> sources = new ArrayList<>();
+        List<Long> sinks = new ArrayList<>();
+        List<Long> supply = new ArrayList<>();
+        List<Long> demand = new ArrayList<>();
+        for (Map.Entry<Long, Long> level : levels.entrySet()) {
+            long difference = stock.getOrDefault(level.getKey(), 0L) - level.getValue();
+            long available = Math.min(difference, movable.getOrDefault(level.getKey(), 0L));
+            if (available > 0) {
+                sources.add(level.getKey());
+                supply.add(available);
+            } else if (difference < 0) {
+                sinks.add(level.getKey());
+                demand.add(-difference);
+            }
+        }
+        long surplus = supply.stream().mapToLong(Long::longValue).sum();
+        long shortage = demand.stream().mapToLong(Long::longValue).sum();
+
+        // Nodes: 0 source, 1..S surplus bases, S+1..S+D short bases, S+D+1 sink
+        int s = sources.size();
+        int d = sinks.size();
+        FlowNetwork network = new FlowNetwork(s + d + 2);
+        int sink = s + d + 1;
+        for (int i = 0; i < s; i++) {
+            network.addEdge(0, 1 + i, supply.get(i), 0);
+        }
+        for (int j = 0; j < d; j++) {
+            network.addEdge(1 + s + j, sink, demand.get(j), 0);
+        }
+        double[][] sinkVectors = new double[d][];
+        for (int j = 0; j < d; j++) {
+            sinkVectors[j] = baseLocationService.unitVectorOf(sinks.get(j));
+        }
+        int perSource = s == 0 ? 0 : Math.max(1, Math.min(d, maxRoutes / s));
+        // Kilometres per route, NaN where a base has no coordinates; edge ids, -1 for routes left out
+        double[][] distances = new double[s][d];
+        int[][] routes = new int[s][];
+        for (int i = 0; i < s; i++) {
+            if (System.nanoTime() > deadline) {
+                return new TypePlan(assetTypeId, surplus, shortage, 0, 0, false, List.of());
+            }
+            double[] origin = baseLocationService.unitVectorOf(sources.get(i));
+            double[] costs = new double[d];
+            for (int j = 0; j < d; j++) {
+                distances[i][j] = origin == null || sinkVectors[j] == null ? Double.NaN
+                    : BaseLocationService.kilometres(origin, sinkVectors[j]);
+                costs[j] = Double.isNaN(distances[i][j]) ? UNKNOWN_DISTANCE_KM : distances[i][j];
+            }
+            routes[i] = new int[d];
+            Arrays.fill(routes[i], -1);
+            for (int j : nearest(costs, perSource)) {
+                // Metres, so costs stay integral
+                routes[i][j] = network.addEdge(1 + i, 1 + s + j, Long.MAX_VALUE / 4, Math.round(costs[j] * 1000));
+            }
+        }
+        boolean complete = network.minCostFlow(0, sink, deadline);
+
+        List<Move> moves = new ArrayList<>();
+        long moved = 0;
+        double totalKm = 0;
+        for (int i = 0; i < s; i++) {
+            for (int j = 0; j < d; j++) {
+                long flow = routes[i][j] < 0 ? 0 : network.flow(routes[i][j]);
+                if (flow > 0) {
+                    boolean known = !Double.isNaN(distances[i][j]);
+                    moves.add(new Move(sources.get(i), sinks.get(j), flow, known ? distances[i][j] : null));
+                    moved += flow;
+                    totalKm += flow * (known ? distances[i][j] : UNKNOWN_DISTANCE_KM);
+                }
+            }
+        }
+        return new TypePlan(assetTypeId, surplus, shortage, moved, totalKm, complete, moves);
+    }
+
+    // Indexes of the count smallest costs
+    private static int[] nearest(double[] costs, int count) {
+        if (count >= costs.length) {
+            return IntStream.range(0, costs.length).toArray();
+        }
+        return IntStream.range(0, costs.length).boxed()
+            .sorted(Comparator.comparingDouble(j -> costs[j]))
+            .limit(count).mapToInt(Integer::intValue).toArray();
+    }
+
+    // Picks the assets for each move, lowest ids first; a base short of movable assets moves fewer
+    private List<SuggestedTransfer> assign(TypePlan plan, String status, LocalDate transferDate) {
+        Map<Long, Long> needed = new LinkedHashMap<>();
+        plan.moves().forEach(move -> needed.merge(move.fromBaseId(), move.quantity(), Long::sum));
+        Map<Long, List<Long>> movable = new HashMap<>();
+        for (Map.Entry<Long, Long> base : needed.entrySet()) {
+            movable.put(base.getKey(), shardRouter.onBase(base.getKey(), () -> assetRepository.findMovableIds(base.getKey(),
+                plan.assetTypeId(), status, OPEN_STATUSES, PageRequest.of(0, Math.toIntExact(base.getValue())))));
+        }
+
+        List<SuggestedTransfer> transfers = new ArrayList<>();
+        Map<Long, Integer> taken = new HashMap<>();
+        for (Move move : plan.moves()) {
+            List<Long> assets = movable.get(move.fromBaseId());
+            int from = taken.getOrDefault(move.fromBaseId(), 0);
+            int to = (int) Math.min(assets.size(), from + move.quantity());
+            for (Long assetId : assets.subList(from, to)) {
+                transfers.add(new SuggestedTransfer(assetId, move.fromBaseId(), move.toBaseId(), transferDate.toString(),
+                    "Rebalancing to target stock levels"));
+            }
+            taken.put(move.fromBaseId(), to);
+        }
+        return transfers;
+    }
+
+    /** Residual network with paired forward/backward edges in flat arrays. */
+    static final class FlowNetwork {
+        private final int nodes;
+        // Edge ids leaving each node; the first degree[v] entries are in use
+        private final int[][] adjacency;
+        private final int[] degree;
+        private int[] to = new int[16];
+        private long[] capacity = new long[16];
+        private long[] cost = new long[16];
+        private long[] original = new long[16];
+        private int edges;
+
+        FlowNetwork(int nodes) {
+            this.nodes = nodes;
+            this.adjacency = new int[nodes][4];
+            this.degree = new int[nodes];
+        }
+
+        // Returns the id of the forward edge
+        int addEdge(int from, int target, long edgeCapacity, long edgeCost) {
+            int id = edges;
+            append(from, target, edgeCapacity, edgeCost);
+            append(target, from, 0, -edgeCost);
+            return id;
+        }
+
+        long flow(int edge) {
+            return original[edge] - capacity[edge];
+        }
+
+        /**
+         * Pushes as much flow as possible from source to sink at minimum cost. Returns false if the deadline
+         * (System.nanoTime) passed first, leaving the cheapest flow of the size reached.
+         */
+        boolean minCostFlow(int source, int sink, long deadline) {
+            // Costs are non-negative to begin with, so zero potentials are valid
+            long[] potential = new long[nodes];
+            long[] distance = new long[nodes];
+            int[] via = new int[nodes];
+            boolean[] done = new boolean[nodes];
+            while (true) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                // Dense graph: the O(V^2) Dijkstra beats a heap
+                Arrays.fill(distance, Long.MAX_VALUE);
+                Arrays.fill(done, false);
+                distance[source] = 0;
+                for (int round = 0; round < nodes; round++) {
+                    int u = -1;
+                    for (int v = 0; v < nodes; v++) {
+                        if (!done[v] && distance[v] != Long.MAX_VALUE && (u < 0 || distance[v] < distance[u])) {
+                            u = v;
+                        }
+                    }
+                    if (u < 0) {
+                        break;
+                    }
+                    done[u] = true;
+                    for (int k = 0; k < degree[u]; k++) {
+                        int edge = adjacency[u][k];
+                        if (capacity[edge] > 0) {
+                            long reduced = distance[u] + cost[edge] + potential[u] - potential[to[edge]];
+                            if (reduced < distance[to[edge]]) {
+                                distance[to[edge]] = reduced;
+                                via[to[edge]] = edge;
+                            }
+                        }
+                    }
+                }
+                if (distance[sink] == Long.MAX_VALUE) {
+                    return true;
+                }
+                for (int v = 0; v < nodes; v++) {
+                    if (distance[v] != Long.MAX_VALUE) {
+                        potential[v] += distance[v];
+                    }
+                }
+                long push = Long.MAX_VALUE;
+                for (int v = sink; v != source; v = to[via[v] ^ 1]) {
+                    push = Math.min(push, capacity[via[v]]);
+                }
+                for (int v = sink; v != source; v = to[via[v] ^ 1]) {
+                    capacity[via[v]] -= push;
+                    capacity[via[v] ^ 1] += push;
+                }
+            }
+        }
+
+        private void append(int from, int target, long edgeCapacity, long edgeCost) {
+            if (edges == to.length) {
+                to = Arrays.copyOf(to, edges * 2);
+                capacity = Arrays.copyOf(capacity, edges * 2);
+                cost = Arrays.copyOf(cost, edges * 2);
+                original = Arrays.copyOf(original, edges * 2);
+            }
+            to[edges] = target;
+            capacity[edges] = edgeCapacity;
+            cost[edges] = edgeCost;
+            original[edges] = edgeCapacity;
+            if (degree[from] == adjacency[from].length) {
+                adjacency[from] = Arrays.copyOf(adjacency[from], degree[from] * 2);
+            }
+            adjacency[from][degree[from]++] = edges;
+            edges++;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.military.asset.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * An in-memory aggregate kept current by writes and rebuilt from the database in the background.
+ *
+ * While a rebuild loads a fresh copy, writes go to both copies and the ids they were for are noted;
+ * the loader skips rows with those ids, so the newer in-memory state wins over what it read, and the
+ * fresh copy replaces the live one once loaded. Both copies are only touched under one read/write lock.
+ */
+final class Rebuildable<T> {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Guarded by lock
+    private T live;
+    private T building;
+    private LongLongMap written;
+
+    Rebuildable(T initial) {
+        live = initial;
+    }
+
+    <R> R read(Function<T, R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(live);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies change to the live copy and, during a rebuild, to the fresh one, whose loader then leaves id
+    // alone (0: a change not tied to a row)
+    void write(Consumer<T> change, long id) {
+        lock.writeLock().lock();
+        try {
+            change.accept(live);
+            if (building != null) {
+                change.accept(building);
+                if (id != 0) {
+                    written.put(id, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs load, which fills fresh through fill(), then swaps fresh in. Returns what load counted, or null
+     * without loading when a rebuild is already running. A failed load leaves the live copy in place.
+     */
+    Long rebuild(T fresh, Callable<Long> load) throws Exception {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            lock.writeLock().lock();
+            try {
+                building = fresh;
+                written = new LongLongMap(64);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Long loaded = load.call();
+            lock.writeLock().lock();
+            try {
+                live = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return loaded;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                building = null;
+                written = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    // For the loader: hands it the fresh copy and a test for ids written since the rebuild began
+    void fill(BiConsumer<T, LongPredicate> load) {
+        lock.writeLock().lock();
+        try {
+            load.accept(building, id -> written.get(id) != 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.military.asset.service;
+
+import com.military.asset.security.BaseScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing for expensive reads. The first caller for a given (name, caller scope,
+ * arguments) runs the read on its own thread; identical calls that arrive while it is in flight wait
+ * for and share its result, or its exception, instead of running the queries again.
+ *
+ * Nothing is cached: the key is dropped as soon as the read finishes, so a call arriving afterwards
+ * runs a fresh one. A waiter that has not been answered within coalescing.max-wait-ms stops waiting
+ * and runs the read itself. Results are handed to every waiter, so they must be treated as read-only.
+ */
+@Service
+public class RequestCoalescer {
+    public record CoalescingStatistics(String name, long calls, long executions, long absorbed, long timeouts) {}
+
+    private record Key(String name, String scope, List<Object> arguments) {}
+
+    private static final class Counters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder executions = new LongAdder();
+        final LongAdder absorbed = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+    }
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long maxWaitMs;
+
+    public RequestCoalescer(@Value("${coalescing.enabled:true}") boolean enabled,
+                            @Value("${coalescing.max-wait-ms:10000}") long maxWaitMs) {
+        this.enabled = enabled;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Arguments must already be normalized (parsed dates, defaults applied, blanks as null) so that
+     * calls meaning the same thing share a key; they are compared with equals.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(String name, Supplier<T> read, Object... arguments) {
+        if (!enabled) {
+            return read.get();
+        }
+        Key key = new Key(name, scope(), Arrays.asList(arguments));
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, own);
+        Counters stats = counters.computeIfAbsent(name, n -> new Counters());
+        stats.calls.increment();
+
+        if (running == null) {
+            stats.executions.increment();
+            try {
+                T result = read.get();
+                own.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, own);
+            }
+        }
+
+        try {
+            T result = (T) running.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            stats.absorbed.increment();
+            return result;
+        } catch (TimeoutException e) {
+            stats.timeouts.increment();
+            return read.get();
+        } catch (ExecutionException e) {
+            stats.absorbed.increment();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a coalesced " + name + " read", e);
+        }
+    }
+
+    public List<CoalescingStatistics> statistics() {
+        List<CoalescingStatistics> statistics = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            statistics.add(new CoalescingStatistics(entry.getKey(), c.calls.sum(), c.executions.sum(),
+                c.absorbed.sum(), c.timeouts.sum()));
+        }
+        statistics.sort((a, b) -> a.name().compareTo(b.name()));
+        return statistics;
+    }
+
+    // Callers only share a result if they hold the same authorities and see the same base
+    private static String scope() {
+        Long baseId = BaseScope.current();
+        String base = baseId == null ? "" : "@" + baseId;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return base;
+        }
+        TreeSet<String> authorities = new TreeSet<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            authorities.add(authority.getAuthority());
+        }
+        return String.join(",", authorities) + base;
+    }
+}
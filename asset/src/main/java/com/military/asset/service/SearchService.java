@@ -0,0 +1,436 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.Base;
+import com.military.asset.model.User;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.PurchaseRepository;
+import com.military.asset.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-memory typeahead over asset serial numbers, usernames, base names/locations and purchase suppliers.
+ *
+ * Each indexed value is reachable two ways: sorted maps keyed by the value and by every later word start
+ * of it (prefix, then word-prefix matches come straight off range scans) and trigram posting lists for
+ * matches in the middle of a word. Results are ranked exact > prefix > word prefix > substring.
+ *
+ * Assets and users carry their base: a caller confined to a base (BaseScope) only finds those of
+ * their own base, while bases and suppliers are found by everyone.
+ *
+ * Saves update the live index in place. A periodic rebuild loads a fresh index from the database
+ * in the background, replays whatever was saved while it ran, and swaps it in.
+ */
+@Service
+public class SearchService {
+    private static final int GRAM = 3;
+
+    public enum Kind { ASSET, USER, BASE, SUPPLIER }
+
+    public record SearchHit(Kind type, Long id, String field, String text) {}
+
+    private final AssetRepository assetRepository;
+    private final UserRepository userRepository;
+    private final BaseRepository baseRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final AsyncTaskExecutor taskExecutor;
+    private final ShardRouter shardRouter;
+
+    private volatile Index index = new Index();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Changes made while a rebuild is loading; guarded by writeLock
+    private final Object writeLock = new Object();
+    private List<Consumer<Index>> pending;
+
+    public SearchService(AssetRepository assetRepository, UserRepository userRepository, BaseRepository baseRepository,
+                         PurchaseRepository purchaseRepository,
+                         @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor, ShardRouter shardRouter) {
+        this.assetRepository = assetRepository;
+        this.userRepository = userRepository;
+        this.baseRepository = baseRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.taskExecutor = taskExecutor;
+        this.shardRouter = shardRouter;
+    }
+
+    public List<SearchHit> search(String query, Set<Kind> kinds, int limit) {
+        return search(query, kinds, null, limit);
+    }
+
+    // With a base, assets and users of other bases are left out
+    public List<SearchHit> search(String query, Set<Kind> kinds, Long baseId, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return index.search(q, kinds, baseId, limit);
+    }
+
+    public void indexAsset(Asset asset) {
+        Long id = asset.getId();
+        String serialNumber = asset.getSerialNumber();
+        Long baseId = asset.getBase() == null ? null : asset.getBase().getId();
+        apply(i -> i.put(Kind.ASSET, id, "serialNumber", serialNumber, baseId));
+    }
+
+    // For writes that bypass AssetService: a completed transfer moves the asset to another base
+    public void moveAsset(Long assetId, Long baseId) {
+        apply(i -> i.move(Kind.ASSET, assetId, baseId));
+    }
+
+    public void indexUser(User user) {
+        Long id = user.getId();
+        String username = user.getUsername();
+        Long baseId = user.getBase() == null ? null : user.getBase().getId();
+        apply(i -> i.put(Kind.USER, id, "username", username, baseId));
+    }
+
+    public void indexBase(Base base) {
+        Long id = base.getId();
+        String name = base.getName();
+        String location = base.getLocation();
+        apply(i -> {
+            i.put(Kind.BASE, id, "name", name, null);
+            i.put(Kind.BASE, id, "location", location, null);
+        });
+    }
+
+    // Suppliers are free text on purchases; one entry per distinct name, dropped only by a rebuild
+    public void indexSupplier(String supplier) {
+        apply(i -> i.put(Kind.SUPPLIER, null, "supplier", supplier, null));
+    }
+
+    public void remove(Kind kind, Long id) {
+        apply(i -> i.remove(kind, id));
+    }
+
+    public int size() {
+        return index.live;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    @Scheduled(fixedDelayString = "${search.rebuild-interval-ms:3600000}",
+               initialDelayString = "${search.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            synchronized (writeLock) {
+                pending = new ArrayList<>();
+            }
+            Index fresh = new Index();
+            // Assets and suppliers come from every shard; users and bases are reference rows on each
+            for (Object[] row : shardRouter.gatherOwned(null, assetRepository::findAllSerialNumbers,
+                    Comparator.comparingLong((Object[] asset) -> (Long) asset[0]), asset -> (Long) asset[2])) {
+                fresh.put(Kind.ASSET, (Long) row[0], "serialNumber", (String) row[1], (Long) row[2]);
+            }
+            for (Object[] row : userRepository.findAllUsernames()) {
+                fresh.put(Kind.USER, (Long) row[0], "username", (String) row[1], (Long) row[2]);
+            }
+            for (Object[] row : baseRepository.findAllNamesAndLocations()) {
+                fresh.put(Kind.BASE, (Long) row[0], "name", (String) row[1], null);
+                fresh.put(Kind.BASE, (Long) row[0], "location", (String) row[2], null);
+            }
+            Set<String> suppliers = new HashSet<>();
+            shardRouter.scatter(shard -> purchaseRepository.findDistinctSuppliers()).forEach(suppliers::addAll);
+            for (String supplier : suppliers) {
+                fresh.put(Kind.SUPPLIER, null, "supplier", supplier, null);
+            }
+            synchronized (writeLock) {
+                for (Consumer<Index> change : pending) {
+                    change.accept(fresh);
+                }
+                index = fresh;
+            }
+            System.out.println(">>> Search index rebuilt with " + fresh.live + " entries in "
+                + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("Search index rebuild failed: " + e.getMessage());
+        } finally {
+            synchronized (writeLock) {
+                pending = null;
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    private void apply(Consumer<Index> change) {
+        synchronized (writeLock) {
+            change.accept(index);
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Doc {
+        final Kind kind;
+        final Long id;
+        final String field;
+        final String text;
+        final String normalized;
+        // Null for bases and suppliers, which every caller may find
+        volatile Long baseId;
+        volatile boolean removed;
+
+        Doc(Kind kind, Long id, String field, String text, Long baseId) {
+            this.kind = kind;
+            this.id = id;
+            this.field = field;
+            this.text = text;
+            this.normalized = normalize(text);
+            this.baseId = baseId;
+        }
+
+        boolean visible(Set<Kind> kinds, Long scope) {
+            return !removed && (kinds == null || kinds.contains(kind))
+                && (scope == null || baseId == null || scope.equals(baseId));
+        }
+    }
+
+    // Sorted, append-only list of doc ids. Single writer; readers see a consistent prefix because
+    // size is published after the slot it covers.
+    private static final class Postings {
+        private volatile int[] ids = new int[4];
+        private volatile int size;
+
+        void add(int id) {
+            int[] current = ids;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+                ids = current;
+            }
+            current[size] = id;
+            size = size + 1;
+        }
+
+        boolean contains(int id) {
+            int n = size;
+            return Arrays.binarySearch(ids, 0, n, id) >= 0;
+        }
+    }
+
+    // Written under SearchService.writeLock only; read concurrently without locking
+    private static final class Index {
+        private volatile Doc[] docs = new Doc[1024];
+        private volatile int docCount;
+        private volatile int live;
+        private final Map<String, Integer> docIds = new ConcurrentHashMap<>();
+        private final Map<String, Postings> grams = new ConcurrentHashMap<>();
+        // "<text>\u0000<doc id>" -> doc id, and the same from every later word start
+        private final ConcurrentSkipListMap<String, Integer> prefixes = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<String, Integer> wordStarts = new ConcurrentSkipListMap<>();
+
+        void put(Kind kind, Long id, String field, String text, Long baseId) {
+            String key = key(kind, id, field, text);
+            Integer existing = docIds.get(key);
+            if (existing != null) {
+                if (docs[existing].text.equals(text)) {
+                    docs[existing].baseId = baseId;
+                    return;
+                }
+                drop(existing);
+                docIds.remove(key);
+            }
+            if (text == null || text.isBlank()) {
+                return;
+            }
+            Doc doc = new Doc(kind, id, field, text, baseId);
+            int docId = docCount;
+            Doc[] current = docs;
+            if (docId == current.length) {
+                current = Arrays.copyOf(current, docId * 2);
+                docs = current;
+            }
+            current[docId] = doc;
+            docCount = docId + 1;
+
+            String normalized = doc.normalized;
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i + GRAM <= normalized.length(); i++) {
+                String gram = normalized.substring(i, i + GRAM);
+                if (seen.add(gram)) {
+                    grams.computeIfAbsent(gram, g -> new Postings()).add(docId);
+                }
+            }
+            for (int start : wordStarts(normalized)) {
+                (start == 0 ? prefixes : wordStarts).put(normalized.substring(start) + '\u0000' + docId, docId);
+            }
+            docIds.put(key, docId);
+            live++;
+        }
+
+        void remove(Kind kind, Long id) {
+            for (String field : fieldsOf(kind)) {
+                Integer docId = docIds.remove(key(kind, id, field, null));
+                if (docId != null) {
+                    drop(docId);
+                }
+            }
+        }
+
+        void move(Kind kind, Long id, Long baseId) {
+            for (String field : fieldsOf(kind)) {
+                Integer docId = docIds.get(key(kind, id, field, null));
+                if (docId != null) {
+                    docs[docId].baseId = baseId;
+                }
+            }
+        }
+
+        private void drop(int docId) {
+            Doc doc = docs[docId];
+            doc.removed = true;
+            for (int start : wordStarts(doc.normalized)) {
+                (start == 0 ? prefixes : wordStarts).remove(doc.normalized.substring(start) + '\u0000' + docId);
+            }
+            live--;
+        }
+
+        List<SearchHit> search(String q, Set<Kind> kinds, Long scope, int limit) {
+            // Exact and prefix matches rank above any word-prefix match, so they are taken first: whole values in
+            // key order, where an exact match ("q\u0000<doc id>") sorts ahead of the longer ones
+            List<Integer> ranked = new ArrayList<>();
+            for (Integer docId : prefixes.subMap(q, q + '\uffff').values()) {
+                if (ranked.size() == limit) {
+                    break;
+                }
+                if (docs[docId].visible(kinds, scope)) {
+                    ranked.add(docId);
+                }
+            }
+            // Then word-prefix matches in key order; a doc can appear under several word starts
+            if (ranked.size() < limit) {
+                Set<Integer> seen = new HashSet<>();
+                for (Integer docId : wordStarts.subMap(q, q + '\uffff').values()) {
+                    if (ranked.size() == limit) {
+                        break;
+                    }
+                    Doc doc = docs[docId];
+                    if (doc.visible(kinds, scope) && !doc.normalized.startsWith(q) && seen.add(docId)) {
+                        ranked.add(docId);
+                    }
+                }
+            }
+
+            // Fill up with matches inside a word from the trigram lists
+            if (ranked.size() < limit && q.length() >= GRAM) {
+                Set<Integer> taken = new HashSet<>(ranked);
+                PriorityQueue<Integer> best = new PriorityQueue<>(
+                    Comparator.comparing((Integer docId) -> docs[docId].normalized.length()).reversed());
+                int wanted = limit - ranked.size();
+                for (int docId : gramCandidates(q)) {
+                    Doc doc = docs[docId];
+                    if (taken.contains(docId) || !doc.visible(kinds, scope) || !doc.normalized.contains(q)) {
+                        continue;
+                    }
+                    best.add(docId);
+                    if (best.size() > wanted) {
+                        best.poll();
+                    }
+                }
+                List<Integer> substrings = new ArrayList<>(best);
+                substrings.sort(Comparator.comparing((Integer docId) -> docs[docId].normalized.length()));
+                ranked.addAll(substrings);
+            }
+
+            List<SearchHit> hits = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Integer docId : ranked) {
+                if (hits.size() == limit) {
+                    break;
+                }
+                Doc doc = docs[docId];
+                hits.add(new SearchHit(doc.kind, doc.id, doc.field, doc.text));
+            }
+            return hits;
+        }
+
+        // Ids on the shortest posting list that also appear on all the others
+        private int[] gramCandidates(String q) {
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= q.length(); i++) {
+                Postings postings = grams.get(q.substring(i, i + GRAM));
+                if (postings == null) {
+                    return new int[0];
+                }
+                lists.add(postings);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+            Postings shortest = lists.get(0);
+            int n = shortest.size;
+            int[] ids = shortest.ids;
+            int[] result = new int[n];
+            int count = 0;
+            outer:
+            for (int i = 0; i < n; i++) {
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(ids[i])) {
+                        continue outer;
+                    }
+                }
+                result[count++] = ids[i];
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private static List<Integer> wordStarts(String text) {
+            List<Integer> starts = new ArrayList<>();
+            for (int i = 0; i < text.length(); i++) {
+                if (Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    starts.add(i);
+                }
+            }
+            if (starts.isEmpty() || starts.get(0) != 0) {
+                starts.add(0, 0);
+            }
+            return starts;
+        }
+
+        private static String key(Kind kind, Long id, String field, String text) {
+            return kind == Kind.SUPPLIER ? kind + ":" + normalize(text) : kind + ":" + id + ":" + field;
+        }
+
+        private static List<String> fieldsOf(Kind kind) {
+            switch (kind) {
+                case ASSET: return List.of("serialNumber");
+                case USER: return List.of("username");
+                case BASE: return List.of("name", "location");
+                default: return List.of();
+            }
+        }
+    }
+}
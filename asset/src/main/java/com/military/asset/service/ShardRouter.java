@@ -0,0 +1,275 @@
+package com.military.asset.service;
+
+import com.military.asset.config.ShardRoutingDataSource;
+import com.military.asset.security.BaseScope;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Where a base's rows live and how to reach every shard (see ShardingConfig).
+ *
+ * Work runs on a shard by binding it to the thread for the duration of a call; repositories pick it up
+ * through the routing DataSource at their next transaction. Reads without a base scatter to all shards
+ * in parallel, each on its own thread and transactions, and the per-shard results are merged in order.
+ * The scatter threads are not the task executor's, since callers such as the dashboard already run
+ * there and would otherwise wait on their own pool. Without sharding there is one shard and everything
+ * runs inline on the caller.
+ *
+ * Reference tables (base, asset_type, user) are written on the home shard and copied to the others so
+ * their foreign keys hold everywhere. An asset that moves to a base on another shard is copied there;
+ * the old shard keeps a stale row for the foreign keys of its transfers, which reads skip because the
+ * asset's base is no longer on that shard.
+ */
+@Service
+public class ShardRouter {
+    public static final int HOME = 0;
+    // Parents first, so copies satisfy foreign keys
+    static final List<String> REFERENCE_TABLES = List.of("base", "asset_type", "user");
+
+    private final ShardRoutingDataSource routing;
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final ExecutorService scatterExecutor;
+
+    public ShardRouter(DataSource dataSource) throws SQLException {
+        this.routing = dataSource.isWrapperFor(ShardRoutingDataSource.class) ? dataSource.unwrap(ShardRoutingDataSource.class) : null;
+        if (routing == null) {
+            shards.add(new JdbcTemplate(dataSource));
+        } else {
+            for (int shard = 0; shard < routing.getShardCount(); shard++) {
+                shards.add(new JdbcTemplate(routing.getShard(shard)));
+            }
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.scatterExecutor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "shard-scatter-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatterExecutor.shutdown();
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // The shard's own pool, outside the routing and any transaction bound to it
+    public DataSource dataSource(int shard) {
+        return shards.get(shard).getDataSource();
+    }
+
+    public int shardOfBase(Long baseId) {
+        return routing == null || baseId == null ? HOME : routing.shardOfBase(baseId);
+    }
+
+    // The shard whose id range the row was created in
+    public int shardOfId(Long id) {
+        long shard = id == null ? HOME : id >>> ShardRoutingDataSource.ID_BITS;
+        return shard < shards.size() ? (int) shard : HOME;
+    }
+
+    // The shard holding the current copy of an asset: where it was created, or where it was last moved to
+    public int shardOfAsset(Long assetId) {
+        if (shards.size() == 1) {
+            return HOME;
+        }
+        int shard = shardOfId(assetId);
+        for (int hop = 0; hop < shards.size(); hop++) {
+            List<Long> baseIds = shards.get(shard).queryForList("SELECT base_id FROM asset WHERE id = ?", Long.class, assetId);
+            int owner = baseIds.isEmpty() ? shard : shardOfBase(baseIds.get(0));
+            if (owner == shard) {
+                return shard;
+            }
+            shard = owner;
+        }
+        return shard;
+    }
+
+    public boolean owns(int shard, Long baseId) {
+        return shardOfBase(baseId) == shard;
+    }
+
+    public <T> T on(int shard, Supplier<T> work) {
+        Integer previous = ShardRoutingDataSource.bind(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardRoutingDataSource.restore(previous);
+        }
+    }
+
+    public void run(int shard, Runnable work) {
+        on(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T onBase(Long baseId, Supplier<T> work) {
+        return on(shardOfBase(baseId), work);
+    }
+
+    public <T> T onId(Long id, Supplier<T> work) {
+        return on(shardOfId(id), work);
+    }
+
+    public <T> T onHome(Supplier<T> work) {
+        return on(HOME, work);
+    }
+
+    // One result per shard (null allowed), in shard order
+    public <T> List<T> scatter(IntFunction<T> work) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(on(HOME, () -> work.apply(HOME)));
+        }
+        Long baseScope = BaseScope.current();
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(
+                () -> BaseScope.with(baseScope, () -> on(target, () -> work.apply(target))), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    // Rows for one base come from its shard; otherwise every shard's rows, merged in order
+    public <T> List<T> gather(Long baseId, Supplier<List<T>> query, Comparator<? super T> order) {
+        if (baseId != null || shards.size() == 1) {
+            return onBase(baseId, query);
+        }
+        return merge(scatter(shard -> sorted(query.get(), order)), order, Integer.MAX_VALUE);
+    }
+
+    public long sum(Long baseId, Supplier<Long> count) {
+        if (baseId != null || shards.size() == 1) {
+            return onBase(baseId, count);
+        }
+        return scatter(shard -> count.get()).stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Rows of the shards a row-level test keeps (e.g. assets whose base the shard holds), merged in order
+    public <T> List<T> gatherOwned(Long baseId, Supplier<List<T>> query, Comparator<? super T> order,
+                                   Function<T, Long> baseOf) {
+        if (shards.size() == 1) {
+            return query.get();
+        }
+        if (baseId != null) {
+            return onBase(baseId, query);
+        }
+        return merge(scatter(shard -> sorted(query.get().stream().filter(row -> owns(shard, baseOf.apply(row))).toList(), order)),
+            order, Integer.MAX_VALUE);
+    }
+
+    /**
+     * K-way merge of lists that are each sorted by {@code order}, stopping after {@code limit} rows. A page
+     * of the merged list needs at most offset + limit rows from each shard.
+     */
+    public static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+            (a, b) -> order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1])));
+        for (int part = 0; part < sorted.size(); part++) {
+            if (!sorted.get(part).isEmpty()) {
+                heads.add(new int[] { part, 0 });
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<T> part = sorted.get(head[0]);
+            merged.add(part.get(head[1]));
+            if (++head[1] < part.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static <T> List<T> sorted(List<T> rows, Comparator<? super T> order) {
+        List<T> copy = new ArrayList<>(rows);
+        copy.sort(order);
+        return copy;
+    }
+
+    // Copies a reference row written on the home shard to every other shard
+    public void replicate(String table, Long id) {
+        for (int shard = 1; shard < shards.size(); shard++) {
+            copy(table, id, HOME, shard);
+        }
+    }
+
+    public void removeReplicas(String table, Long id) {
+        for (int shard = 1; shard < shards.size(); shard++) {
+            shards.get(shard).update("DELETE FROM " + table + " WHERE id = ?", id);
+        }
+    }
+
+    // Inserts or overwrites the row on the target shard with its id and every column as on the source
+    public void copy(String table, Long id, int from, int to) {
+        List<Map<String, Object>> rows = shards.get(from).queryForList("SELECT * FROM " + table + " WHERE id = ?", id);
+        if (rows.isEmpty()) {
+            return;
+        }
+        upsert(shards.get(to), table, rows.get(0));
+    }
+
+    // Rows written while sharding was off, or by data.sql, only exist on the home shard
+    @EventListener(ApplicationReadyEvent.class)
+    public void replicateReferenceTables() {
+        if (shards.size() == 1) {
+            return;
+        }
+        for (String table : REFERENCE_TABLES) {
+            List<Map<String, Object>> rows = shards.get(HOME).queryForList("SELECT * FROM " + table);
+            for (int shard = 1; shard < shards.size(); shard++) {
+                for (Map<String, Object> row : rows) {
+                    upsert(shards.get(shard), table, row);
+                }
+            }
+        }
+        System.out.println(">>> Reference tables copied to " + (shards.size() - 1) + " shards");
+    }
+
+    private void upsert(JdbcTemplate target, String table, Map<String, Object> row) {
+        List<String> columns = new ArrayList<>(row.keySet());
+        List<Object> values = new ArrayList<>(row.values());
+        StringBuilder set = new StringBuilder();
+        List<Object> updateArgs = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!columns.get(i).equalsIgnoreCase("id")) {
+                set.append(set.isEmpty() ? "" : ", ").append(columns.get(i)).append(" = ?");
+                updateArgs.add(values.get(i));
+            }
+        }
+        updateArgs.add(row.get(columns.stream().filter(c -> c.equalsIgnoreCase("id")).findFirst().orElseThrow()));
+        if (target.update("UPDATE " + table + " SET " + set + " WHERE id = ?", updateArgs.toArray()) == 0) {
+            target.update("INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(c -> "?").toList()) + ")", values.toArray());
+        }
+    }
+}
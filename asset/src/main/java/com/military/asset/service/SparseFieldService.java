@@ -0,0 +1,250 @@
+package com.military.asset.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sparse fieldsets for the list and detail endpoints: {@code fields=supplier,base.name,asset.serialNumber}.
+ *
+ * The requested paths are checked against the JPA metamodel and become one tuple query that selects
+ * only those columns, LEFT JOINing just the associations on a requested path (so nullable ones such as
+ * approvedBy keep their row); an association whose id is all that is asked for is read from the foreign key
+ * without a join. A path that ends at an association selects that entity's own columns but none of its
+ * associations. Rows come back as nested maps in request order, always with the ids of the
+ * root and each included association; an association that is null in the row is rendered as null.
+ */
+@Service
+public class SparseFieldService {
+    // Never selectable, at any depth
+    private static final List<String> HIDDEN = List.of("password");
+    // Selectable by name but not part of a whole association
+    private static final List<String> BOOKKEEPING = List.of("changeSeq");
+
+    private final EntityManager entityManager;
+
+    public SparseFieldService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public static boolean requested(String fields) {
+        return fields != null && !fields.isBlank();
+    }
+
+    /**
+     * Rows of {@code entity} matching every non-null value in {@code equal} (keyed by path, e.g.
+     * {@code asset.base.id}) and, when both bounds are given, {@code datePath} between them.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> find(Class<?> entity, String fields, Map<String, Object> equal,
+                                          String datePath, LocalDate from, LocalDate to) {
+        return query(entity, fields, (cb, root, joins) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            equal.forEach((path, value) -> {
+                if (value != null) {
+                    predicates.add(cb.equal(resolve(root, joins, path), value));
+                }
+            });
+            if (datePath != null && from != null && to != null) {
+                predicates.add(cb.between(resolve(root, joins, datePath), from, to));
+            }
+            return predicates;
+        }, null, Integer.MAX_VALUE);
+    }
+
+    // Rows whose change sequence is in (after, upTo], lowest first, at most limit of them
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findChanged(Class<?> entity, String fields, long after, long upTo, int limit) {
+        return query(entity, fields, (cb, root, joins) -> List.of(
+            cb.greaterThan(root.get("changeSeq"), after), cb.lessThanOrEqualTo(root.get("changeSeq"), upTo)), "changeSeq", limit);
+    }
+
+    // Every column of the entity with its associations as ids, which is what /api/sync sends
+    public String allFields(Class<?> entity) {
+        List<String> fields = new ArrayList<>();
+        for (Attribute<?, ?> attribute : entityManager.getMetamodel().entity(entity).getAttributes()) {
+            if (HIDDEN.contains(attribute.getName())) {
+                continue;
+            }
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+                fields.add(attribute.getName());
+            } else if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE
+                    || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE) {
+                fields.add(attribute.getName() + ".id");
+            }
+        }
+        return String.join(",", fields);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findById(Class<?> entity, String fields, Long id) {
+        Map<String, Object> equal = new HashMap<>();
+        equal.put("id", id);
+        return find(entity, fields, equal, null, null, null).stream().findFirst();
+    }
+
+    private List<Map<String, Object>> query(Class<?> entity, String fields, Where where, String orderBy, int limit) {
+        Node tree = parse(entity, fields);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entity);
+        Map<String, From<?, ?>> joins = new HashMap<>();
+        List<Path<?>> columns = new ArrayList<>();
+        select(tree, root, "", joins, columns);
+        query.multiselect(new ArrayList<>(columns)).where(where.predicates(cb, root, joins).toArray(new Predicate[0]));
+        if (orderBy != null) {
+            query.orderBy(cb.asc(root.get(orderBy)));
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).setMaxResults(limit).getResultList()) {
+            rows.add(render(tree, tuple, new int[] { 0 }));
+        }
+        return rows;
+    }
+
+    // Requested paths as a tree of attributes; leaves are columns, inner nodes are associations
+    private Node parse(Class<?> entity, String fields) {
+        ManagedType<?> rootType = entityManager.getMetamodel().entity(entity);
+        Node tree = new Node(rootType);
+        tree.child("id");
+        for (String field : fields.split(",")) {
+            String path = field.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            Node node = tree;
+            for (String name : path.split("\\.")) {
+                if (node.type == null) {
+                    throw new IllegalArgumentException("Unknown field: " + path);
+                }
+                node = node.child(name);
+                if (node == null) {
+                    throw new IllegalArgumentException("Unknown field: " + path);
+                }
+            }
+            if (node.type != null) {
+                // A whole association: its basic columns
+                for (Attribute<?, ?> attribute : node.type.getAttributes()) {
+                    if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC
+                            && !HIDDEN.contains(attribute.getName()) && !BOOKKEEPING.contains(attribute.getName())) {
+                        node.child(attribute.getName());
+                    }
+                }
+            }
+        }
+        return tree;
+    }
+
+    private void select(Node node, From<?, ?> from, String prefix, Map<String, From<?, ?>> joins, List<Path<?>> columns) {
+        for (Node child : node.children.values()) {
+            if (child.type == null) {
+                columns.add(from.get(child.name));
+            } else if (child.children.size() == 1) {
+                // Only the id: the foreign key column, no join
+                columns.add(from.get(child.name).get("id"));
+            } else {
+                String path = prefix + child.name;
+                From<?, ?> join = from.join(child.name, JoinType.LEFT);
+                joins.put(path, join);
+                select(child, join, path + ".", joins, columns);
+            }
+        }
+    }
+
+    // Filter paths reuse a selected join where there is one; otherwise navigation by id stays on the FK column
+    private <Y> Path<Y> resolve(Root<?> root, Map<String, From<?, ?>> joins, String path) {
+        String[] names = path.split("\\.");
+        Path<?> current = root;
+        String prefix = "";
+        for (String name : names) {
+            prefix = prefix.isEmpty() ? name : prefix + "." + name;
+            From<?, ?> join = joins.get(prefix);
+            current = join != null ? join : current.get(name);
+        }
+        @SuppressWarnings("unchecked")
+        Path<Y> typed = (Path<Y>) current;
+        return typed;
+    }
+
+    private Map<String, Object> render(Node node, Tuple tuple, int[] index) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (Node child : node.children.values()) {
+            if (child.type == null) {
+                row.put(child.name, tuple.get(index[0]++));
+            } else {
+                Map<String, Object> nested = render(child, tuple, index);
+                row.put(child.name, nested.get("id") == null ? null : nested);
+            }
+        }
+        return row;
+    }
+
+    private interface Where {
+        List<Predicate> predicates(CriteriaBuilder cb, Root<?> root, Map<String, From<?, ?>> joins);
+    }
+
+    private static final class Node {
+        final String name;
+        final ManagedType<?> type;
+        final Map<String, Node> children = new LinkedHashMap<>();
+
+        Node(ManagedType<?> type) {
+            this(null, type);
+        }
+
+        Node(String name, ManagedType<?> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        // The child for an attribute of this type, created on first use; null if there is no such attribute
+        Node child(String attributeName) {
+            Node existing = children.get(attributeName);
+            if (existing != null) {
+                return existing;
+            }
+            if (HIDDEN.contains(attributeName)) {
+                return null;
+            }
+            Attribute<?, ?> attribute;
+            try {
+                attribute = type.getAttribute(attributeName);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            Node child;
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+                child = new Node(attributeName, null);
+            } else if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE
+                    || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE) {
+                ManagedType<?> target = (ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+                child = new Node(attributeName, target);
+                child.child("id");
+            } else {
+                return null;
+            }
+            children.put(attributeName, child);
+            return child;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.military.asset.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.military.asset.model.Purchase;
+import com.military.asset.repository.PurchaseRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Purchase spend by supplier x asset type x base x month, kept in memory as long cents.
+ *
+ * Each cell of the cube is one entry of an open-addressing long -> long map whose key packs the
+ * four coordinates (dense ordinals for supplier, asset type and base, months since year 0 for the
+ * month). Roll-ups, drill-downs and top-N are one scan over the cells: coordinates that are not
+ * grouped on are masked out of the key and the cents are summed into a second map.
+ *
+ * Purchase saves and deletes move their amount between cells through a per-purchase record of the
+ * cell and cents they last added. The cube is loaded in id-ordered pages once the app is ready.
+ */
+@Service
+public class SpendCubeService {
+    public enum Dimension {
+        SUPPLIER(47, 17), ASSET_TYPE(33, 14), BASE(15, 18), MONTH(0, 15);
+
+        final int shift;
+        final long mask;
+
+        Dimension(int shift, int bits) {
+            this.shift = shift;
+            this.mask = ((1L << bits) - 1) << shift;
+        }
+
+        long of(long cell) { return (cell & mask) >>> shift; }
+    }
+
+    // Null means unrestricted; months are inclusive
+    public record SpendFilter(String supplier, Long assetTypeId, Long baseId, YearMonth from, YearMonth to) {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record SpendRow(String supplier, Long assetTypeId, Long baseId, String month, BigDecimal amount) {}
+
+    private final PurchaseRepository purchaseRepository;
+    private final AsyncTaskExecutor taskExecutor;
+    private final int pageSize;
+    private final ShardRouter shardRouter;
+
+    private final Rebuildable<Cube> cube = new Rebuildable<>(new Cube());
+
+    public SpendCubeService(PurchaseRepository purchaseRepository,
+                            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                            @Value("${spend.cube.load-page-size:10000}") int pageSize, ShardRouter shardRouter) {
+        this.purchaseRepository = purchaseRepository;
+        this.shardRouter = shardRouter;
+        this.taskExecutor = taskExecutor;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Totals grouped by the given dimensions, largest first. Grouping by fewer dimensions rolls up,
+     * adding one and filtering on a parent value drills down; an empty groupBy gives the grand total.
+     */
+    public List<SpendRow> aggregate(Set<Dimension> groupBy, SpendFilter filter, int limit) {
+        return cube.read(live -> live.aggregate(groupBy, filter, limit));
+    }
+
+    public List<SpendRow> topSuppliers(SpendFilter filter, int limit) {
+        return aggregate(EnumSet.of(Dimension.SUPPLIER), filter, limit);
+    }
+
+    public void recordPurchase(Purchase purchase) {
+        if (purchase.getId() == null || purchase.getAssetType() == null || purchase.getBase() == null
+                || purchase.getDate() == null || purchase.getTotalAmount() == null) {
+            return;
+        }
+        long id = purchase.getId();
+        String supplier = purchase.getSupplier();
+        long assetTypeId = purchase.getAssetType().getId();
+        long baseId = purchase.getBase().getId();
+        LocalDate date = purchase.getDate();
+        long cents = toCents(purchase.getTotalAmount());
+        cube.write(c -> c.put(id, supplier, assetTypeId, baseId, date, cents), id);
+    }
+
+    public void removePurchase(Long purchaseId) {
+        long id = purchaseId;
+        cube.write(c -> c.remove(id), id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            // Purchases live on their base's shard only, so the shards load in parallel without overlap
+            Long rows = cube.rebuild(new Cube(), () -> shardRouter.scatter(shard -> {
+                long loaded = 0;
+                long afterId = 0;
+                while (true) {
+                    List<Object[]> page = purchaseRepository.findSpendRowsAfter(afterId, PageRequest.of(0, pageSize));
+                    if (page.isEmpty()) {
+                        return loaded;
+                    }
+                    cube.fill((building, written) -> {
+                        for (Object[] row : page) {
+                            long id = (Long) row[0];
+                            if (!written.test(id) && row[5] != null) {
+                                building.put(id, (String) row[1], (Long) row[2], (Long) row[3], (LocalDate) row[4],
+                                    toCents((BigDecimal) row[5]));
+                            }
+                        }
+                    });
+                    loaded += page.size();
+                    afterId = (Long) page.get(page.size() - 1)[0];
+                }
+            }).stream().mapToLong(Long::longValue).sum());
+            if (rows != null) {
+                System.out.println(">>> Spend cube rebuilt from " + rows + " purchases into " + cube.read(live -> live.cells.size())
+                    + " cells in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (Exception e) {
+            System.err.println("Spend cube rebuild failed: " + e.getMessage());
+        }
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // Not thread-safe; always accessed under the Rebuildable lock
+    private static final class Cube {
+        final LongLongMap cells = new LongLongMap(1024);
+        // Purchase id -> cell key and cents it last contributed
+        final LongLongMap purchaseCells = new LongLongMap(1024);
+        final LongLongMap purchaseCents = new LongLongMap(1024);
+        final Dictionary<String> suppliers = new Dictionary<>(Dimension.SUPPLIER);
+        final Dictionary<Long> assetTypes = new Dictionary<>(Dimension.ASSET_TYPE);
+        final Dictionary<Long> bases = new Dictionary<>(Dimension.BASE);
+
+        void put(long purchaseId, String supplier, long assetTypeId, long baseId, LocalDate date, long cents) {
+            remove(purchaseId);
+            String name = supplier == null ? "" : supplier.trim();
+            long cell = suppliers.ordinal(name) << Dimension.SUPPLIER.shift
+                | assetTypes.ordinal(assetTypeId) << Dimension.ASSET_TYPE.shift
+                | bases.ordinal(baseId) << Dimension.BASE.shift
+                | monthCode(date.getYear(), date.getMonthValue());
+            cells.addTo(cell, cents);
+            purchaseCells.put(purchaseId, cell);
+            purchaseCents.put(purchaseId, cents);
+        }
+
+        void remove(long purchaseId) {
+            long cell = purchaseCells.remove(purchaseId);
+            if (cell != 0) {
+                cells.addTo(cell, -purchaseCents.remove(purchaseId));
+            }
+        }
+
+        List<SpendRow> aggregate(Set<Dimension> groupBy, SpendFilter filter, int limit) {
+            long supplier = filter.supplier() == null ? 0 : suppliers.find(filter.supplier().trim());
+            long assetType = filter.assetTypeId() == null ? 0 : assetTypes.find(filter.assetTypeId());
+            long base = filter.baseId() == null ? 0 : bases.find(filter.baseId());
+            if (supplier < 0 || assetType < 0 || base < 0) {
+                return List.of();
+            }
+            long fromMonth = filter.from() == null ? 0 : monthCode(filter.from().getYear(), filter.from().getMonthValue());
+            long toMonth = filter.to() == null ? Long.MAX_VALUE : monthCode(filter.to().getYear(), filter.to().getMonthValue());
+
+            long groupMask = 0;
+            for (Dimension dimension : groupBy) {
+                groupMask |= dimension.mask;
+            }
+            // An empty groupBy collapses every cell onto one key; keys must be non-zero in the map
+            long collapsed = groupMask == 0 ? 1 : 0;
+
+            LongLongMap groups = new LongLongMap(256);
+            long[] keys = cells.keys;
+            long[] values = cells.values;
+            for (int i = 0; i < keys.length; i++) {
+                long cell = keys[i];
+                if (cell == 0 || values[i] == 0) {
+                    continue;
+                }
+                if ((supplier != 0 && Dimension.SUPPLIER.of(cell) != supplier)
+                        || (assetType != 0 && Dimension.ASSET_TYPE.of(cell) != assetType)
+                        || (base != 0 && Dimension.BASE.of(cell) != base)) {
+                    continue;
+                }
+                long month = Dimension.MONTH.of(cell);
+                if (month < fromMonth || month > toMonth) {
+                    continue;
+                }
+                groups.addTo((cell & groupMask) | collapsed, values[i]);
+            }
+
+            List<long[]> totals = new ArrayList<>(groups.size());
+            for (int i = 0; i < groups.keys.length; i++) {
+                if (groups.keys[i] != 0 && groups.values[i] != 0) {
+                    totals.add(new long[] {groups.keys[i], groups.values[i]});
+                }
+            }
+            totals.sort((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compareUnsigned(a[0], b[0]));
+
+            List<SpendRow> rows = new ArrayList<>(Math.min(limit, totals.size()));
+            for (long[] total : totals) {
+                if (rows.size() == limit) {
+                    break;
+                }
+                long key = total[0];
+                long month = Dimension.MONTH.of(key);
+                rows.add(new SpendRow(
+                    groupBy.contains(Dimension.SUPPLIER) ? suppliers.value(key) : null,
+                    groupBy.contains(Dimension.ASSET_TYPE) ? assetTypes.value(key) : null,
+                    groupBy.contains(Dimension.BASE) ? bases.value(key) : null,
+                    groupBy.contains(Dimension.MONTH) ? YearMonth.of((int) (month / 12), (int) (month % 12) + 1).toString() : null,
+                    BigDecimal.valueOf(total[1], 2)));
+            }
+            return rows;
+        }
+
+        private static long monthCode(int year, int month) {
+            return year * 12L + month - 1;
+        }
+    }
+
+    // Dense 1-based ordinals for one coordinate of the cube; 0 is reserved so packed keys are never 0
+    private static final class Dictionary<T> {
+        private final Dimension dimension;
+        private final Map<T, Long> ordinals = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        Dictionary(Dimension dimension) {
+            this.dimension = dimension;
+            values.add(null);
+        }
+
+        long ordinal(T value) {
+            Long ordinal = ordinals.get(value);
+            if (ordinal == null) {
+                ordinal = (long) values.size();
+                if (ordinal > dimension.mask >>> dimension.shift) {
+                    throw new IllegalStateException("Too many distinct " + dimension + " values for the spend cube");
+                }
+                ordinals.put(value, ordinal);
+                values.add(value);
+            }
+            return ordinal;
+        }
+
+        long find(T value) {
+            Long ordinal = ordinals.get(value);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        T value(long key) {
+            return values.get((int) dimension.of(key));
+        }
+    }
+}
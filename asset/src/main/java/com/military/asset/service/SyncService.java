@@ -0,0 +1,185 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Assignment;
+import com.military.asset.model.AssignmentHistory;
+import com.military.asset.model.Base;
+import com.military.asset.model.Expenditure;
+import com.military.asset.model.Purchase;
+import com.military.asset.model.Transfer;
+import com.military.asset.model.TransferHistory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delta sync for clients on slow links: every insert, update and delete after the client's watermark,
+ * oldest first, in pages.
+ *
+ * Each synced table carries change_seq from {@link ChangeSequenceService} and deletes leave a row in
+ * sync_tombstone, so a page is one indexed range query per table plus one on the tombstones, merged by
+ * sequence. Archived transfers and assignments keep their sequence and are sent under their live
+ * entity name, so archiving is not a change. With sharding each shard's rows are read in parallel and
+ * merged the same way. The returned watermark never passes a sequence that could still commit, nor
+ * the end of a table whose query was cut off by the limit, so passing it back as {@code since} loses
+ * nothing.
+ */
+@Service
+public class SyncService {
+    public static final int MAX_LIMIT = 2000;
+
+    // Entity name -> the tables holding it and the roles allowed to read it (as in SecurityConfig)
+    private static final Map<String, List<Class<?>>> SOURCES = new LinkedHashMap<>();
+    private static final Map<String, List<String>> READERS = new LinkedHashMap<>();
+    private static final Set<String> REFERENCE_ENTITIES = Set.of("Base", "AssetType");
+
+    static {
+        source("Base", List.of(Base.class), "ADMIN", "BASE_COMMANDER", "LOGISTICS_OFFICER");
+        source("AssetType", List.of(AssetType.class), "ADMIN", "LOGISTICS_OFFICER");
+        source("Asset", List.of(Asset.class), "ADMIN", "BASE_COMMANDER", "LOGISTICS_OFFICER");
+        source("Purchase", List.of(Purchase.class), "ADMIN", "LOGISTICS_OFFICER");
+        source("Transfer", List.of(Transfer.class, TransferHistory.class), "ADMIN", "LOGISTICS_OFFICER");
+        source("Assignment", List.of(Assignment.class, AssignmentHistory.class), "ADMIN", "BASE_COMMANDER");
+        source("Expenditure", List.of(Expenditure.class), "ADMIN", "BASE_COMMANDER");
+    }
+
+    private static void source(String entity, List<Class<?>> tables, String... roles) {
+        SOURCES.put(entity, tables);
+        READERS.put(entity, List.of(roles));
+    }
+
+    private final SparseFieldService sparseFieldService;
+    private final ChangeSequenceService changeSequenceService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    public SyncService(SparseFieldService sparseFieldService, ChangeSequenceService changeSequenceService,
+                       JdbcTemplate jdbcTemplate, ShardRouter shardRouter) {
+        this.sparseFieldService = sparseFieldService;
+        this.changeSequenceService = changeSequenceService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Changes after {@code since} (null for everything) to the entities in {@code types} (null for all)
+     * that one of {@code roles} may read.
+     */
+    @Transactional(readOnly = true)
+    public SyncPage page(Long since, int limit, Collection<String> types, Collection<String> roles) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        long after = since == null ? 0 : since;
+        List<String> entities = new ArrayList<>();
+        for (Map.Entry<String, List<String>> readers : READERS.entrySet()) {
+            if ((types == null || types.contains(readers.getKey()))
+                    && readers.getValue().stream().anyMatch(roles::contains)) {
+                entities.add(readers.getKey());
+            }
+        }
+        if (types != null) {
+            for (String type : types) {
+                if (!READERS.containsKey(type)) {
+                    throw new IllegalArgumentException("Unknown type: " + type);
+                }
+            }
+        }
+
+        long upTo = changeSequenceService.safeWatermark();
+        long watermark = upTo;
+        List<Change> changes = new ArrayList<>();
+        for (String entity : entities) {
+            for (Class<?> table : SOURCES.get(entity)) {
+                // Reference rows are copied to every shard along with their sequence, so only home's are read
+                List<List<Map<String, Object>>> shards = REFERENCE_ENTITIES.contains(entity)
+                    ? List.of(shardRouter.onHome(() -> findChanged(table, after, upTo, limit)))
+                    : shardRouter.scatter(shard -> findChanged(table, after, upTo, limit));
+                for (int shard = 0; shard < shards.size(); shard++) {
+                    List<Map<String, Object>> rows = shards.get(shard);
+                    for (Map<String, Object> row : rows) {
+                        // The shard an asset moved away from keeps a stale copy of it
+                        if (table == Asset.class && !shardRouter.owns(shard, idOf(row.get("base")))) {
+                            continue;
+                        }
+                        changes.add(new Change(entity, (Long) row.get("changeSeq"), Change.UPSERT, (Long) row.get("id"), row));
+                    }
+                    if (rows.size() == limit) {
+                        // Rows past the last one returned are unseen; the page must stop there
+                        watermark = Math.min(watermark, (Long) rows.get(rows.size() - 1).get("changeSeq"));
+                    }
+                }
+            }
+        }
+        if (!entities.isEmpty()) {
+            // Deletes leave their tombstone on the shard the row was deleted from
+            for (List<Map<String, Object>> tombstones : shardRouter.scatter(shard -> jdbcTemplate.queryForList(
+                    "SELECT change_seq, entity, entity_id FROM sync_tombstone WHERE change_seq > ? AND change_seq <= ? AND entity IN ("
+                        + String.join(",", entities.stream().map(e -> "?").toList()) + ") ORDER BY change_seq LIMIT ?",
+                    tombstoneArgs(after, upTo, entities, limit)))) {
+                for (Map<String, Object> tombstone : tombstones) {
+                    changes.add(new Change((String) tombstone.get("entity"), ((Number) tombstone.get("change_seq")).longValue(),
+                        Change.DELETE, ((Number) tombstone.get("entity_id")).longValue(), null));
+                }
+                if (tombstones.size() == limit) {
+                    watermark = Math.min(watermark, ((Number) tombstones.get(tombstones.size() - 1).get("change_seq")).longValue());
+                }
+            }
+        }
+
+        changes.sort(Comparator.comparingLong(Change::seq));
+        List<Change> page = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Change change : changes) {
+            if (change.seq() > watermark || page.size() == limit) {
+                break;
+            }
+            // Archiving copies a row, so for a moment both copies can be visible; send it once
+            if (seen.add(change.entity() + ":" + change.id())) {
+                page.add(change);
+            }
+        }
+        if (page.size() == limit) {
+            watermark = page.get(page.size() - 1).seq();
+        }
+        // A client ahead of the safe watermark (it saw a sequence that was in flight) is never moved back
+        watermark = Math.max(watermark, after);
+        return new SyncPage(since, watermark, watermark < upTo, page);
+    }
+
+    private List<Map<String, Object>> findChanged(Class<?> table, long after, long upTo, int limit) {
+        return sparseFieldService.findChanged(table, sparseFieldService.allFields(table), after, upTo, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long idOf(Object association) {
+        return association == null ? null : (Long) ((Map<String, Object>) association).get("id");
+    }
+
+    private static Object[] tombstoneArgs(long after, long upTo, List<String> entities, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(after);
+        args.add(upTo);
+        args.addAll(entities);
+        args.add(limit);
+        return args.toArray();
+    }
+
+    public record SyncPage(Long since, long watermark, boolean hasMore, List<Change> changes) {}
+
+    // data holds every column with associations as {id}; it is null for a DELETE
+    public record Change(String entity, long seq, String op, Long id, Map<String, Object> data) {
+        public static final String UPSERT = "UPSERT";
+        public static final String DELETE = "DELETE";
+    }
+}
@@ -0,0 +1,281 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Transfer;
+import com.military.asset.repository.TransferHistoryRepository;
+import com.military.asset.repository.TransferRepository;
+import com.military.asset.security.BaseScope;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * Origin x destination transfer counts over any date window, for heatmaps.
+ *
+ * Every transfer adds 1 to a per-day slice under a key packing its (from base, to base, asset
+ * type, status) ordinals. A window query sums the slices in range into a dense matrix indexed by
+ * base ordinal, so the cost depends on how many distinct flows the window has rather than on how
+ * many transfers it covers. Creating, approving, rejecting, completing and deleting a transfer
+ * moves its unit between keys.
+ *
+ * Slices are sparse primitive maps; a dense n x n array per day would cost about 1 MB a day at a
+ * few hundred bases, so the dense matrix is only built per query. Rebuilds read transfer_history as
+ * well, so archived transfers stay on the map.
+ */
+@Service
+public class TransferFlowService {
+    private static final int FROM_SHIFT = 44;
+    private static final int TO_SHIFT = 24;
+    private static final int TYPE_SHIFT = 4;
+    private static final long BASE_MASK = (1L << 20) - 1;
+    private static final long STATUS_MASK = (1L << 4) - 1;
+
+    public static final Set<Transfer.TransferStatus> DEFAULT_STATUSES =
+        EnumSet.of(Transfer.TransferStatus.PENDING, Transfer.TransferStatus.APPROVED, Transfer.TransferStatus.COMPLETED);
+
+    /**
+     * counts[i][j] is the number of transfers from baseIds[i] to baseIds[j]; outbound and inbound
+     * are its row and column sums.
+     */
+    public record FlowMatrix(LocalDate from, LocalDate to, List<Long> baseIds, long[][] counts,
+                             long[] outbound, long[] inbound, Map<Long, Long> byAssetType, long total) {}
+
+    private final TransferRepository transferRepository;
+    private final TransferHistoryRepository transferHistoryRepository;
+    private final AsyncTaskExecutor taskExecutor;
+    private final int pageSize;
+    private final ShardRouter shardRouter;
+
+    private final Rebuildable<Flows> flows = new Rebuildable<>(new Flows());
+
+    public TransferFlowService(TransferRepository transferRepository, TransferHistoryRepository transferHistoryRepository,
+                               @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                               @Value("${transfer.flows.load-page-size:10000}") int pageSize, ShardRouter shardRouter) {
+        this.transferRepository = transferRepository;
+        this.shardRouter = shardRouter;
+        this.transferHistoryRepository = transferHistoryRepository;
+        this.taskExecutor = taskExecutor;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Null dates leave that end of the window open; a null asset type counts every type, and a base
+     * only counts transfers to or from it. With activeOnly, bases that neither send nor receive
+     * anything in the window are left out.
+     */
+    public FlowMatrix flows(LocalDate from, LocalDate to, Long baseId, Long assetTypeId, Set<Transfer.TransferStatus> statuses,
+                            boolean activeOnly) {
+        return flows.read(live -> live.matrix(from, to, baseId, assetTypeId, statuses, activeOnly));
+    }
+
+    // Re-reads the row so status changes made through bulk updates are picked up
+    public void refreshTransfer(Long transferId) {
+        try {
+            // The flows cover every base, not just a scoped caller's
+            List<Object[]> rows = BaseScope.unscoped(() -> transferRepository.findFlowRow(transferId));
+            if (rows.isEmpty()) {
+                removeTransfer(transferId);
+                return;
+            }
+            Object[] row = rows.get(0);
+            flows.write(f -> f.put(row), transferId);
+        } catch (Exception e) {
+            System.err.println("Failed to update transfer flows for transfer " + transferId + ": " + e.getMessage());
+        }
+    }
+
+    public void removeTransfer(Long transferId) {
+        long id = transferId;
+        flows.write(f -> f.remove(id), id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            // Hot table first: a transfer archived between the two passes is read twice, and put() replaces.
+            // A transfer lives on its origin's shard only, so the shards load in parallel without overlap.
+            List<BiFunction<Long, Pageable, List<Object[]>>> sources =
+                List.of(transferRepository::findFlowRowsAfter, transferHistoryRepository::findFlowRowsAfter);
+            Long rows = flows.rebuild(new Flows(), () -> shardRouter.scatter(shard -> {
+                long loaded = 0;
+                for (BiFunction<Long, Pageable, List<Object[]>> source : sources) {
+                    long afterId = 0;
+                    while (true) {
+                        List<Object[]> page = source.apply(afterId, PageRequest.of(0, pageSize));
+                        if (page.isEmpty()) {
+                            break;
+                        }
+                        flows.fill((building, written) -> {
+                            for (Object[] row : page) {
+                                if (!written.test((Long) row[0])) {
+                                    building.put(row);
+                                }
+                            }
+                        });
+                        loaded += page.size();
+                        afterId = (Long) page.get(page.size() - 1)[0];
+                    }
+                }
+                return loaded;
+            }).stream().mapToLong(Long::longValue).sum());
+            if (rows != null) {
+                System.out.println(">>> Transfer flows rebuilt from " + rows + " transfers into " + flows.read(live -> live.days.size())
+                    + " daily slices in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (Exception e) {
+            System.err.println("Transfer flow rebuild failed: " + e.getMessage());
+        }
+    }
+
+    // Not thread-safe; always accessed under the Rebuildable lock
+    private static final class Flows {
+        final NavigableMap<Long, LongLongMap> days = new TreeMap<>();
+        // Transfer id -> flow key and epoch day it was counted under
+        final LongLongMap transferKeys = new LongLongMap(1024);
+        final LongLongMap transferDays = new LongLongMap(1024);
+        // 1-based ordinals so a packed key is never 0
+        final Map<Long, Long> baseOrdinals = new HashMap<>();
+        final List<Long> baseIds = new ArrayList<>(List.of(0L));
+        final Map<Long, Long> typeOrdinals = new HashMap<>();
+        final List<Long> typeIds = new ArrayList<>(List.of(0L));
+
+        // Row shape: (id, fromBaseId, toBaseId, assetTypeId, date, status)
+        void put(Object[] row) {
+            long id = (Long) row[0];
+            remove(id);
+            long key = ordinal(baseOrdinals, baseIds, (Long) row[1]) << FROM_SHIFT
+                | ordinal(baseOrdinals, baseIds, (Long) row[2]) << TO_SHIFT
+                | ordinal(typeOrdinals, typeIds, (Long) row[3]) << TYPE_SHIFT
+                | ((Transfer.TransferStatus) row[5]).ordinal();
+            long day = ((LocalDate) row[4]).toEpochDay();
+            days.computeIfAbsent(day, d -> new LongLongMap(16)).addTo(key, 1);
+            transferKeys.put(id, key);
+            transferDays.put(id, day);
+        }
+
+        void remove(long id) {
+            long key = transferKeys.remove(id);
+            if (key == 0) {
+                return;
+            }
+            long day = transferDays.remove(id);
+            LongLongMap slice = days.get(day);
+            slice.addTo(key, -1);
+            if (slice.get(key) == 0) {
+                slice.remove(key);
+                if (slice.size() == 0) {
+                    days.remove(day);
+                }
+            }
+        }
+
+        FlowMatrix matrix(LocalDate from, LocalDate to, Long baseId, Long assetTypeId, Set<Transfer.TransferStatus> statuses,
+                          boolean activeOnly) {
+            int n = baseIds.size() - 1;
+            long[] dense = new long[n * n];
+            Map<Long, Long> byAssetType = new HashMap<>();
+            long total = 0;
+            Long typeOrdinal = assetTypeId == null ? null : typeOrdinals.get(assetTypeId);
+            Long baseOrdinal = baseId == null ? null : baseOrdinals.get(baseId);
+            int statusBits = 0;
+            for (Transfer.TransferStatus status : statuses) {
+                statusBits |= 1 << status.ordinal();
+            }
+
+            if ((assetTypeId == null || typeOrdinal != null) && (baseId == null || baseOrdinal != null)) {
+                NavigableMap<Long, LongLongMap> window = days.subMap(
+                    from == null ? Long.MIN_VALUE : from.toEpochDay(), true,
+                    to == null ? Long.MAX_VALUE : to.toEpochDay(), true);
+                for (LongLongMap slice : window.values()) {
+                    long[] keys = slice.keys;
+                    long[] values = slice.values;
+                    for (int i = 0; i < keys.length; i++) {
+                        long key = keys[i];
+                        if (key == 0 || values[i] == 0 || (statusBits & (1 << (int) (key & STATUS_MASK))) == 0) {
+                            continue;
+                        }
+                        long type = (key >>> TYPE_SHIFT) & BASE_MASK;
+                        if (typeOrdinal != null && type != typeOrdinal) {
+                            continue;
+                        }
+                        long fromOrdinal = (key >>> FROM_SHIFT) & BASE_MASK;
+                        long toOrdinal = (key >>> TO_SHIFT) & BASE_MASK;
+                        if (baseOrdinal != null && fromOrdinal != baseOrdinal && toOrdinal != baseOrdinal) {
+                            continue;
+                        }
+                        int fromBase = (int) fromOrdinal - 1;
+                        int toBase = (int) toOrdinal - 1;
+                        dense[fromBase * n + toBase] += values[i];
+                        byAssetType.merge(typeIds.get((int) type), values[i], Long::sum);
+                        total += values[i];
+                    }
+                }
+            }
+
+            long[] outbound = new long[n];
+            long[] inbound = new long[n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    outbound[i] += dense[i * n + j];
+                    inbound[j] += dense[i * n + j];
+                }
+            }
+            List<Integer> kept = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (!activeOnly || outbound[i] != 0 || inbound[i] != 0) {
+                    kept.add(i);
+                }
+            }
+            kept.sort(Comparator.comparing(i -> baseIds.get(i + 1)));
+            int m = kept.size();
+            List<Long> ids = new ArrayList<>(m);
+            long[][] counts = new long[m][m];
+            long[] keptOutbound = new long[m];
+            long[] keptInbound = new long[m];
+            for (int i = 0; i < m; i++) {
+                int row = kept.get(i);
+                ids.add(baseIds.get(row + 1));
+                keptOutbound[i] = outbound[row];
+                keptInbound[i] = inbound[row];
+                for (int j = 0; j < m; j++) {
+                    counts[i][j] = dense[row * n + kept.get(j)];
+                }
+            }
+            return new FlowMatrix(from, to, ids, counts, keptOutbound, keptInbound, byAssetType, total);
+        }
+
+        private static long ordinal(Map<Long, Long> ordinals, List<Long> ids, Long id) {
+            Long ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                ordinal = (long) ids.size();
+                if (ordinal > BASE_MASK) {
+                    throw new IllegalStateException("Too many distinct ids for the transfer flow matrix");
+                }
+                ordinals.put(id, ordinal);
+                ids.add(id);
+            }
+            return ordinal;
+        }
+    }
+}
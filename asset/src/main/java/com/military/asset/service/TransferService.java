@@ -1,32 +1,177 @@
 package com.military.asset.service;
 
+import com.military.asset.model.Asset;
 import com.military.asset.model.Transfer;
+import com.military.asset.model.TransferHistory;
 import com.military.asset.model.User;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.TransferHistoryRepository;
 import com.military.asset.repository.TransferRepository;
+import com.military.asset.security.BaseScope;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class TransferService {
+    private static final int MAX_TRANSITION_ATTEMPTS = 5;
+    private static final Comparator<Transfer> BY_ID = Comparator.comparing(Transfer::getId);
+
     private final TransferRepository transferRepository;
     
+    @Autowired
+    private AssetRepository assetRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
     @Autowired
     private AuditLogService auditLogService;
     
     @Autowired
     private UserService userService;
+    
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+    
+    @Autowired
+    private AssetFacetService assetFacetService;
+    
+    @Autowired
+    private SearchService searchService;
+    
+    @Autowired
+    private TransferFlowService transferFlowService;
+    
+    @Autowired
+    private TransferHistoryRepository transferHistoryRepository;
+    
+    @Autowired
+    private HistoryArchiveService historyArchiveService;
+    
+    @Autowired
+    private SparseFieldService sparseFieldService;
+    
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
 
     public TransferService(TransferRepository transferRepository) { this.transferRepository = transferRepository; }
 
-    public List<Transfer> findAll() { return transferRepository.findAll(); }
-    public Optional<Transfer> findById(Long id) { return transferRepository.findById(id); }
+    // A transfer lives on the shard of the base it leaves, next to the asset it moves
+    public List<Transfer> findAll() { return shardRouter.gather(null, transferRepository::findAll, BY_ID); }
+    public Optional<Transfer> findById(Long id) { return shardRouter.onId(id, () -> transferRepository.findById(id)); }
     public Transfer save(Transfer transfer) {
-        Transfer savedTransfer = transferRepository.save(transfer);
-        
-        // Log the transaction
+        Transfer savedTransfer = shardRouter.onBase(transfer.getFromBase().getId(), () -> {
+            Transfer saved = transferRepository.save(transfer);
+            transferFlowService.refreshTransfer(saved.getId());
+            return saved;
+        });
+        logCreated(transfer, savedTransfer);
+        return savedTransfer;
+    }
+
+    // A new transfer, with the same checks as a batch of one
+    public Transfer create(Transfer transfer) {
+        return saveAll(List.of(transfer)).get(0);
+    }
+
+    /**
+     * Creates new transfers all or nothing, in one transaction, refusing any for an asset that already has an
+     * open transfer or is not at the base it would leave. The assets are locked first, so a concurrent batch
+     * for the same asset waits and then sees this one's transfer. A transaction cannot span shards, so every
+     * transfer must leave a base on the same shard.
+     */
+    public List<Transfer> saveAll(List<Transfer> transfers) {
+        Set<Integer> shards = new HashSet<>();
+        transfers.forEach(transfer -> shards.add(shardRouter.shardOfBase(transfer.getFromBase().getId())));
+        if (shards.size() > 1) {
+            throw new IllegalArgumentException("the transfers leave bases on different shards; submit one batch per shard");
+        }
+        List<Long> assetIds = transfers.stream().map(transfer -> transfer.getAsset().getId()).toList();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Transfer> savedTransfers = shardRouter.on(shards.iterator().next(), () -> transactionTemplate.execute(status -> {
+            checkMoves(transfers, assetRepository.findAllForUpdate(assetIds));
+            List<Long> busy = transferRepository.findAssetIdsInOpenTransfers(assetIds, RebalancingService.OPEN_STATUSES);
+            if (!busy.isEmpty()) {
+                throw new IllegalArgumentException("assets " + busy + " already have an open transfer");
+            }
+            return transferRepository.saveAll(transfers);
+        }));
+        for (int i = 0; i < savedTransfers.size(); i++) {
+            Long id = savedTransfers.get(i).getId();
+            shardRouter.run(shardRouter.shardOfId(id), () -> transferFlowService.refreshTransfer(id));
+            logCreated(transfers.get(i), savedTransfers.get(i));
+        }
+        return savedTransfers;
+    }
+
+    /**
+     * Edits a transfer while it is still PENDING, with the checks a new one gets. The change is a
+     * compare-and-set on status and version like the transitions, so an edit never lands on a transfer
+     * that was approved or edited meanwhile (OptimisticLockingFailureException), and a transfer that is
+     * no longer PENDING is refused (IllegalStateException). Returns null if there is no such transfer.
+     */
+    public Transfer updatePending(Long id, Transfer edit) {
+        if (shardRouter.shardOfBase(edit.getFromBase().getId()) != shardRouter.shardOfId(id)) {
+            throw new IllegalArgumentException("the transfer cannot leave a base on another shard; create a new one");
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Transfer updated = shardRouter.onId(id, () -> transactionTemplate.execute(status -> {
+            Transfer transfer = transferRepository.findByIdWithRelatedEntities(id).orElse(null);
+            if (transfer == null) {
+                return null;
+            }
+            if (transfer.getStatus() != Transfer.TransferStatus.PENDING) {
+                throw new IllegalStateException("Transfer " + id + " is " + transfer.getStatus() + " and can no longer be edited");
+            }
+            Long assetId = edit.getAsset().getId();
+            checkMoves(List.of(edit), assetRepository.findAllForUpdate(List.of(assetId)));
+            if (!assetId.equals(transfer.getAsset().getId())
+                    && !transferRepository.findAssetIdsInOpenTransfers(List.of(assetId), RebalancingService.OPEN_STATUSES).isEmpty()) {
+                throw new IllegalArgumentException("asset " + assetId + " already has an open transfer");
+            }
+            if (transferRepository.updatePending(id, edit.getAsset(), edit.getFromBase(), edit.getToBase(), edit.getDate(),
+                    edit.getReason(), Transfer.TransferStatus.PENDING, transfer.getVersion(), changeSequenceService.next()) == 0) {
+                throw new OptimisticLockingFailureException("Transfer " + id + " was modified concurrently");
+            }
+            return transferRepository.findByIdWithRelatedEntities(id).orElseThrow();
+        }));
+        if (updated != null) {
+            shardRouter.run(shardRouter.shardOfId(id), () -> transferFlowService.refreshTransfer(id));
+        }
+        return updated;
+    }
+
+    // Each transfer must move its asset, as locked, away from the base it is at
+    private static void checkMoves(List<Transfer> transfers, List<Asset> locked) {
+        Map<Long, Long> baseOfAsset = new HashMap<>();
+        locked.forEach(asset -> baseOfAsset.put(asset.getId(), asset.getBase().getId()));
+        for (Transfer transfer : transfers) {
+            Long fromBaseId = transfer.getFromBase().getId();
+            if (!fromBaseId.equals(baseOfAsset.get(transfer.getAsset().getId())) || fromBaseId.equals(transfer.getToBase().getId())) {
+                throw new IllegalArgumentException("asset " + transfer.getAsset().getId() + " is not at base " + fromBaseId
+                    + " or would not move");
+            }
+        }
+    }
+
+    private void logCreated(Transfer transfer, Transfer savedTransfer) {
         try {
             User user = userService.findByUsername(transfer.getCreatedBy().getUsername()).orElse(null);
             if (user != null) {
@@ -43,12 +188,29 @@ public class TransferService {
         } catch (Exception e) {
             System.err.println("Failed to log transfer transaction: " + e.getMessage());
         }
-        
-        return savedTransfer;
     }
-    public void deleteById(Long id) { transferRepository.deleteById(id); }
+    // Through the scoped lookup: JpaRepository.deleteById loads by key, which the base scope filter skips
+    public void deleteById(Long id) {
+        boolean deleted = shardRouter.on(shardRouter.shardOfId(id), () -> {
+            Optional<Transfer> hot = transferRepository.findById(id);
+            hot.ifPresent(transferRepository::delete);
+            int archived = transferHistoryRepository.deleteByIdWithin(id, BaseScope.current());
+            if (hot.isEmpty() && archived == 0) {
+                return false;
+            }
+            inventoryLedgerService.recordRemoval("Transfer", id);
+            return true;
+        });
+        if (deleted) {
+            transferFlowService.removeTransfer(id);
+        }
+    }
     
     public long countByFilters(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        return shardRouter.sum(baseId, () -> countOnShard(baseId, assetTypeId, dateFrom, dateTo));
+    }
+
+    private long countOnShard(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         if (dateFrom != null && !dateFrom.trim().isEmpty()) {
@@ -57,6 +219,10 @@ public class TransferService {
         if (dateTo != null && !dateTo.trim().isEmpty()) {
             toDate = LocalDate.parse(dateTo);
         }
+        return countHot(baseId, assetTypeId, fromDate, toDate) + countHistory(baseId, assetTypeId, fromDate, toDate);
+    }
+
+    private long countHot(Long baseId, Long assetTypeId, LocalDate fromDate, LocalDate toDate) {
         if (baseId != null && assetTypeId != null && fromDate != null && toDate != null) {
             return transferRepository.findByFromBaseIdAndAssetAssetTypeIdAndDateBetweenWithRelatedEntities(baseId, assetTypeId, fromDate, toDate).size();
         } else if (baseId != null && fromDate != null && toDate != null) {
@@ -77,6 +243,10 @@ public class TransferService {
     }
     
     public List<Transfer> findByFilters(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        return shardRouter.gather(baseId, () -> findOnShard(baseId, assetTypeId, dateFrom, dateTo), BY_ID);
+    }
+
+    private List<Transfer> findOnShard(Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
         LocalDate fromDate = null;
         LocalDate toDate = null;
         if (dateFrom != null && !dateFrom.trim().isEmpty()) {
@@ -85,6 +255,43 @@ public class TransferService {
         if (dateTo != null && !dateTo.trim().isEmpty()) {
             toDate = LocalDate.parse(dateTo);
         }
+        return withHistory(findHot(baseId, assetTypeId, fromDate, toDate), baseId, assetTypeId, fromDate, toDate);
+    }
+
+    // Same filters and history rule as findByFilters, selecting only the requested fields
+    public List<Map<String, Object>> findFieldsByFilters(String fields, Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        return shardRouter.gather(baseId, () -> findFieldsOnShard(fields, baseId, assetTypeId, dateFrom, dateTo),
+            Comparator.comparing(row -> (Long) row.get("id")));
+    }
+
+    private List<Map<String, Object>> findFieldsOnShard(String fields, Long baseId, Long assetTypeId, String dateFrom, String dateTo) {
+        LocalDate fromDate = dateFrom != null && !dateFrom.trim().isEmpty() ? LocalDate.parse(dateFrom) : null;
+        LocalDate toDate = dateTo != null && !dateTo.trim().isEmpty() ? LocalDate.parse(dateTo) : null;
+        Map<String, Object> equal = new HashMap<>();
+        equal.put("fromBase.id", baseId);
+        equal.put("asset.assetType.id", assetTypeId);
+        List<Map<String, Object>> hot = sparseFieldService.find(Transfer.class, fields, equal, "date", fromDate, toDate);
+        boolean ranged = fromDate != null && toDate != null;
+        if (!historyArchiveService.transferHistoryReaches(ranged ? fromDate : null)) {
+            return hot;
+        }
+        List<Map<String, Object>> all = new ArrayList<>(hot);
+        Set<Object> ids = new HashSet<>();
+        hot.forEach(row -> ids.add(row.get("id")));
+        for (Map<String, Object> archived : sparseFieldService.find(TransferHistory.class, fields, equal, "date", fromDate, toDate)) {
+            if (ids.add(archived.get("id"))) {
+                all.add(archived);
+            }
+        }
+        return all;
+    }
+
+    public Optional<Map<String, Object>> findFieldsById(Long id, String fields) {
+        return shardRouter.onId(id, () -> sparseFieldService.findById(Transfer.class, fields, id));
+    }
+
+    // Operational reads: the transfer table only
+    private List<Transfer> findHot(Long baseId, Long assetTypeId, LocalDate fromDate, LocalDate toDate) {
         if (baseId != null && assetTypeId != null && fromDate != null && toDate != null) {
             return transferRepository.findByFromBaseIdAndAssetAssetTypeIdAndDateBetweenWithRelatedEntities(baseId, assetTypeId, fromDate, toDate);
         } else if (baseId != null && fromDate != null && toDate != null) {
@@ -104,61 +311,146 @@ public class TransferService {
         }
     }
     
-    public Transfer approveTransfer(Long id, User approvedBy) {
-        Optional<Transfer> transferOpt = findById(id);
-        if (transferOpt.isPresent()) {
-            Transfer transfer = transferOpt.get();
-            transfer.setStatus(Transfer.TransferStatus.APPROVED);
-            transfer.setApprovedBy(approvedBy);
-            
-            Transfer savedTransfer = transferRepository.save(transfer);
-            
-            // Log the approval
-            try {
-                auditLogService.logTransaction(
-                    "APPROVE_TRANSFER",
-                    "Transfer",
-                    "Approved transfer of " + savedTransfer.getAsset().getAssetType().getName() + 
-                    " (" + savedTransfer.getAsset().getSerialNumber() + ") from " + 
-                    savedTransfer.getFromBase().getName() + " to " + savedTransfer.getToBase().getName(),
-                    approvedBy,
-                    savedTransfer.getId()
-                );
-            } catch (Exception e) {
-                System.err.println("Failed to log transfer approval: " + e.getMessage());
+    // Completed and rejected transfers moved to transfer_history, when the range reaches back that far.
+    // Date bounds only apply as a pair, as in the hot queries; the hot copy wins if a row was read from both.
+    private List<Transfer> withHistory(List<Transfer> hot, Long baseId, Long assetTypeId, LocalDate fromDate, LocalDate toDate) {
+        boolean ranged = fromDate != null && toDate != null;
+        if (!historyArchiveService.transferHistoryReaches(ranged ? fromDate : null)) {
+            return hot;
+        }
+        List<TransferHistory> history = transferHistoryRepository.findByFilters(baseId, assetTypeId,
+            ranged ? fromDate : null, ranged ? toDate : null);
+        if (history.isEmpty()) {
+            return hot;
+        }
+        List<Transfer> all = new ArrayList<>(hot);
+        Set<Long> ids = new HashSet<>();
+        hot.forEach(t -> ids.add(t.getId()));
+        for (TransferHistory archived : history) {
+            if (ids.add(archived.getId())) {
+                all.add(archived.toTransfer());
             }
-            
-            return savedTransfer;
         }
-        return null;
+        return all;
+    }
+
+    private long countHistory(Long baseId, Long assetTypeId, LocalDate fromDate, LocalDate toDate) {
+        boolean ranged = fromDate != null && toDate != null;
+        if (!historyArchiveService.transferHistoryReaches(ranged ? fromDate : null)) {
+            return 0;
+        }
+        return transferHistoryRepository.countByFilters(baseId, assetTypeId, ranged ? fromDate : null, ranged ? toDate : null);
+    }
+    
+    public Transfer approveTransfer(Long id, User approvedBy) {
+        Transfer approvedTransfer = transition(id, Transfer.TransferStatus.APPROVED, approvedBy);
+        if (approvedTransfer != null) {
+            shardRouter.run(shardRouter.shardOfId(id), () -> transferFlowService.refreshTransfer(id));
+            logTransition("APPROVE_TRANSFER", "Approved", approvedTransfer, approvedBy);
+        }
+        return approvedTransfer;
     }
     
     public Transfer rejectTransfer(Long id, User rejectedBy) {
-        Optional<Transfer> transferOpt = findById(id);
-        if (transferOpt.isPresent()) {
-            Transfer transfer = transferOpt.get();
-            transfer.setStatus(Transfer.TransferStatus.REJECTED);
-            transfer.setApprovedBy(rejectedBy);
-            
-            Transfer savedTransfer = transferRepository.save(transfer);
-            
-            // Log the rejection
+        Transfer rejectedTransfer = transition(id, Transfer.TransferStatus.REJECTED, rejectedBy);
+        if (rejectedTransfer != null) {
+            shardRouter.run(shardRouter.shardOfId(id), () -> transferFlowService.refreshTransfer(id));
+            logTransition("REJECT_TRANSFER", "Rejected", rejectedTransfer, rejectedBy);
+        }
+        return rejectedTransfer;
+    }
+    
+    public Transfer completeTransfer(Long id, User completedBy) {
+        Transfer completedTransfer = transition(id, Transfer.TransferStatus.COMPLETED, completedBy);
+        if (completedTransfer != null) {
+            int shard = shardRouter.shardOfId(id);
+            shardRouter.run(shard, () -> {
+                inventoryLedgerService.recordTransfer(completedTransfer);
+                transferFlowService.refreshTransfer(id);
+            });
+            // The asset now belongs with its new base; the copy left here keeps this shard's foreign keys intact
+            Long assetId = completedTransfer.getAsset().getId();
+            int destination = shardRouter.shardOfBase(completedTransfer.getToBase().getId());
+            if (destination != shard) {
+                shardRouter.copy("asset", assetId, shard, destination);
+            }
+            shardRouter.run(destination, () -> assetFacetService.refreshAsset(assetId));
+            searchService.moveAsset(assetId, completedTransfer.getToBase().getId());
+            logTransition("COMPLETE_TRANSFER", "Completed", completedTransfer, completedBy);
+        }
+        return completedTransfer;
+    }
+    
+    // Each attempt runs in its own transaction, a new one even inside a caller's: joining that would leave the
+    // caller's transaction rollback-only after a lost compare-and-set and the retry re-reading its stale row.
+    // Losing the compare-and-set re-reads the row and re-validates the transition, so a concurrent approver's
+    // change is never overwritten.
+    private Transfer transition(Long id, Transfer.TransferStatus next, User actor) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int attempt = 1; ; attempt++) {
             try {
-                auditLogService.logTransaction(
-                    "REJECT_TRANSFER",
-                    "Transfer",
-                    "Rejected transfer of " + savedTransfer.getAsset().getAssetType().getName() + 
-                    " (" + savedTransfer.getAsset().getSerialNumber() + ") from " + 
-                    savedTransfer.getFromBase().getName() + " to " + savedTransfer.getToBase().getName(),
-                    rejectedBy,
-                    savedTransfer.getId()
-                );
-            } catch (Exception e) {
-                System.err.println("Failed to log transfer rejection: " + e.getMessage());
+                return shardRouter.onId(id, () -> transactionTemplate.execute(status -> applyTransition(id, next, actor)));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_TRANSITION_ATTEMPTS) {
+                    throw e;
+                }
+                backoff(attempt);
             }
-            
-            return savedTransfer;
         }
-        return null;
+    }
+    
+    private Transfer applyTransition(Long id, Transfer.TransferStatus next, User actor) {
+        Transfer transfer = transferRepository.findByIdWithRelatedEntities(id).orElse(null);
+        if (transfer == null) {
+            return null;
+        }
+        Transfer.TransferStatus current = transfer.getStatus();
+        if (!current.canTransitionTo(next)) {
+            throw new IllegalStateException("Transfer " + id + " cannot move from " + current + " to " + next);
+        }
+        
+        // Completion keeps the approver on record
+        User recordedBy = next == Transfer.TransferStatus.COMPLETED ? transfer.getApprovedBy() : actor;
+        int updated = transferRepository.updateStatus(id, current, next, recordedBy, transfer.getVersion(), changeSequenceService.next());
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Transfer " + id + " was modified concurrently");
+        }
+        
+        if (next == Transfer.TransferStatus.COMPLETED) {
+            // Same transaction as the status change: either both happen or neither does
+            int moved = assetRepository.moveToBase(transfer.getAsset().getId(), transfer.getFromBase(), transfer.getToBase(),
+                changeSequenceService.next());
+            if (moved == 0) {
+                throw new IllegalStateException("Asset " + transfer.getAsset().getSerialNumber() + 
+                    " is no longer at " + transfer.getFromBase().getName());
+            }
+        }
+        return transferRepository.findByIdWithRelatedEntities(id).orElseThrow();
+    }
+    
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 1L << Math.min(attempt + 1, 6)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying transfer update", e);
+        }
+    }
+    
+    private void logTransition(String action, String verb, Transfer transfer, User user) {
+        try {
+            auditLogService.logTransaction(
+                action,
+                "Transfer",
+                verb + " transfer of " + transfer.getAsset().getAssetType().getName() + 
+                " (" + transfer.getAsset().getSerialNumber() + ") from " + 
+                transfer.getFromBase().getName() + " to " + transfer.getToBase().getName(),
+                user,
+                transfer.getId()
+            );
+        } catch (Exception e) {
+            System.err.println("Failed to log transfer " + verb.toLowerCase() + ": " + e.getMessage());
+        }
     }
 } 
\ No newline at end of file
@@ -9,11 +9,28 @@ import java.util.Optional;
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    public UserService(UserRepository userRepository) { this.userRepository = userRepository; }
+    private final SearchService searchService;
+    private final ShardRouter shardRouter;
+
+    public UserService(UserRepository userRepository, SearchService searchService, ShardRouter shardRouter) {
+        this.userRepository = userRepository;
+        this.searchService = searchService;
+        this.shardRouter = shardRouter;
+    }
 
     public List<User> findAll() { return userRepository.findAll(); }
     public Optional<User> findById(Long id) { return userRepository.findById(id); }
     public Optional<User> findByUsername(String username) { return userRepository.findByUsername(username); }
-    public User save(User user) { return userRepository.save(user); }
-    public void deleteById(Long id) { userRepository.deleteById(id); }
+    // Written on the home shard and copied to the others, which reference users from their own rows
+    public User save(User user) {
+        User saved = shardRouter.onHome(() -> userRepository.save(user));
+        shardRouter.replicate("user", saved.getId());
+        searchService.indexUser(saved);
+        return saved;
+    }
+    public void deleteById(Long id) {
+        shardRouter.removeReplicas("user", id);
+        shardRouter.run(ShardRouter.HOME, () -> userRepository.deleteById(id));
+        searchService.remove(SearchService.Kind.USER, id);
+    }
 }
\ No newline at end of file
@@ -1,10 +1,10 @@
 -- Insert sample bases
-INSERT INTO base (id, name, location) VALUES 
-(1, 'Fort Hood', 'Killeen, Texas'),
-(2, 'Fort Bragg', 'Fayetteville, North Carolina'),
-(3, 'Fort Campbell', 'Clarksville, Tennessee'),
-(4, 'Fort Benning', 'Columbus, Georgia'),
-(5, 'Fort Stewart', 'Hinesville, Georgia');
+INSERT INTO base (id, name, location, latitude, longitude) VALUES 
+(1, 'Fort Hood', 'Killeen, Texas', 31.1349, -97.7756),
+(2, 'Fort Bragg', 'Fayetteville, North Carolina', 35.1390, -79.0064),
+(3, 'Fort Campbell', 'Clarksville, Tennessee', 36.6634, -87.4774),
+(4, 'Fort Benning', 'Columbus, Georgia', 32.3594, -84.9486),
+(5, 'Fort Stewart', 'Hinesville, Georgia', 31.8691, -81.6090);
 
 -- Insert sample asset types
 INSERT INTO asset_type (id, name, category) VALUES 
@@ -48,10 +48,10 @@ INSERT INTO purchase (id, date, quantity, unit_price, total_amount, supplier, de
 (5, '2024-05-12', 15, 2500.00, 37500.00, 'Dell Technologies', 'Desktop computers for command center', 6, 1, 1);
 
 -- Insert sample transfers
-INSERT INTO transfer (id, date, reason, status, asset_id, from_base_id, to_base_id, created_by) VALUES 
-(1, '2024-06-01', 'Reallocation for training exercise', 'COMPLETED', 1, 1, 2, 1),
-(2, '2024-06-15', 'Equipment maintenance transfer', 'APPROVED', 3, 1, 3, 1),
-(3, '2024-07-01', 'New unit assignment', 'PENDING', 5, 1, 4, 1);
+INSERT INTO transfer (id, date, reason, status, asset_id, from_base_id, to_base_id, created_by, version) VALUES 
+(1, '2024-06-01', 'Reallocation for training exercise', 'COMPLETED', 1, 1, 2, 1, 0),
+(2, '2024-06-15', 'Equipment maintenance transfer', 'APPROVED', 3, 1, 3, 1, 0),
+(3, '2024-07-01', 'New unit assignment', 'PENDING', 5, 1, 4, 1, 0);
 
 -- Insert sample assignments
 INSERT INTO assignment (id, assigned_date, return_date, status, notes, asset_id, assigned_to, assigned_by) VALUES 
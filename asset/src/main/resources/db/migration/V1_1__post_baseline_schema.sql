@@ -0,0 +1,84 @@
+-- Tables and columns added after the baseline, while ddl-auto=update still managed the schema: the
+-- transfer version for optimistic locking, idempotency records, the inventory ledger and the history
+-- tables. Databases baselined at V1 get them here.
+
+ALTER TABLE transfer ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE transfer_history (
+    id BIGINT NOT NULL,
+    asset_id BIGINT NOT NULL,
+    from_base_id BIGINT NOT NULL,
+    to_base_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    reason VARCHAR(255) NOT NULL,
+    status ENUM ('APPROVED','COMPLETED','PENDING','REJECTED') NOT NULL,
+    approved_by BIGINT,
+    created_by BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_transfer_history_asset FOREIGN KEY (asset_id) REFERENCES asset (id),
+    CONSTRAINT fk_transfer_history_from_base FOREIGN KEY (from_base_id) REFERENCES base (id),
+    CONSTRAINT fk_transfer_history_to_base FOREIGN KEY (to_base_id) REFERENCES base (id),
+    CONSTRAINT fk_transfer_history_approved_by FOREIGN KEY (approved_by) REFERENCES user (id),
+    CONSTRAINT fk_transfer_history_created_by FOREIGN KEY (created_by) REFERENCES user (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_transfer_history_date ON transfer_history (date);
+
+CREATE TABLE assignment_history (
+    id BIGINT NOT NULL,
+    asset_id BIGINT NOT NULL,
+    assigned_to BIGINT NOT NULL,
+    assigned_by BIGINT NOT NULL,
+    assigned_date DATE NOT NULL,
+    return_date DATE,
+    status ENUM ('ACTIVE','EXPIRED','RETURNED') NOT NULL,
+    notes TEXT,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_assignment_history_asset FOREIGN KEY (asset_id) REFERENCES asset (id),
+    CONSTRAINT fk_assignment_history_assigned_to FOREIGN KEY (assigned_to) REFERENCES user (id),
+    CONSTRAINT fk_assignment_history_assigned_by FOREIGN KEY (assigned_by) REFERENCES user (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_assignment_history_assigned_date ON assignment_history (assigned_date);
+
+CREATE TABLE idempotency_record (
+    idempotency_key VARCHAR(255) NOT NULL,
+    method VARCHAR(10) NOT NULL,
+    path VARCHAR(255) NOT NULL,
+    status INTEGER NOT NULL,
+    content_type VARCHAR(255),
+    body MEDIUMTEXT,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (idempotency_key)
+) ENGINE=InnoDB;
+
+CREATE TABLE inventory_movement (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    base_id BIGINT NOT NULL,
+    asset_type_id BIGINT NOT NULL,
+    movement_date DATE NOT NULL,
+    movement_type ENUM ('ASSIGNED','EXPENDED','PURCHASE','RETURNED','TRANSFER_IN','TRANSFER_OUT') NOT NULL,
+    quantity INTEGER NOT NULL,
+    source_type VARCHAR(20) NOT NULL,
+    source_id BIGINT NOT NULL,
+    recorded_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_inventory_movement_base_date ON inventory_movement (base_id, movement_date);
+CREATE INDEX idx_inventory_movement_type_date ON inventory_movement (asset_type_id, movement_date);
+CREATE INDEX idx_inventory_movement_source ON inventory_movement (source_type, source_id);
+
+CREATE TABLE inventory_snapshot (
+    base_id BIGINT NOT NULL,
+    asset_type_id BIGINT NOT NULL,
+    snapshot_date DATE NOT NULL,
+    quantity BIGINT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    PRIMARY KEY (snapshot_date, asset_type_id, base_id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_inventory_snapshot_date ON inventory_snapshot (snapshot_date);
@@ -0,0 +1,118 @@
+-- Baseline: the schema Hibernate generated from the entities before migrations took over, and nothing
+-- newer. Databases created by ddl-auto=update are baselined at this version and skip it, so anything
+-- added since belongs in a later migration.
+
+CREATE TABLE base (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    location VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_base_name UNIQUE (name)
+) ENGINE=InnoDB;
+
+CREATE TABLE asset_type (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_asset_type_name UNIQUE (name)
+) ENGINE=InnoDB;
+
+CREATE TABLE user (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM ('ADMIN','BASE_COMMANDER','LOGISTICS_OFFICER') NOT NULL,
+    base_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username),
+    CONSTRAINT fk_user_base FOREIGN KEY (base_id) REFERENCES base (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE asset (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    serial_number VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    asset_type_id BIGINT NOT NULL,
+    base_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_asset_serial_number UNIQUE (serial_number),
+    CONSTRAINT fk_asset_asset_type FOREIGN KEY (asset_type_id) REFERENCES asset_type (id),
+    CONSTRAINT fk_asset_base FOREIGN KEY (base_id) REFERENCES base (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE purchase (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    asset_type_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    total_amount DECIMAL(10,2) NOT NULL,
+    supplier VARCHAR(255) NOT NULL,
+    description TEXT,
+    base_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    created_by BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_purchase_asset_type FOREIGN KEY (asset_type_id) REFERENCES asset_type (id),
+    CONSTRAINT fk_purchase_base FOREIGN KEY (base_id) REFERENCES base (id),
+    CONSTRAINT fk_purchase_created_by FOREIGN KEY (created_by) REFERENCES user (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE transfer (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    asset_id BIGINT NOT NULL,
+    from_base_id BIGINT NOT NULL,
+    to_base_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    reason VARCHAR(255) NOT NULL,
+    status ENUM ('APPROVED','COMPLETED','PENDING','REJECTED') NOT NULL,
+    approved_by BIGINT,
+    created_by BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_transfer_asset FOREIGN KEY (asset_id) REFERENCES asset (id),
+    CONSTRAINT fk_transfer_from_base FOREIGN KEY (from_base_id) REFERENCES base (id),
+    CONSTRAINT fk_transfer_to_base FOREIGN KEY (to_base_id) REFERENCES base (id),
+    CONSTRAINT fk_transfer_approved_by FOREIGN KEY (approved_by) REFERENCES user (id),
+    CONSTRAINT fk_transfer_created_by FOREIGN KEY (created_by) REFERENCES user (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE assignment (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    asset_id BIGINT NOT NULL,
+    assigned_to BIGINT NOT NULL,
+    assigned_by BIGINT NOT NULL,
+    assigned_date DATE NOT NULL,
+    return_date DATE,
+    status ENUM ('ACTIVE','EXPIRED','RETURNED') NOT NULL,
+    notes TEXT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_assignment_asset FOREIGN KEY (asset_id) REFERENCES asset (id),
+    CONSTRAINT fk_assignment_assigned_to FOREIGN KEY (assigned_to) REFERENCES user (id),
+    CONSTRAINT fk_assignment_assigned_by FOREIGN KEY (assigned_by) REFERENCES user (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE expenditure (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    asset_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    reason VARCHAR(255) NOT NULL,
+    base_id BIGINT NOT NULL,
+    expenditure_date DATE NOT NULL,
+    approved_by BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_expenditure_asset FOREIGN KEY (asset_id) REFERENCES asset (id),
+    CONSTRAINT fk_expenditure_base FOREIGN KEY (base_id) REFERENCES base (id),
+    CONSTRAINT fk_expenditure_approved_by FOREIGN KEY (approved_by) REFERENCES user (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE audit_log (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    action VARCHAR(255) NOT NULL,
+    entity VARCHAR(255) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    timestamp DATETIME(6) NOT NULL,
+    details VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_audit_log_user FOREIGN KEY (user_id) REFERENCES user (id)
+) ENGINE=InnoDB;
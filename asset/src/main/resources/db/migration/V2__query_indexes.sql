@@ -0,0 +1,36 @@
+-- Composite indexes for the filter shapes the repositories issue: an equality filter (base, asset
+-- or asset type) followed by the date range, so one range scan covers both predicates. These also
+-- serve as the foreign key indexes on their leading column.
+
+-- PurchaseRepository: base / asset type, each optionally with a date range, and date alone
+CREATE INDEX idx_purchase_base_date ON purchase (base_id, date);
+CREATE INDEX idx_purchase_type_date ON purchase (asset_type_id, date);
+CREATE INDEX idx_purchase_date ON purchase (date);
+
+-- TransferRepository: from base / asset with a date range, date alone, and the archiver's status + cutoff scan
+CREATE INDEX idx_transfer_from_base_date ON transfer (from_base_id, date);
+CREATE INDEX idx_transfer_asset_date ON transfer (asset_id, date);
+CREATE INDEX idx_transfer_date ON transfer (date);
+CREATE INDEX idx_transfer_status_date ON transfer (status, date);
+
+-- AssignmentRepository: asset with a date range, date alone, the archiver's status + cutoff scan
+-- and the expiry sweeper's status + return date scan
+CREATE INDEX idx_assignment_asset_date ON assignment (asset_id, assigned_date);
+CREATE INDEX idx_assignment_date ON assignment (assigned_date);
+CREATE INDEX idx_assignment_status_date ON assignment (status, assigned_date);
+CREATE INDEX idx_assignment_status_return ON assignment (status, return_date);
+
+-- ExpenditureRepository: base / asset with a date range, and date alone
+CREATE INDEX idx_expenditure_base_date ON expenditure (base_id, expenditure_date);
+CREATE INDEX idx_expenditure_asset_date ON expenditure (asset_id, expenditure_date);
+CREATE INDEX idx_expenditure_date ON expenditure (expenditure_date);
+
+-- AuditLogRepository: user (base scope joins through it) / entity with a time range, time alone,
+-- and the asset-type lookups by entity id
+CREATE INDEX idx_audit_log_user_timestamp ON audit_log (user_id, timestamp);
+CREATE INDEX idx_audit_log_entity_timestamp ON audit_log (entity, timestamp);
+CREATE INDEX idx_audit_log_entity_id ON audit_log (entity, entity_id);
+CREATE INDEX idx_audit_log_timestamp ON audit_log (timestamp);
+
+-- Assets by type, which the audit-log asset-type subqueries and the base/type counts filter on
+CREATE INDEX idx_asset_type_base ON asset (asset_type_id, base_id);
@@ -0,0 +1,32 @@
+-- Delta sync: every synced row carries the change sequence of its last insert or update, and deletes
+-- leave a tombstone. Rows written before this migration (or by plain SQL, e.g. data.sql) start at 0 and
+-- are numbered at startup. History tables keep the sequence the row had when it was archived.
+
+ALTER TABLE base ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE asset_type ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE asset ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE purchase ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE transfer ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE transfer_history ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE assignment ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE assignment_history ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE expenditure ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+
+-- /api/sync reads each table as a range scan on the sequence
+CREATE INDEX idx_base_change_seq ON base (change_seq);
+CREATE INDEX idx_asset_type_change_seq ON asset_type (change_seq);
+CREATE INDEX idx_asset_change_seq ON asset (change_seq);
+CREATE INDEX idx_purchase_change_seq ON purchase (change_seq);
+CREATE INDEX idx_transfer_change_seq ON transfer (change_seq);
+CREATE INDEX idx_transfer_history_change_seq ON transfer_history (change_seq);
+CREATE INDEX idx_assignment_change_seq ON assignment (change_seq);
+CREATE INDEX idx_assignment_history_change_seq ON assignment_history (change_seq);
+CREATE INDEX idx_expenditure_change_seq ON expenditure (change_seq);
+
+CREATE TABLE sync_tombstone (
+    change_seq BIGINT NOT NULL,
+    entity VARCHAR(40) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    deleted_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (change_seq)
+) ENGINE=InnoDB;
@@ -0,0 +1,3 @@
+-- Base coordinates in decimal degrees (WGS 84) for the nearby-base search; null until set
+ALTER TABLE base ADD COLUMN latitude DOUBLE NULL;
+ALTER TABLE base ADD COLUMN longitude DOUBLE NULL;
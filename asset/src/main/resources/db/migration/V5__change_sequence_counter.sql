@@ -0,0 +1,22 @@
+-- The change sequence counter shared by every application instance, which take blocks of numbers
+-- from it. Starts after the highest sequence already stored.
+
+CREATE TABLE change_sequence (
+    id INT NOT NULL,
+    next_value BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+INSERT INTO change_sequence (id, next_value)
+SELECT 1, COALESCE(MAX(change_seq), 0) + 1 FROM (
+    SELECT MAX(change_seq) AS change_seq FROM base
+    UNION ALL SELECT MAX(change_seq) FROM asset_type
+    UNION ALL SELECT MAX(change_seq) FROM asset
+    UNION ALL SELECT MAX(change_seq) FROM purchase
+    UNION ALL SELECT MAX(change_seq) FROM transfer
+    UNION ALL SELECT MAX(change_seq) FROM transfer_history
+    UNION ALL SELECT MAX(change_seq) FROM assignment
+    UNION ALL SELECT MAX(change_seq) FROM assignment_history
+    UNION ALL SELECT MAX(change_seq) FROM expenditure
+    UNION ALL SELECT MAX(change_seq) FROM sync_tombstone
+) stored;
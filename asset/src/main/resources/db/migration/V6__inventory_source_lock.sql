@@ -0,0 +1,9 @@
+-- One row per record feeding the inventory ledger (purchase, transfer, assignment, expenditure). Recording
+-- takes its row lock first, so concurrent saves of the same record on any instance append its difference once.
+
+CREATE TABLE inventory_source (
+    source_type VARCHAR(20) NOT NULL,
+    source_id BIGINT NOT NULL,
+    recorded_count BIGINT NOT NULL,
+    PRIMARY KEY (source_type, source_id)
+) ENGINE=InnoDB;
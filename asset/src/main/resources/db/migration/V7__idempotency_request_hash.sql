@@ -0,0 +1,4 @@
+-- SHA-256 of the request body an idempotency key was first used with, so a reuse with another body is refused.
+-- Null for records stored before this column existed.
+
+ALTER TABLE idempotency_record ADD COLUMN request_hash VARCHAR(64);
@@ -0,0 +1,8 @@
+-- Change sequences taken by transactions that have not finished, on any instance. The sync watermark stays
+-- below the oldest of them, so a row numbered earlier but committed later is never skipped.
+
+CREATE TABLE change_sequence_lease (
+    first_value BIGINT NOT NULL,
+    taken_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (first_value)
+) ENGINE=InnoDB;
@@ -0,0 +1,15 @@
+-- The latest date that may be in each history table. The archiver raises it before moving rows and every
+-- instance reads it, so list queries read history whenever their range reaches it. Starts from what the
+-- history tables already hold; other shards' history tables are folded in at startup.
+
+CREATE TABLE history_watermark (
+    table_name VARCHAR(40) NOT NULL,
+    archived_through DATE NOT NULL,
+    PRIMARY KEY (table_name)
+) ENGINE=InnoDB;
+
+INSERT INTO history_watermark (table_name, archived_through)
+SELECT 'assignment_history', MAX(assigned_date) FROM assignment_history HAVING MAX(assigned_date) IS NOT NULL;
+
+INSERT INTO history_watermark (table_name, archived_through)
+SELECT 'transfer_history', MAX(date) FROM transfer_history HAVING MAX(date) IS NOT NULL;
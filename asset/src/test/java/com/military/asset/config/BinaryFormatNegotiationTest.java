@@ -0,0 +1,82 @@
+package com.military.asset.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class BinaryFormatNegotiationTest {
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void listAndDashboardEndpointsNegotiateBinaryFormats() throws Exception {
+        ObjectMapper smile = objectMapper.copyWith(new SmileFactory());
+        ObjectMapper cbor = objectMapper.copyWith(new CBORFactory());
+        for (String path : new String[] { "/api/transfers", "/api/assignments", "/api/assets", "/api/dashboard/metrics" }) {
+            MvcResult json = fetch(path, MediaType.APPLICATION_JSON);
+            JsonNode expected = objectMapper.readTree(json.getResponse().getContentAsByteArray());
+            assertTrue(expected.size() > 0, path);
+
+            MvcResult smileResult = fetch(path, JacksonConfig.SMILE);
+            assertEquals(JacksonConfig.SMILE.toString(), smileResult.getResponse().getContentType(), path);
+            assertEquals(expected, smile.readTree(smileResult.getResponse().getContentAsByteArray()), path);
+
+            MvcResult cborResult = fetch(path, JacksonConfig.CBOR);
+            assertEquals(JacksonConfig.CBOR.toString(), cborResult.getResponse().getContentType(), path);
+            assertEquals(expected, cbor.readTree(cborResult.getResponse().getContentAsByteArray()), path);
+        }
+
+        // No Accept header still means JSON, with the shared mapper's ISO dates
+        MvcResult defaults = mockMvc.perform(get("/api/transfers")).andReturn();
+        assertTrue(defaults.getResponse().getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+        assertTrue(defaults.getResponse().getContentAsString().matches("(?s).*\"date\":\"\\d{4}-\\d{2}-\\d{2}\".*"));
+    }
+
+    @Test
+    void idempotentReplayKeepsBinaryBodiesIntact() throws Exception {
+        String body = "{\"name\":\"CBOR base " + System.nanoTime() + "\",\"location\":\"Test\"}";
+        String key = "cbor-" + System.nanoTime();
+        MvcResult created = mockMvc.perform(post("/api/bases").header("Idempotency-Key", key)
+            .contentType(MediaType.APPLICATION_JSON).accept(JacksonConfig.CBOR).content(body)).andReturn();
+        MvcResult replayed = mockMvc.perform(post("/api/bases").header("Idempotency-Key", key)
+            .contentType(MediaType.APPLICATION_JSON).accept(JacksonConfig.CBOR).content(body)).andReturn();
+
+        assertEquals(200, created.getResponse().getStatus());
+        assertEquals("true", replayed.getResponse().getHeader("Idempotent-Replayed"));
+        assertEquals(JacksonConfig.CBOR.toString(), replayed.getResponse().getContentType());
+        assertArrayEquals(created.getResponse().getContentAsByteArray(), replayed.getResponse().getContentAsByteArray());
+
+        // A JSON retry of the same write is replayed the stored body, re-encoded as JSON
+        MvcResult json = mockMvc.perform(post("/api/bases").header("Idempotency-Key", key)
+            .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(body)).andReturn();
+        assertEquals(200, json.getResponse().getStatus());
+        assertEquals("true", json.getResponse().getHeader("Idempotent-Replayed"));
+        assertTrue(json.getResponse().getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+        assertEquals(objectMapper.copyWith(new CBORFactory()).readTree(created.getResponse().getContentAsByteArray()),
+            objectMapper.readTree(json.getResponse().getContentAsByteArray()));
+    }
+
+    private MvcResult fetch(String path, MediaType accept) throws Exception {
+        MvcResult result = mockMvc.perform(get(path).accept(accept)).andReturn();
+        assertEquals(200, result.getResponse().getStatus(), path + " " + accept);
+        return result;
+    }
+}
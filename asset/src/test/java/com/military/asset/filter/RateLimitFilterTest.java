@@ -0,0 +1,65 @@
+package com.military.asset.filter;
+
+import com.military.asset.config.SecurityConfig;
+import com.military.asset.service.RateLimitService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+    @Autowired private MockMvc mockMvc;
+
+    @TestConfiguration
+    static class FixedClock {
+        @Bean
+        @Primary
+        RateLimitService fixedClockRateLimitService() {
+            return SecurityConfig.withLimits(new RateLimitService(true, () -> 0L));
+        }
+    }
+
+    @Test
+    void loginAttemptsPerAddressAreThrottledWithRetryAfter() throws Exception {
+        // Anonymous AUTH: a burst of 10, then 30 a minute
+        String body = "{\"username\":\"nobody\",\"password\":\"wrong\"}";
+        for (int i = 0; i < 10; i++) {
+            MvcResult attempt = mockMvc.perform(post("/api/auth/login").with(request -> { request.setRemoteAddr("10.9.8.7"); return request; })
+                .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+            assertNotEquals(RateLimitFilter.TOO_MANY_REQUESTS, attempt.getResponse().getStatus());
+        }
+        // The clock stands still, so nothing refills: the 11th attempt waits a whole token (one every 2 seconds)
+        MvcResult throttled = mockMvc.perform(post("/api/auth/login").with(request -> { request.setRemoteAddr("10.9.8.7"); return request; })
+            .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+        assertEquals(RateLimitFilter.TOO_MANY_REQUESTS, throttled.getResponse().getStatus());
+        assertEquals("2", throttled.getResponse().getHeader("Retry-After"));
+
+        // Another address still gets through
+        MvcResult other = mockMvc.perform(post("/api/auth/login").with(request -> { request.setRemoteAddr("10.9.8.6"); return request; })
+            .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+        assertNotEquals(RateLimitFilter.TOO_MANY_REQUESTS, other.getResponse().getStatus());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void throttledRequestsAreCounted() throws Exception {
+        String statistics = mockMvc.perform(get("/api/rate-limits/statistics")).andReturn().getResponse().getContentAsString();
+        assertTrue(statistics.contains("\"role\":\"ADMIN\""), statistics);
+        assertTrue(statistics.contains("\"throttled\""), statistics);
+    }
+}
@@ -0,0 +1,122 @@
+package com.military.asset.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.military.asset.config.JacksonConfig;
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Base;
+import com.military.asset.model.Transfer;
+import com.military.asset.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload size and encode/decode time of a transfer list (the shape /api/transfers returns) in JSON,
+ * Smile and CBOR, all from the JacksonConfig mapper. Sizes are shown raw and gzipped, since thin links
+ * usually sit behind compression as well:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=BinaryFormatBenchmarkTest -Dbenchmark=true [-Dbenchmark.rows=5000 -Dbenchmark.iterations=50]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BinaryFormatBenchmarkTest {
+    private final int rows = Integer.getInteger("benchmark.rows", 5000);
+    private final int iterations = Integer.getInteger("benchmark.iterations", 50);
+
+    @Test
+    void compareFormats() throws Exception {
+        ObjectMapper json = new JacksonConfig().objectMapper();
+        List<Transfer> transfers = transfers();
+
+        System.out.printf("%-6s %11s %11s %7s %11s %11s%n", "format", "bytes", "gzip bytes", "ratio", "encode ms", "decode ms");
+        long jsonBytes = run("json", json, transfers, -1);
+        run("smile", json.copyWith(new SmileFactory()), transfers, jsonBytes);
+        run("cbor", json.copyWith(new CBORFactory()), transfers, jsonBytes);
+    }
+
+    private long run(String format, ObjectMapper mapper, List<Transfer> transfers, long jsonBytes) throws Exception {
+        byte[] encoded = mapper.writeValueAsBytes(transfers);
+        for (int i = 0; i < iterations; i++) {
+            mapper.readTree(mapper.writeValueAsBytes(transfers));
+        }
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            encoded = mapper.writeValueAsBytes(transfers);
+            long encodedAt = System.nanoTime();
+            mapper.readTree(encoded);
+            decodeNanos += System.nanoTime() - encodedAt;
+            encodeNanos += encodedAt - start;
+        }
+        System.out.printf("%-6s %11d %11d %7s %11.2f %11.2f%n", format, encoded.length, gzip(encoded).length,
+            jsonBytes < 0 ? "1.00" : String.format("%.2f", (double) encoded.length / jsonBytes),
+            encodeNanos / 1e6 / iterations, decodeNanos / 1e6 / iterations);
+        return encoded.length;
+    }
+
+    private byte[] gzip(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private List<Transfer> transfers() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Base> bases = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Base base = new Base();
+            base.setId(id);
+            base.setName("Base " + id);
+            base.setLocation("Sector " + (id * 7 % 13));
+            bases.add(base);
+        }
+        List<AssetType> types = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            AssetType type = new AssetType();
+            type.setId(id);
+            type.setName("Type " + id);
+            type.setCategory(id % 2 == 0 ? "Vehicle" : "Weapon");
+            types.add(type);
+        }
+        User officer = new User();
+        officer.setId(2L);
+        officer.setUsername("logistics1");
+        officer.setRole(User.Role.LOGISTICS_OFFICER);
+        officer.setBase(bases.get(0));
+
+        List<Transfer> transfers = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            Asset asset = new Asset();
+            asset.setId(id);
+            asset.setSerialNumber("SN-" + (100000 + id));
+            asset.setStatus("ACTIVE");
+            asset.setAssetType(types.get(random.nextInt(types.size())));
+            asset.setBase(bases.get(random.nextInt(bases.size())));
+
+            Transfer transfer = new Transfer();
+            transfer.setId(id);
+            transfer.setAsset(asset);
+            transfer.setFromBase(asset.getBase());
+            transfer.setToBase(bases.get(random.nextInt(bases.size())));
+            transfer.setDate(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)));
+            transfer.setReason("Operational redeployment");
+            transfer.setStatus(Transfer.TransferStatus.values()[random.nextInt(Transfer.TransferStatus.values().length)]);
+            transfer.setCreatedBy(officer);
+            transfers.add(transfer);
+        }
+        return transfers;
+    }
+}
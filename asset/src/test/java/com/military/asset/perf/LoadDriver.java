@@ -0,0 +1,309 @@
+package com.military.asset.perf;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP load driver for a server started with the perf profile.
+ *
+ * Replays a weighted mix of dashboard, list and write calls from a fixed number of workers
+ * and prints throughput plus latency percentiles per operation. Only depends on the JDK:
+ *
+ * <pre>
+ * ./mvnw test-compile
+ * java -cp target/test-classes com.military.asset.perf.LoadDriver --url=http://localhost:8080 --workers=32 --seconds=60
+ * </pre>
+ *
+ * The id ranges (--bases, --asset-types, --assets, --users) should match the perf.dataset.* settings.
+ */
+public class LoadDriver {
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final Map<String, String> options;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String url;
+    private final int bases;
+    private final int assetTypes;
+    private final int assets;
+    private final int users;
+    private String token;
+
+    LoadDriver(Map<String, String> options) {
+        this.options = options;
+        this.url = option("url", "http://localhost:8080");
+        this.bases = Integer.parseInt(option("bases", "500"));
+        this.assetTypes = Integer.parseInt(option("asset-types", "40"));
+        this.assets = Integer.parseInt(option("assets", "200000"));
+        this.users = Integer.parseInt(option("users", "2000"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new LoadDriver(options).run();
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    void run() throws Exception {
+        int workers = Integer.parseInt(option("workers", "16"));
+        int seconds = Integer.parseInt(option("seconds", "60"));
+        int warmup = Integer.parseInt(option("warmup-seconds", "10"));
+        long seed = Long.parseLong(option("seed", "42"));
+
+        token = login(option("username", "admin"), option("password", "admin123"));
+
+        System.out.println("Warming up for " + warmup + "s");
+        drive(workers, warmup, seed);
+        System.out.println("Measuring " + workers + " workers for " + seconds + "s");
+        long start = System.nanoTime();
+        List<Map<String, Recorder>> results = drive(workers, seconds, seed + 1);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        report(results, elapsed);
+    }
+
+    private List<Map<String, Recorder>> drive(int workers, int seconds, long seed) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Map<String, Recorder>>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            SplittableRandom random = new SplittableRandom(seed * 1_000 + w);
+            futures.add(pool.submit(() -> worker(random, deadline)));
+        }
+        List<Map<String, Recorder>> results = new ArrayList<>();
+        for (Future<Map<String, Recorder>> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    private Map<String, Recorder> worker(SplittableRandom random, long deadline) {
+        Map<String, Recorder> recorders = new HashMap<>();
+        while (System.nanoTime() < deadline) {
+            Operation operation = Operation.pick(random.nextInt(100));
+            HttpRequest request = operation.request(this, random);
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            }
+            recorders.computeIfAbsent(operation.name(), k -> new Recorder()).record(System.nanoTime() - start, status);
+        }
+        return recorders;
+    }
+
+    private void report(List<Map<String, Recorder>> results, double elapsed) {
+        Map<String, Recorder> merged = new LinkedHashMap<>();
+        Recorder total = new Recorder();
+        for (Operation operation : Operation.values()) {
+            Recorder recorder = new Recorder();
+            for (Map<String, Recorder> result : results) {
+                Recorder part = result.get(operation.name());
+                if (part != null) {
+                    recorder.merge(part);
+                    total.merge(part);
+                }
+            }
+            merged.put(operation.name(), recorder);
+        }
+        merged.put("TOTAL", total);
+
+        System.out.printf("%-20s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+            "operation", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Recorder> entry : merged.entrySet()) {
+            Recorder r = entry.getValue();
+            if (r.count == 0) {
+                continue;
+            }
+            long[] sorted = Arrays.copyOf(r.latencies, r.count);
+            Arrays.sort(sorted);
+            System.out.printf("%-20s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                entry.getKey(), r.count, r.count / elapsed, r.errors,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(url + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+            .header("Authorization", "Bearer " + token)
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+    }
+
+    HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    long base(SplittableRandom random) { return 1 + random.nextInt(bases); }
+    long assetType(SplittableRandom random) { return 1 + random.nextInt(assetTypes); }
+    long asset(SplittableRandom random) { return 1 + random.nextInt(assets); }
+    long user(SplittableRandom random) { return 1 + random.nextInt(users); }
+
+    static String date(SplittableRandom random) {
+        return LocalDate.of(2022, 1, 1).plusDays(random.nextInt(3 * 365)).toString();
+    }
+
+    // Weights roughly follow production traffic: mostly dashboards and lists, some writes
+    enum Operation {
+        DASHBOARD(20) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.get("/api/dashboard/metrics?baseId=" + d.base(r));
+            }
+        },
+        DASHBOARD_GLOBAL(5) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.get("/api/dashboard/metrics");
+            }
+        },
+        LIST_ASSETS(12) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.get("/api/assets?baseId=" + d.base(r) + "&assetTypeId=" + d.assetType(r));
+            }
+        },
+        LIST_PURCHASES(12) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                String from = date(r);
+                return d.get("/api/purchases?baseId=" + d.base(r) + "&dateFrom=" + from
+                    + "&dateTo=" + LocalDate.parse(from).plusDays(30));
+            }
+        },
+        LIST_TRANSFERS(12) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.get("/api/transfers?baseId=" + d.base(r));
+            }
+        },
+        LIST_ASSIGNMENTS(10) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.get("/api/assignments?baseId=" + d.base(r));
+            }
+        },
+        LIST_EXPENDITURES(8) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.get("/api/expenditures?baseId=" + d.base(r));
+            }
+        },
+        LIST_AUDIT_LOGS(6) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                String from = date(r);
+                return d.get("/api/audit-logs?dateFrom=" + from + "&dateTo=" + LocalDate.parse(from).plusDays(1));
+            }
+        },
+        CREATE_PURCHASE(6) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.post("/api/purchases", "{\"assetTypeId\":" + d.assetType(r) + ",\"baseId\":" + d.base(r)
+                    + ",\"quantity\":" + (1 + r.nextInt(20)) + ",\"unitPrice\":" + (100 + r.nextInt(5000))
+                    + ",\"purchaseDate\":\"" + date(r) + "\",\"supplier\":\"Load Driver\",\"description\":\"load\"}");
+            }
+        },
+        CREATE_TRANSFER(5) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.post("/api/transfers", "{\"assetId\":" + d.asset(r) + ",\"fromBaseId\":" + d.base(r)
+                    + ",\"toBaseId\":" + d.base(r) + ",\"transferDate\":\"" + date(r) + "\",\"reason\":\"load\"}");
+            }
+        },
+        CREATE_ASSIGNMENT(4) {
+            HttpRequest request(LoadDriver d, SplittableRandom r) {
+                return d.post("/api/assignments", "{\"assetId\":" + d.asset(r) + ",\"assignedToId\":" + d.user(r)
+                    + ",\"assignmentDate\":\"" + date(r) + "\",\"notes\":\"load\"}");
+            }
+        };
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        abstract HttpRequest request(LoadDriver driver, SplittableRandom random);
+
+        static Operation pick(int roll) {
+            int total = 0;
+            for (Operation operation : values()) {
+                total += operation.weight;
+            }
+            int target = roll * total / 100;
+            for (Operation operation : values()) {
+                target -= operation.weight;
+                if (target < 0) {
+                    return operation;
+                }
+            }
+            return DASHBOARD;
+        }
+    }
+
+    static final class Recorder {
+        long[] latencies = new long[1024];
+        int count;
+        int errors;
+
+        void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            errors += other.errors;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.military.asset.perf;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.Base;
+import com.military.asset.service.SearchService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Typeahead latency of the in-memory SearchService index, no database: assets with serials of the
+ * seeded shape plus bases are indexed, then each query shape is timed. Broad prefixes are the worst
+ * case, since every word-prefix match is ranked before the cut to the limit:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=SearchBenchmarkTest -Dbenchmark=true [-Dbenchmark.rows=200000 -Dbenchmark.iterations=200]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SearchBenchmarkTest {
+    private static final int LIMIT = 10;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 200000);
+    private final int iterations = Integer.getInteger("benchmark.iterations", 200);
+
+    @Test
+    void timeQueries() {
+        // Only the index is used; the repositories and executor are for rebuilds
+        SearchService search = new SearchService(null, null, null, null, null, null);
+        long start = System.nanoTime();
+        String serial = index(search);
+        System.out.printf("indexed %d values in %.0f ms%n%n", search.size(), (System.nanoTime() - start) / 1e6);
+
+        System.out.printf("%-22s %9s %6s %11s%n", "query", "scope", "hits", "us/query");
+        run(search, "broad prefix", "sn", null);
+        run(search, "prefix", serial.substring(0, 9), null);
+        run(search, "exact", serial, null);
+        run(search, "word prefix", "fort", null);
+        run(search, "substring", "12345", null);
+        run(search, "broad prefix, scoped", "sn", 3L);
+        run(search, "no match", "zzzz", null);
+    }
+
+    private void run(SearchService search, String name, String query, Long baseId) {
+        List<SearchService.SearchHit> hits = search.search(query, null, baseId, LIMIT);
+        for (int i = 0; i < iterations; i++) {
+            search.search(query, null, baseId, LIMIT);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            hits = search.search(query, null, baseId, LIMIT);
+        }
+        System.out.printf("%-22s %9s %6d %11.1f%n", name, baseId == null ? "all" : "base " + baseId, hits.size(),
+            (System.nanoTime() - start) / 1e3 / iterations);
+    }
+
+    // Returns the serial of one asset in the middle
+    private String index(SearchService search) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Base> bases = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Base base = new Base();
+            base.setId(id);
+            base.setName("Fort " + id);
+            base.setLocation("Sector " + (id * 7 % 13));
+            search.indexBase(base);
+            bases.add(base);
+        }
+        String[] prefixes = {"RIF", "VEH", "RAD", "AMM", "GEN"};
+        String middle = null;
+        for (long id = 1; id <= rows; id++) {
+            Asset asset = new Asset();
+            asset.setId(id);
+            asset.setSerialNumber(String.format("SN-%s-%06d", prefixes[random.nextInt(prefixes.length)], id));
+            asset.setBase(bases.get(random.nextInt(bases.size())));
+            search.indexAsset(asset);
+            if (id == rows / 2) {
+                middle = asset.getSerialNumber();
+            }
+        }
+        return middle;
+    }
+}
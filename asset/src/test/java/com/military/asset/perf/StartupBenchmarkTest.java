@@ -0,0 +1,141 @@
+package com.military.asset.perf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Cold-start comparison of the plain jar against the fast-startup build (Spring AOT, AppCDS archive,
+ * lazy initialization). Each run starts a fresh JVM on an in-memory database and polls the login
+ * endpoint; time-to-first-request is measured from process start to the first 200, and RSS is read
+ * from /proc right after it. Neither jar carries H2, so both get the copy the fast-startup build leaves in
+ * target/cds-training: the plain jar through the Boot loader's loader.path, the extracted one appended after
+ * the classpath the archive was recorded with. Both artifacts come from the fast-startup build:
+ *
+ * <pre>
+ * ./mvnw -Pfast-startup clean package -DskipTests
+ * ./mvnw test -Dtest=StartupBenchmarkTest -Dbenchmark=true [-Dbenchmark.runs=5]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StartupBenchmarkTest {
+    private static final Path TARGET = Path.of("target");
+    private static final Path JAR = TARGET.resolve("asset-0.0.1-SNAPSHOT.jar");
+    private static final Path FAST_DIR = TARGET.resolve("fast-startup");
+    private static final Path FAST_JAR = FAST_DIR.resolve("asset-0.0.1-SNAPSHOT.jar");
+    private static final Path ARCHIVE = FAST_DIR.resolve("application.jsa");
+    private static final Path H2 = TARGET.resolve("cds-training").resolve("h2.jar");
+    private static final String JAVA = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final int runs = Integer.getInteger("benchmark.runs", 5);
+
+    @Test
+    void compareColdStart() throws Exception {
+        assumeTrue(Files.exists(JAR) && Files.exists(FAST_JAR) && Files.exists(ARCHIVE) && Files.exists(H2),
+            "Build with ./mvnw -Pfast-startup clean package -DskipTests first");
+
+        System.out.printf("%-13s %5s %12s %12s %10s%n", "mode", "runs", "p50 ttfr ms", "min ttfr ms", "p50 rss MB");
+        measure("baseline", List.of(JAVA, "-Dloader.path=" + H2, "-cp", JAR.toString(),
+            "org.springframework.boot.loader.launch.PropertiesLauncher"));
+        measure("fast-startup", List.of(JAVA, "-XX:SharedArchiveFile=" + ARCHIVE, "-Dspring.aot.enabled=true",
+            "-cp", FAST_JAR + File.pathSeparator + H2, "com.military.asset.AssetApplication",
+            "--spring.profiles.active=fast-startup"));
+    }
+
+    private void measure(String mode, List<String> command) throws Exception {
+        long[] ttfr = new long[runs];
+        long[] rss = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] sample = coldStart(command);
+            ttfr[i] = sample[0];
+            rss[i] = sample[1];
+        }
+        Arrays.sort(ttfr);
+        Arrays.sort(rss);
+        System.out.printf("%-13s %5d %12.1f %12.1f %10s%n", mode, runs,
+            ttfr[runs / 2] / 1e6, ttfr[0] / 1e6, rss[runs / 2] < 0 ? "n/a" : String.format("%.1f", rss[runs / 2] / 1024.0));
+    }
+
+    // Returns {nanos to first successful login, RSS in kB (-1 without /proc)}
+    private long[] coldStart(List<String> command) throws Exception {
+        int port = freePort();
+        List<String> args = new ArrayList<>(command);
+        args.addAll(List.of(
+            "--server.port=" + port,
+            "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--jwt.secret=startup"));
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(args)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+                .build();
+            long deadline = started + Duration.ofMinutes(2).toNanos();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Process exited with " + process.exitValue() + ": " + args);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("No successful login within 2 minutes: " + args);
+                }
+                try {
+                    if (client.send(login, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException notListeningYet) {
+                    // keep polling
+                }
+                Thread.sleep(5);
+            }
+            long elapsed = System.nanoTime() - started;
+            return new long[] { elapsed, rssKb(process.pid()) };
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private long rssKb(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return -1;
+    }
+
+    private int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
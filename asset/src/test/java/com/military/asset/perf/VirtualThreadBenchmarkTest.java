@@ -0,0 +1,153 @@
+package com.military.asset.perf;
+
+import com.military.asset.AssetApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares platform-thread and virtual-thread request handling under a mix of slow and fast endpoints.
+ *
+ * Slow calls list every audit log; fast calls fetch one base by id. With a bounded Tomcat pool the
+ * slow calls occupy all request threads and fast calls queue behind them. Run on a Java 21 runtime
+ * to get both modes (only the platform run happens on older JVMs):
+ *
+ * <pre>
+ * ./mvnw -Pjava21 test -Dtest=VirtualThreadBenchmarkTest -Dbenchmark=true [-Dbenchmark.seconds=20 -Dbenchmark.clients=64]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadBenchmarkTest {
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final int SLOW_PERCENT = 20;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final int seconds = Integer.getInteger("benchmark.seconds", 20);
+    private final int clients = Integer.getInteger("benchmark.clients", 64);
+
+    @Test
+    void compareThroughputUnderMixedLoad() throws Exception {
+        System.out.printf("%-9s %-5s %9s %9s %7s %9s %9s %9s%n",
+            "mode", "class", "requests", "req/s", "errors", "p50 ms", "p99 ms", "max ms");
+        run(false);
+        if (Runtime.version().feature() >= 21) {
+            run(true);
+        } else {
+            System.out.println("Virtual-thread run skipped: requires a Java 21 runtime");
+        }
+    }
+
+    private void run(boolean virtual) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AssetApplication.class)
+            .profiles("perf")
+            // Command-line arguments, so they take precedence over application-perf.properties
+            .run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + mode + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=10",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--server.tomcat.threads.max=32",
+                "--perf.dataset.assets=20000",
+                "--perf.dataset.purchases=5000",
+                "--perf.dataset.transfers=5000",
+                "--perf.dataset.assignments=5000",
+                "--perf.dataset.expenditures=5000",
+                "--perf.dataset.audit-logs=2000");
+        try {
+            String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String token = login(url);
+            drive(url, token, Math.max(3, seconds / 5));
+            long start = System.nanoTime();
+            List<LoadDriver.Recorder[]> results = drive(url, token, seconds);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            LoadDriver.Recorder slow = new LoadDriver.Recorder();
+            LoadDriver.Recorder fast = new LoadDriver.Recorder();
+            for (LoadDriver.Recorder[] result : results) {
+                slow.merge(result[0]);
+                fast.merge(result[1]);
+            }
+            print(mode, "slow", slow, elapsed);
+            print(mode, "fast", fast, elapsed);
+        } finally {
+            context.close();
+        }
+    }
+
+    private List<LoadDriver.Recorder[]> drive(String url, String token, int durationSeconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        List<Future<LoadDriver.Recorder[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            SplittableRandom random = new SplittableRandom(c);
+            futures.add(pool.submit(() -> {
+                LoadDriver.Recorder[] recorders = {new LoadDriver.Recorder(), new LoadDriver.Recorder()};
+                while (System.nanoTime() < deadline) {
+                    boolean slow = random.nextInt(100) < SLOW_PERCENT;
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url + (slow ? "/api/audit-logs" : "/api/bases/1")))
+                        .header("Authorization", "Bearer " + token)
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    recorders[slow ? 0 : 1].record(System.nanoTime() - start, status);
+                }
+                return recorders;
+            }));
+        }
+        List<LoadDriver.Recorder[]> results = new ArrayList<>();
+        for (Future<LoadDriver.Recorder[]> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    private void print(String mode, String kind, LoadDriver.Recorder recorder, double elapsed) {
+        if (recorder.count == 0) {
+            System.out.printf("%-9s %-5s %9d%n", mode, kind, 0);
+            return;
+        }
+        long[] sorted = Arrays.copyOf(recorder.latencies, recorder.count);
+        Arrays.sort(sorted);
+        System.out.printf("%-9s %-5s %9d %9.1f %7d %9.2f %9.2f %9.2f%n",
+            mode, kind, recorder.count, recorder.count / elapsed, recorder.errors,
+            LoadDriver.percentile(sorted, 0.50), LoadDriver.percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private String login(String url) throws Exception {
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(url + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + response.body());
+        }
+        return matcher.group(1);
+    }
+}
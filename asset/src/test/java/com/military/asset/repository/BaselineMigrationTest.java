@@ -0,0 +1,74 @@
+package com.military.asset.repository;
+
+import com.military.asset.model.Transfer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application on a database as ddl-auto=update left it before migrations took over: the V1
+ * schema and the old data.sql, no Flyway history. Flyway has to baseline it at V1, apply everything
+ * after, and the entities must then validate against the result with the existing rows intact.
+ */
+@SpringBootTest(properties = "spring.sql.init.mode=never")
+class BaselineMigrationTest {
+    private static final String URL = "jdbc:h2:mem:asset-baseline-" + UUID.randomUUID()
+        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransferRepository transferRepository;
+
+    @DynamicPropertySource
+    static void existingDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline_schema.sql"));
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-data.sql"));
+            // Asset 1 where its completed transfer on 2024-06-01 left it, after its assignment of 2024-01-20
+            connection.createStatement().executeUpdate("UPDATE asset SET base_id = 2 WHERE id = 1");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Test
+    void baselinesTheExistingSchemaAndMigratesTheRest() {
+        List<Map<String, Object>> history = jdbcTemplate.queryForList(
+            "SELECT \"version\", \"type\" FROM flyway_schema_history WHERE \"version\" IS NOT NULL ORDER BY \"installed_rank\"");
+        assertEquals("1", history.get(0).get("version"));
+        assertEquals("BASELINE", history.get(0).get("type"));
+        assertTrue(history.stream().anyMatch(row -> "1.1".equals(row.get("version"))), "V1_1 should run after the baseline");
+
+        for (String table : List.of("transfer_history", "assignment_history", "idempotency_record", "sync_tombstone")) {
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class), table);
+        }
+        // The ledger backfills from the existing purchases, transfers, assignments and expenditures
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_movement", Integer.class) > 0);
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_snapshot", Integer.class) > 0);
+        // Booked at the base holding the asset on the assignment date, not where it is now
+        assertEquals(1L, jdbcTemplate.queryForObject(
+            "SELECT base_id FROM inventory_movement WHERE source_type = 'Assignment' AND source_id = 1 AND movement_type = 'ASSIGNED'", Long.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfer WHERE id IN (1, 2) AND version = 0", Integer.class));
+    }
+
+    @Test
+    void existingRowsLoadAndUpdateThroughTheEntities() {
+        Transfer transfer = transferRepository.findById(3L).orElseThrow();
+        assertEquals(0L, transfer.getVersion());
+        transfer.setReason("Reassigned after migration");
+        assertEquals(1L, transferRepository.save(transfer).getVersion());
+    }
+}
@@ -0,0 +1,247 @@
+package com.military.asset.repository;
+
+import com.military.asset.model.Assignment;
+import com.military.asset.model.Transfer;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs each filtered repository query, captures the SQL Hibernate sends and checks H2's EXPLAIN for it:
+ * no table in the plan may be scanned, and the filtered table must be read through the index that
+ * V2__query_indexes.sql added for that query shape.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "com.military.asset.repository.QueryPlanIndexTest$Recorder")
+class QueryPlanIndexTest {
+    private static final Pattern ACCESS = Pattern.compile("\"public\"\\.\"(\\w+)\" \"\\w+\"\\s*/\\* public\\.(\\w+(?:\\.tableScan)?)");
+
+    @Autowired private PurchaseRepository purchaseRepository;
+    @Autowired private TransferRepository transferRepository;
+    @Autowired private AssignmentRepository assignmentRepository;
+    @Autowired private ExpenditureRepository expenditureRepository;
+    @Autowired private AuditLogRepository auditLogRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<String> problems = new ArrayList<>();
+
+    private final Long id = 1L;
+    private final LocalDate from = LocalDate.of(2024, 1, 1);
+    private final LocalDate to = LocalDate.of(2024, 12, 31);
+    private final LocalDateTime fromTime = from.atStartOfDay();
+    private final LocalDateTime toTime = to.atTime(23, 59);
+
+    // A few thousand rows per table spread over bases, types, assets and four years, then ANALYZE, so
+    // H2 costs the plans on a realistic distribution instead of data.sql's handful of rows
+    @BeforeAll
+    static void seed(@Autowired JdbcTemplate jdbcTemplate) {
+        String day = "DATEADD(DAY, MOD(X, 1500), DATE '2021-01-01')";
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO asset (id, serial_number, status, asset_type_id, base_id) "
+                + "SELECT 1000 + X, CONCAT('PLAN-', X), 'ACTIVE', MOD(X, 8) + 1, MOD(X, 5) + 1 FROM SYSTEM_RANGE(1, 5000) r (x)",
+            "INSERT INTO purchase (id, date, quantity, unit_price, total_amount, supplier, asset_type_id, base_id, created_by) "
+                + "SELECT 1000 + X, " + day + ", 1, 10, 10, 'Plan', MOD(X, 8) + 1, MOD(X, 5) + 1, 1 FROM SYSTEM_RANGE(1, 5000) r (x)",
+            "INSERT INTO transfer (id, date, reason, status, asset_id, from_base_id, to_base_id, created_by, version) "
+                + "SELECT 1000 + X, " + day + ", 'Plan', CASEWHEN(MOD(X, 2) = 0, 'COMPLETED', 'PENDING'), 1001 + MOD(X, 5000), "
+                + "MOD(X, 5) + 1, MOD(X + 1, 5) + 1, 1, 0 FROM SYSTEM_RANGE(1, 5000) r (x)",
+            "INSERT INTO assignment (id, assigned_date, return_date, status, asset_id, assigned_to, assigned_by) "
+                + "SELECT 1000 + X, " + day + ", DATEADD(DAY, 30, " + day + "), CASEWHEN(MOD(X, 2) = 0, 'RETURNED', 'ACTIVE'), "
+                + "1001 + MOD(X, 5000), 1, 1 FROM SYSTEM_RANGE(1, 5000) r (x)",
+            "INSERT INTO expenditure (id, expenditure_date, quantity, reason, asset_id, base_id, approved_by) "
+                + "SELECT 1000 + X, " + day + ", 1, 'Plan', 1001 + MOD(X, 5000), MOD(X, 5) + 1, 1 FROM SYSTEM_RANGE(1, 5000) r (x)",
+            "INSERT INTO audit_log (id, timestamp, action, entity, entity_id, user_id) "
+                + "SELECT 1000 + X, CAST(" + day + " AS TIMESTAMP), 'CREATE', CASEWHEN(MOD(X, 2) = 0, 'ASSET', 'TRANSFER'), "
+                + "1001 + MOD(X, 5000), 1 + MOD(X, 3) FROM SYSTEM_RANGE(1, 5000) r (x)",
+            "ANALYZE");
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void purchaseQueriesUseTheirIndexes() {
+        assertIndexed("purchase", null, () -> purchaseRepository.countByBaseId(id), id);
+        assertIndexed("purchase", null, () -> purchaseRepository.countByAssetTypeId(id), id);
+        assertIndexed("purchase", null, () -> purchaseRepository.countByBaseIdAndAssetTypeId(id, id), id, id);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByBaseId(id), id);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByAssetTypeId(id), id);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByBaseIdAndAssetTypeId(id, id), id, id);
+        assertIndexed("purchase", "idx_purchase_date", () -> purchaseRepository.countByDateBetween(from, to), from, to);
+        assertIndexed("purchase", "idx_purchase_base_date", () -> purchaseRepository.countByBaseIdAndDateBetween(id, from, to), id, from, to);
+        assertIndexed("purchase", "idx_purchase_type_date", () -> purchaseRepository.countByAssetTypeIdAndDateBetween(id, from, to), id, from, to);
+        assertIndexed("purchase", null, () -> purchaseRepository.countByBaseIdAndAssetTypeIdAndDateBetween(id, id, from, to), id, id, from, to);
+        assertIndexed("purchase", "idx_purchase_date", () -> purchaseRepository.findByDateBetween(from, to), from, to);
+        assertIndexed("purchase", "idx_purchase_base_date", () -> purchaseRepository.findByBaseIdAndDateBetween(id, from, to), id, from, to);
+        assertIndexed("purchase", "idx_purchase_type_date", () -> purchaseRepository.findByAssetTypeIdAndDateBetween(id, from, to), id, from, to);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByBaseIdAndAssetTypeIdAndDateBetween(id, id, from, to), id, id, from, to);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByBaseIdWithRelatedEntities(id), id);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByAssetTypeIdWithRelatedEntities(id), id);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByBaseIdAndAssetTypeIdWithRelatedEntities(id, id), id, id);
+        assertIndexed("purchase", "idx_purchase_date", () -> purchaseRepository.findByDateBetweenWithRelatedEntities(from, to), from, to);
+        assertIndexed("purchase", "idx_purchase_base_date", () -> purchaseRepository.findByBaseIdAndDateBetweenWithRelatedEntities(id, from, to), id, from, to);
+        assertIndexed("purchase", "idx_purchase_type_date", () -> purchaseRepository.findByAssetTypeIdAndDateBetweenWithRelatedEntities(id, from, to), id, from, to);
+        assertIndexed("purchase", null, () -> purchaseRepository.findByBaseIdAndAssetTypeIdAndDateBetweenWithRelatedEntities(id, id, from, to), id, id, from, to);
+        assertIndexed("purchase", null, () -> purchaseRepository.findSpendRowsAfter(id, PageRequest.of(0, 10)), id, 10);
+        assertNoProblems();
+    }
+
+    @Test
+    void transferQueriesUseTheirIndexes() {
+        EnumSet<Transfer.TransferStatus> closed = EnumSet.of(Transfer.TransferStatus.COMPLETED, Transfer.TransferStatus.REJECTED);
+        assertIndexed("transfer", null, () -> transferRepository.countByFromBaseId(id), id);
+        assertIndexed("transfer", null, () -> transferRepository.countByAssetAssetTypeId(id), id);
+        assertIndexed("transfer", null, () -> transferRepository.countByFromBaseIdAndAssetAssetTypeId(id, id), id, id);
+        assertIndexed("transfer", null, () -> transferRepository.findByFromBaseId(id), id);
+        assertIndexed("transfer", null, () -> transferRepository.findByAssetAssetTypeId(id), id);
+        assertIndexed("transfer", null, () -> transferRepository.findByFromBaseIdAndAssetAssetTypeId(id, id), id, id);
+        assertIndexed("transfer", null, () -> transferRepository.findByAssetId(id), id);
+        assertIndexed("transfer", "idx_transfer_from_base_date", () -> transferRepository.findByFromBaseIdAndDateBetween(id, from, to), id, from, to);
+        assertIndexed("transfer", "idx_transfer_asset_date", () -> transferRepository.findByAssetIdAndDateBetween(id, from, to), id, from, to);
+        assertIndexed("transfer", null, () -> transferRepository.findByFromBaseIdAndAssetIdAndDateBetween(id, id, from, to), id, id, from, to);
+        assertIndexed("transfer", "idx_transfer_date", () -> transferRepository.findByDateBetween(from, to), from, to);
+        assertIndexed("transfer", null, () -> transferRepository.findByFromBaseIdAndAssetId(id, id), id, id);
+        assertIndexed("transfer", null, () -> transferRepository.findByFromBaseIdWithRelatedEntities(id), id);
+        assertIndexed("transfer", null, () -> transferRepository.findByAssetAssetTypeIdWithRelatedEntities(id), id);
+        assertIndexed("transfer", null, () -> transferRepository.findByFromBaseIdAndAssetAssetTypeIdWithRelatedEntities(id, id), id, id);
+        assertIndexed("transfer", "idx_transfer_date", () -> transferRepository.findByDateBetweenWithRelatedEntities(from, to), from, to);
+        assertIndexed("transfer", "idx_transfer_from_base_date", () -> transferRepository.findByFromBaseIdAndDateBetweenWithRelatedEntities(id, from, to), id, from, to);
+        assertIndexed("transfer", null, () -> transferRepository.findByAssetAssetTypeIdAndDateBetweenWithRelatedEntities(id, from, to), id, from, to);
+        assertIndexed("transfer", null, () -> transferRepository.findByFromBaseIdAndAssetAssetTypeIdAndDateBetweenWithRelatedEntities(id, id, from, to), id, id, from, to);
+        assertIndexed("transfer", null, () -> transferRepository.findByIdWithRelatedEntities(id), id);
+        assertIndexed("transfer", null, () -> transferRepository.findFlowRowsAfter(id, PageRequest.of(0, 10)), id, 10);
+        assertIndexed("transfer", null, () -> transferRepository.findClosedIdsAfter(id, closed, from, PageRequest.of(0, 10)), id, closed, from, 10);
+        assertIndexed("transfer", null, () -> transferRepository.findClosedForUpdate(List.of(id), closed, from), List.of(id), closed, from);
+        assertNoProblems();
+    }
+
+    @Test
+    void assignmentQueriesUseTheirIndexes() {
+        EnumSet<Assignment.AssignmentStatus> closed = EnumSet.of(Assignment.AssignmentStatus.RETURNED, Assignment.AssignmentStatus.EXPIRED);
+        Assignment.AssignmentStatus active = Assignment.AssignmentStatus.ACTIVE;
+        assertIndexed("assignment", null, () -> assignmentRepository.countByAssetBaseId(id), id);
+        assertIndexed("assignment", null, () -> assignmentRepository.countByAssetAssetTypeId(id), id);
+        assertIndexed("assignment", null, () -> assignmentRepository.countByAssetBaseIdAndAssetAssetTypeId(id, id), id, id);
+        assertIndexed("assignment", null, () -> assignmentRepository.findByAssetBaseId(id), id);
+        assertIndexed("assignment", null, () -> assignmentRepository.findByAssetAssetTypeId(id), id);
+        assertIndexed("assignment", null, () -> assignmentRepository.findByAssetBaseIdAndAssetAssetTypeId(id, id), id, id);
+        assertIndexed("assignment", null, () -> assignmentRepository.findByAssetId(id), id);
+        assertIndexed("assignment", null, () -> assignmentRepository.findByAssetBaseIdAndAssetId(id, id), id, id);
+        assertIndexed("assignment", "idx_assignment_date", () -> assignmentRepository.findByAssignedDateBetween(from, to), from, to);
+        assertIndexed("assignment", null, () -> assignmentRepository.findByAssetBaseIdAndAssignedDateBetween(id, from, to), id, from, to);
+        assertIndexed("assignment", "idx_assignment_asset_date", () -> assignmentRepository.findByAssetIdAndAssignedDateBetween(id, from, to), id, from, to);
+        assertIndexed("assignment", "idx_assignment_asset_date", () -> assignmentRepository.findByAssetBaseIdAndAssetIdAndAssignedDateBetween(id, id, from, to), id, id, from, to);
+        assertIndexed("assignment", null, () -> assignmentRepository.findReturnDatesAfter(id, active, PageRequest.of(0, 10)), id, active, 10);
+        assertIndexed("assignment", null, () -> assignmentRepository.findDueForUpdate(List.of(id), active, from), List.of(id), active, from);
+        assertIndexed("assignment", null, () -> assignmentRepository.findClosedIdsAfter(id, closed, from, PageRequest.of(0, 10)), id, closed, from, 10);
+        assertIndexed("assignment", null, () -> assignmentRepository.findClosedForUpdate(List.of(id), closed, from), List.of(id), closed, from);
+        assertNoProblems();
+    }
+
+    @Test
+    void expenditureQueriesUseTheirIndexes() {
+        assertIndexed("expenditure", null, () -> expenditureRepository.countByBaseId(id), id);
+        assertIndexed("expenditure", null, () -> expenditureRepository.countByAssetAssetTypeId(id), id);
+        assertIndexed("expenditure", null, () -> expenditureRepository.countByBaseIdAndAssetAssetTypeId(id, id), id, id);
+        assertIndexed("expenditure", null, () -> expenditureRepository.findByBaseId(id), id);
+        assertIndexed("expenditure", null, () -> expenditureRepository.findByAssetAssetTypeId(id), id);
+        assertIndexed("expenditure", null, () -> expenditureRepository.findByBaseIdAndAssetAssetTypeId(id, id), id, id);
+        assertIndexed("expenditure", null, () -> expenditureRepository.findByAssetId(id), id);
+        assertIndexed("expenditure", null, () -> expenditureRepository.findByBaseIdAndAssetId(id, id), id, id);
+        assertIndexed("expenditure", "idx_expenditure_date", () -> expenditureRepository.findByExpenditureDateBetween(from, to), from, to);
+        assertIndexed("expenditure", "idx_expenditure_base_date", () -> expenditureRepository.findByBaseIdAndExpenditureDateBetween(id, from, to), id, from, to);
+        assertIndexed("expenditure", "idx_expenditure_asset_date", () -> expenditureRepository.findByAssetIdAndExpenditureDateBetween(id, from, to), id, from, to);
+        assertIndexed("expenditure", null, () -> expenditureRepository.findByBaseIdAndAssetIdAndExpenditureDateBetween(id, id, from, to), id, id, from, to);
+        assertIndexed("expenditure", null, () -> expenditureRepository.findConsumptionRow(id), id);
+        assertIndexed("expenditure", "idx_expenditure_base_date", () -> expenditureRepository.findConsumptionRows(List.of(id, 2L), from, to), List.of(id, 2L), from, to);
+        assertNoProblems();
+    }
+
+    @Test
+    void auditLogQueriesUseTheirIndexes() {
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByUserBaseId(id), id);
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByEntity("ASSET"), "ASSET");
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByUserBaseIdAndEntity(id, "ASSET"), id, "ASSET");
+        assertIndexed("audit_log", "idx_audit_log_timestamp", () -> auditLogRepository.findByTimestampBetween(fromTime, toTime), fromTime, toTime);
+        assertIndexed("audit_log", "idx_audit_log_user_timestamp", () -> auditLogRepository.findByUserBaseIdAndTimestampBetween(id, fromTime, toTime), id, fromTime, toTime);
+        assertIndexed("audit_log", "idx_audit_log_entity_timestamp", () -> auditLogRepository.findByEntityAndTimestampBetween("ASSET", fromTime, toTime), "ASSET", fromTime, toTime);
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByUserBaseIdAndEntityAndTimestampBetween(id, "ASSET", fromTime, toTime), id, "ASSET", fromTime, toTime);
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByAssetTypeId(id), id);
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByBaseIdAndAssetTypeId(id, id), id, id);
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByAssetTypeIdAndTimestampBetween(id, fromTime, toTime), id, fromTime, toTime);
+        assertIndexed("audit_log", null, () -> auditLogRepository.findByBaseIdAndAssetTypeIdAndTimestampBetween(id, id, fromTime, toTime), id, id, fromTime, toTime);
+        assertNoProblems();
+    }
+
+    // Runs the query in a transaction (the archiver's locking reads need one), explains the SQL it sent
+    // and records any table read without an index; a null index accepts any index on the filtered table
+    private void assertIndexed(String table, String index, Runnable query, Object... arguments) {
+        Recorder.statements.clear();
+        transactionTemplate.executeWithoutResult(status -> query.run());
+        String sql = Recorder.statements.get(Recorder.statements.size() - 1);
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, binds(arguments)));
+        Map<String, String> access = new LinkedHashMap<>();
+        Matcher matcher = ACCESS.matcher(plan);
+        while (matcher.find()) {
+            access.putIfAbsent(matcher.group(1), matcher.group(2));
+        }
+        List<String> scanned = access.entrySet().stream()
+            .filter(entry -> entry.getValue().endsWith(".tableScan")).map(Map.Entry::getKey).toList();
+        if (!access.containsKey(table) || !scanned.isEmpty() || (index != null && !index.equals(access.get(table)))) {
+            problems.add("expected " + table + " via " + (index == null ? "an index" : index) + ", got " + access
+                + "\n" + sql);
+        }
+    }
+
+    private void assertNoProblems() {
+        assertTrue(problems.isEmpty(), String.join("\n\n", problems));
+    }
+
+    // Collection parameters expand to one placeholder per element
+    private static Object[] binds(Object... arguments) {
+        List<Object> binds = new ArrayList<>();
+        for (Object argument : arguments) {
+            if (argument instanceof Collection<?> values) {
+                values.forEach(value -> binds.add(value instanceof Enum<?> e ? e.name() : value));
+            } else {
+                binds.add(argument instanceof Enum<?> e ? e.name() : argument);
+            }
+        }
+        return binds.toArray();
+    }
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.military.asset.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.military.asset.model.Asset;
+import com.military.asset.model.Transfer;
+import com.military.asset.model.User;
+import com.military.asset.repository.AssetTypeRepository;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.UserRepository;
+import com.military.asset.service.AssetService;
+import com.military.asset.service.AssignmentService;
+import com.military.asset.service.SearchService;
+import com.military.asset.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BaseScopeTest {
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private CustomUserDetailsService userDetailsService;
+    @Autowired private AssetService assetService;
+    @Autowired private AssignmentService assignmentService;
+    @Autowired private TransferService transferService;
+    @Autowired private SearchService searchService;
+    @Autowired private AssetTypeRepository assetTypeRepository;
+    @Autowired private BaseRepository baseRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void tokenBaseNarrowsNonAdminReads() throws Exception {
+        Asset elsewhere = asset(2L);
+
+        String commander = token("commander1", "BASE_COMMANDER", 1L);
+        List<Long> bases = baseIds(fetch("/api/assets", commander));
+        assertFalse(bases.isEmpty());
+        assertTrue(bases.stream().allMatch(id -> id == 1L), bases.toString());
+        assertEquals(404, mockMvc.perform(get("/api/assets/" + elsewhere.getId())
+            .header("Authorization", "Bearer " + commander)).andReturn().getResponse().getStatus());
+        // An explicit baseId cannot widen the scope
+        assertEquals(0, fetch("/api/assets?baseId=2", commander).size());
+
+        // The claim decides, not the user's row
+        List<Long> scopedTo2 = baseIds(fetch("/api/assets", token("commander1", "BASE_COMMANDER", 2L)));
+        assertTrue(scopedTo2.contains(2L) && !scopedTo2.contains(1L), scopedTo2.toString());
+
+        List<Long> all = baseIds(fetch("/api/assets", token("admin", "ADMIN", 1L)));
+        assertTrue(all.contains(1L) && all.contains(2L));
+    }
+
+    @Test
+    void tokensWithoutABaseOrForRefreshingAreRefused() throws Exception {
+        assertEquals(403, status(get("/api/assets"), token("commander1", "BASE_COMMANDER", null)));
+        String refresh = jwtUtil.generateRefreshToken(userDetailsService.loadUserByUsername("commander1"));
+        assertEquals(401, status(get("/api/assets"), refresh));
+        // Admins are not scoped, claim or not
+        assertEquals(200, status(get("/api/assets"), token("admin", "ADMIN", null)));
+    }
+
+    @Test
+    void inMemoryIndexesOnlyAnswerForTheCallersBase() throws Exception {
+        Asset elsewhere = asset(2L);
+        String commander = token("commander1", "BASE_COMMANDER", 1L);
+        String admin = token("admin", "ADMIN", 1L);
+
+        for (String path : List.of("/api/assets/facets?baseId=2", "/api/expenditures/rates?baseId=2",
+                                   "/api/dashboard/metrics?baseId=2", "/api/search?q=scope&baseId=2")) {
+            assertEquals(403, mockMvc.perform(get(path).header("Authorization", "Bearer " + commander))
+                .andReturn().getResponse().getStatus(), path);
+        }
+        // Spend and flows are for logistics officers
+        String logistics = token("logistics1", "LOGISTICS_OFFICER", 1L);
+        for (String path : List.of("/api/purchases/spend?baseId=2", "/api/purchases/spend/top-suppliers?baseId=2",
+                                   "/api/transfers/flows?baseId=2")) {
+            assertEquals(403, status(get(path), logistics), path);
+        }
+        assertEquals(fetch("/api/purchases/spend?groupBy=base&baseId=1", admin), fetch("/api/purchases/spend?groupBy=base", logistics));
+        assertEquals(fetch("/api/purchases/spend/top-suppliers?baseId=1", admin), fetch("/api/purchases/spend/top-suppliers", logistics));
+        assertEquals(fetch("/api/transfers/flows?baseId=2", admin), fetch("/api/transfers/flows", token("logistics1", "LOGISTICS_OFFICER", 2L)));
+        assertEquals(fetch("/api/assets/facets?baseId=1", admin).get("total"), fetch("/api/assets/facets", commander).get("total"));
+        assertEquals(fetch("/api/dashboard/metrics?baseId=1", admin), fetch("/api/dashboard/metrics", commander));
+
+        String serial = elsewhere.getSerialNumber();
+        assertEquals(0, fetch("/api/search?q=" + serial, commander).size());
+        assertEquals(1, fetch("/api/search?q=" + serial, admin).size());
+        assertEquals(1, fetch("/api/search?q=" + serial, token("commander1", "BASE_COMMANDER", 2L)).size());
+    }
+
+    @Test
+    void deletesOnlyReachTheCallersBase() throws Exception {
+        Asset elsewhere = asset(2L);
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        Transfer transfer = new Transfer();
+        transfer.setAsset(elsewhere);
+        transfer.setFromBase(baseRepository.findById(2L).orElseThrow());
+        transfer.setToBase(baseRepository.findById(3L).orElseThrow());
+        transfer.setDate(LocalDate.now());
+        transfer.setReason("Scoped delete");
+        transfer.setCreatedBy(admin);
+        Transfer pending = transferService.save(transfer);
+
+        // Transfers are for logistics officers, assets for commanders too
+        String logistics = token("logistics1", "LOGISTICS_OFFICER", 1L);
+        String commander = token("commander1", "BASE_COMMANDER", 1L);
+        assertEquals(204, status(delete("/api/transfers/" + pending.getId()), logistics));
+        assertEquals(204, status(delete("/api/assets/" + elsewhere.getId()), commander));
+        assertTrue(transferService.findById(pending.getId()).isPresent());
+        assertTrue(assetService.findById(elsewhere.getId()).isPresent());
+        assertEquals(1, searchService.search(elsewhere.getSerialNumber(), null, 2L, 10).size());
+
+        assertEquals(204, status(delete("/api/transfers/" + pending.getId()), token("logistics1", "LOGISTICS_OFFICER", 2L)));
+        assertEquals(204, status(delete("/api/assets/" + elsewhere.getId()), token("commander1", "BASE_COMMANDER", 2L)));
+        assertTrue(transferService.findById(pending.getId()).isEmpty());
+        assertTrue(assetService.findById(elsewhere.getId()).isEmpty());
+    }
+
+    @Test
+    void associatedBasesScopeTransfersAndAssignments() {
+        BaseScope.with(2L, () -> {
+            // Seeded transfer 1 goes from base 1 to base 2; the seeded assignments are all base 1's
+            List<Long> transfers = transferService.findAll().stream().map(Transfer::getId).toList();
+            assertTrue(transfers.contains(1L) && !transfers.contains(2L), transfers.toString());
+            assertTrue(assignmentService.findAll().isEmpty());
+            assertEquals(0, assignmentService.countActiveAssignments(null, null));
+        });
+        assertTrue(BaseScope.with(1L, () -> assignmentService.findAll()).size() >= 4);
+        assertNull(BaseScope.current());
+    }
+
+    @Test
+    void scopedTransferMovesTheAssetOutOfTheCallersBase() {
+        Asset asset = asset(3L);
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        Transfer completed = BaseScope.with(3L, () -> {
+            Transfer transfer = new Transfer();
+            transfer.setAsset(asset);
+            transfer.setFromBase(baseRepository.findById(3L).orElseThrow());
+            transfer.setToBase(baseRepository.findById(4L).orElseThrow());
+            transfer.setDate(LocalDate.now());
+            transfer.setReason("Scoped move");
+            transfer.setCreatedBy(admin);
+            Transfer saved = transferService.save(transfer);
+            transferService.approveTransfer(saved.getId(), admin);
+            return transferService.completeTransfer(saved.getId(), admin);
+        });
+        assertEquals(Transfer.TransferStatus.COMPLETED, completed.getStatus());
+        // Gone from the sender's view, still in the transfer history of both ends
+        assertTrue(BaseScope.with(3L, () -> assetService.findById(asset.getId())).isEmpty());
+        assertEquals(4L, BaseScope.with(4L, () -> assetService.findById(asset.getId())).orElseThrow().getBase().getId());
+        assertTrue(BaseScope.with(3L, () -> transferService.findById(completed.getId())).isPresent());
+        assertTrue(searchService.search(asset.getSerialNumber(), null, 3L, 10).isEmpty());
+        assertEquals(1, searchService.search(asset.getSerialNumber(), null, 4L, 10).size());
+    }
+
+    private Asset asset(Long baseId) {
+        Asset asset = new Asset();
+        asset.setSerialNumber("SCOPE-" + System.nanoTime());
+        asset.setStatus("ACTIVE");
+        asset.setAssetType(assetTypeRepository.findById(1L).orElseThrow());
+        asset.setBase(baseRepository.findById(baseId).orElseThrow());
+        return assetService.save(asset);
+    }
+
+    private String token(String username, String role, Long baseId) {
+        return jwtUtil.generateTokenWithClaims(userDetailsService.loadUserByUsername(username), role, baseId);
+    }
+
+    private int status(MockHttpServletRequestBuilder request, String token) throws Exception {
+        return mockMvc.perform(request.header("Authorization", "Bearer " + token)).andReturn().getResponse().getStatus();
+    }
+
+    private JsonNode fetch(String path, String token) throws Exception {
+        MvcResult result = mockMvc.perform(get(path).header("Authorization", "Bearer " + token)).andReturn();
+        assertEquals(200, result.getResponse().getStatus(), path);
+        return objectMapper.readTree(result.getResponse().getContentAsByteArray());
+    }
+
+    private static List<Long> baseIds(JsonNode assets) {
+        List<Long> ids = new ArrayList<>();
+        assets.forEach(asset -> ids.add(asset.get("base").get("id").asLong()));
+        return ids;
+    }
+}
@@ -0,0 +1,90 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Base;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.BaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class AssetFacetServiceTest {
+    @Autowired private AssetFacetService assetFacetService;
+    @Autowired private AssetService assetService;
+    @Autowired private AssetTypeService assetTypeService;
+    @Autowired private AssetRepository assetRepository;
+    @Autowired private BaseRepository baseRepository;
+    @Autowired private IndexFixture fixture;
+
+    private AssetType assetType;
+    private String category;
+
+    @BeforeEach
+    void setUp() {
+        assetType = fixture.assetType("Facet");
+        category = assetType.getCategory();
+    }
+
+    @Test
+    void countsEveryFacetForTheFilteredAssets() {
+        Asset moved = asset(1L, "ACTIVE");
+        asset(1L, "ACTIVE");
+        asset(1L, "MAINTENANCE");
+        Asset deleted = asset(2L, "ACTIVE");
+
+        AssetFacetService.FacetCounts counts = count(Map.of(AssetFacetService.Facet.CATEGORY, List.of(category)));
+        assertEquals(4, counts.total());
+        assertEquals(Map.of("1", 3L, "2", 1L), counts.facets().get("base"));
+        assertEquals(Map.of("ACTIVE", 3L, "MAINTENANCE", 1L), counts.facets().get("status"));
+        assertEquals(Map.of(category, 4L), counts.facets().get("category"));
+
+        counts = count(Map.of(AssetFacetService.Facet.CATEGORY, List.of(category),
+            AssetFacetService.Facet.STATUS, List.of("ACTIVE", "RETIRED"), AssetFacetService.Facet.BASE, List.of("1")));
+        assertEquals(2, counts.total());
+
+        moved.setBase(fixture.base(2L));
+        moved.setStatus("MAINTENANCE");
+        assetService.save(moved);
+        assetService.deleteById(deleted.getId());
+        counts = count(Map.of(AssetFacetService.Facet.ASSET_TYPE, List.of(String.valueOf(assetType.getId()))));
+        assertEquals(3, counts.total());
+        assertEquals(Map.of("1", 2L, "2", 1L), counts.facets().get("base"));
+        assertEquals(Map.of("ACTIVE", 1L, "MAINTENANCE", 2L), counts.facets().get("status"));
+
+        // Recategorising the type moves its assets with it
+        assetType.setCategory(category + " renamed");
+        assetTypeService.save(assetType);
+        assertEquals(0, count(Map.of(AssetFacetService.Facet.CATEGORY, List.of(category))).total());
+        assertEquals(3, count(Map.of(AssetFacetService.Facet.CATEGORY, List.of(category + " renamed"))).total());
+    }
+
+    @Test
+    void rebuildAgreesWithTheDatabase() {
+        asset(3L, "ACTIVE");
+        assetFacetService.rebuild();
+
+        AssetFacetService.FacetCounts counts = count(Map.of());
+        assertEquals(assetRepository.count(), counts.total());
+        for (Base base : baseRepository.findAll()) {
+            assertEquals(assetRepository.countByBaseId(base.getId()),
+                counts.facets().get("base").getOrDefault(String.valueOf(base.getId()), 0L));
+        }
+        assertEquals(Map.of("3", 1L), count(Map.of(AssetFacetService.Facet.CATEGORY, List.of(category))).facets().get("base"));
+    }
+
+    private AssetFacetService.FacetCounts count(Map<AssetFacetService.Facet, List<String>> filters) {
+        return assetFacetService.count(filters);
+    }
+
+    private Asset asset(Long baseId, String status) {
+        return fixture.asset(assetType, baseId, status);
+    }
+}
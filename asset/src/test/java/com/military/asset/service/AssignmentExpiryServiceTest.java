@@ -0,0 +1,128 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Assignment;
+import com.military.asset.model.User;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.AssignmentRepository;
+import com.military.asset.repository.AuditLogRepository;
+import com.military.asset.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AssignmentExpiryServiceTest {
+    @Autowired private MockMvc mockMvc;
+    @Autowired private AssignmentExpiryService assignmentExpiryService;
+    @Autowired private AssignmentService assignmentService;
+    @Autowired private AssignmentRepository assignmentRepository;
+    @Autowired private AssetRepository assetRepository;
+    @Autowired private AuditLogRepository auditLogRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void sweepExpiresOnlyOverdueActiveAssignments() {
+        LocalDate today = LocalDate.now();
+        Assignment overdue = newAssignment(today.minusDays(1));
+        Assignment dueToday = newAssignment(today);
+        Assignment returned = newAssignment(today.minusDays(3));
+        returned.setStatus(Assignment.AssignmentStatus.RETURNED);
+        assignmentService.save(returned);
+
+        assignmentExpiryService.sweep(today);
+
+        assertEquals(Assignment.AssignmentStatus.EXPIRED, statusOf(overdue));
+        assertEquals(Assignment.AssignmentStatus.ACTIVE, statusOf(dueToday));
+        assertEquals(Assignment.AssignmentStatus.RETURNED, statusOf(returned));
+        assertTrue(auditLogRepository.findAll().stream()
+            .anyMatch(log -> "EXPIRE_ASSIGNMENT".equals(log.getAction()) && overdue.getId().equals(log.getEntityId())));
+
+        // Already expired rows leave the index, so the next sweep has nothing left to do for them
+        assertEquals(0, assignmentExpiryService.sweep(today));
+        assertEquals(1, assignmentExpiryService.sweep(today.plusDays(1)));
+        assertEquals(Assignment.AssignmentStatus.EXPIRED, statusOf(dueToday));
+    }
+
+    @Test
+    void sweepSkipsAssignmentsReturnedOutsideTheService() {
+        LocalDate today = LocalDate.now();
+        Assignment assignment = newAssignment(today.minusDays(2));
+        assignmentExpiryService.sweep(today.minusDays(5));
+
+        // Returned without going through AssignmentService: the index still holds the stale entry
+        assignment.setStatus(Assignment.AssignmentStatus.RETURNED);
+        assignmentRepository.save(assignment);
+
+        assignmentExpiryService.sweep(today);
+        assertEquals(Assignment.AssignmentStatus.RETURNED, statusOf(assignment));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void clearingTheReturnDateOnEditStopsItExpiring() throws Exception {
+        LocalDate today = LocalDate.now();
+        Assignment assignment = newAssignment(today.minusDays(1));
+        String edit = "{\"assetId\":1,\"assignedToId\":" + assignment.getAssignedTo().getId() + ",\"assignmentDate\":\""
+            + assignment.getAssignedDate() + "\",\"returnDate\":null,\"notes\":\"\"}";
+        mockMvc.perform(put("/api/assignments/" + assignment.getId()).contentType(MediaType.APPLICATION_JSON).content(edit))
+            .andExpect(status().isOk());
+        assertNull(assignmentRepository.findById(assignment.getId()).orElseThrow().getReturnDate());
+
+        assignmentExpiryService.sweep(today);
+        assertEquals(Assignment.AssignmentStatus.ACTIVE, statusOf(assignment));
+    }
+
+    @Test
+    void sweepNumbersExpiredRowsByRankWithoutGaps() {
+        LocalDate today = LocalDate.now();
+        List<Assignment> overdue = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Assignment assignment = newAssignment(today.minusDays(1));
+            if (i % 2 == 1) {
+                // Gaps between the ids that expire
+                assignment.setStatus(Assignment.AssignmentStatus.RETURNED);
+                assignmentService.save(assignment);
+            } else {
+                overdue.add(assignment);
+            }
+        }
+
+        int expired = assignmentExpiryService.sweep(today);
+        assertTrue(expired >= overdue.size());
+        List<Long> sequences = overdue.stream()
+            .map(assignment -> assignmentRepository.findById(assignment.getId()).orElseThrow().getChangeSeq()).toList();
+        // Consecutive ranks in id order within one sweep: no numbers are burnt on the gaps
+        assertEquals(sequences.get(0) + 1, sequences.get(1));
+        assertEquals(sequences.get(0) + 2, sequences.get(2));
+    }
+
+    private Assignment newAssignment(LocalDate returnDate) {
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        Assignment assignment = new Assignment();
+        assignment.setAsset(assetRepository.findById(1L).orElseThrow());
+        assignment.setAssignedTo(admin);
+        assignment.setAssignedBy(admin);
+        assignment.setAssignedDate(returnDate.minusDays(30));
+        assignment.setReturnDate(returnDate);
+        return assignmentService.save(assignment, admin);
+    }
+
+    private Assignment.AssignmentStatus statusOf(Assignment assignment) {
+        return assignmentRepository.findById(assignment.getId()).orElseThrow().getStatus();
+    }
+}
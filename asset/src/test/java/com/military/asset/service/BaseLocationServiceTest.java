@@ -0,0 +1,97 @@
+package com.military.asset.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongPredicate;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BaseLocationServiceTest {
+    @Autowired private MockMvc mockMvc;
+    @Autowired private AssetFacetService assetFacetService;
+
+    @Test
+    void treeAgreesWithABruteForceScan() {
+        Random random = new Random(49);
+        List<BaseLocationService.Point> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            points.add(new BaseLocationService.Point(i, "base" + i, Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)),
+                360 * random.nextDouble() - 180));
+        }
+        BaseLocationService.Tree tree = BaseLocationService.Tree.build(points);
+
+        for (int q = 0; q < 200; q++) {
+            double latitude = 180 * random.nextDouble() - 90;
+            double longitude = 360 * random.nextDouble() - 180;
+            double[] origin = BaseLocationService.unitVector(latitude, longitude);
+            LongPredicate accept = q % 2 == 0 ? id -> true : id -> id % 3 == 0;
+            double radius = q % 4 < 2 ? Double.POSITIVE_INFINITY : BaseLocationService.chord2(500);
+
+            List<Long> expected = points.stream()
+                .filter(p -> accept.test(p.id()) && chord2(origin, p) <= radius)
+                .sorted(Comparator.comparingDouble(p -> chord2(origin, p)))
+                .limit(8).map(BaseLocationService.Point::id).toList();
+            List<Long> actual = tree.nearest(origin, 8, radius, accept).stream().map(hit -> tree.ids[hit.node()]).toList();
+            assertEquals(expected, actual, "query " + q);
+        }
+    }
+
+    @Test
+    void distancesAreGreatCircleAcrossTheDateLine() {
+        BaseLocationService.Tree tree = BaseLocationService.Tree.build(List.of(
+            new BaseLocationService.Point(1, "east", 0, 179.9),
+            new BaseLocationService.Point(2, "west", 0, -170)));
+        List<BaseLocationService.Hit> hits = tree.nearest(BaseLocationService.unitVector(0, -179.9), 1, Double.POSITIVE_INFINITY, id -> true);
+        assertEquals(1, tree.ids[hits.get(0).node()]);
+        // 0.2 degrees of the equator
+        assertEquals(22.24, BaseLocationService.kilometres(hits.get(0).chord2()), 0.01);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void nearbyBasesCombineDistanceWithAssetCounts() throws Exception {
+        assetFacetService.rebuild();
+
+        // Around Fort Benning: Fort Stewart is about 330 km away, Fort Bragg about 600 km
+        mockMvc.perform(get("/api/bases/nearby").param("baseId", "4").param("radiusKm", "400"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].baseId").value(5))
+            .andExpect(jsonPath("$[0].distanceKm", closeTo(330, 20)));
+        mockMvc.perform(get("/api/bases/nearby").param("baseId", "4").param("limit", "2"))
+            .andExpect(jsonPath("$[*].baseId").value(contains(5, 3)));
+
+        // The only generator is at Fort Hood
+        mockMvc.perform(get("/api/bases/nearby").param("latitude", "32.36").param("longitude", "-84.95")
+                .param("assetTypeId", "7").param("status", "ACTIVE"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].baseId").value(1))
+            .andExpect(jsonPath("$[0].assetCount").value(1));
+
+        mockMvc.perform(get("/api/bases/nearby").param("latitude", "91").param("longitude", "0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static double chord2(double[] origin, BaseLocationService.Point point) {
+        double[] v = BaseLocationService.unitVector(point.latitude(), point.longitude());
+        double dx = v[0] - origin[0], dy = v[1] - origin[1], dz = v[2] - origin[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
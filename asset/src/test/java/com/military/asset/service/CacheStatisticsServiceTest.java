@@ -0,0 +1,70 @@
+package com.military.asset.service;
+
+import com.military.asset.config.HibernateCacheConfig;
+import com.military.asset.model.Base;
+import com.military.asset.model.User;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CacheStatisticsServiceTest {
+    @Autowired private CacheStatisticsService cacheStatisticsService;
+    @Autowired private BaseRepository baseRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private BaseService baseService;
+
+    @Test
+    void repeatedReferenceLookupsAreServedFromCache() {
+        Base base = new Base();
+        base.setName("Cache Base " + System.nanoTime());
+        base.setLocation("Nowhere");
+        Long id = baseService.save(base).getId();
+
+        baseRepository.findById(id);
+        long hits = region(HibernateCacheConfig.BASE_REGION).hits();
+        baseRepository.findById(id);
+        baseRepository.findById(id);
+        CacheStatisticsService.RegionStatistics stats = region(HibernateCacheConfig.BASE_REGION);
+        assertEquals(hits + 2, stats.hits());
+        assertTrue(stats.size() > 0);
+
+        // Updates go through the cache, so the next read sees them without a stale entry
+        Base loaded = baseRepository.findById(id).orElseThrow();
+        loaded.setLocation("Somewhere");
+        baseService.save(loaded);
+        assertEquals("Somewhere", baseRepository.findById(id).orElseThrow().getLocation());
+    }
+
+    @Test
+    void findByUsernameUsesQueryCacheUntilUsersChange() {
+        User user = new User();
+        user.setUsername("cache-user-" + System.nanoTime());
+        user.setPassword("x");
+        user.setRole(User.Role.LOGISTICS_OFFICER);
+        userRepository.save(user);
+
+        userRepository.findByUsername(user.getUsername());
+        long hits = region(HibernateCacheConfig.QUERY_REGION).hits();
+        assertTrue(userRepository.findByUsername(user.getUsername()).isPresent());
+        assertEquals(hits + 1, region(HibernateCacheConfig.QUERY_REGION).hits());
+
+        // Writing the user table invalidates the cached result
+        User loaded = userRepository.findByUsername(user.getUsername()).orElseThrow();
+        loaded.setRole(User.Role.BASE_COMMANDER);
+        userRepository.save(loaded);
+        assertEquals(User.Role.BASE_COMMANDER, userRepository.findByUsername(user.getUsername()).orElseThrow().getRole());
+    }
+
+    private CacheStatisticsService.RegionStatistics region(String name) {
+        List<CacheStatisticsService.RegionStatistics> regions = cacheStatisticsService.regions();
+        return regions.stream().filter(r -> r.region().equals(name)).findFirst().orElseThrow();
+    }
+}
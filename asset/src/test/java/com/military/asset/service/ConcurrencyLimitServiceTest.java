@@ -0,0 +1,107 @@
+package com.military.asset.service;
+
+import com.military.asset.filter.EndpointClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitServiceTest {
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void readsLeaveTheReserveToWritesAndAuth() {
+        ConcurrencyLimitService limiter = new ConcurrencyLimitService(true, 10, 4, clock::get);
+        List<ConcurrencyLimitService.Permit> reads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            reads.add(assertAdmitted(limiter, EndpointClass.READ));
+        }
+        assertNull(limiter.tryAcquire(EndpointClass.READ));
+        assertNull(limiter.tryAcquire(EndpointClass.HEAVY_READ));
+
+        assertAdmitted(limiter, EndpointClass.WRITE);
+        assertAdmitted(limiter, EndpointClass.WRITE);
+        assertAdmitted(limiter, EndpointClass.AUTH);
+        assertAdmitted(limiter, EndpointClass.WRITE);
+        assertNull(limiter.tryAcquire(EndpointClass.WRITE));
+        assertEquals(10, limiter.getTotalInFlight());
+
+        reads.get(0).release();
+        assertNull(limiter.tryAcquire(EndpointClass.READ));
+        assertAdmitted(limiter, EndpointClass.AUTH);
+
+        ConcurrencyLimitService.LaneStatistics heavy = lane(limiter, EndpointClass.HEAVY_READ);
+        assertEquals(0, heavy.admitted());
+        assertEquals(1, heavy.shed());
+    }
+
+    @Test
+    void limitFollowsLatency() {
+        ConcurrencyLimitService limiter = new ConcurrencyLimitService(true, 100, 0, clock::get);
+
+        // Steady 10 ms responses with the limit in use: the limit grows
+        for (int round = 0; round < 30; round++) {
+            runRound(limiter, 10);
+        }
+        int grown = lane(limiter, EndpointClass.HEAVY_READ).limit();
+        assertTrue(grown > ConcurrencyLimitService.INITIAL_LIMIT, "limit " + grown);
+
+        // Requests start queueing and take ten times as long: the limit backs off and the excess is shed
+        for (int round = 0; round < 10; round++) {
+            runRound(limiter, 100);
+        }
+        int shrunk = lane(limiter, EndpointClass.HEAVY_READ).limit();
+        assertTrue(shrunk < grown / 2, "limit " + grown + " -> " + shrunk);
+        List<ConcurrencyLimitService.Permit> held = new ArrayList<>();
+        for (int i = 0; i < shrunk; i++) {
+            held.add(assertAdmitted(limiter, EndpointClass.HEAVY_READ));
+        }
+        assertNull(limiter.tryAcquire(EndpointClass.HEAVY_READ));
+        // Other classes keep their own limits
+        assertAdmitted(limiter, EndpointClass.READ);
+        held.forEach(ConcurrencyLimitService.Permit::release);
+
+        // An idle class does not drift upwards
+        int before = lane(limiter, EndpointClass.READ).limit();
+        for (int i = 0; i < 50; i++) {
+            clock.addAndGet(1_000_000);
+            assertAdmitted(limiter, EndpointClass.READ).release();
+        }
+        assertEquals(before, lane(limiter, EndpointClass.READ).limit());
+    }
+
+    @Test
+    void disabledAdmitsEverything() {
+        ConcurrencyLimitService limiter = new ConcurrencyLimitService(false, 10, 4, clock::get);
+        for (int i = 0; i < 100; i++) {
+            assertAdmitted(limiter, EndpointClass.HEAVY_READ);
+        }
+    }
+
+    // Fills the heavy read limit, then completes every request after latencyMs
+    private void runRound(ConcurrencyLimitService limiter, long latencyMs) {
+        List<ConcurrencyLimitService.Permit> permits = new ArrayList<>();
+        ConcurrencyLimitService.Permit permit;
+        while ((permit = limiter.tryAcquire(EndpointClass.HEAVY_READ)) != null) {
+            permits.add(permit);
+        }
+        clock.addAndGet(latencyMs * 1_000_000);
+        permits.forEach(ConcurrencyLimitService.Permit::release);
+    }
+
+    private static ConcurrencyLimitService.Permit assertAdmitted(ConcurrencyLimitService limiter, EndpointClass endpointClass) {
+        ConcurrencyLimitService.Permit permit = limiter.tryAcquire(endpointClass);
+        assertNotNull(permit, endpointClass + " was shed");
+        return permit;
+    }
+
+    private static ConcurrencyLimitService.LaneStatistics lane(ConcurrencyLimitService limiter, EndpointClass endpointClass) {
+        return limiter.statistics().stream().filter(s -> s.endpointClass() == endpointClass).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,94 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Base;
+import com.military.asset.model.Expenditure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ConsumptionRateServiceTest {
+    @Autowired private ConsumptionRateService consumptionRateService;
+    @Autowired private ExpenditureService expenditureService;
+    @Autowired private IndexFixture fixture;
+
+    private final LocalDate today = LocalDate.now();
+    private Base base;
+    private AssetType assetType;
+    private Asset asset;
+
+    @BeforeEach
+    void setUp() {
+        base = fixture.base(2L);
+        assetType = fixture.assetType("Consumption");
+        asset = fixture.asset(assetType, base.getId(), "ACTIVE");
+    }
+
+    @Test
+    void windowsFollowSavesEditsAndDeletes() {
+        expenditure(today, 1);
+        Expenditure moved = expenditure(today.minusDays(10), 20);
+        Expenditure deleted = expenditure(today.minusDays(50), 300);
+        expenditure(today.minusDays(100), 4000);
+        expenditure(today.plusDays(3), 50000);
+
+        assertEquals(Map.of("7d", 1L, "30d", 21L, "90d", 321L), totals(today));
+        assertEquals(321.0 / 90, rate(today).dailyRates().get("90d"), 1e-9);
+
+        moved.setExpenditureDate(today.minusDays(3));
+        moved.setQuantity(25);
+        expenditureService.save(moved);
+        expenditureService.deleteById(deleted.getId());
+        assertEquals(Map.of("7d", 26L, "30d", 26L, "90d", 26L), totals(today));
+
+        // Days after the newest bucket read as zero and older ones drop out of the window
+        assertEquals(Map.of("7d", 0L, "30d", 0L, "90d", 26L), totals(today.plusDays(40)));
+        assertTrue(consumptionRateService.rates(base.getId(), assetType.getId(), today.plusDays(90)).isEmpty());
+    }
+
+    @Test
+    void rebuildMatchesIncrementalUpdates() {
+        for (int day = 0; day < 120; day += 7) {
+            expenditure(today.minusDays(day), day + 1);
+        }
+        Map<String, Long> incremental = totals(today);
+
+        consumptionRateService.rebuild();
+        assertEquals(incremental, totals(today));
+        long expected90 = 0;
+        for (int day = 0; day < 90; day += 7) {
+            expected90 += day + 1;
+        }
+        assertEquals(expected90, incremental.get("90d"));
+    }
+
+    private Map<String, Long> totals(LocalDate asOf) {
+        return rate(asOf).totals();
+    }
+
+    private ConsumptionRateService.ConsumptionRate rate(LocalDate asOf) {
+        List<ConsumptionRateService.ConsumptionRate> rates = consumptionRateService.rates(base.getId(), assetType.getId(), asOf);
+        assertEquals(1, rates.size());
+        return rates.get(0);
+    }
+
+    private Expenditure expenditure(LocalDate date, int quantity) {
+        Expenditure expenditure = new Expenditure();
+        expenditure.setAsset(asset);
+        expenditure.setBase(base);
+        expenditure.setQuantity(quantity);
+        expenditure.setReason("Consumption test");
+        expenditure.setExpenditureDate(date);
+        return expenditureService.save(expenditure);
+    }
+}
@@ -0,0 +1,174 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Assignment;
+import com.military.asset.model.Transfer;
+import com.military.asset.model.User;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.AssetTypeRepository;
+import com.military.asset.repository.AssignmentHistoryRepository;
+import com.military.asset.repository.AssignmentRepository;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.TransferHistoryRepository;
+import com.military.asset.repository.TransferRepository;
+import com.military.asset.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class HistoryArchiveServiceTest {
+    @Autowired private HistoryArchiveService historyArchiveService;
+    @Autowired private AssignmentService assignmentService;
+    @Autowired private TransferService transferService;
+    @Autowired private TransferFlowService transferFlowService;
+    @Autowired private AssignmentRepository assignmentRepository;
+    @Autowired private AssignmentHistoryRepository assignmentHistoryRepository;
+    @Autowired private TransferRepository transferRepository;
+    @Autowired private TransferHistoryRepository transferHistoryRepository;
+    @Autowired private AssetRepository assetRepository;
+    @Autowired private AssetTypeRepository assetTypeRepository;
+    @Autowired private BaseRepository baseRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ShardRouter shardRouter;
+
+    // Dates well before data.sql so only this test's rows fall under the cutoff
+    private final LocalDate cutoff = LocalDate.of(1991, 1, 1);
+    private User admin;
+    private AssetType assetType;
+
+    @BeforeEach
+    void setUp() {
+        admin = userRepository.findByUsername("admin").orElseThrow();
+        assetType = new AssetType();
+        assetType.setName("History test " + System.nanoTime());
+        assetType.setCategory("Test");
+        assetType = assetTypeRepository.save(assetType);
+    }
+
+    @Test
+    void closedAssignmentsMoveAndListsStillSeeThem() {
+        Asset asset = asset(1L);
+        Assignment returned = assignment(asset, LocalDate.of(1990, 1, 5), Assignment.AssignmentStatus.RETURNED);
+        Assignment expired = assignment(asset, LocalDate.of(1990, 2, 5), Assignment.AssignmentStatus.EXPIRED);
+        Assignment active = assignment(asset, LocalDate.of(1990, 3, 5), Assignment.AssignmentStatus.ACTIVE);
+        Assignment recent = assignment(asset, LocalDate.of(1991, 6, 1), Assignment.AssignmentStatus.RETURNED);
+
+        assertEquals(2, historyArchiveService.archiveAssignments(cutoff));
+        assertFalse(assignmentRepository.existsById(returned.getId()));
+        assertTrue(assignmentHistoryRepository.existsById(expired.getId()));
+        assertTrue(assignmentRepository.existsById(active.getId()));
+        assertTrue(historyArchiveService.assignmentHistoryReaches(LocalDate.of(1990, 12, 31)));
+
+        assertEquals(Set.of(returned.getId(), expired.getId(), active.getId(), recent.getId()),
+            assignmentIds(assignmentService.findByFilters(null, asset.getId(), null, null)));
+        assertEquals(4, assignmentService.countByFilters(null, asset.getId(), null, null));
+        assertEquals(Set.of(returned.getId(), expired.getId(), active.getId()),
+            assignmentIds(assignmentService.findByFilters(null, asset.getId(), "1990-01-01", "1990-12-31")));
+        assertEquals(Set.of(recent.getId()),
+            assignmentIds(assignmentService.findByFilters(null, asset.getId(), "1991-05-01", "1991-07-01")));
+
+        // Archived rows keep their ids and come back in the live shape
+        Assignment archived = assignmentService.findByFilters(null, asset.getId(), "1990-01-01", "1990-01-31").get(0);
+        assertEquals(Assignment.AssignmentStatus.RETURNED, archived.getStatus());
+        assertEquals(asset.getId(), archived.getAsset().getId());
+
+        assignmentService.deleteById(returned.getId());
+        assertFalse(assignmentHistoryRepository.existsById(returned.getId()));
+        assertEquals(0, historyArchiveService.archiveAssignments(cutoff));
+    }
+
+    @Test
+    void closedTransfersMoveAndStayOnTheFlowMatrix() {
+        Transfer completed = transfer(1L, 2L, LocalDate.of(1990, 4, 1));
+        transferService.approveTransfer(completed.getId(), admin);
+        transferService.completeTransfer(completed.getId(), admin);
+        Transfer rejected = transfer(1L, 3L, LocalDate.of(1990, 4, 2));
+        transferService.rejectTransfer(rejected.getId(), admin);
+        Transfer pending = transfer(2L, 3L, LocalDate.of(1990, 4, 3));
+
+        assertEquals(2, historyArchiveService.archiveTransfers(cutoff));
+        assertFalse(transferRepository.existsById(completed.getId()));
+        assertTrue(transferHistoryRepository.existsById(rejected.getId()));
+        assertTrue(transferRepository.existsById(pending.getId()));
+
+        List<Transfer> all = transferService.findByFilters(null, assetType.getId(), null, null);
+        assertEquals(Set.of(completed.getId(), rejected.getId(), pending.getId()),
+            all.stream().map(Transfer::getId).collect(Collectors.toSet()));
+        assertEquals(3, transferService.countByFilters(null, assetType.getId(), "1990-01-01", "1990-12-31"));
+        assertEquals(0, transferService.countByFilters(null, assetType.getId(), "1991-01-01", "1991-12-31"));
+
+        transferFlowService.rebuild();
+        TransferFlowService.FlowMatrix flows = transferFlowService.flows(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31),
+            null, assetType.getId(), EnumSet.allOf(Transfer.TransferStatus.class), true);
+        assertEquals(3, flows.total());
+    }
+
+    @Test
+    void rowsArchivedByAnotherInstanceStayInThisInstancesLists() {
+        Asset asset = asset(1L);
+        Assignment returned = assignment(asset, LocalDate.of(1991, 8, 1), Assignment.AssignmentStatus.RETURNED);
+        // Another application instance: same database, its own service
+        HistoryArchiveService other = new HistoryArchiveService(assignmentRepository, assignmentHistoryRepository,
+            transferRepository, transferHistoryRepository, transactionManager, jdbcTemplate, shardRouter, 180, 1000, 0);
+
+        // At least this row; another test's 1991 row may be moved along with it
+        assertTrue(other.archiveAssignments(LocalDate.of(1992, 1, 1)) >= 1);
+        assertFalse(assignmentRepository.existsById(returned.getId()));
+        assertTrue(historyArchiveService.assignmentHistoryReaches(LocalDate.of(1991, 12, 31)));
+        assertEquals(Set.of(returned.getId()),
+            assignmentIds(assignmentService.findByFilters(null, asset.getId(), "1991-07-01", "1991-09-01")));
+    }
+
+    private Set<Long> assignmentIds(List<Assignment> assignments) {
+        return assignments.stream().map(Assignment::getId).collect(Collectors.toSet());
+    }
+
+    private Asset asset(Long baseId) {
+        Asset asset = new Asset();
+        asset.setSerialNumber("HIST-" + System.nanoTime());
+        asset.setStatus("ACTIVE");
+        asset.setAssetType(assetType);
+        asset.setBase(baseRepository.findById(baseId).orElseThrow());
+        return assetRepository.save(asset);
+    }
+
+    private Assignment assignment(Asset asset, LocalDate assignedDate, Assignment.AssignmentStatus status) {
+        Assignment assignment = new Assignment();
+        assignment.setAsset(asset);
+        assignment.setAssignedTo(admin);
+        assignment.setAssignedBy(admin);
+        assignment.setAssignedDate(assignedDate);
+        assignment.setReturnDate(status == Assignment.AssignmentStatus.ACTIVE ? null : assignedDate.plusDays(10));
+        assignment.setStatus(status);
+        return assignmentService.save(assignment);
+    }
+
+    private Transfer transfer(Long fromBaseId, Long toBaseId, LocalDate date) {
+        Asset asset = asset(fromBaseId);
+        Transfer transfer = new Transfer();
+        transfer.setAsset(asset);
+        transfer.setFromBase(asset.getBase());
+        transfer.setToBase(baseRepository.findById(toBaseId).orElseThrow());
+        transfer.setDate(date);
+        transfer.setReason("History test");
+        transfer.setCreatedBy(admin);
+        return transferService.save(transfer);
+    }
+}
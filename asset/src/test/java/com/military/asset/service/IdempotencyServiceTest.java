@@ -0,0 +1,168 @@
+package com.military.asset.service;
+
+import com.military.asset.filter.IdempotencyFilter;
+import com.military.asset.model.IdempotencyRecord;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyServiceTest {
+    private static final int THREADS = 4;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private IdempotencyService idempotencyService;
+    @Autowired private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired private BaseRepository baseRepository;
+
+    @Test
+    void requestsWaitingOnAnInFlightKeyGetTheOwnersResponse() throws Exception {
+        String key = key();
+        assertNull(idempotencyService.claim(key));
+        CompletableFuture<IdempotencyRecord> waiter = idempotencyService.claim(key);
+        assertNotNull(waiter);
+        assertFalse(waiter.isDone());
+        idempotencyService.complete(record(key, "first", LocalDateTime.now()));
+        assertEquals("first", waiter.get(1, TimeUnit.SECONDS).getBody());
+        assertEquals("first", idempotencyService.findCompleted(key).orElseThrow().getBody());
+
+        // An owner that fails hands the key on: waiters get nothing and the next claim owns it
+        String failed = key();
+        assertNull(idempotencyService.claim(failed));
+        CompletableFuture<IdempotencyRecord> next = idempotencyService.claim(failed);
+        idempotencyService.release(failed);
+        assertNull(next.get(1, TimeUnit.SECONDS));
+        assertNull(idempotencyService.claim(failed));
+        idempotencyService.release(failed);
+    }
+
+    @Test
+    void expiredResponsesAreNotReplayedAndTheKeyCanBeReused() {
+        String key = key();
+        idempotencyRecordRepository.save(record(key, "stale", LocalDateTime.now().minusHours(25)));
+        assertTrue(idempotencyService.findCompleted(key).isEmpty());
+        assertNull(idempotencyService.claim(key));
+        idempotencyService.complete(record(key, "fresh", LocalDateTime.now()));
+        assertEquals("fresh", idempotencyRecordRepository.findById(key).orElseThrow().getBody());
+        assertEquals("fresh", idempotencyService.findCompleted(key).orElseThrow().getBody());
+
+        String old = key();
+        idempotencyRecordRepository.save(record(old, "old", LocalDateTime.now().minusHours(25)));
+        idempotencyService.purgeExpired();
+        assertFalse(idempotencyRecordRepository.existsById(old));
+        assertTrue(idempotencyRecordRepository.existsById(key));
+    }
+
+    @Test
+    void instancesFinishingTheSameKeyKeepTheFirstStoredResponse() {
+        // A second instance: same table, its own cache and in-flight map
+        IdempotencyService other = new IdempotencyService(idempotencyRecordRepository, 100, 24);
+        String key = key();
+        assertNull(idempotencyService.claim(key));
+        assertNull(other.claim(key));
+        idempotencyService.complete(record(key, "first", LocalDateTime.now()));
+        other.complete(record(key, "second", LocalDateTime.now()));
+        assertEquals("first", idempotencyRecordRepository.findById(key).orElseThrow().getBody());
+        assertEquals("first", other.findCompleted(key).orElseThrow().getBody());
+    }
+
+    @Test
+    void concurrentRequestsWithTheSameKeyRunOnce() throws Exception {
+        String name = "Idempotent base " + UUID.randomUUID();
+        String body = "{\"name\":\"" + name + "\",\"location\":\"Test\"}";
+        String key = UUID.randomUUID().toString();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MvcResult>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/bases").with(user("admin").roles("ADMIN"))
+                        .header(IdempotencyFilter.HEADER, key).contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+                }));
+            }
+            start.countDown();
+            List<MvcResult> results = new ArrayList<>();
+            for (Future<MvcResult> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, baseRepository.findAll().stream().filter(base -> name.equals(base.getName())).count());
+            String created = results.get(0).getResponse().getContentAsString();
+            for (MvcResult result : results) {
+                assertEquals(200, result.getResponse().getStatus());
+                assertEquals(created, result.getResponse().getContentAsString());
+            }
+            assertEquals(THREADS - 1, results.stream()
+                .filter(result -> "true".equals(result.getResponse().getHeader("Idempotent-Replayed"))).count());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void onlyFinalResponsesAreStoredAndKeysStayWithTheirBody() throws Exception {
+        String key = UUID.randomUUID().toString();
+        // No base: the controller's catch-all 400, which a retry must be able to get past
+        String unfinished = "{\"assetTypeId\":1,\"quantity\":1,\"unitPrice\":5,\"purchaseDate\":\"2024-01-01\"}";
+        assertEquals(400, purchase(key, unfinished).getResponse().getStatus());
+        assertNull(purchase(key, unfinished).getResponse().getHeader("Idempotent-Replayed"));
+
+        String body = "{\"assetTypeId\":1,\"baseId\":1,\"quantity\":1,\"unitPrice\":5,\"purchaseDate\":\"2024-01-01\","
+            + "\"supplier\":\"Idempotent\"}";
+        MvcResult created = purchase(key, body);
+        assertEquals(200, created.getResponse().getStatus());
+        MvcResult replayed = purchase(key, body);
+        assertEquals("true", replayed.getResponse().getHeader("Idempotent-Replayed"));
+        assertEquals(created.getResponse().getContentAsString(), replayed.getResponse().getContentAsString());
+        assertEquals(422, purchase(key, body.replace("\"quantity\":1", "\"quantity\":2")).getResponse().getStatus());
+    }
+
+    private MvcResult purchase(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/purchases").with(user("admin").roles("ADMIN"))
+            .header(IdempotencyFilter.HEADER, key).contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+    }
+
+    private static String key() {
+        return "test:" + UUID.randomUUID();
+    }
+
+    private static IdempotencyRecord record(String key, String body, LocalDateTime createdAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKey(key);
+        record.setMethod("POST");
+        record.setPath("/api/bases");
+        record.setStatus(200);
+        record.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        record.setBody(body);
+        record.setCreatedAt(createdAt);
+        return record;
+    }
+}
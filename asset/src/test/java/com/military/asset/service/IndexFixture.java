@@ -0,0 +1,57 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Base;
+import com.military.asset.model.User;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared setup for the tests of the in-memory indexes (facets, consumption rates, spend cube, transfer
+ * flows). Each test counts only rows of an asset type it creates, so its totals stay independent of
+ * data.sql and of what other tests leave behind. Types and assets go through their services, which keep
+ * the indexes current, and every name is unique so the fixture is safe to call any number of times.
+ */
+@Component
+class IndexFixture {
+    private final AssetTypeService assetTypeService;
+    private final AssetService assetService;
+    private final BaseRepository baseRepository;
+    private final UserRepository userRepository;
+
+    IndexFixture(AssetTypeService assetTypeService, AssetService assetService, BaseRepository baseRepository,
+                 UserRepository userRepository) {
+        this.assetTypeService = assetTypeService;
+        this.assetService = assetService;
+        this.baseRepository = baseRepository;
+        this.userRepository = userRepository;
+    }
+
+    // A fresh type that is also alone in its category
+    AssetType assetType(String label) {
+        String name = label + " test " + System.nanoTime();
+        AssetType assetType = new AssetType();
+        assetType.setName(name);
+        assetType.setCategory(name);
+        return assetTypeService.save(assetType);
+    }
+
+    Asset asset(AssetType assetType, Long baseId, String status) {
+        Asset asset = new Asset();
+        asset.setSerialNumber("INDEX-" + System.nanoTime());
+        asset.setStatus(status);
+        asset.setAssetType(assetType);
+        asset.setBase(base(baseId));
+        return assetService.save(asset);
+    }
+
+    Base base(Long id) {
+        return baseRepository.findById(id).orElseThrow();
+    }
+
+    User admin() {
+        return userRepository.findByUsername("admin").orElseThrow();
+    }
+}
@@ -0,0 +1,183 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Assignment;
+import com.military.asset.model.Base;
+import com.military.asset.model.InventoryMovement;
+import com.military.asset.model.Purchase;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.AssetTypeRepository;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.InventoryMovementRepository;
+import com.military.asset.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class InventoryLedgerServiceTest {
+    @Autowired private InventoryLedgerService inventoryLedgerService;
+    @Autowired private PurchaseService purchaseService;
+    @Autowired private AssignmentService assignmentService;
+    @Autowired private AssetRepository assetRepository;
+    @Autowired private InventoryMovementRepository movementRepository;
+    @Autowired private AssetTypeRepository assetTypeRepository;
+    @Autowired private BaseRepository baseRepository;
+    @Autowired private UserRepository userRepository;
+
+    private Base base;
+    private AssetType assetType;
+
+    // A fresh asset type per test keeps the balances independent of data.sql and other tests
+    @BeforeEach
+    void setUp() {
+        base = baseRepository.findById(1L).orElseThrow();
+        assetType = new AssetType();
+        assetType.setName("Ledger test " + System.nanoTime());
+        assetType.setCategory("Test");
+        assetType = assetTypeRepository.save(assetType);
+    }
+
+    @Test
+    void backDatedPurchasesShowUpBehindExistingCheckpoints() {
+        LocalDate today = LocalDate.now();
+        LocalDate purchaseDate = today.minusMonths(14).withDayOfMonth(10);
+        inventoryLedgerService.checkpoint(today);
+
+        Purchase purchase = purchase(purchaseDate, 10);
+        purchase(today.minusMonths(2), 5);
+
+        assertEquals(0, balance(purchaseDate.minusDays(1)));
+        assertEquals(10, balance(purchaseDate));
+        assertEquals(10, balance(today.minusMonths(3)));
+        assertEquals(15, balance(today));
+
+        // Re-saving with a new quantity appends the difference rather than rewriting history
+        purchase.setQuantity(7);
+        purchaseService.save(purchase);
+        assertEquals(12, balance(today));
+        assertEquals(7, inventoryLedgerService.movementsBetween(base.getId(), assetType.getId(), purchaseDate, purchaseDate)
+            .get(InventoryMovement.MovementType.PURCHASE));
+
+        purchaseService.deleteById(purchase.getId());
+        assertEquals(0, balance(today.minusMonths(3)));
+        assertEquals(5, balance(today));
+    }
+
+    @Test
+    void checkpointsAgreeWithFullReplay() {
+        LocalDate today = LocalDate.now();
+        for (int month = 1; month <= 6; month++) {
+            purchase(today.plusMonths(month).withDayOfMonth(1), month);
+        }
+        purchase(today.minusYears(1), 100);
+
+        long[] before = new long[8];
+        for (int month = 0; month < before.length; month++) {
+            before[month] = balance(today.plusMonths(month).withDayOfMonth(1));
+        }
+        inventoryLedgerService.checkpoint(today.plusMonths(8));
+        for (int month = 0; month < before.length; month++) {
+            LocalDate date = today.plusMonths(month).withDayOfMonth(1);
+            assertEquals(before[month], balance(date));
+            assertEquals(replay(date), balance(date));
+        }
+        assertEquals(121, balance(today.plusMonths(7)));
+    }
+
+    @Test
+    void assignmentsStayBookedWhereTheAssetWasWhenAssigned() {
+        LocalDate assigned = LocalDate.now().minusMonths(2);
+        purchase(assigned.minusDays(1), 1);
+        Asset asset = new Asset();
+        asset.setAssetType(assetType);
+        asset.setBase(base);
+        asset.setSerialNumber("LEDGER-" + System.nanoTime());
+        asset.setStatus("ACTIVE");
+        asset = assetRepository.save(asset);
+
+        Assignment assignment = new Assignment();
+        assignment.setAsset(asset);
+        assignment.setAssignedTo(userRepository.findByUsername("admin").orElseThrow());
+        assignment.setAssignedBy(assignment.getAssignedTo());
+        assignment.setAssignedDate(assigned);
+        assignment = assignmentService.save(assignment);
+        assertEquals(0, balance(assigned));
+
+        // The asset moves on to another base, then comes back from the assignment: both legs stay at the first base
+        Base other = baseRepository.findById(2L).orElseThrow();
+        asset.setBase(other);
+        assetRepository.save(asset);
+        assignment.setStatus(Assignment.AssignmentStatus.RETURNED);
+        assignment.setReturnDate(assigned.plusDays(5));
+        assignmentService.save(assignment);
+        assertEquals(1, balance(assigned.plusDays(5)));
+        assertEquals(0, inventoryLedgerService.balanceAt(other.getId(), assetType.getId(), LocalDate.now()));
+    }
+
+    @Test
+    void concurrentSavesOfOnePurchaseAppendItsDifferenceOnce() throws Exception {
+        Purchase purchase = purchase(LocalDate.now(), 1);
+        purchase.setQuantity(9);
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    inventoryLedgerService.recordPurchase(purchase);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(9, balance(LocalDate.now()));
+        assertEquals(2, movementRepository.findBySourceTypeAndSourceId("Purchase", purchase.getId()).size());
+    }
+
+    private long balance(LocalDate date) {
+        return inventoryLedgerService.balanceAt(base.getId(), assetType.getId(), date);
+    }
+
+    private long replay(LocalDate date) {
+        return movementRepository.findAll().stream()
+            .filter(m -> m.getBaseId().equals(base.getId()) && m.getAssetTypeId().equals(assetType.getId()))
+            .filter(m -> !m.getMovementDate().isAfter(date))
+            .mapToLong(InventoryMovement::getQuantity)
+            .sum();
+    }
+
+    private Purchase purchase(LocalDate date, int quantity) {
+        Purchase purchase = new Purchase();
+        purchase.setAssetType(assetType);
+        purchase.setBase(base);
+        purchase.setQuantity(quantity);
+        purchase.setUnitPrice(BigDecimal.TEN);
+        purchase.setTotalAmount(BigDecimal.TEN.multiply(BigDecimal.valueOf(quantity)));
+        purchase.setSupplier("Ledger test");
+        purchase.setDate(date);
+        purchase.setCreatedBy(userRepository.findByUsername("admin").orElseThrow());
+        return purchaseService.save(purchase);
+    }
+}
@@ -0,0 +1,103 @@
+package com.military.asset.service;
+
+import com.military.asset.filter.EndpointClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitServiceTest {
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void burstThenRefillAtTheConfiguredRate() {
+        // 5 at once, then one every 2 seconds
+        RateLimitService limits = new RateLimitService(true, clock::get).limit("ADMIN", EndpointClass.HEAVY_READ, 5, 30);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limits.acquire("user:admin", "ADMIN", EndpointClass.HEAVY_READ));
+        }
+        assertEquals(2000, limits.acquire("user:admin", "ADMIN", EndpointClass.HEAVY_READ));
+        // Other callers and classes have their own buckets; classes without a limit are not limited
+        assertEquals(0, limits.acquire("user:other", "ADMIN", EndpointClass.HEAVY_READ));
+        assertEquals(0, limits.acquire("user:admin", "ADMIN", EndpointClass.READ));
+
+        clock.addAndGet(1500);
+        assertEquals(500, limits.acquire("user:admin", "ADMIN", EndpointClass.HEAVY_READ));
+        // Polling every few milliseconds still accrues the fractions
+        for (int i = 0; i < 100; i++) {
+            clock.addAndGet(5);
+            limits.acquire("user:admin", "ADMIN", EndpointClass.HEAVY_READ);
+        }
+        clock.addAndGet(1);
+        assertEquals(1999, limits.acquire("user:admin", "ADMIN", EndpointClass.HEAVY_READ));
+
+        // Never more than the burst, however long the caller was away
+        clock.addAndGet(3_600_000);
+        int allowed = 0;
+        while (limits.acquire("user:admin", "ADMIN", EndpointClass.HEAVY_READ) == 0) {
+            allowed++;
+        }
+        assertEquals(5, allowed);
+
+        RateLimitService.ThrottleStatistics stats = limits.statistics().stream()
+            .filter(s -> s.endpointClass() == EndpointClass.HEAVY_READ).findFirst().orElseThrow();
+        assertEquals(12, stats.allowed());
+        assertTrue(stats.throttled() >= 3);
+    }
+
+    @Test
+    void concurrentCallersNeverOverdrawABucket() throws Exception {
+        RateLimitService limits = new RateLimitService(true, clock::get).limit("BASE_COMMANDER", EndpointClass.WRITE, 100, 1);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (limits.acquire("user:commander1", "BASE_COMMANDER", EndpointClass.WRITE) == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    void idleBucketsAreDroppedOnceFullAndLimitsAreChecked() {
+        RateLimitService limits = new RateLimitService(true, clock::get).limit("ADMIN", EndpointClass.WRITE, 2, 60);
+        limits.acquire("user:a", "ADMIN", EndpointClass.WRITE);
+        limits.acquire("user:b", "ADMIN", EndpointClass.WRITE);
+        limits.acquire("user:b", "ADMIN", EndpointClass.WRITE);
+        assertEquals(2, limits.bucketCount());
+        clock.addAndGet(1000);
+        limits.removeIdleBuckets();
+        assertEquals(1, limits.bucketCount());
+        clock.addAndGet(1000);
+        limits.removeIdleBuckets();
+        assertEquals(0, limits.bucketCount());
+
+        RateLimitService disabled = new RateLimitService(false, clock::get).limit("ADMIN", EndpointClass.WRITE, 1, 1);
+        assertEquals(0, disabled.acquire("user:a", "ADMIN", EndpointClass.WRITE));
+        assertEquals(0, disabled.acquire("user:a", "ADMIN", EndpointClass.WRITE));
+        assertThrows(IllegalArgumentException.class, () -> limits.limit("ADMIN", EndpointClass.READ, 0, 10));
+    }
+}
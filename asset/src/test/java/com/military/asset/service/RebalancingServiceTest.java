@@ -0,0 +1,137 @@
+package com.military.asset.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.TransferRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RebalancingServiceTest {
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private AssetFacetService assetFacetService;
+    @Autowired private RebalancingService rebalancingService;
+    @Autowired private TransferRepository transferRepository;
+    @Autowired private AssetRepository assetRepository;
+    @Autowired private BaseLocationService baseLocationService;
+    @Autowired private ShardRouter shardRouter;
+
+    @Test
+    void flowReroutesWhereTheGreedyChoiceIsWrong() {
+        // Sending A to its nearest shortage (X) would leave B the 100 km route; A->Y and B->X cost 4 in all
+        RebalancingService.FlowNetwork network = new RebalancingService.FlowNetwork(6);
+        network.addEdge(0, 1, 1, 0);
+        network.addEdge(0, 2, 1, 0);
+        int ax = network.addEdge(1, 3, 10, 1);
+        int ay = network.addEdge(1, 4, 10, 2);
+        int bx = network.addEdge(2, 3, 10, 2);
+        int by = network.addEdge(2, 4, 10, 100);
+        network.addEdge(3, 5, 1, 0);
+        network.addEdge(4, 5, 1, 0);
+        assertTrue(network.minCostFlow(0, 5, Long.MAX_VALUE));
+        assertEquals(0, network.flow(ax));
+        assertEquals(1, network.flow(ay));
+        assertEquals(1, network.flow(bx));
+        assertEquals(0, network.flow(by));
+    }
+
+    @Test
+    void plansFromNearbySurplusAndStopsAtTheBudget() {
+        // Seeded coordinates: Fort Stewart (5) is nearer Fort Benning (4) than Fort Hood (1) is
+        Map<Long, Long> levels = Map.of(1L, 0L, 5L, 0L, 4L, 3L);
+        Map<Long, Long> stock = Map.of(1L, 2L, 5L, 2L, 4L, 0L);
+        RebalancingService.TypePlan plan = rebalancingService.solve(3L, levels, stock, stock, Long.MAX_VALUE);
+        assertTrue(plan.complete());
+        assertEquals(4, plan.surplus());
+        assertEquals(3, plan.shortage());
+        assertEquals(3, plan.moved());
+        Map<Long, Long> fromBase = new HashMap<>();
+        plan.moves().forEach(move -> fromBase.merge(move.fromBaseId(), move.quantity(), Long::sum));
+        assertEquals(Map.of(5L, 2L, 1L, 1L), fromBase);
+
+        RebalancingService.TypePlan outOfTime = rebalancingService.solve(3L, levels, stock, stock, System.nanoTime() - 1);
+        assertFalse(outOfTime.complete());
+        assertEquals(0, outOfTime.moved());
+    }
+
+    @Test
+    void capsRoutesAtTheNearestShortages() {
+        // Two routes for two surplus bases: each reaches only its nearest short base, Fort Benning (4)
+        RebalancingService capped = new RebalancingService(assetFacetService, baseLocationService, assetRepository,
+            transferRepository, shardRouter, 2000, 2, 1);
+        try {
+            Map<Long, Long> levels = Map.of(1L, 0L, 5L, 0L, 4L, 2L, 2L, 2L);
+            Map<Long, Long> stock = Map.of(1L, 2L, 5L, 2L, 4L, 0L, 2L, 0L);
+            RebalancingService.TypePlan plan = capped.solve(3L, levels, stock, stock, Long.MAX_VALUE);
+            assertTrue(plan.complete());
+            assertEquals(2, plan.moved());
+            assertTrue(plan.moves().stream().allMatch(move -> move.toBaseId() == 4L), plan.moves().toString());
+        } finally {
+            capped.shutdown();
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void suggestedTransfersCanBeSubmittedInOneCall() throws Exception {
+        assetFacetService.rebuild();
+        // Fort Hood's two active rifles are wanted at Fort Benning and Fort Bragg, but rifle 5 is already on a pending
+        // transfer to Fort Benning: only rifle 6 can move, and only Fort Bragg still needs one
+        String request = "{\"targets\":[{\"baseId\":1,\"assetTypeId\":3,\"level\":0},"
+            + "{\"baseId\":4,\"assetTypeId\":3,\"level\":1},{\"baseId\":2,\"assetTypeId\":3,\"level\":1}]}";
+        JsonNode plan = objectMapper.readTree(mockMvc.perform(post("/api/transfers/rebalance")
+                .contentType(MediaType.APPLICATION_JSON).content(request))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        assertEquals(1, plan.at("/assetTypes/0/surplus").asLong());
+        assertEquals(1, plan.at("/assetTypes/0/shortage").asLong());
+        assertEquals(1, plan.at("/assetTypes/0/moved").asLong());
+        JsonNode transfers = plan.get("transfers");
+        assertEquals(1, transfers.size());
+        assertEquals(6, transfers.get(0).get("assetId").asLong());
+        assertEquals(1, transfers.get(0).get("fromBaseId").asLong());
+        assertEquals(2, transfers.get(0).get("toBaseId").asLong());
+
+        JsonNode created = objectMapper.readTree(mockMvc.perform(post("/api/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON).content(transfers.toString()))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        assertEquals(1, created.size());
+        assertEquals("PENDING", created.get(0).get("status").asText());
+
+        // Now in an open transfer, so not suggested again; a batch naming it twice is refused whole
+        JsonNode again = objectMapper.readTree(mockMvc.perform(post("/api/transfers/rebalance")
+                .contentType(MediaType.APPLICATION_JSON).content(request))
+            .andReturn().getResponse().getContentAsString());
+        assertEquals(0, again.at("/assetTypes/0/moved").asLong());
+        assertEquals(0, again.get("transfers").size());
+        mockMvc.perform(post("/api/transfers/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[" + transfers.get(0) + "," + transfers.get(0) + "]"))
+            .andExpect(status().isBadRequest());
+        // Nor can it join another open transfer, and the rest of such a batch is not created either
+        String radio = "{\"assetId\":7,\"fromBaseId\":1,\"toBaseId\":3,\"transferDate\":\"2024-08-01\",\"reason\":\"Batch\"}";
+        int radioTransfers = transferRepository.findByAssetId(7L).size();
+        mockMvc.perform(post("/api/transfers/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[" + radio + "," + transfers.get(0) + "]"))
+            .andExpect(status().isBadRequest());
+        assertEquals(radioTransfers, transferRepository.findByAssetId(7L).size());
+
+        mockMvc.perform(delete("/api/transfers/" + created.get(0).get("id").asLong()));
+    }
+}
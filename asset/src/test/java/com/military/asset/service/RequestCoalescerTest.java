@@ -0,0 +1,103 @@
+package com.military.asset.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    @Test
+    void concurrentIdenticalCallsShareOneExecution() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, 10_000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 20;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> coalescer.coalesce("metrics", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return new Object();
+                }, 1L, null)));
+            }
+            // Let every caller join the in-flight read before it finishes
+            waitFor(() -> stats(coalescer, "metrics").calls() == callers);
+            release.countDown();
+
+            Object first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            RequestCoalescer.CoalescingStatistics stats = stats(coalescer, "metrics");
+            assertEquals(1, stats.executions());
+            assertEquals(callers - 1, stats.absorbed());
+
+            // Finished reads are not cached, and different arguments never share
+            coalescer.coalesce("metrics", Object::new, 1L, null);
+            coalescer.coalesce("metrics", Object::new, 2L, null);
+            assertEquals(3, stats(coalescer, "metrics").executions());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitersGiveUpAfterMaxWaitAndShareFailures() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slow = pool.submit(() -> coalescer.coalesce("logs", () -> {
+                await(release);
+                throw new IllegalArgumentException("boom");
+            }));
+            waitFor(() -> stats(coalescer, "logs").executions() == 1);
+
+            // The slow read is still running, so this waiter times out and runs its own
+            assertEquals("own", coalescer.coalesce("logs", () -> "own"));
+            assertEquals(1, stats(coalescer, "logs").timeouts());
+
+            release.countDown();
+            Exception failure = assertThrows(Exception.class, () -> slow.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IllegalArgumentException);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static RequestCoalescer.CoalescingStatistics stats(RequestCoalescer coalescer, String name) {
+        return coalescer.statistics().stream().filter(s -> s.name().equals(name)).findFirst()
+            .orElse(new RequestCoalescer.CoalescingStatistics(name, 0, 0, 0, 0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.Base;
+import com.military.asset.repository.AssetTypeRepository;
+import com.military.asset.repository.BaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SearchServiceTest {
+    @Autowired private SearchService searchService;
+    @Autowired private AssetService assetService;
+    @Autowired private BaseService baseService;
+    @Autowired private BaseRepository baseRepository;
+    @Autowired private AssetTypeRepository assetTypeRepository;
+
+    // A token unique to the test keeps hits from data.sql and other tests out of the results
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        searchService.rebuild();
+        token = "zq" + Long.toString(System.nanoTime(), 36);
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordPrefixThenSubstring() {
+        asset("X" + token + "-001");
+        asset(token + "-001-LONG");
+        asset(token);
+        asset(token + "-002");
+        Base base = new Base();
+        base.setName("Camp " + token);
+        base.setLocation("Nowhere");
+        baseService.save(base);
+
+        List<SearchService.SearchHit> hits = searchService.search(token.toUpperCase(), null, 10);
+        assertEquals(List.of(token, token + "-001-LONG", token + "-002", "Camp " + token, "X" + token + "-001"),
+            texts(hits));
+        assertEquals(SearchService.Kind.BASE, hits.get(3).type());
+
+        assertEquals(List.of("Camp " + token), texts(searchService.search(token, Set.of(SearchService.Kind.BASE), 10)));
+        assertEquals(2, searchService.search(token, null, 2).size());
+        // Matches in the middle of a word come from the trigram lists, shortest first
+        assertEquals(List.of(token + "-002", "X" + token + "-001", token + "-001-LONG"),
+            texts(searchService.search(token.substring(2) + "-00", null, 10)));
+    }
+
+    @Test
+    void ranksEveryPrefixMatchBeforeCuttingToTheLimit() {
+        // The word-prefix matches all sort ahead of the prefix match by key
+        for (int i = 0; i < 10; i++) {
+            asset("Lot" + i + " " + token + "-0" + i);
+        }
+        asset(token + "-ZULU");
+        List<SearchService.SearchHit> hits = searchService.search(token, null, 2);
+        assertEquals(List.of(token + "-ZULU", "Lot0 " + token + "-00"), texts(hits));
+    }
+
+    @Test
+    void savesAndDeletesUpdateTheIndexAndSurviveARebuild() {
+        Asset asset = asset(token + "-A");
+        assertEquals(List.of(token + "-A"), texts(searchService.search(token, null, 10)));
+
+        asset.setSerialNumber(token + "-B");
+        assetService.save(asset);
+        assertEquals(List.of(token + "-B"), texts(searchService.search(token, null, 10)));
+
+        searchService.rebuild();
+        assertEquals(List.of(token + "-B"), texts(searchService.search(token, null, 10)));
+        assertEquals(asset.getId(), searchService.search(token, null, 10).get(0).id());
+
+        assetService.deleteById(asset.getId());
+        assertTrue(searchService.search(token, null, 10).isEmpty());
+    }
+
+    private Asset asset(String serialNumber) {
+        Asset asset = new Asset();
+        asset.setSerialNumber(serialNumber);
+        asset.setStatus("ACTIVE");
+        asset.setBase(baseRepository.findById(1L).orElseThrow());
+        asset.setAssetType(assetTypeRepository.findById(1L).orElseThrow());
+        return assetService.save(asset);
+    }
+
+    private static List<String> texts(List<SearchService.SearchHit> hits) {
+        return hits.stream().map(SearchService.SearchHit::text).toList();
+    }
+}
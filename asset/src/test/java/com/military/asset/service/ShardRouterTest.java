@@ -0,0 +1,270 @@
+package com.military.asset.service;
+
+import com.military.asset.config.ShardRoutingDataSource;
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Assignment;
+import com.military.asset.model.Base;
+import com.military.asset.model.Expenditure;
+import com.military.asset.model.InventoryMovement.MovementType;
+import com.military.asset.model.Purchase;
+import com.military.asset.model.Transfer;
+import com.military.asset.model.User;
+import com.military.asset.repository.AssetTypeRepository;
+import com.military.asset.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two embedded databases; the seeded bases stay on the home shard, new ones alternate by id
+@SpringBootTest(properties = {
+    "sharding.enabled=true",
+    "sharding.urls[0]=jdbc:h2:mem:shard0-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+    "sharding.urls[1]=jdbc:h2:mem:shard1-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+    "sharding.bases=1:0,2:0,3:0,4:0,5:0"
+})
+class ShardRouterTest {
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private DataSource dataSource;
+    @Autowired private BaseService baseService;
+    @Autowired private AssetService assetService;
+    @Autowired private PurchaseService purchaseService;
+    @Autowired private TransferService transferService;
+    @Autowired private InventoryLedgerService inventoryLedgerService;
+    @Autowired private ExpenditureService expenditureService;
+    @Autowired private AssignmentService assignmentService;
+    @Autowired private AssetFacetService assetFacetService;
+    @Autowired private SearchService searchService;
+    @Autowired private SpendCubeService spendCubeService;
+    @Autowired private TransferFlowService transferFlowService;
+    @Autowired private ConsumptionRateService consumptionRateService;
+    @Autowired private SyncService syncService;
+    @Autowired private AssignmentExpiryService assignmentExpiryService;
+    @Autowired private HistoryArchiveService historyArchiveService;
+    @Autowired private AssetTypeRepository assetTypeRepository;
+    @Autowired private UserRepository userRepository;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private User admin;
+    private AssetType assetType;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ShardRoutingDataSource routing = dataSource.unwrap(ShardRoutingDataSource.class);
+        shards.clear();
+        for (int shard = 0; shard < routing.getShardCount(); shard++) {
+            shards.add(new JdbcTemplate(routing.getShard(shard)));
+        }
+        admin = userRepository.findByUsername("admin").orElseThrow();
+        assetType = assetTypeRepository.findById(1L).orElseThrow();
+    }
+
+    @Test
+    void referenceRowsAreOnEveryShardAndBaseRowsOnTheirOwn() {
+        assertEquals(2, shardRouter.getShardCount());
+        Base[] bases = twoShards();
+        for (JdbcTemplate shard : shards) {
+            assertEquals(1, count(shard, "SELECT COUNT(*) FROM base WHERE id = ?", bases[1].getId()));
+            assertEquals(1, count(shard, "SELECT COUNT(*) FROM user WHERE id = ?", admin.getId()));
+        }
+
+        Purchase home = purchase(bases[0]);
+        Purchase away = purchase(bases[1]);
+        assertEquals(1, count(shards.get(0), "SELECT COUNT(*) FROM purchase WHERE id = ?", home.getId()));
+        assertEquals(0, count(shards.get(1), "SELECT COUNT(*) FROM purchase WHERE id = ?", home.getId()));
+        assertEquals(1, count(shards.get(1), "SELECT COUNT(*) FROM purchase WHERE id = ?", away.getId()));
+        // Ids carry their shard, so lookups by id need no base
+        assertEquals(1, shardRouter.shardOfId(away.getId()));
+        assertEquals(away.getSupplier(), purchaseService.findById(away.getId()).orElseThrow().getSupplier());
+
+        assertEquals(List.of(away.getId()), ids(purchaseService.findByFilters(bases[1].getId(), null, null, null)));
+        List<Long> all = ids(purchaseService.findByFilters(null, null, null, null));
+        assertTrue(all.contains(home.getId()) && all.contains(away.getId()));
+        assertEquals(all.stream().sorted().toList(), all);
+        assertEquals(all.size(), purchaseService.countByFilters(null, null, null, null));
+    }
+
+    @Test
+    void pagesMergeShardsInIdOrder() {
+        Base[] bases = twoShards();
+        for (int i = 0; i < 3; i++) {
+            purchase(bases[0]);
+            purchase(bases[1]);
+        }
+        List<Long> expected = ids(purchaseService.findByFilters(null, assetType.getId(), null, null));
+        List<Long> paged = new ArrayList<>();
+        Long after = null;
+        List<Purchase> page;
+        do {
+            page = purchaseService.findPage(after, 4, null, assetType.getId(), null, null);
+            paged.addAll(ids(page));
+            after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+        } while (page.size() == 4);
+        assertEquals(expected, paged);
+        assertTrue(paged.stream().anyMatch(id -> shardRouter.shardOfId(id) == 1));
+    }
+
+    @Test
+    void completedTransferMovesTheAssetToItsNewShard() {
+        Base[] bases = twoShards();
+        Asset asset = asset(bases[0]);
+        Transfer transfer = transfer(asset, bases[0], bases[1], LocalDate.now());
+        transferService.approveTransfer(transfer.getId(), admin);
+        transferService.completeTransfer(transfer.getId(), admin);
+
+        Long assetId = asset.getId();
+        assertEquals(1, shardRouter.shardOfAsset(assetId));
+        assertEquals(bases[1].getId(), assetService.findById(assetId).orElseThrow().getBase().getId());
+        assertEquals(List.of(assetId), ids(assetService.findByFilters(bases[1].getId(), null, null, null)));
+        assertTrue(assetService.findByFilters(bases[0].getId(), null, null, null).isEmpty());
+        // The copy left on the old shard is not listed a second time
+        assertEquals(1, assetService.findByFilters(null, assetType.getId(), null, null).stream()
+            .filter(a -> a.getId().equals(assetId)).count());
+
+        // Both legs were recorded on the sending shard; the ledger still sums to the receiving base
+        assertEquals(1L, inventoryLedgerService.movementsBetween(bases[1].getId(), null, null, LocalDate.now())
+            .get(MovementType.TRANSFER_IN));
+    }
+
+    @Test
+    void rebuiltIndexesAndSyncReadEveryShard() {
+        Base[] bases = twoShards();
+        Asset asset = asset(bases[1]);
+        Purchase purchase = purchase(bases[1]);
+        Expenditure expenditure = new Expenditure();
+        expenditure.setAsset(asset);
+        expenditure.setBase(bases[1]);
+        expenditure.setQuantity(4);
+        expenditure.setReason("Training");
+        expenditure.setExpenditureDate(LocalDate.now());
+        expenditureService.save(expenditure);
+        Transfer transfer = transfer(asset, bases[1], bases[0], LocalDate.now());
+
+        assetFacetService.rebuild();
+        assertEquals(1, assetFacetService.count(Map.of(AssetFacetService.Facet.BASE,
+            List.of(String.valueOf(bases[1].getId())))).total());
+        searchService.rebuild();
+        assertEquals(asset.getId(), searchService.search(asset.getSerialNumber(), Set.of(SearchService.Kind.ASSET), 1).get(0).id());
+        assertEquals(1, searchService.search(purchase.getSupplier(), Set.of(SearchService.Kind.SUPPLIER), 5).size());
+        spendCubeService.rebuild();
+        assertEquals(0, new BigDecimal("10.00").compareTo(spendCubeService.aggregate(Set.of(),
+            new SpendCubeService.SpendFilter(null, null, bases[1].getId(), null, null), 1).get(0).amount()));
+        transferFlowService.rebuild();
+        TransferFlowService.FlowMatrix flows = transferFlowService.flows(null, null, null, null, TransferFlowService.DEFAULT_STATUSES, true);
+        assertEquals(1, flows.outbound()[flows.baseIds().indexOf(bases[1].getId())]);
+        consumptionRateService.rebuild();
+        assertEquals(4L, consumptionRateService.rates(bases[1].getId(), null, LocalDate.now()).get(0).totals().get("7d"));
+
+        Set<Long> synced = new HashSet<>();
+        syncService.page(null, SyncService.MAX_LIMIT, List.of("Asset", "Purchase", "Transfer"), List.of("ADMIN"))
+            .changes().forEach(change -> synced.add(change.id()));
+        assertTrue(synced.containsAll(List.of(asset.getId(), purchase.getId(), transfer.getId())), synced.toString());
+    }
+
+    @Test
+    void expiryAndArchivingRunOnEveryShard() {
+        Base[] bases = twoShards();
+        Asset asset = asset(bases[1]);
+        Assignment assignment = new Assignment();
+        assignment.setAsset(asset);
+        assignment.setAssignedTo(admin);
+        assignment.setAssignedBy(admin);
+        assignment.setAssignedDate(LocalDate.now().minusDays(3));
+        assignment.setReturnDate(LocalDate.now().minusDays(1));
+        Long assignmentId = assignmentService.save(assignment).getId();
+        assertEquals(1, shardRouter.shardOfId(assignmentId));
+        assertTrue(assignmentExpiryService.sweep(LocalDate.now()) >= 1);
+        assertEquals("EXPIRED", shards.get(1).queryForObject("SELECT status FROM assignment WHERE id = ?", String.class, assignmentId));
+
+        Transfer transfer = transfer(asset, bases[1], bases[0], LocalDate.now().minusYears(1));
+        transferService.rejectTransfer(transfer.getId(), admin);
+        assertTrue(historyArchiveService.archiveTransfers(LocalDate.now().minusDays(30)) >= 1);
+        assertEquals(1, count(shards.get(1), "SELECT COUNT(*) FROM transfer_history WHERE id = ?", transfer.getId()));
+        assertEquals(0, count(shards.get(1), "SELECT COUNT(*) FROM transfer WHERE id = ?", transfer.getId()));
+        assertTrue(historyArchiveService.transferHistoryReaches(LocalDate.now().minusYears(1)));
+    }
+
+    // A new base on each shard
+    private Base[] twoShards() {
+        Base first = base();
+        Base second = base();
+        while (shardRouter.shardOfBase(second.getId()) == shardRouter.shardOfBase(first.getId())) {
+            second = base();
+        }
+        return shardRouter.shardOfBase(first.getId()) == 0 ? new Base[] { first, second } : new Base[] { second, first };
+    }
+
+    private Base base() {
+        Base base = new Base();
+        base.setName("Shard Base " + NAMES.incrementAndGet());
+        base.setLocation("Grid " + NAMES.get());
+        Base saved = baseService.save(base);
+        assertNotEquals(null, saved.getId());
+        return saved;
+    }
+
+    private Asset asset(Base base) {
+        Asset asset = new Asset();
+        asset.setSerialNumber("SHARD-" + NAMES.incrementAndGet());
+        asset.setStatus("ACTIVE");
+        asset.setAssetType(assetType);
+        asset.setBase(base);
+        return assetService.save(asset);
+    }
+
+    private Transfer transfer(Asset asset, Base from, Base to, LocalDate date) {
+        Transfer transfer = new Transfer();
+        transfer.setAsset(asset);
+        transfer.setFromBase(from);
+        transfer.setToBase(to);
+        transfer.setDate(date);
+        transfer.setReason("Rebalance");
+        transfer.setCreatedBy(admin);
+        return transferService.save(transfer);
+    }
+
+    private Purchase purchase(Base base) {
+        Purchase purchase = new Purchase();
+        purchase.setAssetType(assetType);
+        purchase.setBase(base);
+        purchase.setQuantity(1);
+        purchase.setUnitPrice(BigDecimal.TEN);
+        purchase.setTotalAmount(BigDecimal.TEN);
+        purchase.setSupplier("Supplier " + NAMES.incrementAndGet());
+        purchase.setDate(LocalDate.now());
+        purchase.setCreatedBy(admin);
+        return purchaseService.save(purchase);
+    }
+
+    private static long count(JdbcTemplate shard, String sql, Object... args) {
+        return shard.queryForObject(sql, Long.class, args);
+    }
+
+    private static <T> List<Long> ids(List<T> rows) {
+        List<Long> ids = new ArrayList<>();
+        for (T row : rows) {
+            ids.add(row instanceof Purchase p ? p.getId() : ((Asset) row).getId());
+        }
+        ids.sort(Comparator.naturalOrder());
+        return ids;
+    }
+}
@@ -0,0 +1,107 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Purchase;
+import com.military.asset.model.Transfer;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.PurchaseRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "com.military.asset.service.SparseFieldServiceTest$Recorder")
+class SparseFieldServiceTest {
+    @Autowired private PurchaseService purchaseService;
+    @Autowired private TransferService transferService;
+    @Autowired private PurchaseRepository purchaseRepository;
+    @Autowired private BaseRepository baseRepository;
+
+    @BeforeEach
+    void clear() {
+        Recorder.statements.clear();
+        // Background index builds run their own queries at startup
+        Recorder.thread = Thread.currentThread();
+    }
+
+    @Test
+    void projectsOnlyRequestedColumnsAndAssociations() {
+        List<Map<String, Object>> rows = purchaseService.findFieldsByFilters("supplier,base.name", 1L, null, null, null);
+
+        String sql = onlyStatement();
+        assertTrue(sql.contains("supplier"), sql);
+        assertFalse(sql.contains("description"), sql);
+        assertFalse(sql.contains("unit_price"), sql);
+        assertFalse(sql.contains("asset_type"), sql);
+        assertFalse(sql.contains("join user") || sql.contains("join \"user\""), sql);
+
+        assertFalse(rows.isEmpty());
+        Map<String, Object> row = rows.get(0);
+        assertEquals(List.of("id", "supplier", "base"), List.copyOf(row.keySet()));
+        Purchase purchase = purchaseRepository.findById((Long) row.get("id")).orElseThrow();
+        assertEquals(purchase.getSupplier(), row.get("supplier"));
+        assertEquals(Map.of("id", 1L, "name", baseRepository.findById(1L).orElseThrow().getName()), row.get("base"));
+    }
+
+    @Test
+    void nestedPathsAndNullAssociationsKeepTheirRows() {
+        List<Map<String, Object>> rows = transferService.findFieldsByFilters(
+            "asset.serialNumber,approvedBy.username,status", null, null, "2024-01-01", "2024-12-31");
+
+        String sql = onlyStatement();
+        assertFalse(sql.contains("reason"), sql);
+        assertFalse(sql.contains("asset_type"), sql);
+
+        Map<String, Object> pending = rows.stream()
+            .filter(row -> row.get("status") == Transfer.TransferStatus.PENDING).findFirst().orElseThrow();
+        assertNull(pending.get("approvedBy"));
+        Map<?, ?> asset = (Map<?, ?>) pending.get("asset");
+        assertNotNull(asset.get("serialNumber"));
+        assertEquals(2, asset.size());
+
+        // A whole association brings its own columns, not its associations
+        Map<String, Object> detail = transferService.findFieldsById((Long) pending.get("id"), "asset").orElseThrow();
+        assertEquals(List.of("id", "serialNumber", "status"), List.copyOf(((Map<?, ?>) detail.get("asset")).keySet()));
+    }
+
+    @Test
+    void rejectsUnknownAndHiddenFields() {
+        assertThrows(IllegalArgumentException.class, () -> purchaseService.findFieldsByFilters("nope", null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> purchaseService.findFieldsByFilters("supplier.name", null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> purchaseService.findFieldsByFilters("createdBy.password", null, null, null, null));
+        Map<?, ?> createdBy = (Map<?, ?>) purchaseService.findFieldsByFilters("createdBy", null, null, null, null)
+            .get(0).get("createdBy");
+        assertFalse(createdBy.containsKey("password"));
+    }
+
+    private String onlyStatement() {
+        assertEquals(1, Recorder.statements.size(), Recorder.statements.toString());
+        return Recorder.statements.get(0).toLowerCase(Locale.ROOT);
+    }
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+        static volatile Thread thread;
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == thread) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.military.asset.service;
+
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Purchase;
+import com.military.asset.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class SpendCubeServiceTest {
+    @Autowired private SpendCubeService spendCubeService;
+    @Autowired private PurchaseService purchaseService;
+    @Autowired private IndexFixture fixture;
+
+    private AssetType assetType;
+    private User admin;
+    private SpendCubeService.SpendFilter ofType;
+
+    @BeforeEach
+    void setUp() {
+        assetType = fixture.assetType("Spend");
+        admin = fixture.admin();
+        ofType = new SpendCubeService.SpendFilter(null, assetType.getId(), null, null, null);
+    }
+
+    @Test
+    void rollsUpDrillsDownAndFollowsEdits() {
+        Purchase edited = purchase("Acme", 1L, LocalDate.of(2024, 1, 15), "100.10");
+        purchase("Acme", 2L, LocalDate.of(2024, 1, 20), "50.05");
+        purchase("Acme", 1L, LocalDate.of(2024, 2, 1), "0.01");
+        Purchase deleted = purchase("Bolt", 1L, LocalDate.of(2024, 2, 3), "20.00");
+        purchase("Bolt", 2L, LocalDate.of(2024, 3, 3), "200.00");
+
+        assertEquals(List.of(row(null, null, null, "370.16")), spend(EnumSet.noneOf(SpendCubeService.Dimension.class), ofType));
+        assertEquals(List.of(row("Bolt", null, null, "220.00"), row("Acme", null, null, "150.16")),
+            spendCubeService.topSuppliers(ofType, 10));
+
+        // Drill into Acme by base and month
+        SpendCubeService.SpendFilter acme = new SpendCubeService.SpendFilter("Acme", assetType.getId(), null, null, null);
+        assertEquals(List.of(row(null, 1L, "2024-01", "100.10"), row(null, 2L, "2024-01", "50.05"), row(null, 1L, "2024-02", "0.01")),
+            spend(EnumSet.of(SpendCubeService.Dimension.BASE, SpendCubeService.Dimension.MONTH), acme));
+
+        edited.setSupplier("Bolt");
+        edited.setDate(LocalDate.of(2024, 3, 31));
+        edited.setTotalAmount(new BigDecimal("99.99"));
+        purchaseService.save(edited);
+        purchaseService.deleteById(deleted.getId());
+
+        SpendCubeService.SpendFilter march = new SpendCubeService.SpendFilter(null, assetType.getId(), null,
+            YearMonth.of(2024, 3), YearMonth.of(2024, 3));
+        assertEquals(List.of(row("Bolt", null, null, "299.99")), spendCubeService.topSuppliers(march, 10));
+        assertEquals(List.of(row("Bolt", null, null, "299.99"), row("Acme", null, null, "50.06")),
+            spendCubeService.topSuppliers(ofType, 10));
+        assertEquals(1, spendCubeService.topSuppliers(ofType, 1).size());
+    }
+
+    @Test
+    void rebuildMatchesIncrementalUpdates() {
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            purchase("Supplier " + random.nextInt(5), 1L + random.nextInt(3), LocalDate.of(2023, 1, 1).plusDays(random.nextInt(700)),
+                BigDecimal.valueOf(random.nextInt(1_000_000), 2).toPlainString());
+        }
+        EnumSet<SpendCubeService.Dimension> all = EnumSet.allOf(SpendCubeService.Dimension.class);
+        List<SpendCubeService.SpendRow> incremental = spend(all, ofType);
+
+        spendCubeService.rebuild();
+        assertEquals(incremental, spend(all, ofType));
+    }
+
+    @Test
+    void longMapRemovalKeepsProbeChainsIntact() {
+        LongLongMap map = new LongLongMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, 0L), map.remove(key));
+                expected.remove(key);
+            } else {
+                map.addTo(key, i);
+                expected.merge(key, (long) i, Long::sum);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    private List<SpendCubeService.SpendRow> spend(EnumSet<SpendCubeService.Dimension> groupBy, SpendCubeService.SpendFilter filter) {
+        return spendCubeService.aggregate(groupBy, filter, 1000);
+    }
+
+    private static SpendCubeService.SpendRow row(String supplier, Long baseId, String month, String amount) {
+        return new SpendCubeService.SpendRow(supplier, null, baseId, month, new BigDecimal(amount));
+    }
+
+    private Purchase purchase(String supplier, Long baseId, LocalDate date, String amount) {
+        Purchase purchase = new Purchase();
+        purchase.setAssetType(assetType);
+        purchase.setBase(fixture.base(baseId));
+        purchase.setQuantity(1);
+        purchase.setUnitPrice(new BigDecimal(amount));
+        purchase.setTotalAmount(new BigDecimal(amount));
+        purchase.setSupplier(supplier);
+        purchase.setDate(date);
+        purchase.setCreatedBy(admin);
+        return purchaseService.save(purchase);
+    }
+}
@@ -0,0 +1,162 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Base;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SyncServiceTest {
+    private static final List<String> ADMIN = List.of("ADMIN");
+
+    @Autowired private SyncService syncService;
+    @Autowired private BaseService baseService;
+    @Autowired private ChangeSequenceService changeSequenceService;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Test
+    void pagesThroughEverythingThenOnlyNewChanges() {
+        // A full sync in small pages sees every seeded row exactly once, with ascending sequences
+        Set<String> seen = new HashSet<>();
+        Long since = null;
+        long last = 0;
+        SyncService.SyncPage page;
+        do {
+            page = syncService.page(since, 7, null, ADMIN);
+            for (SyncService.Change change : page.changes()) {
+                assertTrue(change.seq() > last);
+                last = change.seq();
+                assertTrue(seen.add(change.entity() + ":" + change.id()), change.toString());
+            }
+            since = page.watermark();
+        } while (page.hasMore());
+        assertTrue(seen.contains("Base:1"));
+        assertTrue(seen.stream().anyMatch(key -> key.startsWith("Transfer:")));
+
+        Base base = new Base();
+        base.setName("Sync Test Base");
+        base.setLocation("Grid 1");
+        base = baseService.save(base);
+        base.setLocation("Grid 2");
+        baseService.save(base);
+        SyncService.SyncPage changed = syncService.page(since, 100, List.of("Base"), ADMIN);
+        assertEquals(1, changed.changes().size());
+        SyncService.Change upsert = changed.changes().get(0);
+        assertEquals(SyncService.Change.UPSERT, upsert.op());
+        assertEquals("Grid 2", upsert.data().get("location"));
+
+        baseService.deleteById(base.getId());
+        SyncService.SyncPage deleted = syncService.page(changed.watermark(), 100, null, ADMIN);
+        assertEquals(1, deleted.changes().size());
+        assertEquals(SyncService.Change.DELETE, deleted.changes().get(0).op());
+        assertEquals(base.getId(), deleted.changes().get(0).id());
+        assertNull(deleted.changes().get(0).data());
+        assertFalse(deleted.hasMore());
+    }
+
+    @Test
+    void rolesLimitTheEntitiesReturned() {
+        List<SyncService.Change> changes = new ArrayList<>(syncService.page(null, SyncService.MAX_LIMIT, null,
+            List.of("BASE_COMMANDER")).changes());
+        assertFalse(changes.isEmpty());
+        assertTrue(changes.stream().noneMatch(change -> change.entity().equals("Transfer") || change.entity().equals("Purchase")));
+        Map<String, Object> asset = changes.stream().filter(change -> change.entity().equals("Asset"))
+            .findFirst().orElseThrow().data();
+        // Associations come as ids only
+        assertEquals(Set.of("id"), ((Map<?, ?>) asset.get("base")).keySet());
+    }
+
+    @Test
+    void watermarkStopsBeforeAnOpenTransaction() {
+        long before = changeSequenceService.safeWatermark();
+        transactionTemplate.executeWithoutResult(status -> {
+            long taken = changeSequenceService.next();
+            assertEquals(taken - 1, changeSequenceService.safeWatermark());
+            SyncService.SyncPage page = syncService.page(before, 100, null, ADMIN);
+            assertTrue(page.watermark() < taken);
+        });
+        assertTrue(changeSequenceService.safeWatermark() > before);
+    }
+
+    @Test
+    void watermarkStopsBeforeAnotherInstancesOpenTransaction() {
+        ChangeSequenceService other = instance();
+        long[] taken = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            taken[0] = other.next();
+            // A later number committed through this instance does not lift the watermark past it
+            Thread later = new Thread(changeSequenceService::next);
+            later.start();
+            try {
+                later.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertEquals(taken[0] - 1, changeSequenceService.safeWatermark());
+        });
+        assertTrue(changeSequenceService.safeWatermark() >= taken[0]);
+    }
+
+    @Test
+    void instancesSharingTheCounterNeverHandOutTheSameSequence() throws InterruptedException {
+        // Three application instances against one database, taking numbers concurrently
+        List<ChangeSequenceService> instances = List.of(instance(), instance(), changeSequenceService);
+        Set<Long> taken = ConcurrentHashMap.newKeySet();
+        List<Long> duplicates = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 6; t++) {
+            ChangeSequenceService instance = instances.get(t % instances.size());
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 200; i++) {
+                        long first = i % 10 == 0 ? instance.reserve(3) : instance.next();
+                        for (long seq = first; seq < first + (i % 10 == 0 ? 3 : 1); seq++) {
+                            if (!taken.add(seq)) {
+                                synchronized (duplicates) {
+                                    duplicates.add(seq);
+                                }
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(duplicates.isEmpty(), duplicates.toString());
+        assertEquals(6 * (180 + 20 * 3), taken.size());
+    }
+
+    // Another application instance: same database, nothing shared in memory
+    private ChangeSequenceService instance() {
+        return new ChangeSequenceService(jdbcTemplate, shardRouter, 600000, transactionManager);
+    }
+}
@@ -0,0 +1,109 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.AssetType;
+import com.military.asset.model.Transfer;
+import com.military.asset.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class TransferFlowServiceTest {
+    @Autowired private TransferFlowService transferFlowService;
+    @Autowired private TransferService transferService;
+    @Autowired private IndexFixture fixture;
+
+    private final LocalDate day = LocalDate.of(2031, 5, 10);
+    private User admin;
+    private AssetType assetType;
+
+    @BeforeEach
+    void setUp() {
+        admin = fixture.admin();
+        assetType = fixture.assetType("Flow");
+    }
+
+    @Test
+    void matrixFollowsTheTransferLifecycle() {
+        Transfer approved = transfer(1L, 2L, day);
+        Transfer rejected = transfer(1L, 2L, day);
+        Transfer completed = transfer(2L, 3L, day.plusDays(1));
+        Transfer deleted = transfer(1L, 3L, day.plusDays(2));
+        transfer(3L, 1L, day.plusDays(30));
+
+        TransferFlowService.FlowMatrix all = flows(day, day.plusDays(30), TransferFlowService.DEFAULT_STATUSES);
+        assertEquals(List.of(1L, 2L, 3L), all.baseIds());
+        assertArrayEquals(new long[][] {{0, 2, 1}, {0, 0, 1}, {1, 0, 0}}, all.counts());
+        assertArrayEquals(new long[] {3, 1, 1}, all.outbound());
+        assertArrayEquals(new long[] {1, 2, 2}, all.inbound());
+        assertEquals(Map.of(assetType.getId(), 5L), all.byAssetType());
+        // A base keeps only the flows it sends or receives
+        TransferFlowService.FlowMatrix base2 = transferFlowService.flows(day, day.plusDays(30), 2L, assetType.getId(),
+            TransferFlowService.DEFAULT_STATUSES, true);
+        assertEquals(List.of(1L, 2L, 3L), base2.baseIds());
+        assertArrayEquals(new long[][] {{0, 2, 0}, {0, 0, 1}, {0, 0, 0}}, base2.counts());
+
+        transferService.approveTransfer(approved.getId(), admin);
+        transferService.rejectTransfer(rejected.getId(), admin);
+        transferService.approveTransfer(completed.getId(), admin);
+        transferService.completeTransfer(completed.getId(), admin);
+        transferService.deleteById(deleted.getId());
+
+        TransferFlowService.FlowMatrix window = flows(day, day.plusDays(2), TransferFlowService.DEFAULT_STATUSES);
+        assertEquals(List.of(1L, 2L, 3L), window.baseIds());
+        assertArrayEquals(new long[][] {{0, 1, 0}, {0, 0, 1}, {0, 0, 0}}, window.counts());
+        assertEquals(2, window.total());
+
+        TransferFlowService.FlowMatrix rejectedOnly = flows(day, day.plusDays(30), EnumSet.of(Transfer.TransferStatus.REJECTED));
+        assertEquals(List.of(1L, 2L), rejectedOnly.baseIds());
+        assertArrayEquals(new long[][] {{0, 1}, {0, 0}}, rejectedOnly.counts());
+        assertEquals(1, flows(day, day.plusDays(30), EnumSet.of(Transfer.TransferStatus.COMPLETED)).total());
+    }
+
+    @Test
+    void rebuildMatchesIncrementalUpdates() {
+        for (int i = 0; i < 12; i++) {
+            Transfer transfer = transfer(1L + i % 3, 1L + (i + 1) % 5, day.plusDays(i % 4));
+            if (i % 2 == 0) {
+                transferService.approveTransfer(transfer.getId(), admin);
+            }
+        }
+        EnumSet<Transfer.TransferStatus> statuses = EnumSet.allOf(Transfer.TransferStatus.class);
+        TransferFlowService.FlowMatrix incremental = flows(day, day.plusDays(3), statuses);
+
+        transferFlowService.rebuild();
+        TransferFlowService.FlowMatrix rebuilt = flows(day, day.plusDays(3), statuses);
+        assertEquals(incremental.baseIds(), rebuilt.baseIds());
+        assertArrayEquals(incremental.counts(), rebuilt.counts());
+        assertEquals(12, rebuilt.total());
+        assertEquals(6, flows(day, day.plusDays(3), EnumSet.of(Transfer.TransferStatus.APPROVED)).total());
+    }
+
+    private TransferFlowService.FlowMatrix flows(LocalDate from, LocalDate to, Set<Transfer.TransferStatus> statuses) {
+        return transferFlowService.flows(from, to, null, assetType.getId(), statuses, true);
+    }
+
+    private Transfer transfer(Long fromBaseId, Long toBaseId, LocalDate date) {
+        Asset asset = fixture.asset(assetType, fromBaseId, "ACTIVE");
+
+        Transfer transfer = new Transfer();
+        transfer.setAsset(asset);
+        transfer.setFromBase(asset.getBase());
+        transfer.setToBase(fixture.base(toBaseId));
+        transfer.setDate(date);
+        transfer.setReason("Flow test");
+        transfer.setCreatedBy(admin);
+        return transferService.save(transfer);
+    }
+}
@@ -0,0 +1,207 @@
+package com.military.asset.service;
+
+import com.military.asset.model.Asset;
+import com.military.asset.model.Base;
+import com.military.asset.model.Transfer;
+import com.military.asset.model.User;
+import com.military.asset.repository.AssetRepository;
+import com.military.asset.repository.AssetTypeRepository;
+import com.military.asset.repository.BaseRepository;
+import com.military.asset.repository.TransferRepository;
+import com.military.asset.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class TransferServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final AtomicInteger SERIALS = new AtomicInteger();
+
+    @Autowired private TransferService transferService;
+    @Autowired private TransferRepository transferRepository;
+    @Autowired private AssetRepository assetRepository;
+    @Autowired private AssetTypeRepository assetTypeRepository;
+    @Autowired private BaseRepository baseRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private User admin;
+    private Base fromBase;
+    private Base toBase;
+
+    @BeforeEach
+    void setUp() {
+        admin = userRepository.findByUsername("admin").orElseThrow();
+        fromBase = baseRepository.findById(1L).orElseThrow();
+        toBase = baseRepository.findById(2L).orElseThrow();
+    }
+
+    @Test
+    void concurrentApproveAndRejectHaveExactlyOneWinner() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            Long id = newTransfer().getId();
+            List<Callable<Transfer>> calls = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                calls.add(i % 2 == 0
+                    ? () -> transferService.approveTransfer(id, admin)
+                    : () -> transferService.rejectTransfer(id, admin));
+            }
+            List<Transfer> winners = race(calls);
+
+            assertEquals(1, winners.size());
+            Transfer stored = transferRepository.findById(id).orElseThrow();
+            assertEquals(winners.get(0).getStatus(), stored.getStatus());
+            assertEquals(1L, stored.getVersion());
+        }
+    }
+
+    @Test
+    void transitionsCommitInTheirOwnTransactionInsideACallers() {
+        // Joining the caller's transaction would tie the status change to it, and a lost compare-and-set would doom it
+        Long id = newTransfer().getId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transferService.approveTransfer(id, admin);
+            status.setRollbackOnly();
+        });
+        assertEquals(Transfer.TransferStatus.APPROVED, transferRepository.findById(id).orElseThrow().getStatus());
+    }
+
+    @Test
+    void concurrentCompletionMovesAssetExactlyOnce() throws Exception {
+        Transfer transfer = newTransfer();
+        transferService.approveTransfer(transfer.getId(), admin);
+
+        List<Callable<Transfer>> calls = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            calls.add(() -> transferService.completeTransfer(transfer.getId(), admin));
+        }
+        List<Transfer> winners = race(calls);
+
+        assertEquals(1, winners.size());
+        Transfer stored = transferRepository.findById(transfer.getId()).orElseThrow();
+        assertEquals(Transfer.TransferStatus.COMPLETED, stored.getStatus());
+        assertEquals(2L, stored.getVersion());
+        assertEquals(toBase.getId(), assetRepository.findById(transfer.getAsset().getId()).orElseThrow().getBase().getId());
+    }
+
+    @Test
+    void completionRollsBackWhenAssetLeftOriginBase() {
+        Transfer first = newTransfer();
+        Transfer second = new Transfer();
+        second.setAsset(first.getAsset());
+        second.setFromBase(fromBase);
+        second.setToBase(baseRepository.findById(3L).orElseThrow());
+        second.setDate(LocalDate.now());
+        second.setReason("Competing transfer");
+        second.setCreatedBy(admin);
+        second = transferRepository.save(second);
+
+        transferService.approveTransfer(first.getId(), admin);
+        transferService.approveTransfer(second.getId(), admin);
+        transferService.completeTransfer(first.getId(), admin);
+
+        Long secondId = second.getId();
+        assertThrows(IllegalStateException.class, () -> transferService.completeTransfer(secondId, admin));
+        assertEquals(Transfer.TransferStatus.APPROVED, transferRepository.findById(secondId).orElseThrow().getStatus());
+        assertEquals(toBase.getId(), assetRepository.findById(first.getAsset().getId()).orElseThrow().getBase().getId());
+    }
+
+    @Test
+    void editsOnlyWhilePendingAndSingleCreatesAreCheckedLikeBatches() {
+        Transfer transfer = newTransfer();
+        Long id = transfer.getId();
+        // A second open transfer for the asset, or one from a base the asset is not at, is refused
+        Base thirdBase = baseRepository.findById(3L).orElseThrow();
+        assertThrows(IllegalArgumentException.class, () -> transferService.create(copy(transfer, fromBase, thirdBase)));
+        assertThrows(IllegalArgumentException.class, () -> transferService.create(copy(transfer, toBase, fromBase)));
+
+        Transfer edit = copy(transfer, fromBase, thirdBase);
+        edit.setReason("Edited while pending");
+        Transfer edited = transferService.updatePending(id, edit);
+        assertEquals(3L, edited.getToBase().getId());
+        assertEquals("Edited while pending", edited.getReason());
+        assertEquals(1L, edited.getVersion());
+        assertThrows(IllegalArgumentException.class, () -> transferService.updatePending(id, copy(transfer, fromBase, fromBase)));
+
+        transferService.approveTransfer(id, admin);
+        assertThrows(IllegalStateException.class, () -> transferService.updatePending(id, copy(transfer, fromBase, toBase)));
+        Transfer stored = transferRepository.findById(id).orElseThrow();
+        assertEquals(Transfer.TransferStatus.APPROVED, stored.getStatus());
+        assertEquals(3L, stored.getToBase().getId());
+    }
+
+    private Transfer copy(Transfer transfer, Base from, Base to) {
+        Transfer copy = new Transfer();
+        copy.setAsset(transfer.getAsset());
+        copy.setFromBase(from);
+        copy.setToBase(to);
+        copy.setDate(transfer.getDate());
+        copy.setReason(transfer.getReason());
+        copy.setCreatedBy(admin);
+        return copy;
+    }
+
+    private List<Transfer> race(List<Callable<Transfer>> calls) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Transfer>> futures = new ArrayList<>();
+            for (Callable<Transfer> call : calls) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<Transfer> winners = new ArrayList<>();
+            for (Future<Transfer> future : futures) {
+                try {
+                    winners.add(future.get());
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof IllegalStateException)) {
+                        throw e;
+                    }
+                }
+            }
+            return winners;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Transfer newTransfer() {
+        Asset asset = new Asset();
+        asset.setSerialNumber("STRESS-" + SERIALS.incrementAndGet() + "-" + System.nanoTime());
+        asset.setStatus("ACTIVE");
+        asset.setAssetType(assetTypeRepository.findById(1L).orElseThrow());
+        asset.setBase(fromBase);
+        asset = assetRepository.save(asset);
+
+        Transfer transfer = new Transfer();
+        transfer.setAsset(asset);
+        transfer.setFromBase(fromBase);
+        transfer.setToBase(toBase);
+        transfer.setDate(LocalDate.now());
+        transfer.setReason("Concurrency test");
+        transfer.setCreatedBy(admin);
+        return transferRepository.save(transfer);
+    }
+}
@@ -11,6 +11,7 @@ const schema = yup.object({
   assetId: yup.number().required('Asset is required'),
   assignedToId: yup.number().required('Personnel is required'),
   assignmentDate: yup.string().required('Assignment date is required'),
+  returnDate: yup.string().default(''),
   notes: yup.string().default(''),
 }).required();
 
@@ -63,6 +64,8 @@ const Assignments: React.FC = () => {
         assetId: data.assetId,
         assignedToId: data.assignedToId,
         assignmentDate: data.assignmentDate,
+        // null clears a return date emptied on edit
+        returnDate: data.returnDate || null,
         notes: data.notes ?? "",
       };
       if (editingAssignment) {
@@ -87,6 +90,7 @@ const Assignments: React.FC = () => {
       assetId: assignment.asset.id,
       assignedToId: assignment.assignedTo.id,
       assignmentDate: assignment.assignmentDate.split('T')[0],
+      returnDate: assignment.returnDate ? assignment.returnDate.split('T')[0] : '',
       notes: assignment.notes || '',
     });
     setShowForm(true);
@@ -189,6 +193,10 @@ const Assignments: React.FC = () => {
                 <input {...register('assignmentDate')} type="date" className="input-field" />
                 {errors.assignmentDate && <p className="mt-1 text-sm text-red-600">{errors.assignmentDate.message}</p>}
               </div>
+              <div>
+                <label className="block text-sm font-medium text-military-700 mb-1">Expected Return Date</label>
+                <input {...register('returnDate')} type="date" className="input-field" />
+              </div>
             </div>
             <div>
               <label className="block text-sm font-medium text-military-700 mb-1">Notes</label>
@@ -100,7 +100,8 @@ export default function Dashboard({}: DashboardProps) {
   const statusData = [
     { name: 'Assigned', value: metrics?.assigned || 0, color: '#3b82f6' },
     { name: 'Expended', value: metrics?.expended || 0, color: '#ef4444' },
-    { name: 'Available', value: (metrics?.closingBalance || 0) - (metrics?.assigned || 0) - (metrics?.expended || 0), color: '#10b981' },
+    // Closing balance is already net of assignments and expenditures
+    { name: 'Available', value: metrics?.closingBalance || 0, color: '#10b981' },
   ];
 
   if (loading) {
@@ -192,7 +193,7 @@ export default function Dashboard({}: DashboardProps) {
             <div className="ml-4">
               <p className="text-sm font-medium text-gray-500">Opening Balance</p>
               <p className="text-2xl font-bold text-gray-900">
-                ${metrics?.openingBalance?.toLocaleString() || 0}
+                {metrics?.openingBalance?.toLocaleString() || 0}
               </p>
             </div>
           </div>
@@ -206,7 +207,7 @@ export default function Dashboard({}: DashboardProps) {
             <div className="ml-4">
               <p className="text-sm font-medium text-gray-500">Closing Balance</p>
               <p className="text-2xl font-bold text-gray-900">
-                ${metrics?.closingBalance?.toLocaleString() || 0}
+                {metrics?.closingBalance?.toLocaleString() || 0}
               </p>
             </div>
           </div>
@@ -223,7 +224,7 @@ export default function Dashboard({}: DashboardProps) {
             <div className="ml-4">
               <p className="text-sm font-medium text-gray-500">Net Movement</p>
               <p className="text-2xl font-bold text-gray-900">
-                ${metrics?.netMovement?.toLocaleString() || 0}
+                {metrics?.netMovement?.toLocaleString() || 0}
               </p>
               <p className="text-xs text-gray-500">Click for details</p>
             </div>
@@ -300,7 +301,7 @@ export default function Dashboard({}: DashboardProps) {
               <CartesianGrid strokeDasharray="3 3" />
               <XAxis dataKey="name" />
               <YAxis />
-              <Tooltip formatter={(value) => `$${value?.toLocaleString()}`} />
+              <Tooltip formatter={(value) => value?.toLocaleString()} />
               <Bar dataKey="value" fill="#3b82f6" />
             </BarChart>
           </ResponsiveContainer>
@@ -2,7 +2,7 @@ import React, { useState, useEffect } from 'react';
 import { useForm } from 'react-hook-form';
 import { yupResolver } from '@hookform/resolvers/yup';
 import * as yup from 'yup';
-import { PlusIcon, PencilIcon, TrashIcon, CheckIcon, XMarkIcon } from '@heroicons/react/24/outline';
+import { PlusIcon, PencilIcon, TrashIcon, CheckIcon, XMarkIcon, TruckIcon } from '@heroicons/react/24/outline';
 import type { Transfer, Asset, Base, FilterOptions } from '../types';
 import apiService from '../services/api';
 import toast from 'react-hot-toast';
@@ -130,6 +130,16 @@ const Transfers: React.FC = () => {
     }
   };
 
+  const handleComplete = async (id: number) => {
+    try {
+      await apiService.completeTransfer(id);
+      toast.success('Transfer completed');
+      loadData();
+    } catch (error) {
+      toast.error('Failed to complete transfer');
+    }
+  };
+
   const handleCancel = () => {
     reset();
     setShowForm(false);
@@ -265,6 +275,9 @@ const Transfers: React.FC = () => {
                           <button onClick={() => handleReject(transfer.id)} className="text-red-600 hover:text-red-900"><XMarkIcon className="h-4 w-4" /></button>
                         </>
                       )}
+                      {(user?.role === 'ADMIN' || user?.role === 'BASE_COMMANDER') && transfer.status === 'APPROVED' && (
+                        <button onClick={() => handleComplete(transfer.id)} className="text-green-600 hover:text-green-900"><TruckIcon className="h-4 w-4" /></button>
+                      )}
                       <button onClick={() => handleEdit(transfer)} className="text-primary-600 hover:text-primary-900"><PencilIcon className="h-4 w-4" /></button>
                       <button onClick={() => handleDelete(transfer.id)} className="text-red-600 hover:text-red-900"><TrashIcon className="h-4 w-4" /></button>
                     </div>
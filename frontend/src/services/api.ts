@@ -3,7 +3,7 @@ import type { AxiosInstance, AxiosResponse } from 'axios';
 import type { 
   User, Base, AssetType, Asset, Purchase, Transfer, Assignment, 
   Expenditure, AuditLog, AuthResponse, LoginRequest, RegisterRequest,
-  DashboardMetrics, FilterOptions 
+  DashboardMetrics, FilterOptions, SearchHit 
 } from '../types';
 
 const API_BASE_URL = 'http://localhost:8080/api';
@@ -78,6 +78,11 @@ class ApiService {
     return this.api.get('/dashboard/metrics', { params: filters });
   }
 
+  // Search endpoints
+  async search(q: string, limit = 10, types?: string[]): Promise<AxiosResponse<SearchHit[]>> {
+    return this.api.get('/search', { params: { q, limit, types: types?.join(',') } });
+  }
+
   // User endpoints
   async getCurrentUser(): Promise<AxiosResponse<User>> {
     return this.api.get('/users/me');
@@ -200,6 +205,10 @@ class ApiService {
     return this.api.post(`/transfers/${id}/reject`, { reason });
   }
 
+  async completeTransfer(id: number): Promise<AxiosResponse<Transfer>> {
+    return this.api.post(`/transfers/${id}/complete`);
+  }
+
   // Assignment endpoints
   async getAssignments(filters?: FilterOptions): Promise<AxiosResponse<Assignment[]>> {
     return this.api.get('/assignments', { params: filters });
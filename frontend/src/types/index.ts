@@ -72,7 +72,7 @@ export interface Assignment {
   assignedTo: User;
   assignedBy: User;
   assignmentDate: string;
-  returnDate?: string;
+  returnDate?: string | null;
   status: 'ACTIVE' | 'RETURNED' | 'EXPIRED';
   notes?: string;
   createdAt: string;
@@ -129,6 +129,13 @@ export interface DashboardMetrics {
   expended: number;
 }
 
+export interface SearchHit {
+  type: 'ASSET' | 'USER' | 'BASE' | 'SUPPLIER';
+  id: number | null;
+  field: string;
+  text: string;
+}
+
 export interface FilterOptions {
   dateFrom?: string;
   dateTo?: string;